@@ -0,0 +1,68 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.cart.model.Cart;
+import com.monolito.ecommerce.cart.model.ProductNameDictionary;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memoria por carrito, expandido vs compacto
+ *
+ * No es un benchmark JMH: llena un mapa como el de CartService con N carritos de
+ * 3 items, fuerza GC y mide el heap ocupado.
+ *
+ * USO (con -Xms igual a -Xmx para que el GC no distorsione la medición):
+ *   java -Xms4g -Xmx4g -cp ... com.monolito.ecommerce.bench.CartFootprint 5000000 cold
+ *   java -Xms4g -Xmx4g -cp ... com.monolito.ecommerce.bench.CartFootprint 1000000 hot
+ */
+public final class CartFootprint {
+
+    private static final int ITEMS_PER_CART = 3;
+    private static final int PRODUCTS = 1_000;
+
+    private CartFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int carts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        boolean cold = args.length > 1 && "cold".equalsIgnoreCase(args[1]);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        String[] names = new String[PRODUCTS];
+        BigDecimal[] prices = new BigDecimal[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            names[i] = "Producto " + i;
+            prices[i] = BigDecimal.valueOf(100 + i * 37L, 2);
+        }
+
+        long before = usedHeap(memory);
+        ConcurrentHashMap<Long, Cart> database = new ConcurrentHashMap<>();
+        ProductNameDictionary productNames = new ProductNameDictionary();
+        for (long userId = 1; userId <= carts; userId++) {
+            Cart cart = new Cart();
+            for (int i = 0; i < ITEMS_PER_CART; i++) {
+                int product = (int) ((userId * 31 + i * 7) % PRODUCTS);
+                cart.add((long) product, names[product], prices[product], 1 + i);
+            }
+            if (cold) {
+                cart.compact(productNames);
+            }
+            database.put(userId, cart);
+        }
+        long after = usedHeap(memory);
+
+        double perCart = (after - before) / (double) carts;
+        System.out.printf("%s: %,d carritos, %,d MB, %.1f bytes/carrito%n",
+                cold ? "compactos" : "expandidos", database.size(), (after - before) >> 20, perCart);
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,75 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.cart.service.CartExpiry;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CartService con CatalogClient en memoria (sin HTTP, sin persistencia ni vencimiento)
+ *
+ * - addToCart: usuario y producto al azar sobre carritos ya cargados
+ * - calculateTotal: lectura del total de un carrito de itemsPerCart productos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartServiceBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int PRODUCTS = 100;
+
+    @Param({"3", "20"})
+    public int itemsPerCart;
+
+    private CartService cartService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cartService = new CartService(new StubCatalogClient(PRODUCTS), CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        for (long userId = 1; userId <= USERS; userId++) {
+            for (int i = 0; i < itemsPerCart; i++) {
+                cartService.addToCart(userId, 1 + (userId + i) % PRODUCTS, 1);
+            }
+        }
+    }
+
+    @Benchmark
+    public CartItem addToCart() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return cartService.addToCart(1L + random.nextInt(USERS), 1L + random.nextInt(PRODUCTS), 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public CartItem addToCartContended() {
+        return addToCart();
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotal() {
+        return cartService.calculateTotal(1L + ThreadLocalRandom.current().nextInt(USERS));
+    }
+}
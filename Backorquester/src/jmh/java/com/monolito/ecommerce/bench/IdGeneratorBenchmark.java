@@ -0,0 +1,54 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.id.IdGeneratorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IDs por segundo de un nodo: SNOWFLAKE vs el contador SEQUENTIAL, con 1 y 8 hilos
+ *
+ * Por encima de 4096 IDs por milisegundo SNOWFLAKE toma prestados milisegundos futuros:
+ * una corrida larga a más de ~4 millones por segundo termina fallando por max-drift-ms (aquí 1 hora).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Param({"SNOWFLAKE", "SEQUENTIAL"})
+    public IdGeneratorType type;
+
+    private IdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = type.create(1, TimeUnit.HOURS.toMillis(1));
+    }
+
+    @Benchmark
+    public long singleThread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long eightThreads() {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,75 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.persistence.OrderStore;
+import com.monolito.ecommerce.order.persistence.OrderStoreEngine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Memoria por orden, OrderStore HEAP vs PACKED
+ *
+ * No es un benchmark JMH: guarda N órdenes de 3 items como las que arma el checkout
+ * (precios compartidos con el catálogo, subtotales y total nuevos), fuerza GC y mide
+ * el heap ocupado. No incluye el índice por usuario de OrderService.
+ *
+ * USO (con -Xms igual a -Xmx para que el GC no distorsione la medición):
+ *   java -Xms4g -Xmx4g -cp ... com.monolito.ecommerce.bench.OrderFootprint 2000000 heap
+ *   java -Xms4g -Xmx4g -cp ... com.monolito.ecommerce.bench.OrderFootprint 2000000 packed
+ */
+public final class OrderFootprint {
+
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final int PRODUCTS = 1_000;
+    private static final int USERS = 100_000;
+
+    private OrderFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        OrderStoreEngine engine = args.length > 1
+                ? OrderStoreEngine.valueOf(args[1].toUpperCase(Locale.ROOT))
+                : OrderStoreEngine.HEAP;
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        String[] names = new String[PRODUCTS];
+        BigDecimal[] prices = new BigDecimal[PRODUCTS];
+        for (int i = 0; i < PRODUCTS; i++) {
+            names[i] = "Producto " + i;
+            prices[i] = BigDecimal.valueOf(100 + i * 37L, 2);
+        }
+
+        long before = usedHeap(memory);
+        OrderStore store = engine.create();
+        for (long orderId = 1; orderId <= orders; orderId++) {
+            List<OrderItem> items = new ArrayList<>(ITEMS_PER_ORDER);
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+                int product = (int) ((orderId * 31 + i * 7) % PRODUCTS);
+                OrderItem item = new OrderItem((long) product, names[product], prices[product], 1 + i);
+                items.add(item);
+                total = total.add(item.getSubtotal());
+            }
+            store.put(new Order(orderId, 1 + orderId % USERS, items.stream().toList(), total));
+        }
+        long after = usedHeap(memory);
+
+        double perOrder = (after - before) / (double) orders;
+        System.out.printf("%s: %,d órdenes, %,d MB, %.1f bytes/orden%n",
+                engine, store.size(), (after - before) >> 20, perOrder);
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
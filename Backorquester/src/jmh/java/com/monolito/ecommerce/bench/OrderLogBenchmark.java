@@ -0,0 +1,126 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.persistence.FsyncPolicy;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WAL de órdenes: escrituras sostenidas por segundo y tiempo de replay
+ *
+ * - append: 16 hilos confirmando órdenes a la vez (group commit), por política de fsync
+ * - replay: reconstruir N órdenes desde el archivo, como al arrancar el servicio
+ */
+public class OrderLogBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class AppendState {
+
+        @Param({"NEVER", "INTERVAL", "ALWAYS"})
+        public FsyncPolicy fsync;
+
+        private final AtomicLong ids = new AtomicLong();
+        private Path file;
+        private OrderWriteAheadLog log;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Files.createTempFile("orders-append", ".wal");
+            log = new OrderWriteAheadLog(true, file.toString(), fsync, 100, 512, 30_000);
+            log.open(order -> { });
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            log.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReplayState {
+
+        @Param({"1000000", "10000000"})
+        public int orders;
+
+        private Path file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Files.createTempFile("orders-replay", ".wal");
+            OrderWriteAheadLog log = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.NEVER, 0, 4096, 30_000);
+            log.open(order -> { });
+
+            List<Order> chunk = new ArrayList<>(10_000);
+            for (long id = 1; id <= orders; id++) {
+                chunk.add(order(id));
+                if (chunk.size() == 10_000) {
+                    log.appendAll(chunk);
+                    chunk.clear();
+                }
+            }
+            log.appendAll(chunk);
+            log.close();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Threads(16)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+    public void append(AppendState state) {
+        state.log.append(order(state.ids.incrementAndGet()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+    public long replay(ReplayState state) {
+        long[] checksum = new long[1];
+        OrderWriteAheadLog log = new OrderWriteAheadLog(true, state.file.toString(), FsyncPolicy.NEVER, 0, 1, 30_000);
+        long replayed = log.open(order -> checksum[0] += order.getId());
+        log.close();
+        return replayed + checksum[0];
+    }
+
+    private static Order order(long id) {
+        List<OrderItem> items = List.of(
+                new OrderItem(1 + id % 100, "Producto " + (id % 100), new BigDecimal("19.99"), 1),
+                new OrderItem(101 + id % 100, "Producto " + (100 + id % 100), new BigDecimal("5.50"), 3));
+        return new Order(id, 1 + id % 10_000, items, new BigDecimal("36.49"));
+    }
+}
@@ -0,0 +1,89 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.cart.service.CartExpiry;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.persistence.OrderStoreEngine;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import com.monolito.ecommerce.order.service.OrderService;
+import com.monolito.ecommerce.order.service.OrderStatusBroadcaster;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Historial de órdenes de un usuario: índice por usuario vs recorrido completo
+ *
+ * scanAllOrders reproduce la implementación anterior (filtrar todas las órdenes por userId).
+ * Con engine=PACKED cada orden del historial se arma desde las columnas en cada lectura.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class OrderLookupBenchmark {
+
+    private static final int ORDERS_PER_USER = 10;
+
+    @Param({"10000", "1000000"})
+    public int orders;
+
+    @Param({"HEAP", "PACKED"})
+    public OrderStoreEngine engine;
+
+    private OrderService orderService;
+    private List<Order> allOrders;
+    private int users;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StubCatalogClient catalog = new StubCatalogClient(100);
+        CartService cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        orderService = new OrderService(cartService, catalog, engine.create(), IdGenerator.sequential(),
+                OrderWriteAheadLog.disabled(), OperationMetrics.disabled(), OrderStatusBroadcaster.disabled(), 256);
+
+        users = Math.max(1, orders / ORDERS_PER_USER);
+        for (int i = 0; i < orders; i++) {
+            long userId = 1 + (i % users);
+            cartService.addToCart(userId, 1 + (long) (i % 100), 1);
+            orderService.createOrder(userId);
+        }
+        allOrders = orderService.getAllOrders();
+    }
+
+    @Benchmark
+    public List<Order> indexedLookup() {
+        return orderService.getOrdersByUser(randomUser());
+    }
+
+    @Benchmark
+    public List<Order> scanAllOrders() {
+        Long userId = randomUser();
+        return allOrders.stream()
+                .filter(order -> order.getUserId().equals(userId))
+                .toList();
+    }
+
+    private Long randomUser() {
+        return 1L + ThreadLocalRandom.current().nextInt(users);
+    }
+}
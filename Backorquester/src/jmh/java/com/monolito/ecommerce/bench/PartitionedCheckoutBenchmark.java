@@ -0,0 +1,106 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.cart.service.CartExpiry;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.integration.FanOutExecutor;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.persistence.OrderStoreEngine;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import com.monolito.ecommerce.order.service.OrderService;
+import com.monolito.ecommerce.order.service.OrderStatusBroadcaster;
+import com.monolito.ecommerce.order.service.PartitionedCheckout;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agregar al carrito + checkout por segundo: locks (partitions=0) vs 1, 4, 16 y 64 particiones
+ *
+ * 64 clientes concurrentes, cada uno con su usuario. Con particiones el carrito, el checkout
+ * y el índice por usuario los lleva la partición del usuario.
+ * catalogLatencyMicros simula la espera de red del descuento de stock; con latencia las
+ * particiones la solapan (pipelining) en lugar de ocupar un hilo por checkout.
+ * Las órdenes se guardan en PACKED y se descartan en cada iteración.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(64)
+public class PartitionedCheckoutBenchmark {
+
+    private static final int PRODUCTS = 100;
+    private static final AtomicLong NEXT_USER = new AtomicLong();
+
+    @Param({"0", "1", "4", "16", "64"})
+    public int partitions;
+
+    @Param({"0", "200"})
+    public int catalogLatencyMicros;
+
+    private CartService cartService;
+    private OrderService orderService;
+    private FanOutExecutor fanOutExecutor;
+    private PartitionedCheckout checkout;
+
+    @State(Scope.Thread)
+    public static class Buyer {
+
+        long userId;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            userId = NEXT_USER.incrementAndGet();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        StubCatalogClient catalog = new StubCatalogClient(PRODUCTS, catalogLatencyMicros);
+        cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        orderService = new OrderService(cartService, catalog, OrderStoreEngine.PACKED.create(),
+                IdGenerator.sequential(), OrderWriteAheadLog.disabled(), OperationMetrics.disabled(),
+                OrderStatusBroadcaster.disabled(), 256);
+        fanOutExecutor = new FanOutExecutor(256);
+        checkout = new PartitionedCheckout(orderService, catalog, fanOutExecutor, OperationMetrics.disabled(),
+                partitions, 10_000, 30_000, 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        checkout.shutdown();
+        fanOutExecutor.shutdown();
+    }
+
+    @Benchmark
+    public Order checkout(Buyer buyer) {
+        long productId = 1L + ThreadLocalRandom.current().nextInt(PRODUCTS);
+        if (checkout.isEnabled()) {
+            checkout.addToCart(buyer.userId, productId, 1);
+            return checkout.createOrder(buyer.userId);
+        }
+        cartService.addToCart(buyer.userId, productId, 1);
+        return orderService.createOrder(buyer.userId);
+    }
+}
@@ -0,0 +1,74 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.product.model.Product;
+import com.monolito.ecommerce.product.service.ProductService;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductService del monolito (copia previa a catalog-service)
+ *
+ * - byCategory: filtro por categoría sobre todos los productos (10 categorías)
+ * - decreaseStock: método synchronized, con 1 y con 4 hilos compitiendo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int CATEGORIES = 10;
+
+    @Param({"1000", "100000"})
+    public int products;
+
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        productService = new ProductService(IdGenerator.sequential());
+        for (int i = 0; i < products; i++) {
+            productService.createProduct("Producto " + i, "Descripción " + i,
+                    BigDecimal.valueOf(1_000 + i, 2), Integer.MAX_VALUE, "Categoria" + (i % CATEGORIES));
+        }
+    }
+
+    @Benchmark
+    public List<Product> byCategory() {
+        return productService.getProductsByCategory("categoria" + ThreadLocalRandom.current().nextInt(CATEGORIES));
+    }
+
+    @Benchmark
+    public void decreaseStock() {
+        productService.decreaseStock(randomProduct(), 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void decreaseStockContended() {
+        productService.decreaseStock(randomProduct(), 1);
+    }
+
+    private Long randomProduct() {
+        return 1L + ThreadLocalRandom.current().nextInt(products);
+    }
+}
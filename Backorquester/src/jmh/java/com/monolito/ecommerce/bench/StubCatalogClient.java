@@ -0,0 +1,62 @@
+package com.monolito.ecommerce.bench;
+
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.integration.catalog.StockAdjustment;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * CatalogClient en memoria para benchmarks: sin HTTP, stock ilimitado salvo que se indique.
+ * Con stockLatencyMicros > 0 el descuento de stock simula la espera de red de catalog-service.
+ */
+public class StubCatalogClient extends CatalogClient {
+
+    private final Map<Long, ProductSnapshot> products = new ConcurrentHashMap<>();
+    private final long stockLatencyNanos;
+
+    public StubCatalogClient(int productCount) {
+        this(productCount, 0);
+    }
+
+    public StubCatalogClient(int productCount, long stockLatencyMicros) {
+        super(null, "http://catalog.bench", null, 0, null, null);
+        this.stockLatencyNanos = TimeUnit.MICROSECONDS.toNanos(stockLatencyMicros);
+        for (long id = 1; id <= productCount; id++) {
+            ProductSnapshot product = new ProductSnapshot();
+            product.setId(id);
+            product.setName("Producto " + id);
+            product.setPrice(BigDecimal.valueOf(1_000 + id, 2));
+            product.setStock(Integer.MAX_VALUE);
+            products.put(id, product);
+        }
+    }
+
+    @Override
+    public ProductSnapshot getProductById(Long productId) {
+        return products.get(productId);
+    }
+
+    @Override
+    public List<ProductSnapshot> decreaseStock(List<StockAdjustment> adjustments) {
+        if (stockLatencyNanos > 0) {
+            LockSupport.parkNanos(stockLatencyNanos);
+        }
+        List<ProductSnapshot> updated = new ArrayList<>(adjustments.size());
+        for (StockAdjustment adjustment : adjustments) {
+            updated.add(products.get(adjustment.getProductId()));
+        }
+        return updated;
+    }
+
+    @Override
+    public List<ProductSnapshot> increaseStock(List<StockAdjustment> adjustments) {
+        return decreaseStock(adjustments);
+    }
+}
@@ -0,0 +1,284 @@
+package com.monolito.ecommerce.loadtest;
+
+import com.monolito.ecommerce.EcommerceMonolitoApplication;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga de order-service
+ *
+ * - Levanta catalog-service y auth-service falsos (StubDownstreams) y order-service real
+ *   (Spring Boot completo, puerto aleatorio) apuntando a ellos
+ * - concurrency hilos en lazo cerrado: cada uno elige un usuario al azar y hace
+ *   agregar al carrito, ver carrito o checkout según las proporciones configuradas
+ * - Latencias en HdrHistogram por operación (solo después del warmup)
+ * - Promedio por operación del header Server-Timing: tiempo propio de order-service (app)
+ *   contra tiempo en catalog-service y auth-service
+ * - Con loadtest.max-p99-ms > 0 termina con código 1 si alguna operación lo supera
+ *
+ * Lazo cerrado: si el servicio se frena, también baja la carga ofrecida; comparar
+ * corridas con la misma configuración, no contra un objetivo de peticiones por segundo.
+ */
+public final class LoadHarness {
+
+    enum Operation {
+        ADD_TO_CART, VIEW_CART, CHECKOUT
+    }
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        boolean passed;
+
+        try (StubDownstreams stubs = new StubDownstreams(settings);
+             ConfigurableApplicationContext orderService = startOrderService(stubs)) {
+            int port = orderService.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            SecretKey key = Keys.hmacShaKeyFor(
+                    orderService.getEnvironment().getRequiredProperty("auth.jwt.secret").getBytes(StandardCharsets.UTF_8));
+
+            String[] tokens = new String[settings.users() + 1];
+            for (int userId = 1; userId <= settings.users(); userId++) {
+                tokens[userId] = Jwts.builder()
+                        .subject(String.valueOf(userId))
+                        .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                        .signWith(key)
+                        .compact();
+            }
+
+            System.out.printf("%nPrueba de carga: %d hilos, %d s (+%d s warmup), %d usuarios, %d productos%n",
+                    settings.concurrency(), settings.durationSeconds(), settings.warmupSeconds(),
+                    settings.users(), settings.products());
+            System.out.printf("catalog: %d ms + %d ms jitter, %.1f%% errores | auth: %d ms + %d ms jitter, %.1f%% errores%n",
+                    settings.catalogLatencyMs(), settings.catalogJitterMs(), settings.catalogErrorRate() * 100,
+                    settings.authLatencyMs(), settings.authJitterMs(), settings.authErrorRate() * 100);
+
+            List<Worker> workers = run(settings, "http://127.0.0.1:" + port, tokens);
+            passed = report(settings, workers, stubs);
+        }
+
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static ConfigurableApplicationContext startOrderService(StubDownstreams stubs) {
+        // Como argumentos de línea de comandos: pisan a application.properties
+        return new SpringApplicationBuilder(EcommerceMonolitoApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.com.monolito.ecommerce=WARN",
+                "--services.catalog.base-url=" + stubs.catalogBaseUrl(),
+                "--services.auth.base-url=" + stubs.authBaseUrl());
+    }
+
+    private static List<Worker> run(LoadSettings settings, String baseUrl, String[] tokens) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+
+        List<Worker> workers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            Worker worker = new Worker(settings, client, baseUrl, tokens, measureFrom, end);
+            Thread thread = new Thread(worker, "load-" + i);
+            workers.add(worker);
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return workers;
+    }
+
+    private static boolean report(LoadSettings settings, List<Worker> workers, StubDownstreams stubs) {
+        boolean passed = true;
+        long totalOk = 0;
+
+        System.out.printf("%n%-12s %10s %8s %8s %10s %9s %9s %9s %9s %9s %9s%n",
+                "operación", "total", "4xx", "errores", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms",
+                "app ms", "otros ms");
+        for (Operation operation : Operation.values()) {
+            Histogram latencies = new Histogram(3);
+            long clientErrors = 0;
+            long errors = 0;
+            double[] serverTiming = new double[3];
+            for (Worker worker : workers) {
+                latencies.add(worker.latencies.get(operation));
+                clientErrors += worker.clientErrors.get(operation)[0];
+                errors += worker.errors.get(operation)[0];
+                for (int i = 0; i < serverTiming.length; i++) {
+                    serverTiming[i] += worker.serverTiming.get(operation)[i];
+                }
+            }
+            double timed = Math.max(1, serverTiming[2]);
+
+            long total = latencies.getTotalCount();
+            double p99 = millis(latencies.getValueAtPercentile(99));
+            System.out.printf("%-12s %10d %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    operation, total, clientErrors, errors, total / (double) settings.durationSeconds(),
+                    millis(latencies.getValueAtPercentile(50)), p99,
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()),
+                    serverTiming[0] / timed, serverTiming[1] / timed);
+            totalOk += total - clientErrors - errors;
+
+            if (settings.maxP99Ms() > 0 && total > 0 && p99 > settings.maxP99Ms()) {
+                System.out.printf("  p99 de %s (%.2f ms) supera loadtest.max-p99-ms=%.2f%n", operation, p99, settings.maxP99Ms());
+                passed = false;
+            }
+        }
+
+        System.out.printf("%nexitosas: %.1f req/s | llamadas a catalog: %d | a auth: %d | errores inyectados: %d%n",
+                totalOk / (double) settings.durationSeconds(), stubs.catalogRequests(), stubs.authRequests(),
+                stubs.injectedErrors());
+        return passed;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * Un hilo de carga; guarda sus propias latencias y contadores (se suman al final)
+     */
+    private static final class Worker implements Runnable {
+
+        private final LoadSettings settings;
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String[] tokens;
+        private final long measureFrom;
+        private final long end;
+
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, long[]> clientErrors = new EnumMap<>(Operation.class);
+        private final Map<Operation, long[]> errors = new EnumMap<>(Operation.class);
+        // Server-Timing: {ms app, ms otros servicios, respuestas con el header}
+        private final Map<Operation, double[]> serverTiming = new EnumMap<>(Operation.class);
+
+        private Worker(LoadSettings settings, HttpClient client, String baseUrl, String[] tokens,
+                       long measureFrom, long end) {
+            this.settings = settings;
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.tokens = tokens;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            for (Operation operation : Operation.values()) {
+                latencies.put(operation, new Histogram(3));
+                clientErrors.put(operation, new long[1]);
+                errors.put(operation, new long[1]);
+                serverTiming.put(operation, new double[3]);
+            }
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                int userId = 1 + random.nextInt(settings.users());
+                double dice = random.nextDouble();
+                Operation operation = dice < settings.checkoutRatio() ? Operation.CHECKOUT
+                        : dice < settings.checkoutRatio() + settings.cartReadRatio() ? Operation.VIEW_CART
+                        : Operation.ADD_TO_CART;
+
+                HttpResponse<Void> response = execute(request(operation, userId, random));
+                long elapsed = System.nanoTime() - now;
+                if (now < measureFrom) {
+                    continue;
+                }
+
+                int status = response != null ? response.statusCode() : -1;
+                latencies.get(operation).recordValue(elapsed);
+                if (response != null) {
+                    response.headers().firstValue("Server-Timing")
+                            .ifPresent(header -> addServerTiming(serverTiming.get(operation), header));
+                }
+                if (status >= 400 && status < 500) {
+                    clientErrors.get(operation)[0]++;
+                } else if (status < 200 || status >= 300) {
+                    errors.get(operation)[0]++;
+                }
+            }
+        }
+
+        private HttpRequest request(Operation operation, int userId, ThreadLocalRandom random) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder()
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + tokens[userId])
+                    .header("Content-Type", "application/json");
+            return switch (operation) {
+                case ADD_TO_CART -> {
+                    long productId = random.nextDouble() < settings.hotProductRatio()
+                            ? 1 : 1 + random.nextInt(settings.products());
+                    String body = "{\"userId\":" + userId + ",\"productId\":" + productId
+                            + ",\"quantity\":" + (1 + random.nextInt(3)) + "}";
+                    yield builder.uri(URI.create(baseUrl + "/api/cart/add"))
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                }
+                case VIEW_CART -> builder.uri(URI.create(baseUrl + "/api/cart/" + userId)).GET().build();
+                case CHECKOUT -> builder.uri(URI.create(baseUrl + "/api/orders"))
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":" + userId + "}"))
+                        .build();
+            };
+        }
+
+        private HttpResponse<Void> execute(HttpRequest request) {
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.discarding());
+            } catch (IOException ex) {
+                return null;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        /**
+         * "total;dur=12.40, app;dur=3.10, catalog-service;dur=9.30;desc=..." -> app y resto sin total
+         */
+        private static void addServerTiming(double[] sums, String header) {
+            for (String entry : header.split(",")) {
+                String[] parts = entry.trim().split(";");
+                String name = parts[0];
+                for (int i = 1; i < parts.length; i++) {
+                    if (!parts[i].startsWith("dur=") || name.equals("total")) {
+                        continue;
+                    }
+                    double millis = Double.parseDouble(parts[i].substring("dur=".length()));
+                    sums[name.equals("app") ? 0 : 1] += millis;
+                }
+            }
+            sums[2]++;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.monolito.ecommerce.loadtest;
+
+/**
+ * Parámetros de la prueba de carga, leídos de propiedades del sistema loadtest.*
+ * (mvn -Ploadtest test-compile exec:java -Dloadtest.concurrency=64 ...)
+ */
+public record LoadSettings(
+        int durationSeconds,
+        int warmupSeconds,
+        int concurrency,
+        int users,
+        int products,
+        double checkoutRatio,
+        double cartReadRatio,
+        double hotProductRatio,
+        long initialStock,
+        long catalogLatencyMs,
+        long catalogJitterMs,
+        double catalogErrorRate,
+        long authLatencyMs,
+        long authJitterMs,
+        double authErrorRate,
+        double maxP99Ms) {
+
+    public static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                intProperty("duration-seconds", 30),
+                intProperty("warmup-seconds", 5),
+                intProperty("concurrency", 32),
+                intProperty("users", 1_000),
+                intProperty("products", 200),
+                doubleProperty("checkout-ratio", 0.10),
+                doubleProperty("cart-read-ratio", 0.20),
+                doubleProperty("hot-product-ratio", 0.20),
+                longProperty("initial-stock", 1_000_000_000L),
+                longProperty("catalog.latency-ms", 5),
+                longProperty("catalog.jitter-ms", 5),
+                doubleProperty("catalog.error-rate", 0.0),
+                longProperty("auth.latency-ms", 2),
+                longProperty("auth.jitter-ms", 2),
+                doubleProperty("auth.error-rate", 0.0),
+                doubleProperty("max-p99-ms", 0));
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static long longProperty(String name, long defaultValue) {
+        return Long.parseLong(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        return Double.parseDouble(System.getProperty("loadtest." + name, String.valueOf(defaultValue)));
+    }
+}
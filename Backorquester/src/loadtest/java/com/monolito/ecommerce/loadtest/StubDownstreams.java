@@ -0,0 +1,213 @@
+package com.monolito.ecommerce.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * catalog-service y auth-service falsos, embebidos en el proceso de la prueba de carga
+ *
+ * - Un HttpServer del JDK con las mismas rutas y formato de respuesta (ApiResponse / ErrorResponse)
+ *   que usan CatalogClient y AuthClient
+ * - Latencia inyectada: latencyMs + [0, jitterMs) por petición
+ * - Errores inyectados: errorRate de las peticiones responde 500
+ * - Stock en memoria; el descuento por lote es todo o nada como en catalog-service
+ */
+public class StubDownstreams implements AutoCloseable {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final LoadSettings settings;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final AtomicLongArray stock;
+    private final Object stockLock = new Object();
+
+    private final LongAdder catalogRequests = new LongAdder();
+    private final LongAdder authRequests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    public StubDownstreams(LoadSettings settings) throws IOException {
+        this.settings = settings;
+        this.stock = new AtomicLongArray(settings.products() + 1);
+        for (int id = 1; id <= settings.products(); id++) {
+            stock.set(id, settings.initialStock());
+        }
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.handlers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-downstream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(handlers);
+        server.createContext("/api/products", this::handleCatalog);
+        server.createContext("/api/users", this::handleAuth);
+        server.start();
+    }
+
+    public String catalogBaseUrl() {
+        return baseUrl() + "/api/products";
+    }
+
+    public String authBaseUrl() {
+        return baseUrl() + "/api/users";
+    }
+
+    public long catalogRequests() {
+        return catalogRequests.sum();
+    }
+
+    public long authRequests() {
+        return authRequests.sum();
+    }
+
+    public long injectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    private String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handleCatalog(HttpExchange exchange) throws IOException {
+        catalogRequests.increment();
+        try (exchange) {
+            if (injectFault(settings.catalogLatencyMs(), settings.catalogJitterMs(), settings.catalogErrorRate())) {
+                writeError(exchange, 500, "Error inyectado");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath().substring("/api/products".length());
+            String method = exchange.getRequestMethod();
+            if ("GET".equals(method) && path.matches("/\\d+")) {
+                long id = Long.parseLong(path.substring(1));
+                if (!exists(id)) {
+                    writeError(exchange, 404, "Producto con ID " + id + " no encontrado");
+                    return;
+                }
+                writeData(exchange, product(id));
+            } else if ("POST".equals(method) && path.equals("/stock/decrease")) {
+                adjustStock(exchange, -1);
+            } else if ("POST".equals(method) && path.equals("/stock/increase")) {
+                adjustStock(exchange, 1);
+            } else if ("PUT".equals(method) && path.matches("/\\d+/stock")) {
+                long id = Long.parseLong(path.substring(1, path.indexOf("/stock")));
+                String query = exchange.getRequestURI().getQuery();
+                stock.set((int) id, Long.parseLong(query.substring(query.indexOf('=') + 1)));
+                writeData(exchange, product(id));
+            } else {
+                writeError(exchange, 404, "Ruta no encontrada");
+            }
+        }
+    }
+
+    private void handleAuth(HttpExchange exchange) throws IOException {
+        authRequests.increment();
+        try (exchange) {
+            if (injectFault(settings.authLatencyMs(), settings.authJitterMs(), settings.authErrorRate())) {
+                writeError(exchange, 500, "Error inyectado");
+                return;
+            }
+            String id = exchange.getRequestURI().getPath().substring("/api/users/".length());
+            writeData(exchange, JSON.createObjectNode().put("id", Long.parseLong(id)).put("username", "user" + id));
+        }
+    }
+
+    private void adjustStock(HttpExchange exchange, int sign) throws IOException {
+        JsonNode items = JSON.readTree(exchange.getRequestBody()).path("items");
+        List<JsonNode> products = new ArrayList<>();
+        synchronized (stockLock) {
+            for (JsonNode item : items) {
+                long id = item.path("productId").asLong();
+                if (!exists(id)) {
+                    writeError(exchange, 404, "Producto con ID " + id + " no encontrado");
+                    return;
+                }
+                if (sign < 0 && stock.get((int) id) < item.path("quantity").asLong()) {
+                    writeError(exchange, 400, "Stock insuficiente para Producto " + id);
+                    return;
+                }
+            }
+            for (JsonNode item : items) {
+                long id = item.path("productId").asLong();
+                stock.addAndGet((int) id, sign * item.path("quantity").asLong());
+                products.add(product(id));
+            }
+        }
+        writeData(exchange, products);
+    }
+
+    private boolean exists(long id) {
+        return id >= 1 && id <= settings.products();
+    }
+
+    private JsonNode product(long id) {
+        return JSON.createObjectNode()
+                .put("id", id)
+                .put("name", "Producto " + id)
+                .put("price", BigDecimal.valueOf(1_000 + id * 25, 2))
+                .put("stock", stock.get((int) id));
+    }
+
+    private boolean injectFault(long latencyMs, long jitterMs, double errorRate) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (errorRate > 0 && random.nextDouble() < errorRate) {
+            injectedErrors.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void writeData(HttpExchange exchange, Object data) throws IOException {
+        write(exchange, 200, JSON.createObjectNode()
+                .put("success", true)
+                .put("message", "Operación exitosa")
+                .set("data", JSON.valueToTree(data)));
+    }
+
+    private void writeError(HttpExchange exchange, int status, String message) throws IOException {
+        write(exchange, status, JSON.createObjectNode()
+                .put("status", status)
+                .put("message", message)
+                .put("timestamp", "2024-01-01T00:00:00"));
+    }
+
+    private void write(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = JSON.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
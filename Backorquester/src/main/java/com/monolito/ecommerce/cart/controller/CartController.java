@@ -3,16 +3,15 @@ package com.monolito.ecommerce.cart.controller;
 import com.monolito.ecommerce.cart.model.AddToCartRequest;
 import com.monolito.ecommerce.cart.model.CartItem;
 import com.monolito.ecommerce.cart.model.CartResponse;
+import com.monolito.ecommerce.cart.model.CartSnapshot;
 import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.order.service.PartitionedCheckout;
 import com.monolito.ecommerce.shared.dto.ApiResponse;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.util.List;
-
 /**
  * Controlador REST de Carrito
  *
@@ -21,15 +20,20 @@ import java.util.List;
  * GET /api/cart/{userId} - Obtener carrito del usuario
  * DELETE /api/cart/{userId} - Vaciar carrito
  * DELETE /api/cart/{userId}/item/{productId} - Eliminar item del carrito
+ *
+ * Con orders.checkout.partitions > 0 los carritos los guarda la partición de cada usuario
+ * (PartitionedCheckout) en lugar de CartService.
  */
 @RestController
 @RequestMapping("/api/cart")
 public class CartController {
 
     private final CartService cartService;
+    private final PartitionedCheckout partitionedCheckout;
 
-    public CartController(CartService cartService) {
+    public CartController(CartService cartService, PartitionedCheckout partitionedCheckout) {
         this.cartService = cartService;
+        this.partitionedCheckout = partitionedCheckout;
     }
 
     /**
@@ -41,10 +45,9 @@ public class CartController {
             @RequestBody AddToCartRequest request,
             Authentication authentication) {
         Long authenticatedUserId = getAuthenticatedUserId(authentication);
-        CartItem item = cartService.addToCart(
-                authenticatedUserId,
-                request.getProductId(),
-                request.getQuantity());
+        CartItem item = partitionedCheckout.isEnabled()
+                ? partitionedCheckout.addToCart(authenticatedUserId, request.getProductId(), request.getQuantity())
+                : cartService.addToCart(authenticatedUserId, request.getProductId(), request.getQuantity());
 
         return ResponseEntity.ok(ApiResponse.success("Producto agregado al carrito", item));
     }
@@ -62,10 +65,11 @@ public class CartController {
             throw new AccessDeniedException("No tienes permisos para acceder al carrito de otro usuario");
         }
 
-        List<CartItem> items = cartService.getCart(authenticatedUserId);
-        BigDecimal total = cartService.calculateTotal(authenticatedUserId);
+        CartSnapshot snapshot = partitionedCheckout.isEnabled()
+                ? partitionedCheckout.getCartSnapshot(authenticatedUserId)
+                : cartService.getCartSnapshot(authenticatedUserId);
 
-        CartResponse response = new CartResponse(authenticatedUserId, items, total);
+        CartResponse response = new CartResponse(authenticatedUserId, snapshot);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -82,7 +86,11 @@ public class CartController {
             throw new AccessDeniedException("No tienes permisos para vaciar el carrito de otro usuario");
         }
 
-        cartService.clearCart(authenticatedUserId);
+        if (partitionedCheckout.isEnabled()) {
+            partitionedCheckout.clearCart(authenticatedUserId);
+        } else {
+            cartService.clearCart(authenticatedUserId);
+        }
         return ResponseEntity.ok(ApiResponse.success("Carrito vaciado", null));
     }
 
@@ -100,7 +108,11 @@ public class CartController {
             throw new AccessDeniedException("No tienes permisos para modificar el carrito de otro usuario");
         }
 
-        cartService.removeFromCart(authenticatedUserId, productId);
+        if (partitionedCheckout.isEnabled()) {
+            partitionedCheckout.removeFromCart(authenticatedUserId, productId);
+        } else {
+            cartService.removeFromCart(authenticatedUserId, productId);
+        }
         return ResponseEntity.ok(ApiResponse.success("Producto eliminado del carrito", null));
     }
 
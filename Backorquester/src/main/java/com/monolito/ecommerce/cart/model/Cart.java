@@ -0,0 +1,232 @@
+package com.monolito.ecommerce.cart.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carrito de un usuario
+ *
+ * ESTRUCTURA:
+ * - Items indexados por productId (búsqueda O(1), orden de inserción preservado)
+ * - Total y cantidad de unidades se actualizan en cada cambio (lectura O(1))
+ *
+ * CARRITOS FRÍOS:
+ * - compact(names) reemplaza los objetos por un byte[] con IDs, cantidades y precios
+ *   primitivos (ver PackedCartItems); lo decide CartExpiry según la inactividad
+ * - Las lecturas de un carrito frío se decodifican al vuelo sin cambiar su forma;
+ *   la primera modificación lo vuelve a expandir
+ *
+ * CONCURRENCIA:
+ * - Todos los métodos son synchronized: un lector nunca ve un total que no
+ *   corresponda con los items
+ * - Nunca se exponen los CartItem internos, solo copias
+ */
+public class Cart {
+
+    // Forma expandida (null mientras el carrito está frío)
+    private Map<Long, CartItem> items = new LinkedHashMap<>();
+    private BigDecimal total = BigDecimal.ZERO;
+
+    // Forma compacta y el diccionario de sus nombres (null mientras el carrito está expandido)
+    private byte[] packed;
+    private ProductNameDictionary names;
+
+    private int totalItems;
+
+    // Último uso (ms monotónicos, ver CartExpiry): no necesita el lock del carrito
+    private volatile long lastAccessMs;
+
+    // CartExpiry ya tiene programada una revisión para compactarlo
+    private boolean compactionScheduled;
+
+    public void touch(long nowMs) {
+        lastAccessMs = nowMs;
+    }
+
+    public long getLastAccessMs() {
+        return lastAccessMs;
+    }
+
+    public synchronized CartItem getItem(Long productId) {
+        if (packed != null) {
+            return PackedCartItems.find(packed, productId, names);
+        }
+        CartItem item = items.get(productId);
+        return item != null ? copyOf(item) : null;
+    }
+
+    public synchronized int quantityOf(Long productId) {
+        CartItem item = packed != null ? PackedCartItems.find(packed, productId, names) : items.get(productId);
+        return item != null ? item.getQuantity() : 0;
+    }
+
+    /**
+     * Sumar unidades de un producto (lo agrega si no estaba).
+     * Si el producto ya estaba, conserva el precio con el que se agregó.
+     */
+    public synchronized CartItem add(Long productId, String productName, BigDecimal price, int quantity) {
+        expand();
+        CartItem item = items.get(productId);
+        if (item == null) {
+            item = new CartItem(productId, productName, price, quantity);
+            items.put(productId, item);
+            total = total.add(item.getSubtotal());
+        } else {
+            BigDecimal previousSubtotal = item.getSubtotal();
+            item.setQuantity(item.getQuantity() + quantity);
+            total = total.add(item.getSubtotal()).subtract(previousSubtotal);
+        }
+        totalItems += quantity;
+        return copyOf(item);
+    }
+
+    /**
+     * Quitar unidades de un producto; si llega a cero, el item desaparece
+     */
+    public synchronized void subtract(Long productId, int quantity) {
+        expand();
+        CartItem item = items.get(productId);
+        if (item == null) {
+            return;
+        }
+
+        int remaining = item.getQuantity() - quantity;
+        if (remaining <= 0) {
+            remove(productId);
+            return;
+        }
+
+        BigDecimal previousSubtotal = item.getSubtotal();
+        item.setQuantity(remaining);
+        total = total.add(item.getSubtotal()).subtract(previousSubtotal);
+        totalItems -= quantity;
+    }
+
+    /**
+     * Dejar un producto con exactamente esa cantidad (0 lo quita).
+     * Usado al restaurar carritos desde disco.
+     */
+    public synchronized void setItem(Long productId, String productName, BigDecimal price, int quantity) {
+        remove(productId);
+        if (quantity > 0) {
+            add(productId, productName, price, quantity);
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        expand();
+        CartItem item = items.remove(productId);
+        if (item != null) {
+            total = total.subtract(item.getSubtotal());
+            totalItems -= item.getQuantity();
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        // Solo se compactan carritos con items
+        return packed == null && items.isEmpty();
+    }
+
+    public synchronized BigDecimal getTotal() {
+        if (packed == null) {
+            return total;
+        }
+        BigDecimal sum = BigDecimal.ZERO;
+        for (CartItem item : PackedCartItems.decode(packed, names)) {
+            sum = sum.add(item.getSubtotal());
+        }
+        return sum;
+    }
+
+    public synchronized int getTotalItems() {
+        return totalItems;
+    }
+
+    public synchronized List<CartItem> getItems() {
+        if (packed != null) {
+            return PackedCartItems.decode(packed, names);
+        }
+        List<CartItem> copies = new ArrayList<>(items.size());
+        for (CartItem item : items.values()) {
+            copies.add(copyOf(item));
+        }
+        return copies;
+    }
+
+    /**
+     * Foto consistente de items, total y cantidad tomada bajo el mismo lock
+     */
+    public synchronized CartSnapshot snapshot() {
+        List<CartItem> current = getItems();
+        if (packed == null) {
+            return new CartSnapshot(current, total, totalItems);
+        }
+        BigDecimal sum = BigDecimal.ZERO;
+        for (CartItem item : current) {
+            sum = sum.add(item.getSubtotal());
+        }
+        return new CartSnapshot(current, sum, totalItems);
+    }
+
+    /**
+     * Pasar a la forma compacta. Devuelve false si ya lo estaba o si algún precio
+     * no entra en la forma compacta (el carrito queda expandido).
+     */
+    public synchronized boolean compact(ProductNameDictionary dictionary) {
+        if (packed != null || items.isEmpty()) {
+            return false;
+        }
+        byte[] encoded = PackedCartItems.encode(items.values(), dictionary);
+        if (encoded == null) {
+            return false;
+        }
+        packed = encoded;
+        names = dictionary;
+        items = null;
+        total = null;
+        return true;
+    }
+
+    public synchronized boolean isCompact() {
+        return packed != null;
+    }
+
+    /**
+     * Marcar que hay una revisión de compactación programada.
+     * Devuelve false si ya había una (para no programarla dos veces).
+     */
+    public synchronized boolean markCompactionScheduled() {
+        if (compactionScheduled) {
+            return false;
+        }
+        compactionScheduled = true;
+        return true;
+    }
+
+    public synchronized void clearCompactionScheduled() {
+        compactionScheduled = false;
+    }
+
+    private void expand() {
+        if (packed == null) {
+            return;
+        }
+        Map<Long, CartItem> expanded = new LinkedHashMap<>();
+        BigDecimal sum = BigDecimal.ZERO;
+        for (CartItem item : PackedCartItems.decode(packed, names)) {
+            expanded.put(item.getProductId(), item);
+            sum = sum.add(item.getSubtotal());
+        }
+        items = expanded;
+        total = sum;
+        packed = null;
+        names = null;
+    }
+
+    private static CartItem copyOf(CartItem item) {
+        return new CartItem(item.getProductId(), item.getProductName(), item.getPrice(), item.getQuantity());
+    }
+}
@@ -1,5 +1,7 @@
 package com.monolito.ecommerce.cart.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 import java.math.BigDecimal;
 
 /**
@@ -9,6 +11,7 @@ import java.math.BigDecimal;
  */
 public class CartItem {
     
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long productId;
     private String productName;
     private BigDecimal price;
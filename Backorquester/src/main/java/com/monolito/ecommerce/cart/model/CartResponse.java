@@ -1,5 +1,7 @@
 package com.monolito.ecommerce.cart.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 import java.math.BigDecimal;
 import java.util.List;
 
@@ -8,6 +10,7 @@ import java.util.List;
  */
 public class CartResponse {
     
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long userId;
     private List<CartItem> items;
     private Integer totalItems;
@@ -23,6 +26,13 @@ public class CartResponse {
         this.total = total;
     }
 
+    public CartResponse(Long userId, CartSnapshot snapshot) {
+        this.userId = userId;
+        this.items = snapshot.getItems();
+        this.totalItems = snapshot.getTotalItems();
+        this.total = snapshot.getTotal();
+    }
+
     // Getters y Setters
     public Long getUserId() {
         return userId;
@@ -0,0 +1,38 @@
+package com.monolito.ecommerce.cart.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Contenido del carrito en un instante: items, total y unidades son coherentes entre sí
+ */
+public class CartSnapshot {
+
+    public static final CartSnapshot EMPTY = new CartSnapshot(List.of(), BigDecimal.ZERO, 0);
+
+    private final List<CartItem> items;
+    private final BigDecimal total;
+    private final int totalItems;
+
+    public CartSnapshot(List<CartItem> items, BigDecimal total, int totalItems) {
+        this.items = List.copyOf(items);
+        this.total = total;
+        this.totalItems = totalItems;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+}
@@ -0,0 +1,77 @@
+package com.monolito.ecommerce.cart.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Forma compacta de los items de un carrito frío
+ *
+ * Un byte[] por carrito, 25 bytes por item:
+ *   productId (long) | cantidad (int) | precio sin escala (long) | escala (byte) | nombre (int)
+ *
+ * - El precio se guarda como entero + escala (19.99 -> 1999, 2): exacto, sin BigDecimal
+ * - Los nombres de producto se repiten entre millones de carritos: se guardan una sola
+ *   vez en el ProductNameDictionary del CartService y el carrito guarda solo su código
+ */
+final class PackedCartItems {
+
+    private static final int ITEM_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES + 1 + Integer.BYTES;
+    private PackedCartItems() {
+    }
+
+    /**
+     * Codificar los items; null si algún precio no entra en un long con escala de un byte
+     */
+    static byte[] encode(Collection<CartItem> items, ProductNameDictionary names) {
+        ByteBuffer buffer = ByteBuffer.allocate(items.size() * ITEM_BYTES);
+        for (CartItem item : items) {
+            BigDecimal price = item.getPrice();
+            if (price.scale() < 0 || price.scale() > Byte.MAX_VALUE || price.unscaledValue().bitLength() > 63) {
+                return null;
+            }
+            buffer.putLong(item.getProductId());
+            buffer.putInt(item.getQuantity());
+            buffer.putLong(price.unscaledValue().longValue());
+            buffer.put((byte) price.scale());
+            buffer.putInt(names.codeFor(item.getProductName()));
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Items nuevos (no compartidos con el carrito) en el orden original
+     */
+    static List<CartItem> decode(byte[] packed, ProductNameDictionary names) {
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        List<CartItem> items = new ArrayList<>(packed.length / ITEM_BYTES);
+        while (buffer.hasRemaining()) {
+            items.add(read(buffer, names));
+        }
+        return items;
+    }
+
+    static CartItem find(byte[] packed, Long productId, ProductNameDictionary names) {
+        ByteBuffer buffer = ByteBuffer.wrap(packed);
+        for (int offset = 0; offset < packed.length; offset += ITEM_BYTES) {
+            if (buffer.getLong(offset) == productId) {
+                buffer.position(offset);
+                return read(buffer, names);
+            }
+        }
+        return null;
+    }
+
+    private static CartItem read(ByteBuffer buffer, ProductNameDictionary names) {
+        long productId = buffer.getLong();
+        int quantity = buffer.getInt();
+        long unscaled = buffer.getLong();
+        int scale = buffer.get();
+        int nameCode = buffer.getInt();
+        BigDecimal price = new BigDecimal(BigInteger.valueOf(unscaled), scale);
+        return new CartItem(productId, names.nameOf(nameCode), price, quantity);
+    }
+}
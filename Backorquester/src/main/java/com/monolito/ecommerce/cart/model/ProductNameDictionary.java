@@ -0,0 +1,43 @@
+package com.monolito.ecommerce.cart.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diccionario de nombres de producto de los carritos compactos de un CartService
+ *
+ * - Cada nombre distinto se guarda una vez y el carrito compacto guarda solo su código
+ * - Crece con los productos distintos, no con los carritos; vive lo que vive su CartService
+ * - Lista y mapa simples bajo el lock del diccionario: solo se usa al compactar y al
+ *   decodificar un carrito frío, nunca en el camino de un carrito expandido
+ */
+public final class ProductNameDictionary {
+
+    static final int NO_NAME = -1;
+
+    private final Map<String, Integer> codesByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    synchronized int codeFor(String name) {
+        if (name == null) {
+            return NO_NAME;
+        }
+        Integer code = codesByName.get(name);
+        if (code == null) {
+            code = names.size();
+            names.add(name);
+            codesByName.put(name, code);
+        }
+        return code;
+    }
+
+    synchronized String nameOf(int code) {
+        return code == NO_NAME ? null : names.get(code);
+    }
+
+    public synchronized int size() {
+        return names.size();
+    }
+}
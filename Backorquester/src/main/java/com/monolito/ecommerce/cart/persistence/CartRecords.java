@@ -0,0 +1,176 @@
+package com.monolito.ecommerce.cart.persistence;
+
+import com.monolito.ecommerce.cart.model.Cart;
+import com.monolito.ecommerce.cart.model.CartItem;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binario de snapshot y journal de carritos
+ *
+ * JOURNAL: [int largo][int CRC32C][payload], payload = tipo + userId + datos.
+ *   Cada registro guarda el estado FINAL del item (no el delta), así que reproducir
+ *   un registro dos veces, o sobre un snapshot que ya lo incluye, da el mismo resultado.
+ *
+ * SNAPSHOT: magic, versión, segmento de journal desde el que hay que reproducir,
+ *   los carritos (userId, items) y al final el CRC32C de todo lo anterior.
+ */
+final class CartRecords {
+
+    static final int SNAPSHOT_MAGIC = 0x43415254;
+    static final int SNAPSHOT_VERSION = 1;
+    static final long END_OF_CARTS = -1L;
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+    static final int MAX_PAYLOAD_BYTES = 1024 * 1024;
+
+    private static final byte ITEM = 1;
+    private static final byte CLEAR = 2;
+
+    private CartRecords() {
+    }
+
+    /**
+     * Registro de journal: el producto quedó con esta cantidad (0 = eliminado)
+     */
+    static byte[] item(long userId, long productId, int quantity, BigDecimal price, String productName) {
+        byte[] unscaled = price != null ? price.unscaledValue().toByteArray() : new byte[0];
+        byte[] name = productName != null ? productName.getBytes(StandardCharsets.UTF_8) : null;
+        int payloadSize = 1 + Long.BYTES * 2 + Integer.BYTES
+                + Integer.BYTES + 1 + unscaled.length
+                + Integer.BYTES + (name != null ? name.length : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadSize);
+        buffer.position(HEADER_BYTES);
+        buffer.put(ITEM);
+        buffer.putLong(userId);
+        buffer.putLong(productId);
+        buffer.putInt(quantity);
+        buffer.putInt(price != null ? price.scale() : 0);
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+        buffer.putInt(name != null ? name.length : -1);
+        if (name != null) {
+            buffer.put(name);
+        }
+        return seal(buffer, payloadSize);
+    }
+
+    /**
+     * Registro de journal: el carrito del usuario se vació
+     */
+    static byte[] clear(long userId) {
+        int payloadSize = 1 + Long.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadSize);
+        buffer.position(HEADER_BYTES);
+        buffer.put(CLEAR);
+        buffer.putLong(userId);
+        return seal(buffer, payloadSize);
+    }
+
+    /**
+     * Aplicar un payload de journal ya validado sobre los carritos
+     */
+    static void apply(ByteBuffer payload, Map<Long, Cart> carts) {
+        byte type = payload.get();
+        long userId = payload.getLong();
+        if (type == CLEAR) {
+            carts.remove(userId);
+            return;
+        }
+
+        long productId = payload.getLong();
+        int quantity = payload.getInt();
+        int scale = payload.getInt();
+        byte[] unscaled = new byte[payload.get() & 0xFF];
+        payload.get(unscaled);
+        int nameLength = payload.getInt();
+        String name = null;
+        if (nameLength >= 0) {
+            byte[] nameBytes = new byte[nameLength];
+            payload.get(nameBytes);
+            name = new String(nameBytes, StandardCharsets.UTF_8);
+        }
+
+        BigDecimal price = unscaled.length > 0 ? new BigDecimal(new BigInteger(unscaled), scale) : BigDecimal.ZERO;
+        Cart cart = carts.computeIfAbsent(userId, id -> new Cart());
+        cart.setItem(productId, name, price, quantity);
+        if (cart.isEmpty()) {
+            carts.remove(userId);
+        }
+    }
+
+    static int checksum(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    static void writeCart(DataOutputStream out, long userId, Iterable<CartItem> items, int itemCount) throws IOException {
+        out.writeLong(userId);
+        out.writeInt(itemCount);
+        for (CartItem item : items) {
+            out.writeLong(item.getProductId());
+            out.writeInt(item.getQuantity());
+            writeDecimal(out, item.getPrice());
+            if (item.getProductName() == null) {
+                out.writeInt(-1);
+            } else {
+                byte[] name = item.getProductName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+        }
+    }
+
+    /**
+     * Leer un carrito del snapshot (el userId ya fue leído)
+     */
+    static Cart readCart(DataInputStream in) throws IOException {
+        Cart cart = new Cart();
+        int itemCount = in.readInt();
+        for (int i = 0; i < itemCount; i++) {
+            long productId = in.readLong();
+            int quantity = in.readInt();
+            BigDecimal price = readDecimal(in);
+            int nameLength = in.readInt();
+            String name = null;
+            if (nameLength >= 0) {
+                byte[] nameBytes = new byte[nameLength];
+                in.readFully(nameBytes);
+                name = new String(nameBytes, StandardCharsets.UTF_8);
+            }
+            cart.add(productId, name, price, quantity);
+        }
+        return cart;
+    }
+
+    private static byte[] seal(ByteBuffer buffer, int payloadSize) {
+        byte[] record = buffer.array();
+        buffer.putInt(0, payloadSize);
+        buffer.putInt(Integer.BYTES, checksum(record, HEADER_BYTES, payloadSize));
+        return record;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
@@ -0,0 +1,441 @@
+package com.monolito.ecommerce.cart.persistence;
+
+import com.monolito.ecommerce.cart.model.Cart;
+import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.model.CartSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistencia de carritos: snapshot periódico + journal de cambios
+ *
+ * - Cada cambio de un carrito se encola con el estado final del item en una cola sin locks:
+ *   CartService lo registra dentro de su compute (así los registros de un mismo usuario
+ *   quedan en el orden en que se aplicaron) sin tomar ningún lock ni tocar el disco
+ * - Un solo hilo pasa la cola al journal cada journal-flush-ms y hace fsync del segmento
+ * - En segundo plano se escribe un snapshot binario de todos los carritos sin frenar
+ *   las escrituras: primero se rota el journal a un segmento nuevo y después se recorren
+ *   los carritos. Lo que cambie durante el recorrido queda en el segmento nuevo, y como
+ *   los registros son estados finales, reproducirlos sobre el snapshot es seguro
+ * - Al arrancar: se carga el snapshot y se reproducen los segmentos posteriores
+ * - Un corte de luz pierde los cambios de la última ventana de journal-flush-ms (todavía
+ *   en la cola o sin fsync) y los que se acumularon si el disco se atrasa; un deploy
+ *   (SIGTERM) no pierde nada: close() escribe un snapshot y vacía la cola
+ * - Deshabilitado por defecto (carts.persistence.enabled=false)
+ */
+@Component
+public class CartStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartStore.class);
+    private static final String SNAPSHOT_FILE = "carts.snapshot";
+    private static final String SEGMENT_PREFIX = "carts-journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int JOURNAL_BUFFER_BYTES = 64 * 1024;
+    private static final int STREAM_BUFFER_BYTES = 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long snapshotIntervalSeconds;
+    private final long journalFlushMs;
+
+    private final Queue<byte[]> pendingRecords = new ConcurrentLinkedQueue<>();
+    private final Object journalLock = new Object();
+    private final ByteBuffer journalBuffer = ByteBuffer.allocate(JOURNAL_BUFFER_BYTES);
+    private FileChannel journal;
+    private long segment;
+
+    private Map<Long, Cart> carts;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean open;
+
+    public CartStore(
+            @Value("${carts.persistence.enabled:false}") boolean enabled,
+            @Value("${carts.persistence.directory:data/carts}") String directory,
+            @Value("${carts.persistence.snapshot-interval-seconds:60}") long snapshotIntervalSeconds,
+            @Value("${carts.persistence.journal-flush-ms:200}") long journalFlushMs) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+        this.journalFlushMs = journalFlushMs;
+    }
+
+    /**
+     * Persistencia apagada (pruebas y benchmarks en memoria)
+     */
+    public static CartStore disabled() {
+        return new CartStore(false, "carts", 0, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Restaurar los carritos dentro del mapa recibido y empezar a registrar cambios.
+     * El mapa se conserva para los snapshots siguientes. Devuelve cuántos carritos hay.
+     */
+    public synchronized int open(Map<Long, Cart> carts) {
+        if (!enabled || open) {
+            return 0;
+        }
+
+        this.carts = carts;
+        try {
+            Files.createDirectories(directory);
+            long startedAt = System.nanoTime();
+
+            long firstSegment = loadSnapshot(carts);
+            List<Long> segments = segmentsFrom(firstSegment);
+            for (long existing : segments) {
+                replaySegment(segmentPath(existing), carts);
+            }
+
+            // Nunca se agrega a un segmento viejo (puede terminar en un registro a medias)
+            segment = segments.isEmpty() ? firstSegment : segments.get(segments.size() - 1) + 1;
+            journal = openSegment(segment);
+
+            LOGGER.info("Carritos restaurados desde {}: {} carritos en {} ms",
+                    directory, carts.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudieron restaurar los carritos desde " + directory, ex);
+        }
+
+        open = true;
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "cart-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, journalFlushMs, journalFlushMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly,
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        return carts.size();
+    }
+
+    /**
+     * Registrar el estado final de un item (cantidad 0 = eliminado)
+     */
+    public void recordItem(Long userId, Long productId, CartItem item) {
+        if (!open) {
+            return;
+        }
+        byte[] record = item != null
+                ? CartRecords.item(userId, productId, item.getQuantity(), item.getPrice(), item.getProductName())
+                : CartRecords.item(userId, productId, 0, null, null);
+        append(record);
+    }
+
+    /**
+     * Registrar que el carrito del usuario se vació
+     */
+    public void recordClear(Long userId) {
+        if (open) {
+            append(CartRecords.clear(userId));
+        }
+    }
+
+    /**
+     * Escribir un snapshot de todos los carritos y borrar los segmentos de journal que ya cubre
+     */
+    public void snapshot() throws IOException {
+        if (!open) {
+            return;
+        }
+
+        synchronized (this) {
+            long startedAt = System.nanoTime();
+            long replayFrom = rotate();
+
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            int written = 0;
+            CRC32C crc = new CRC32C();
+            try (OutputStream file = Files.newOutputStream(temporary)) {
+                // El buffer va antes del CRC: así se calcula por bloques y no byte a byte
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new CheckedOutputStream(file, crc), STREAM_BUFFER_BYTES));
+                out.writeInt(CartRecords.SNAPSHOT_MAGIC);
+                out.writeInt(CartRecords.SNAPSHOT_VERSION);
+                out.writeLong(replayFrom);
+                for (Map.Entry<Long, Cart> entry : carts.entrySet()) {
+                    CartSnapshot cart = entry.getValue().snapshot();
+                    if (cart.isEmpty()) {
+                        continue;
+                    }
+                    CartRecords.writeCart(out, entry.getKey(), cart.getItems(), cart.getItems().size());
+                    written++;
+                }
+                out.writeLong(CartRecords.END_OF_CARTS);
+                out.flush();
+                file.write(ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue()).array());
+            }
+
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            for (long old : segmentsFrom(0)) {
+                if (old < replayFrom) {
+                    Files.deleteIfExists(segmentPath(old));
+                }
+            }
+
+            LOGGER.debug("Snapshot de carritos: {} carritos en {} ms",
+                    written, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+    }
+
+    /**
+     * Escribir en el journal los cambios encolados y forzarlos a disco
+     */
+    public void flush() throws IOException {
+        synchronized (journalLock) {
+            if (open) {
+                drainJournal();
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+
+        scheduler.shutdownNow();
+        try {
+            // Un snapshot al apagar deja el próximo arranque sin journal que reproducir
+            snapshot();
+        } catch (IOException ex) {
+            LOGGER.warn("No se pudo escribir el snapshot de carritos al apagar", ex);
+        }
+
+        open = false;
+        synchronized (journalLock) {
+            try {
+                drainJournal();
+                journal.close();
+            } catch (IOException ex) {
+                LOGGER.warn("Error cerrando el journal de carritos", ex);
+            }
+        }
+    }
+
+    private void append(byte[] record) {
+        pendingRecords.offer(record);
+    }
+
+    /**
+     * Cerrar el segmento actual y abrir el siguiente. Devuelve el número del nuevo.
+     * Lo encolado hasta aquí queda en el segmento viejo; lo que llegue después, en el nuevo.
+     */
+    private long rotate() throws IOException {
+        synchronized (journalLock) {
+            drainJournal();
+            journal.close();
+            segment++;
+            journal = openSegment(segment);
+            return segment;
+        }
+    }
+
+    /**
+     * Pasar la cola al segmento actual en bloques de JOURNAL_BUFFER_BYTES y hacer fsync.
+     * Si falla la escritura, los registros ya sacados de la cola se pierden: el carrito
+     * en memoria ya cambió, se pierde durabilidad, no la operación.
+     */
+    private void drainJournal() throws IOException {
+        boolean wrote = false;
+        byte[] record;
+        while ((record = pendingRecords.poll()) != null) {
+            if (journalBuffer.remaining() < record.length) {
+                flushBuffer();
+            }
+            if (record.length > journalBuffer.capacity()) {
+                writeFully(ByteBuffer.wrap(record));
+            } else {
+                journalBuffer.put(record);
+            }
+            wrote = true;
+        }
+        if (wrote) {
+            flushBuffer();
+            journal.force(false);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        journalBuffer.flip();
+        writeFully(journalBuffer);
+        journalBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException ex) {
+            LOGGER.error("No se pudo volcar el journal de carritos", ex);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.error("No se pudo escribir el snapshot de carritos", ex);
+        }
+    }
+
+    /**
+     * Cargar el snapshot si existe. Devuelve el primer segmento de journal a reproducir.
+     */
+    private long loadSnapshot(Map<Long, Cart> carts) throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        verifyChecksum(file);
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), STREAM_BUFFER_BYTES))) {
+            if (in.readInt() != CartRecords.SNAPSHOT_MAGIC || in.readInt() != CartRecords.SNAPSHOT_VERSION) {
+                throw new IOException("Snapshot de carritos con formato desconocido: " + file);
+            }
+            long replayFrom = in.readLong();
+
+            long userId = in.readLong();
+            while (userId != CartRecords.END_OF_CARTS) {
+                carts.put(userId, CartRecords.readCart(in));
+                userId = in.readLong();
+            }
+            return replayFrom;
+        }
+    }
+
+    /**
+     * Comparar el CRC32C del contenido con el que está guardado en los últimos 8 bytes
+     */
+    private static void verifyChecksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long contentSize = channel.size() - Long.BYTES;
+            if (contentSize < 0) {
+                throw new IOException("Snapshot de carritos truncado: " + file);
+            }
+
+            CRC32C crc = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(STREAM_BUFFER_BYTES);
+            long remaining = contentSize;
+            while (remaining > 0) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new IOException("Snapshot de carritos truncado: " + file);
+                }
+                buffer.flip();
+                crc.update(buffer);
+                remaining -= read;
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer) < 0) {
+                    throw new IOException("Snapshot de carritos truncado: " + file);
+                }
+            }
+            if (trailer.getLong(0) != crc.getValue()) {
+                throw new IOException("Snapshot de carritos corrupto (CRC): " + file);
+            }
+        }
+    }
+
+    /**
+     * Reproducir un segmento hasta el final o hasta el primer registro incompleto o corrupto
+     */
+    private static void replaySegment(Path file, Map<Long, Cart> carts) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), STREAM_BUFFER_BYTES);
+             DataInputStream in = new DataInputStream(raw)) {
+            byte[] payload = new byte[256];
+            while (true) {
+                int payloadSize;
+                int checksum;
+                try {
+                    payloadSize = in.readInt();
+                    checksum = in.readInt();
+                    if (payloadSize <= 0 || payloadSize > CartRecords.MAX_PAYLOAD_BYTES) {
+                        LOGGER.warn("Journal de carritos {}: registro inválido, se ignora el resto", file);
+                        return;
+                    }
+                    if (payload.length < payloadSize) {
+                        payload = new byte[Math.max(payloadSize, payload.length * 2)];
+                    }
+                    in.readFully(payload, 0, payloadSize);
+                } catch (EOFException ex) {
+                    return;
+                }
+
+                if (CartRecords.checksum(payload, 0, payloadSize) != checksum) {
+                    LOGGER.warn("Journal de carritos {}: registro corrupto, se ignora el resto", file);
+                    return;
+                }
+                CartRecords.apply(ByteBuffer.wrap(payload, 0, payloadSize), carts);
+            }
+        }
+    }
+
+    private List<Long> segmentsFrom(long first) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(
+                            SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .filter(number -> number >= first)
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private FileChannel openSegment(long number) throws IOException {
+        return FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
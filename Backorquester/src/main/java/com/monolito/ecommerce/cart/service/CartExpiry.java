@@ -0,0 +1,296 @@
+package com.monolito.ecommerce.cart.service;
+
+import com.monolito.ecommerce.cart.model.Cart;
+import com.monolito.ecommerce.cart.model.ProductNameDictionary;
+import com.monolito.ecommerce.shared.concurrency.TimingWheel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Vencimiento de carritos inactivos y tope de carritos en memoria
+ *
+ * TTL POR INACTIVIDAD (carts.expiry.idle-ttl-ms):
+ * - Cada carrito entra UNA vez en una TimingWheel con vencimiento último uso + TTL
+ * - Usarlo solo actualiza su marca de tiempo (sin tocar la rueda)
+ * - Cuando su casillero vence: si estuvo inactivo todo el TTL se elimina; si no,
+ *   se reprograma para lo que le falta. Nunca se recorren todos los carritos
+ *
+ * CARRITOS FRÍOS (carts.tiering.cold-after-ms, 0 = nunca):
+ * - Cada carrito tiene además UNA entrada de compactación en la misma rueda, con
+ *   vencimiento último uso + cold-after-ms
+ * - Cuando vence: si se usó mientras tanto se reprograma para lo que le falta; si no,
+ *   pasa a la forma compacta (Cart.compact) con el diccionario de nombres de su CartService
+ * - Usar un carrito compacto lo vuelve a programar; la primera modificación lo expande
+ *
+ * TOPE (carts.expiry.max-carts, 0 = sin tope):
+ * - Al superarlo se expulsa el carrito usado hace más tiempo (LRU)
+ * - El orden LRU es un LinkedHashMap en orden de acceso bajo un lock propio;
+ *   solo se mantiene si el tope está activo
+ * - created y removed se llaman dentro del compute de CartService que crea o quita el
+ *   carrito: el LRU nunca guarda un carrito distinto del que está en el mapa
+ */
+@Component
+public class CartExpiry implements MeterBinder {
+
+    /**
+     * Quita un carrito solo si la condición se cumple dentro del compute de CartService
+     * (que también llama a removed en ese mismo compute)
+     */
+    @FunctionalInterface
+    public interface Evictor {
+        boolean evictIf(Long userId, Predicate<Cart> condition);
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CartExpiry.class);
+    private static final int WHEEL_SIZE = 512;
+
+    private final long idleTtlMs;
+    private final long coldAfterMs;
+    private final int maxCarts;
+    private final long tickMs;
+    private final LongSupplier clock;
+    private final boolean autoTick;
+
+    private final TimingWheel<Tracked> wheel;
+    private final LinkedHashMap<Long, Cart> lru = new LinkedHashMap<>(16, 0.75f, true);
+    private final Object lruLock = new Object();
+
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    private Map<Long, Cart> carts = Map.of();
+    private Evictor evictor;
+    private ProductNameDictionary productNames;
+    private ScheduledExecutorService ticker;
+
+    @Autowired
+    public CartExpiry(
+            @Value("${carts.expiry.idle-ttl-ms:604800000}") long idleTtlMs,
+            @Value("${carts.tiering.cold-after-ms:600000}") long coldAfterMs,
+            @Value("${carts.expiry.max-carts:0}") int maxCarts,
+            @Value("${carts.expiry.tick-ms:1000}") long tickMs) {
+        this(idleTtlMs, coldAfterMs, maxCarts, tickMs, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()), true);
+    }
+
+    CartExpiry(long idleTtlMs, long coldAfterMs, int maxCarts, long tickMs, LongSupplier clock, boolean autoTick) {
+        this.idleTtlMs = idleTtlMs;
+        this.coldAfterMs = coldAfterMs;
+        this.maxCarts = maxCarts;
+        this.tickMs = tickMs;
+        this.clock = clock;
+        this.autoTick = autoTick;
+        this.wheel = new TimingWheel<>(tickMs, WHEEL_SIZE, clock.getAsLong());
+    }
+
+    /**
+     * Sin TTL ni tope (pruebas y benchmarks)
+     */
+    public static CartExpiry disabled() {
+        return new CartExpiry(0, 0, 0, 1000, () -> 0L, false);
+    }
+
+    /**
+     * Empezar a vigilar los carritos del mapa (incluidos los ya restaurados desde disco)
+     */
+    public synchronized void start(Map<Long, Cart> carts, Evictor evictor, ProductNameDictionary productNames) {
+        this.carts = carts;
+        this.evictor = evictor;
+        this.productNames = productNames;
+        carts.forEach(this::created);
+        enforceCap();
+
+        if (autoTick && (idleTtlMs > 0 || coldAfterMs > 0) && ticker == null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cart-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(this::tickQuietly, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Carrito nuevo (se llama dentro del compute que lo crea)
+     */
+    public void created(Long userId, Cart cart) {
+        long now = clock.getAsLong();
+        cart.touch(now);
+        if (idleTtlMs > 0) {
+            wheel.schedule(new Tracked(userId, cart, false), now + idleTtlMs);
+        }
+        scheduleCompaction(userId, cart, now);
+        if (maxCarts > 0) {
+            synchronized (lruLock) {
+                lru.put(userId, cart);
+            }
+        }
+    }
+
+    /**
+     * Carrito usado (lectura o escritura)
+     */
+    public void touched(Long userId, Cart cart) {
+        long now = clock.getAsLong();
+        cart.touch(now);
+        scheduleCompaction(userId, cart, now);
+        if (maxCarts > 0) {
+            synchronized (lruLock) {
+                lru.get(userId);
+            }
+        }
+    }
+
+    /**
+     * Carrito quitado del mapa por CartService (vaciado o comprado)
+     */
+    public void removed(Long userId) {
+        if (maxCarts > 0) {
+            synchronized (lruLock) {
+                lru.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * Expulsar los carritos menos usados hasta volver al tope (fuera de cualquier compute)
+     */
+    public void enforceCap() {
+        if (maxCarts <= 0) {
+            return;
+        }
+
+        while (carts.size() > maxCarts) {
+            Long userId;
+            Cart expected;
+            synchronized (lruLock) {
+                Iterator<Map.Entry<Long, Cart>> oldest = lru.entrySet().iterator();
+                if (!oldest.hasNext()) {
+                    return;
+                }
+                Map.Entry<Long, Cart> eldest = oldest.next();
+                userId = eldest.getKey();
+                expected = eldest.getValue();
+            }
+
+            // evictIf lo quita también del LRU dentro del compute
+            if (evictor.evictIf(userId, cart -> cart == expected)) {
+                evictions.increment();
+            } else {
+                synchronized (lruLock) {
+                    lru.remove(userId, expected);
+                }
+            }
+        }
+    }
+
+    /**
+     * Avanzar la rueda hasta ahora. Devuelve cuántos carritos vencieron.
+     */
+    public int tick() {
+        long before = expirations.sum();
+        wheel.advance(clock.getAsLong(), this::onDeadline);
+        return (int) (expirations.sum() - before);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("carts.live", this, expiry -> expiry.carts.size())
+                .description("Carritos en memoria")
+                .register(registry);
+        FunctionCounter.builder("carts.expired", expirations, LongAdder::sum)
+                .description("Carritos eliminados por inactividad")
+                .register(registry);
+        FunctionCounter.builder("carts.evicted", evictions, LongAdder::sum)
+                .description("Carritos expulsados por superar el tope (LRU)")
+                .register(registry);
+        FunctionCounter.builder("carts.compacted", compactions, LongAdder::sum)
+                .description("Carritos inactivos pasados a la forma compacta")
+                .register(registry);
+    }
+
+    private void scheduleCompaction(Long userId, Cart cart, long now) {
+        if (coldAfterMs > 0 && cart.markCompactionScheduled()) {
+            wheel.schedule(new Tracked(userId, cart, true), now + coldAfterMs);
+        }
+    }
+
+    private void onDeadline(Tracked tracked) {
+        if (carts.get(tracked.userId) != tracked.cart) {
+            // Ya se vació o se reemplazó: su entrada en la rueda muere aquí
+            return;
+        }
+        if (tracked.compaction) {
+            onColdDeadline(tracked);
+            return;
+        }
+
+        long now = clock.getAsLong();
+        if (now - tracked.cart.getLastAccessMs() < idleTtlMs) {
+            wheel.schedule(tracked, tracked.cart.getLastAccessMs() + idleTtlMs);
+            return;
+        }
+
+        // Se vuelve a comprobar dentro del compute: un uso concurrente lo salva
+        boolean expired = evictor.evictIf(tracked.userId, cart -> cart == tracked.cart
+                && clock.getAsLong() - cart.getLastAccessMs() >= idleTtlMs);
+        if (expired) {
+            expirations.increment();
+        } else if (carts.get(tracked.userId) == tracked.cart) {
+            wheel.schedule(tracked, tracked.cart.getLastAccessMs() + idleTtlMs);
+        }
+    }
+
+    private void onColdDeadline(Tracked tracked) {
+        Cart cart = tracked.cart;
+        cart.clearCompactionScheduled();
+
+        long idleMs = clock.getAsLong() - cart.getLastAccessMs();
+        if (idleMs < coldAfterMs) {
+            scheduleCompaction(tracked.userId, cart, cart.getLastAccessMs());
+            return;
+        }
+
+        // La forma no cambia el contenido: no hace falta el compute de CartService
+        if (cart.compact(productNames)) {
+            compactions.increment();
+        }
+    }
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (RuntimeException ex) {
+            LOGGER.error("Error venciendo carritos inactivos", ex);
+        }
+    }
+
+    private record Tracked(Long userId, Cart cart, boolean compaction) {
+    }
+}
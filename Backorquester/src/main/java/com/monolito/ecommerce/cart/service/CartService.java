@@ -1,127 +1,309 @@
 package com.monolito.ecommerce.cart.service;
 
+import com.monolito.ecommerce.cart.model.Cart;
 import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.model.CartSnapshot;
+import com.monolito.ecommerce.cart.model.ProductNameDictionary;
+import com.monolito.ecommerce.cart.persistence.CartStore;
 import com.monolito.ecommerce.integration.catalog.CatalogClient;
 import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
 import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * Servicio de Carrito de Compras
  *
  * ALMACENAMIENTO EN MEMORIA:
- * - Map<userId, List<CartItem>>
- * - Cada usuario tiene su propia lista de items
+ * - Map<userId, Cart>
+ * - Cada Cart indexa sus items por productId y mantiene total y unidades al día
  *
- * COMUNICACIÓN ENTRE MÓDULOS EN EL MONOLITO:
- * - Llama directamente a ProductService y UserService
- * - NO hay HTTP ni serialización
- * - Latencia CERO: ejecución en memoria compartida
- * - Thread-safe con ConcurrentHashMap
+ * CONCURRENCIA:
+ * - Las escrituras de un usuario pasan por ConcurrentHashMap.compute: se serializan
+ *   por userId y un carrito vacío se quita del mapa sin perder agregados concurrentes
+ * - Las lecturas toman una foto del Cart (synchronized), sin bloquear a otros usuarios
+ *
+ * PERSISTENCIA (opcional, carts.persistence.enabled=true):
+ * - Cada cambio se registra en el journal de CartStore dentro del mismo compute,
+ *   así el orden del journal coincide con el de los cambios de cada usuario
+ * - Al arrancar se restauran los carritos desde el último snapshot + journal
+ *
+ * MEMORIA ACOTADA (CartExpiry):
+ * - Los carritos inactivos más de carts.expiry.idle-ttl-ms se eliminan
+ * - Con carts.expiry.max-carts se expulsa el menos usado al superar el tope
+ *
+ * CLUSTER (cluster.enabled=true):
+ * - Cada instancia guarda solo los carritos de los usuarios que le asigna el anillo
+ * - detachCart / mergeCart mueven un carrito a otra instancia (UserHandoff)
+ *
+ * MÉTRICAS (OperationMetrics):
+ * - carts.operations{operation}: latencia de cada operación pública (incluye la consulta
+ *   al catálogo en add) y errores por tipo de excepción
+ *
+ * COMUNICACIÓN ENTRE MÓDULOS:
+ * - Consulta el catálogo vía HTTP (CatalogClient) antes de modificar el carrito
  */
 @Service
 public class CartService {
 
-    // Almacenamiento: Map<userId, List<CartItem>>
-    private final Map<Long, List<CartItem>> cartDatabase = new ConcurrentHashMap<>();
+    private static final String OPERATION_TIMER = "carts.operations";
+    private static final Tags ADD = Tags.of("operation", "add");
+    private static final Tags GET = Tags.of("operation", "get");
+    private static final Tags SNAPSHOT = Tags.of("operation", "snapshot");
+    private static final Tags TOTAL = Tags.of("operation", "total");
+    private static final Tags CLEAR = Tags.of("operation", "clear");
+    private static final Tags REMOVE_ORDERED = Tags.of("operation", "remove-ordered");
+    private static final Tags REMOVE = Tags.of("operation", "remove");
+    private static final Tags COUNT = Tags.of("operation", "count");
+    private static final Tags DETACH = Tags.of("operation", "detach");
+    private static final Tags MERGE = Tags.of("operation", "merge");
+
+    // Almacenamiento: Map<userId, Cart>
+    private final Map<Long, Cart> cartDatabase = new ConcurrentHashMap<>();
+
+    // Nombres de producto de los carritos compactos (ver CartExpiry)
+    private final ProductNameDictionary productNames = new ProductNameDictionary();
 
     // Dependencias externas vía HTTP
     private final CatalogClient catalogClient;
+    private final CartStore cartStore;
+    private final CartExpiry cartExpiry;
+    private final OperationMetrics metrics;
 
-    public CartService(CatalogClient catalogClient) {
+    public CartService(CatalogClient catalogClient, CartStore cartStore, CartExpiry cartExpiry,
+                       OperationMetrics metrics) {
         this.catalogClient = catalogClient;
+        this.cartStore = cartStore;
+        this.cartExpiry = cartExpiry;
+        this.metrics = metrics;
+
+        // Restaurar carritos (no hace nada si la persistencia está deshabilitada)
+        cartStore.open(cartDatabase);
+        cartExpiry.start(cartDatabase, this::evictIf, productNames);
     }
 
     /**
      * Agregar producto al carrito
      */
     public CartItem addToCart(Long userId, Long productId, Integer quantity) {
-        // Validar que el producto existe y tiene stock
+        return metrics.record(OPERATION_TIMER, ADD, () -> add(userId, productId, quantity));
+    }
+
+    private CartItem add(Long userId, Long productId, Integer quantity) {
+        // Validar que el producto existe y tiene stock (una sola consulta al catálogo,
+        // fuera del lock del carrito)
         ProductSnapshot product = catalogClient.getProductById(productId);
+        int available = product.getStock() != null ? product.getStock() : 0;
 
-        if (!catalogClient.hasStock(productId, quantity)) {
+        if (available < quantity) {
             throw new BusinessException(
                     String.format("Stock insuficiente para %s. Disponible: %d",
-                            product.getName(), product.getStock()));
+                            product.getName(), available));
         }
 
-        // Obtener o crear carrito del usuario
-        List<CartItem> cart = cartDatabase.computeIfAbsent(userId, k -> new ArrayList<>());
-
-        // Verificar si el producto ya está en el carrito
-        CartItem existingItem = cart.stream()
-                .filter(item -> item.getProductId().equals(productId))
-                .findFirst()
-                .orElse(null);
-
-        if (existingItem != null) {
-            // Incrementar cantidad
-            Integer newQuantity = existingItem.getQuantity() + quantity;
-
-            if (!catalogClient.hasStock(productId, newQuantity)) {
+        CartItem[] added = new CartItem[1];
+        cartDatabase.compute(userId, (id, cart) -> {
+            // Verificar la cantidad acumulada antes de modificar nada
+            int current = cart != null ? cart.quantityOf(productId) : 0;
+            if (available < current + quantity) {
                 throw new BusinessException("Stock insuficiente para la cantidad solicitada");
             }
 
-            existingItem.setQuantity(newQuantity);
-            return existingItem;
-        } else {
-            // Agregar nuevo item
-            CartItem newItem = new CartItem(
-                    productId,
-                    product.getName(),
-                    product.getPrice(),
-                    quantity);
-            cart.add(newItem);
-            return newItem;
-        }
+            Cart target = cart;
+            if (target == null) {
+                target = new Cart();
+                cartExpiry.created(userId, target);
+            } else {
+                cartExpiry.touched(userId, target);
+            }
+            added[0] = target.add(productId, product.getName(), product.getPrice(), quantity);
+            cartStore.recordItem(userId, productId, added[0]);
+            return target;
+        });
+        cartExpiry.enforceCap();
+        return added[0];
     }
 
     /**
-     * Obtener carrito de un usuario
+     * Obtener carrito de un usuario (copias de los items)
      */
     public List<CartItem> getCart(Long userId) {
-        return cartDatabase.getOrDefault(userId, new ArrayList<>());
+        return metrics.record(OPERATION_TIMER, GET, () -> {
+            Cart cart = touch(userId);
+            return cart != null ? cart.getItems() : new ArrayList<>();
+        });
     }
 
     /**
-     * Calcular total del carrito
+     * Items, total y unidades del carrito tomados en el mismo instante
      */
-    public BigDecimal calculateTotal(Long userId) {
-        List<CartItem> cart = getCart(userId);
+    public CartSnapshot getCartSnapshot(Long userId) {
+        return metrics.record(OPERATION_TIMER, SNAPSHOT, () -> {
+            Cart cart = touch(userId);
+            return cart != null ? cart.snapshot() : CartSnapshot.EMPTY;
+        });
+    }
 
-        return cart.stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Calcular total del carrito (O(1): se mantiene en cada cambio)
+     */
+    public BigDecimal calculateTotal(Long userId) {
+        return metrics.record(OPERATION_TIMER, TOTAL, () -> {
+            Cart cart = cartDatabase.get(userId);
+            return cart != null ? cart.getTotal() : BigDecimal.ZERO;
+        });
     }
 
     /**
-     * Vaciar carrito (usado después de crear orden)
+     * Vaciar carrito
      */
     public void clearCart(Long userId) {
-        cartDatabase.remove(userId);
+        metrics.record(OPERATION_TIMER, CLEAR, () -> {
+            cartDatabase.computeIfPresent(userId, (id, cart) -> {
+                cartStore.recordClear(userId);
+                cartExpiry.removed(userId);
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Descontar del carrito lo que se compró (usado después de crear orden).
+     * A diferencia de clearCart, no borra lo que el usuario agregó mientras se procesaba el checkout.
+     */
+    public void removeOrderedItems(Long userId, List<CartItem> orderedItems) {
+        metrics.record(OPERATION_TIMER, REMOVE_ORDERED, () -> {
+            cartDatabase.computeIfPresent(userId, (id, cart) -> {
+                for (CartItem item : orderedItems) {
+                    cart.subtract(item.getProductId(), item.getQuantity());
+                    cartStore.recordItem(userId, item.getProductId(), cart.getItem(item.getProductId()));
+                }
+                return keepIfNotEmpty(userId, cart);
+            });
+        });
     }
 
     /**
      * Eliminar un producto del carrito
      */
     public void removeFromCart(Long userId, Long productId) {
-        List<CartItem> cart = getCart(userId);
-        cart.removeIf(item -> item.getProductId().equals(productId));
+        metrics.record(OPERATION_TIMER, REMOVE, () -> {
+            cartDatabase.computeIfPresent(userId, (id, cart) -> {
+                cart.remove(productId);
+                cartStore.recordItem(userId, productId, null);
+                return keepIfNotEmpty(userId, cart);
+            });
+        });
     }
 
     /**
-     * Obtener número de items en el carrito
+     * Obtener número de items en el carrito (O(1))
      */
     public Integer getCartItemCount(Long userId) {
-        List<CartItem> cart = getCart(userId);
-        return cart.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        return metrics.record(OPERATION_TIMER, COUNT, () -> {
+            Cart cart = cartDatabase.get(userId);
+            return cart != null ? cart.getTotalItems() : 0;
+        });
+    }
+
+    /**
+     * Usuarios con carrito (vista en vivo, se puede recorrer mientras cambia)
+     */
+    public Set<Long> getUserIds() {
+        return Collections.unmodifiableSet(cartDatabase.keySet());
+    }
+
+    /**
+     * Quitar el carrito y devolver sus items, para entregarlo a otra instancia
+     */
+    public List<CartItem> detachCart(Long userId) {
+        return metrics.record(OPERATION_TIMER, DETACH, () -> {
+            List<CartItem> detached = new ArrayList<>();
+            cartDatabase.computeIfPresent(userId, (id, cart) -> {
+                detached.addAll(cart.getItems());
+                cartStore.recordClear(userId);
+                cartExpiry.removed(userId);
+                return null;
+            });
+            return detached;
+        });
+    }
+
+    /**
+     * Incorporar un carrito recibido de otra instancia (o devuelto si la entrega falló).
+     * Los productos que el usuario ya tenía aquí se conservan tal cual y el resto se agrega
+     * sin consultar el catálogo: el stock se verifica en el checkout.
+     */
+    public void mergeCart(Long userId, List<CartItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        metrics.record(OPERATION_TIMER, MERGE, () -> {
+            cartDatabase.compute(userId, (id, cart) -> {
+                Cart target = cart;
+                if (target == null) {
+                    target = new Cart();
+                    cartExpiry.created(userId, target);
+                } else {
+                    cartExpiry.touched(userId, target);
+                }
+                for (CartItem item : items) {
+                    if (target.quantityOf(item.getProductId()) == 0) {
+                        CartItem added = target.add(item.getProductId(), item.getProductName(),
+                                item.getPrice(), item.getQuantity());
+                        cartStore.recordItem(userId, item.getProductId(), added);
+                    }
+                }
+                return target;
+            });
+            cartExpiry.enforceCap();
+        });
+    }
+
+    private Cart touch(Long userId) {
+        Cart cart = cartDatabase.get(userId);
+        if (cart != null) {
+            cartExpiry.touched(userId, cart);
+        }
+        return cart;
+    }
+
+    /**
+     * Dentro de un compute: un carrito vacío sale del mapa
+     */
+    private Cart keepIfNotEmpty(Long userId, Cart cart) {
+        if (cart.isEmpty()) {
+            cartExpiry.removed(userId);
+            return null;
+        }
+        cartExpiry.touched(userId, cart);
+        return cart;
+    }
+
+    /**
+     * Quitar un carrito por vencimiento o por tope, solo si sigue cumpliendo la condición
+     */
+    private boolean evictIf(Long userId, Predicate<Cart> condition) {
+        boolean[] evicted = new boolean[1];
+        cartDatabase.computeIfPresent(userId, (id, cart) -> {
+            if (!condition.test(cart)) {
+                return cart;
+            }
+            cartStore.recordClear(userId);
+            cartExpiry.removed(userId);
+            evicted[0] = true;
+            return null;
+        });
+        return evicted[0];
     }
 }
@@ -0,0 +1,178 @@
+package com.monolito.ecommerce.cluster;
+
+import com.monolito.ecommerce.order.model.BulkOrderRequest;
+import com.monolito.ecommerce.order.model.BulkOrderResult;
+import com.monolito.ecommerce.order.service.BulkOrderImporter;
+import com.monolito.ecommerce.shared.dto.ApiResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Importación en lote repartida por instancia dueña (POST /api/orders/bulk con cluster.enabled=true)
+ *
+ * - Cada bloque se agrupa por dueña del userId de cada línea: lo propio lo importa esta
+ *   instancia, cada grupo ajeno va en UNA llamada a POST /internal/cluster/orders de su dueña
+ *   (todas las dueñas en paralelo), que lo importa sin volver a repartir
+ * - Los resultados vuelven en el orden de las líneas recibidas
+ * - Si la dueña no atiende (sin conexión, 4xx, 503) sus líneas se rechazan: allí no se
+ *   creó nada y se pueden reenviar
+ * - Si la llamada falla después de enviarse (timeout, conexión cortada, otro 5xx) la dueña
+ *   pudo haber creado las órdenes: se rechazan con un mensaje que lo dice y se registra el error
+ *
+ * Sin cluster es BulkOrderImporter tal cual.
+ * cluster.bulk-timeout-ms limita la espera de cada grupo ajeno (incluye el descuento de stock).
+ */
+@Component
+public class BulkImportRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkImportRouter.class);
+    private static final String ORDERS_PATH = "/internal/cluster/orders";
+    private static final TypeReference<ApiResponse<List<BulkOrderResult>>> RESULTS_TYPE = new TypeReference<>() {
+    };
+
+    private final BulkOrderImporter importer;
+    private final ClusterMembership membership;
+    private final JsonMapper jsonMapper;
+    private final long requestTimeoutMs;
+
+    public BulkImportRouter(
+            BulkOrderImporter importer,
+            ClusterMembership membership,
+            JsonMapper jsonMapper,
+            @Value("${cluster.bulk-timeout-ms:30000}") long requestTimeoutMs) {
+        this.importer = importer;
+        this.membership = membership;
+        this.jsonMapper = jsonMapper;
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+
+    public int getChunkSize() {
+        return importer.getChunkSize();
+    }
+
+    /**
+     * Importar un bloque donde corresponde. El resultado i corresponde a la petición i.
+     */
+    public List<BulkOrderResult> importChunk(List<BulkOrderRequest> requests) {
+        if (!membership.isEnabled()) {
+            return importer.importChunk(requests);
+        }
+
+        // Líneas ilegibles o sin usuario quedan aquí: el importador las rechaza
+        String self = membership.getSelf();
+        Map<String, List<Integer>> linesByOwner = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BulkOrderRequest request = requests.get(i);
+            String owner = request == null || request.getUserId() == null
+                    ? self
+                    : membership.ownerOf(request.getUserId());
+            linesByOwner.computeIfAbsent(owner, key -> new ArrayList<>()).add(i);
+        }
+
+        Map<String, CompletableFuture<List<BulkOrderResult>>> remote = new LinkedHashMap<>();
+        linesByOwner.forEach((owner, lines) -> {
+            if (!owner.equals(self)) {
+                remote.put(owner, send(owner, select(requests, lines)));
+            }
+        });
+
+        BulkOrderResult[] results = new BulkOrderResult[requests.size()];
+        List<Integer> local = linesByOwner.get(self);
+        if (local != null) {
+            fill(results, local, importer.importChunk(select(requests, local)));
+        }
+        remote.forEach((owner, future) -> {
+            List<Integer> lines = linesByOwner.get(owner);
+            fill(results, lines, await(owner, lines.size(), future));
+        });
+        return Arrays.asList(results);
+    }
+
+    private CompletableFuture<List<BulkOrderResult>> send(String owner, List<BulkOrderRequest> group) {
+        HttpRequest request = membership.newRequest(owner, ORDERS_PATH)
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(jsonMapper.writeValueAsBytes(group)))
+                .build();
+        return membership.getHttpClient()
+                .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    int status = response.statusCode();
+                    if (status / 100 == 4 || status == 503) {
+                        throw new CompletionException(new Unavailable("HTTP " + status));
+                    }
+                    if (status / 100 != 2) {
+                        throw new CompletionException(new IOException("HTTP " + status + " de " + owner));
+                    }
+                    List<BulkOrderResult> results = jsonMapper.readValue(response.body(), RESULTS_TYPE).getData();
+                    if (results == null || results.size() != group.size()) {
+                        throw new CompletionException(new IOException("Respuesta incompleta de " + owner));
+                    }
+                    return results;
+                });
+    }
+
+    private static List<BulkOrderResult> await(String owner, int size, CompletableFuture<List<BulkOrderResult>> future) {
+        String message;
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof Unavailable || cause instanceof ConnectException
+                    || cause instanceof HttpConnectTimeoutException) {
+                LOGGER.warn("No se pudieron importar {} órdenes en {}: {}", size, owner, cause.toString());
+                message = "La instancia que atiende a este usuario no está disponible, reintente la línea";
+            } else {
+                LOGGER.error("Importación incierta de {} órdenes en {}: revisar las órdenes de sus usuarios",
+                        size, owner, cause);
+                message = "Sin respuesta de la instancia que atiende a este usuario: la orden pudo haberse "
+                        + "creado, revisar antes de reintentar";
+            }
+        }
+        List<BulkOrderResult> rejected = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            rejected.add(BulkOrderResult.rejected(message));
+        }
+        return rejected;
+    }
+
+    private static List<BulkOrderRequest> select(List<BulkOrderRequest> requests, List<Integer> lines) {
+        List<BulkOrderRequest> selected = new ArrayList<>(lines.size());
+        lines.forEach(i -> selected.add(requests.get(i)));
+        return selected;
+    }
+
+    private static void fill(BulkOrderResult[] results, List<Integer> lines, List<BulkOrderResult> groupResults) {
+        for (int j = 0; j < lines.size(); j++) {
+            results[lines.get(j)] = groupResults.get(j);
+        }
+    }
+
+    /**
+     * La dueña respondió sin importar nada
+     */
+    private static final class Unavailable extends IOException {
+
+        private Unavailable(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.monolito.ecommerce.cluster;
+
+import com.monolito.ecommerce.order.model.BulkOrderRequest;
+import com.monolito.ecommerce.order.model.BulkOrderResult;
+import com.monolito.ecommerce.order.service.BulkOrderImporter;
+import com.monolito.ecommerce.shared.dto.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Endpoints internos entre instancias del cluster (requieren X-Cluster-Token)
+ *
+ * ENDPOINTS:
+ * GET /internal/cluster/ping - Heartbeat: miembros que ve esta instancia (503 si se está apagando)
+ * POST /internal/cluster/users - Recibir carrito, órdenes e Idempotency-Key de usuarios que ahora son de esta instancia
+ * POST /internal/cluster/orders - Importar las órdenes en lote de usuarios de esta instancia (BulkImportRouter)
+ */
+@RestController
+@RequestMapping("/internal/cluster")
+public class ClusterController {
+
+    private final ClusterMembership membership;
+    private final UserHandoff userHandoff;
+    private final BulkOrderImporter bulkOrderImporter;
+
+    public ClusterController(ClusterMembership membership, UserHandoff userHandoff,
+                             BulkOrderImporter bulkOrderImporter) {
+        this.membership = membership;
+        this.userHandoff = userHandoff;
+        this.bulkOrderImporter = bulkOrderImporter;
+    }
+
+    @GetMapping("/ping")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> ping(
+            @RequestHeader(value = ClusterMembership.TOKEN_HEADER, required = false) String token) {
+        requireTrusted(token);
+        Map<String, Object> view = Map.of(
+                "self", membership.getSelf(),
+                "members", membership.getRing().getMembers());
+        HttpStatus status = membership.isLeaving() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK;
+        return ResponseEntity.status(status).body(ApiResponse.success(view));
+    }
+
+    @PostMapping("/users")
+    public ResponseEntity<ApiResponse<Integer>> receiveUsers(
+            @RequestHeader(value = ClusterMembership.TOKEN_HEADER, required = false) String token,
+            @RequestBody List<UserTransfer> transfers) {
+        requireTrusted(token);
+        userHandoff.accept(transfers);
+        return ResponseEntity.ok(ApiResponse.success("Usuarios recibidos", transfers.size()));
+    }
+
+    @PostMapping("/orders")
+    public ResponseEntity<ApiResponse<List<BulkOrderResult>>> importOrders(
+            @RequestHeader(value = ClusterMembership.TOKEN_HEADER, required = false) String token,
+            @RequestBody List<BulkOrderRequest> requests) {
+        requireTrusted(token);
+        return ResponseEntity.ok(ApiResponse.success(bulkOrderImporter.importChunk(requests)));
+    }
+
+    private void requireTrusted(String token) {
+        if (!membership.isTrusted(token)) {
+            throw new AccessDeniedException("Token de cluster inválido");
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.monolito.ecommerce.cluster;
+
+import com.monolito.ecommerce.shared.dto.ErrorResponse;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reenvío de peticiones a la instancia dueña del usuario (cluster.enabled=true)
+ *
+ * - Se reenvían las rutas con datos del usuario autenticado: /api/cart/**, POST /api/orders,
+ *   /api/orders/{id}, /api/orders/user/** y /api/orders/events
+ * - Quedan en esta instancia el listado y el export de órdenes (cada instancia ve las suyas)
+ *   y la importación en lote (trae órdenes de muchos usuarios: BulkImportRouter reparte
+ *   cada bloque entre las dueñas)
+ * - Método, ruta, query, headers y cuerpo viajan tal cual (el JWT lo valida la dueña);
+ *   la respuesta se copia en streaming, así que SSE y NDJSON funcionan a través del reenvío
+ * - Sin hilos bloqueados: la petición pasa a modo asíncrono, el HttpClient entrega el cuerpo
+ *   por bloques y cada bloque se escribe al cliente con WriteListener. Un stream SSE abierto
+ *   no ocupa ningún hilo mientras no hay eventos, y un cliente lento frena la lectura de la
+ *   dueña (se pide el siguiente bloque cuando el anterior salió) en lugar de bloquear un hilo
+ * - Una petición ya reenviada (X-Cluster-Forwarded-By con token válido) se atiende aquí
+ *   aunque el anillo de esta instancia diga otra cosa: nunca hay más de un salto
+ * - Si la dueña no responde: 503 (no se atiende aquí para no partir el carrito en dos)
+ *
+ * Corre después de Spring Security (orden -100): la autenticación ya está resuelta.
+ * cluster.forward-timeout-ms limita la espera hasta los headers de la respuesta, no el stream.
+ * El tiempo hasta los headers aparece en Server-Timing como "cluster"; cluster.forward mide
+ * hasta el último byte.
+ */
+@Component
+@Order(0)
+public class ClusterForwardingFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterForwardingFilter.class);
+    private static final String FORWARD_TIMER = "cluster.forward";
+    private static final String TIMING_NAME = "cluster";
+
+    // Headers de la conexión (no se reenvían) y los que arma cada lado
+    private static final Set<String> SKIPPED_HEADERS = Set.of(
+            "host", "connection", "keep-alive", "content-length", "transfer-encoding", "expect",
+            "upgrade", "te", "trailer", "proxy-connection", "date",
+            "x-cluster-token", "x-cluster-forwarded-by", "x-request-id", "server-timing");
+
+    private final ClusterMembership membership;
+    private final OperationMetrics metrics;
+    private final JsonMapper jsonMapper;
+    private final long forwardTimeoutMs;
+
+    public ClusterForwardingFilter(
+            ClusterMembership membership,
+            OperationMetrics metrics,
+            JsonMapper jsonMapper,
+            @Value("${cluster.forward-timeout-ms:3000}") long forwardTimeoutMs) {
+        this.membership = membership;
+        this.metrics = metrics;
+        this.jsonMapper = jsonMapper;
+        this.forwardTimeoutMs = forwardTimeoutMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !membership.isEnabled() || !isRoutedByUser(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        Long userId = authenticatedUserId();
+        boolean alreadyForwarded = request.getHeader(ClusterMembership.FORWARDED_BY_HEADER) != null
+                && membership.isTrusted(request.getHeader(ClusterMembership.TOKEN_HEADER));
+        if (userId == null || alreadyForwarded || membership.isLocal(userId)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        forward(membership.ownerOf(userId), request, response);
+    }
+
+    /**
+     * Reenviar sin ocupar el hilo de Tomcat: la respuesta llega por callbacks del HttpClient
+     * y se escribe con WriteListener (sin bloquear aunque el cliente lea lento)
+     */
+    private void forward(String owner, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String query = request.getQueryString();
+        HttpRequest.Builder builder = membership
+                .newRequest(owner, request.getRequestURI() + (query != null ? "?" + query : ""))
+                .timeout(Duration.ofMillis(forwardTimeoutMs));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+        String requestId = MDC.get(RequestTiming.MDC_KEY);
+        if (requestId != null) {
+            builder.header(RequestTiming.REQUEST_ID_HEADER, requestId);
+        }
+        // Los cuerpos reenviados son chicos (carrito, checkout): se leen aquí de una vez
+        builder.method(request.getMethod(), hasBody(request)
+                ? HttpRequest.BodyPublishers.ofByteArray(request.getInputStream().readAllBytes())
+                : HttpRequest.BodyPublishers.noBody());
+
+        AsyncContext async = request.startAsync(request, response);
+        // El stream (SSE) dura lo que quiera la dueña; la espera de los headers la acota el HttpClient
+        async.setTimeout(0);
+        Exchange exchange = new Exchange(owner, request.getMethod(), request.getRequestURI(), async, response);
+        async.addListener(exchange);
+        // Desde aquí se escribe solo cuando el contenedor avisa que se puede (onWritePossible)
+        response.getOutputStream().setWriteListener(exchange);
+        membership.getHttpClient()
+                .sendAsync(builder.build(), exchange::onHeaders)
+                .whenComplete((upstream, failure) -> {
+                    if (failure != null) {
+                        exchange.failed(failure);
+                    }
+                });
+    }
+
+    /**
+     * Una petición reenviada: copia la respuesta de la dueña (status, headers y cuerpo
+     * en streaming) y mide cluster.forward desde el envío hasta el último byte
+     */
+    private final class Exchange implements Flow.Subscriber<List<ByteBuffer>>, WriteListener, AsyncListener {
+
+        private final String owner;
+        private final String method;
+        private final String path;
+        private final AsyncContext async;
+        private final HttpServletResponse response;
+        private final RequestTiming timing = RequestTiming.current();
+        private final Map<String, String> mdc = MDC.getCopyOfContextMap();
+        private final long start = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        // Protegidos por el monitor: los usan el hilo del HttpClient y el del contenedor
+        private final Deque<ByteBuffer> pending = new ArrayDeque<>();
+        private final ServletOutputStream out;
+        private Flow.Subscription subscription;
+        private boolean requested;
+        private boolean upstreamDone;
+        private Throwable failure;
+
+        private Exchange(String owner, String method, String path, AsyncContext async,
+                HttpServletResponse response) throws IOException {
+            this.owner = owner;
+            this.method = method;
+            this.path = path;
+            this.async = async;
+            this.response = response;
+            this.out = response.getOutputStream();
+        }
+
+        /**
+         * Headers de la dueña: se copian y el cuerpo pasa a este suscriptor
+         */
+        private HttpResponse.BodySubscriber<Void> onHeaders(HttpResponse.ResponseInfo upstream) {
+            withContext(() -> {
+                RequestTiming.recordDownstream(TIMING_NAME, System.nanoTime() - start);
+                response.setStatus(upstream.statusCode());
+                // setHeader: reemplaza los que ya puso esta instancia (seguridad, CORS) por los de la dueña
+                upstream.headers().map().forEach((name, values) -> {
+                    if (!name.startsWith(":") && !SKIPPED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                        response.setHeader(name, values.get(0));
+                        values.stream().skip(1).forEach(value -> response.addHeader(name, value));
+                    }
+                });
+                // RequestCorrelationFilter ya terminó: el Server-Timing con "cluster" se pone aquí
+                if (timing != null) {
+                    response.setHeader(RequestTiming.SERVER_TIMING_HEADER, timing.serverTiming());
+                }
+            });
+            return HttpResponse.BodySubscribers.fromSubscriber(this);
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            synchronized (this) {
+                this.subscription = subscription;
+            }
+            drain();
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            synchronized (this) {
+                requested = false;
+                pending.addAll(buffers);
+            }
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (this) {
+                upstreamDone = true;
+            }
+            drain();
+        }
+
+        /**
+         * La dueña cortó el cuerpo (Flow.Subscriber) o el cliente dejó de aceptar (WriteListener):
+         * los headers ya salieron, solo queda soltar los dos lados
+         */
+        @Override
+        public void onError(Throwable failure) {
+            withContext(() -> LOGGER.warn("Se cortó el reenvío de {} {} a {}: {}",
+                    method, path, owner, failure.toString()));
+            cancel(failure);
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        /**
+         * Escribir lo pendiente mientras el cliente acepte sin bloquear; con el buffer vacío se
+         * hace flush (los eventos SSE y las líneas NDJSON llegan sin esperar al final) y se
+         * pide el siguiente bloque a la dueña. Si el cliente no acepta más, el contenedor
+         * vuelve a llamar a onWritePossible.
+         */
+        private void drain() {
+            boolean complete = false;
+            Throwable writeFailure = null;
+            synchronized (this) {
+                if (finished.get()) {
+                    return;
+                }
+                try {
+                    while (out.isReady()) {
+                        ByteBuffer next = pending.peek();
+                        if (next == null) {
+                            if (upstreamDone) {
+                                complete = true;
+                            } else if (!requested && subscription != null) {
+                                requested = true;
+                                subscription.request(1);
+                            }
+                            break;
+                        }
+                        byte[] chunk = new byte[next.remaining()];
+                        next.get(chunk);
+                        pending.poll();
+                        out.write(chunk);
+                        if (pending.isEmpty() && out.isReady()) {
+                            out.flush();
+                        }
+                    }
+                } catch (IOException | RuntimeException ex) {
+                    writeFailure = ex;
+                }
+            }
+            if (writeFailure != null) {
+                onError(writeFailure);
+            } else if (complete) {
+                finish(failure);
+            }
+        }
+
+        /**
+         * No se pudo reenviar (sin conexión, sin headers a tiempo) o el cliente se fue
+         */
+        private void failed(Throwable sendFailure) {
+            if (finished.get()) {
+                return;
+            }
+            Throwable cause = sendFailure instanceof CompletionException && sendFailure.getCause() != null
+                    ? sendFailure.getCause()
+                    : sendFailure;
+            withContext(() -> {
+                RequestTiming.recordDownstream(TIMING_NAME, System.nanoTime() - start);
+                LOGGER.warn("No se pudo reenviar {} {} a {}: {}", method, path, owner, cause.toString());
+            });
+            byte[] body = response.isCommitted() ? null : unavailable(response);
+            synchronized (this) {
+                failure = cause;
+                if (body != null) {
+                    pending.add(ByteBuffer.wrap(body));
+                }
+                upstreamDone = true;
+            }
+            drain();
+        }
+
+        private void finish(Throwable failure) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            metrics.record(FORWARD_TIMER, Tags.of("method", method), System.nanoTime() - start, failure);
+            try {
+                async.complete();
+            } catch (IllegalStateException ex) {
+                // El contenedor ya cerró la petición (cliente desconectado)
+            }
+        }
+
+        private void cancel(Throwable failure) {
+            Flow.Subscription current;
+            synchronized (this) {
+                current = subscription;
+            }
+            if (current != null) {
+                current.cancel();
+            }
+            finish(failure);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            // El contenedor dio la petición por terminada antes que la dueña: soltar el stream
+            cancel(null);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            cancel(event.getThrowable());
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            cancel(event.getThrowable());
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void withContext(Runnable action) {
+            RequestTiming previous = RequestTiming.attach(timing);
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            if (mdc != null) {
+                MDC.setContextMap(mdc);
+            }
+            try {
+                action.run();
+            } finally {
+                RequestTiming.attach(previous);
+                if (previousMdc != null) {
+                    MDC.setContextMap(previousMdc);
+                } else {
+                    MDC.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Pone el status y devuelve el cuerpo del 503 (lo escribe el Exchange sin bloquear)
+     */
+    private byte[] unavailable(HttpServletResponse response) {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        ErrorResponse error = new ErrorResponse(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                "La instancia que atiende a este usuario no está disponible, intente más tarde",
+                LocalDateTime.now());
+        return jsonMapper.writeValueAsBytes(error);
+    }
+
+    private static boolean isRoutedByUser(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/cart/")) {
+            return true;
+        }
+        if (path.equals("/api/orders")) {
+            return "POST".equals(request.getMethod());
+        }
+        return path.startsWith("/api/orders/")
+                && !path.startsWith("/api/orders/bulk")
+                && !path.startsWith("/api/orders/export");
+    }
+
+    private static Long authenticatedUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication.getPrincipal() == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(String.valueOf(authentication.getPrincipal()));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static boolean hasBody(HttpServletRequest request) {
+        return request.getContentLengthLong() > 0 || request.getHeader("Transfer-Encoding") != null;
+    }
+}
@@ -0,0 +1,287 @@
+package com.monolito.ecommerce.cluster;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Miembros vivos del cluster y anillo de hash consistente (cluster.enabled=true)
+ *
+ * MIEMBROS:
+ * - cluster.members: URLs base de todas las instancias posibles (la propia es cluster.self-url)
+ * - Cada cluster.heartbeat-ms se consulta GET /internal/cluster/ping de las demás
+ * - Una instancia sale del anillo tras cluster.failure-threshold pings fallidos seguidos
+ *   (o de inmediato si responde 503: se está apagando) y vuelve con el primer ping exitoso
+ * - Al arrancar las demás cuentan como caídas hasta que respondan
+ *
+ * ANILLO:
+ * - Se rearma solo cuando cambia el conjunto de miembros vivos y se avisa a los listeners
+ *   (UserHandoff mueve carrito, órdenes e Idempotency-Key de los usuarios que cambiaron de dueño)
+ * - Dos instancias pueden ver el anillo distinto durante un heartbeat: una petición se
+ *   reenvía como mucho una vez (ClusterForwardingFilter), la que la recibe la atiende
+ *
+ * Las llamadas internas llevan cluster.secret en X-Cluster-Token.
+ * Con cluster.enabled=false todos los usuarios son locales y no hay heartbeat.
+ */
+@Component
+public class ClusterMembership implements MeterBinder {
+
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+    public static final String FORWARDED_BY_HEADER = "X-Cluster-Forwarded-By";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterMembership.class);
+    private static final String PING_PATH = "/internal/cluster/ping";
+
+    private final boolean enabled;
+    private final String self;
+    private final List<String> peers;
+    private final int virtualNodes;
+    private final byte[] secret;
+    private final long heartbeatMs;
+    private final int failureThreshold;
+    private final HttpClient httpClient;
+    private final ScheduledExecutorService heartbeat;
+    private final List<Consumer<HashRing>> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder ringChanges = new LongAdder();
+
+    // Pings fallidos seguidos por instancia (solo lo toca el hilo de heartbeat)
+    private final Map<String, Integer> failures = new HashMap<>();
+
+    private volatile HashRing ring;
+    private volatile boolean leaving;
+
+    public ClusterMembership(
+            @Value("${cluster.enabled:false}") boolean enabled,
+            @Value("${cluster.self-url:http://localhost:8081}") String selfUrl,
+            @Value("${cluster.members:}") List<String> members,
+            @Value("${cluster.virtual-nodes:128}") int virtualNodes,
+            @Value("${cluster.secret:}") String secret,
+            @Value("${cluster.heartbeat-ms:1000}") long heartbeatMs,
+            @Value("${cluster.failure-threshold:3}") int failureThreshold,
+            @Value("${cluster.connect-timeout-ms:1000}") long connectTimeoutMs) {
+        if (enabled && secret.isBlank()) {
+            throw new IllegalStateException("cluster.secret es obligatorio con cluster.enabled=true");
+        }
+        this.enabled = enabled;
+        this.self = normalize(selfUrl);
+        this.virtualNodes = virtualNodes;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.heartbeatMs = heartbeatMs;
+        this.failureThreshold = Math.max(1, failureThreshold);
+
+        Set<String> others = new LinkedHashSet<>();
+        for (String member : members) {
+            if (!member.isBlank() && !normalize(member).equals(self)) {
+                others.add(normalize(member));
+            }
+        }
+        this.peers = List.copyOf(others);
+        for (String peer : peers) {
+            failures.put(peer, this.failureThreshold);
+        }
+        this.ring = new HashRing(List.of(self), virtualNodes);
+
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        this.heartbeat = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        LOGGER.info("Cluster habilitado: {} con {} instancias posibles más", self, peers.size());
+        heartbeat.scheduleWithFixedDelay(this::pingPeers, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    public boolean isLeaving() {
+        return leaving;
+    }
+
+    /**
+     * Posición de esta instancia entre todos los miembros configurados (ordenados por URL):
+     * distinta en cada instancia y estable entre reinicios
+     */
+    public int getMemberIndex() {
+        List<String> all = new ArrayList<>(peers);
+        all.add(self);
+        Collections.sort(all);
+        return all.indexOf(self);
+    }
+
+    /**
+     * Instancia dueña de los datos del usuario (la propia si no hay cluster)
+     */
+    public String ownerOf(Long userId) {
+        return enabled ? ring.ownerOf(userId) : self;
+    }
+
+    public boolean isLocal(Long userId) {
+        return ownerOf(userId).equals(self);
+    }
+
+    /**
+     * Token de una llamada interna (comparación en tiempo constante)
+     */
+    public boolean isTrusted(String token) {
+        return enabled && token != null
+                && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Petición interna hacia otra instancia, ya autenticada e identificada
+     */
+    public HttpRequest.Builder newRequest(String member, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(member + pathAndQuery))
+                .header(TOKEN_HEADER, new String(secret, StandardCharsets.UTF_8))
+                .header(FORWARDED_BY_HEADER, self);
+    }
+
+    /**
+     * Recibir el anillo nuevo cada vez que cambia (en el hilo de heartbeat: no bloquear)
+     */
+    public void addListener(Consumer<HashRing> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Salir del anillo al apagarse: el ping responde 503 y los usuarios propios pasan a las
+     * demás instancias vivas. Devuelve el anillo sin esta instancia, o null si no queda otra.
+     */
+    public HashRing leave() {
+        if (!enabled || leaving) {
+            return null;
+        }
+        leaving = true;
+        heartbeat.shutdownNow();
+        List<String> remaining = new ArrayList<>(ring.getMembers());
+        remaining.remove(self);
+        if (remaining.isEmpty()) {
+            return null;
+        }
+        ring = new HashRing(remaining, virtualNodes);
+        ringChanges.increment();
+        LOGGER.info("Saliendo del cluster, los usuarios propios pasan a {}", remaining);
+        return ring;
+    }
+
+    private void pingPeers() {
+        try {
+            Map<String, CompletableFuture<Integer>> pings = new LinkedHashMap<>();
+            for (String peer : peers) {
+                HttpRequest request = newRequest(peer, PING_PATH)
+                        .timeout(Duration.ofMillis(heartbeatMs))
+                        .GET()
+                        .build();
+                pings.put(peer, httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .thenApply(HttpResponse::statusCode)
+                        .exceptionally(ex -> -1));
+            }
+
+            List<String> live = new ArrayList<>();
+            live.add(self);
+            for (Map.Entry<String, CompletableFuture<Integer>> ping : pings.entrySet()) {
+                int status = ping.getValue().join();
+                String peer = ping.getKey();
+                if (status >= 200 && status < 300) {
+                    failures.put(peer, 0);
+                } else if (status == 503) {
+                    failures.put(peer, failureThreshold);
+                } else {
+                    failures.merge(peer, 1, Integer::sum);
+                }
+                if (failures.get(peer) < failureThreshold) {
+                    live.add(peer);
+                }
+            }
+
+            if (!leaving && !Set.copyOf(live).equals(Set.copyOf(ring.getMembers()))) {
+                HashRing updated = new HashRing(live, virtualNodes);
+                LOGGER.info("Miembros del cluster: {} -> {}", ring.getMembers(), updated.getMembers());
+                ring = updated;
+                ringChanges.increment();
+                for (Consumer<HashRing> listener : listeners) {
+                    listener.accept(updated);
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.error("Error en el heartbeat del cluster", ex);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cluster.members.live", this, membership -> membership.ring.getMembers().size())
+                .description("Instancias en el anillo de hash según esta instancia")
+                .register(registry);
+        FunctionCounter.builder("cluster.ring.changes", ringChanges, LongAdder::sum)
+                .description("Veces que cambió el conjunto de instancias vivas")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+}
@@ -0,0 +1,110 @@
+package com.monolito.ecommerce.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Anillo de hash consistente con nodos virtuales (inmutable)
+ *
+ * - Cada instancia ocupa virtualNodes posiciones del anillo (hash de "url#i")
+ * - El dueño de un userId es la primera posición en sentido horario desde hash(userId)
+ * - Al entrar o salir una instancia solo cambian de dueño los usuarios de los tramos
+ *   que ella ocupa (~1/N del total); con pocos nodos virtuales el reparto queda desparejo
+ *
+ * Las posiciones se guardan en dos arreglos ordenados (búsqueda binaria, sin objetos por nodo).
+ * Todas las instancias con los mismos miembros arman el mismo anillo.
+ */
+public final class HashRing {
+
+    private final List<String> members;
+    private final long[] tokens;
+    private final String[] owners;
+
+    public HashRing(Collection<String> members, int virtualNodes) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("El anillo necesita al menos un miembro");
+        }
+        if (virtualNodes < 1) {
+            throw new IllegalArgumentException("cluster.virtual-nodes debe ser mayor que 0");
+        }
+        this.members = List.copyOf(new TreeSet<>(members));
+
+        int size = this.members.size() * virtualNodes;
+        long[] unsortedTokens = new long[size];
+        String[] unsortedOwners = new String[size];
+        Integer[] order = new Integer[size];
+        int position = 0;
+        for (String member : this.members) {
+            for (int i = 0; i < virtualNodes; i++) {
+                unsortedTokens[position] = hash(member + "#" + i);
+                unsortedOwners[position] = member;
+                order[position] = position;
+                position++;
+            }
+        }
+        // Empate de tokens (improbable): gana el miembro menor, igual en todas las instancias
+        Arrays.sort(order, (a, b) -> {
+            int byToken = Long.compare(unsortedTokens[a], unsortedTokens[b]);
+            return byToken != 0 ? byToken : unsortedOwners[a].compareTo(unsortedOwners[b]);
+        });
+
+        this.tokens = new long[size];
+        this.owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            tokens[i] = unsortedTokens[order[i]];
+            owners[i] = unsortedOwners[order[i]];
+        }
+    }
+
+    /**
+     * Instancia dueña de la clave
+     */
+    public String ownerOf(long key) {
+        int index = Arrays.binarySearch(tokens, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == tokens.length ? 0 : index];
+    }
+
+    public List<String> getMembers() {
+        return members;
+    }
+
+    public boolean contains(String member) {
+        return members.contains(member);
+    }
+
+    /**
+     * FNV-1a de 64 bits + mezcla final: estable entre JVMs (no usa String.hashCode)
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Finalizador de MurmurHash3: IDs consecutivos caen dispersos en el anillo
+     */
+    static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return "HashRing" + members;
+    }
+}
@@ -0,0 +1,258 @@
+package com.monolito.ecommerce.cluster;
+
+import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.service.IdempotencyStore;
+import com.monolito.ecommerce.order.service.OrderService;
+import com.monolito.ecommerce.shared.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entrega de los datos de cada usuario a su instancia dueña cuando cambia el anillo
+ *
+ * - Al cambiar los miembros vivos se recorren los usuarios con carrito, órdenes o
+ *   Idempotency-Key en esta instancia: los que ahora son de otra se quitan de aquí
+ *   (CartService.detachCart, OrderService.detachOrders, IdempotencyStore.detach) y se
+ *   envían por lotes de cluster.handoff-batch-size usuarios a POST /internal/cluster/users
+ * - Si un lote no se entrega, todo vuelve a esta instancia y se reintenta en la siguiente
+ *   pasada; cada cluster.handoff-sweep-ms se repite la pasada para lo creado por peticiones
+ *   que llegaron con el anillo anterior (y las claves que seguían en curso)
+ * - Entregado el lote, las órdenes quedan como canceladas en el log de esta instancia
+ *   (OrderService.forgetOrders): el replay no las revive aquí
+ * - El que recibe conserva los productos del carrito que ya tenía y agrega el resto, ignora las
+ *   órdenes que ya tiene y sus claves locales ganan: un lote entregado dos veces no duplica nada
+ * - Al apagarse la instancia entrega todos sus usuarios a las que quedan vivas
+ *
+ * Así el historial y el reintento con la misma Idempotency-Key se resuelven en la dueña.
+ * Una pasada a la vez (un solo hilo). Si una instancia se cae sin apagarse, sus datos solo
+ * vuelven si usa persistencia (carts.persistence, orders.persistence) y arranca de nuevo.
+ */
+@Component
+public class UserHandoff implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserHandoff.class);
+    private static final String USERS_PATH = "/internal/cluster/users";
+    private static final long LEAVE_TIMEOUT_MS = 10_000;
+
+    private final CartService cartService;
+    private final OrderService orderService;
+    private final IdempotencyStore idempotencyStore;
+    private final ClusterMembership membership;
+    private final JsonMapper jsonMapper;
+    private final int batchSize;
+    private final long requestTimeoutMs;
+    private final ScheduledExecutorService executor;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    public UserHandoff(
+            CartService cartService,
+            OrderService orderService,
+            IdempotencyStore idempotencyStore,
+            ClusterMembership membership,
+            JsonMapper jsonMapper,
+            @Value("${cluster.handoff-batch-size:500}") int batchSize,
+            @Value("${cluster.handoff-sweep-ms:30000}") long sweepMs,
+            @Value("${cluster.forward-timeout-ms:3000}") long requestTimeoutMs) {
+        this.cartService = cartService;
+        this.orderService = orderService;
+        this.idempotencyStore = idempotencyStore;
+        this.membership = membership;
+        this.jsonMapper = jsonMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.requestTimeoutMs = requestTimeoutMs;
+        if (!membership.isEnabled()) {
+            this.executor = null;
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-user-handoff");
+            thread.setDaemon(true);
+            return thread;
+        });
+        membership.addListener(ring -> executor.execute(this::handOffForeignUsers));
+        executor.scheduleWithFixedDelay(this::handOffForeignUsers, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Usuarios recibidos de otra instancia
+     */
+    public void accept(List<UserTransfer> transfers) {
+        merge(transfers, true);
+        received.add(transfers.size());
+    }
+
+    /**
+     * Entregar todos los usuarios antes de que Spring empiece a destruir beans
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void handOffAll() {
+        if (membership.leave() == null) {
+            return;
+        }
+        try {
+            executor.submit(this::handOffForeignUsers).get(LEAVE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            LOGGER.warn("No se entregaron todos los usuarios antes de apagar: {}", ex.toString());
+        }
+    }
+
+    private void handOffForeignUsers() {
+        try {
+            HashRing ring = membership.getRing();
+            String self = membership.getSelf();
+            Set<Long> foreign = new HashSet<>();
+            collectForeign(cartService.getUserIds(), ring, self, foreign);
+            collectForeign(orderService.getIndexedUserIds(), ring, self, foreign);
+            collectForeign(idempotencyStore.getUserIds(), ring, self, foreign);
+            if (foreign.isEmpty()) {
+                return;
+            }
+
+            Map<Long, List<IdempotencyStore.Completed>> keys = idempotencyStore.detach(foreign);
+            Map<String, List<UserTransfer>> batches = new HashMap<>();
+            for (Long userId : foreign) {
+                List<CartItem> items = cartService.detachCart(userId);
+                List<Order> orders = orderService.detachOrders(userId);
+                List<IdempotencyStore.Completed> userKeys = keys.getOrDefault(userId, List.of());
+                if (items.isEmpty() && orders.isEmpty() && userKeys.isEmpty()) {
+                    continue;
+                }
+                String owner = ring.ownerOf(userId);
+                List<UserTransfer> batch = batches.computeIfAbsent(owner, key -> new ArrayList<>());
+                batch.add(new UserTransfer(userId, items, orders, userKeys));
+                if (batch.size() == batchSize) {
+                    send(owner, batch);
+                    batches.remove(owner);
+                }
+            }
+            batches.forEach(this::send);
+        } catch (RuntimeException ex) {
+            LOGGER.error("Error entregando usuarios a otras instancias", ex);
+        }
+    }
+
+    private static void collectForeign(Set<Long> userIds, HashRing ring, String self, Set<Long> foreign) {
+        for (Long userId : userIds) {
+            if (!ring.ownerOf(userId).equals(self)) {
+                foreign.add(userId);
+            }
+        }
+    }
+
+    private void send(String owner, List<UserTransfer> batch) {
+        try {
+            HttpRequest request = membership.newRequest(owner, USERS_PATH)
+                    .timeout(Duration.ofMillis(requestTimeoutMs))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(jsonMapper.writeValueAsBytes(batch)))
+                    .build();
+            HttpResponse<Void> response = membership.getHttpClient()
+                    .send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            sent.add(batch.size());
+            LOGGER.debug("{} usuarios entregados a {}", batch.size(), owner);
+        } catch (IOException ex) {
+            restore(owner, batch, ex);
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            restore(owner, batch, ex);
+            return;
+        }
+        for (UserTransfer transfer : batch) {
+            orderService.forgetOrders(transfer.getOrders());
+        }
+    }
+
+    private void restore(String owner, List<UserTransfer> batch, Exception cause) {
+        failedBatches.increment();
+        LOGGER.warn("No se pudieron entregar {} usuarios a {} ({}); quedan aquí hasta el próximo intento",
+                batch.size(), owner, cause.toString());
+        merge(batch, false);
+    }
+
+    /**
+     * Incorporar usuarios: recibidos (logged=true, sus órdenes se escriben en el log de esta
+     * instancia) o devueltos por una entrega fallida (siguen en el log)
+     */
+    private void merge(List<UserTransfer> transfers, boolean logged) {
+        for (UserTransfer transfer : transfers) {
+            Long userId = transfer.getUserId();
+            if (userId == null) {
+                continue;
+            }
+            if (transfer.getItems() != null) {
+                cartService.mergeCart(userId, transfer.getItems());
+            }
+            if (transfer.getOrders() != null) {
+                orderService.adoptOrders(userId, transfer.getOrders(), logged);
+            }
+            if (transfer.getIdempotencyKeys() != null) {
+                // La orden llegó en este lote o en uno anterior (si la clave seguía en curso)
+                for (IdempotencyStore.Completed completed : transfer.getIdempotencyKeys()) {
+                    try {
+                        idempotencyStore.adopt(userId, completed, orderService.getOrderById(completed.orderId()));
+                    } catch (ResourceNotFoundException ex) {
+                        LOGGER.warn("Idempotency-Key de la orden {} sin la orden: se descarta", completed.orderId());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cluster.users.handoff", sent, LongAdder::sum)
+                .tag("direction", "sent")
+                .description("Usuarios (carrito, órdenes y claves) entregados a / recibidos de otras instancias")
+                .register(registry);
+        FunctionCounter.builder("cluster.users.handoff", received, LongAdder::sum)
+                .tag("direction", "received")
+                .description("Usuarios (carrito, órdenes y claves) entregados a / recibidos de otras instancias")
+                .register(registry);
+        FunctionCounter.builder("cluster.users.handoff.failures", failedBatches, LongAdder::sum)
+                .description("Lotes de usuarios que no se pudieron entregar")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
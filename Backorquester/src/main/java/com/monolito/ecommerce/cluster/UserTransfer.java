@@ -0,0 +1,63 @@
+package com.monolito.ecommerce.cluster;
+
+import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.service.IdempotencyStore;
+
+import java.util.List;
+
+/**
+ * Datos de un usuario en tránsito entre instancias (POST /internal/cluster/users):
+ * su carrito, sus órdenes y las Idempotency-Key ya resueltas con esas órdenes
+ */
+public class UserTransfer {
+
+    private Long userId;
+    private List<CartItem> items;
+    private List<Order> orders;
+    private List<IdempotencyStore.Completed> idempotencyKeys;
+
+    public UserTransfer() {
+    }
+
+    public UserTransfer(Long userId, List<CartItem> items, List<Order> orders,
+                        List<IdempotencyStore.Completed> idempotencyKeys) {
+        this.userId = userId;
+        this.items = items;
+        this.orders = orders;
+        this.idempotencyKeys = idempotencyKeys;
+    }
+
+    // Getters y Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Order> orders) {
+        this.orders = orders;
+    }
+
+    public List<IdempotencyStore.Completed> getIdempotencyKeys() {
+        return idempotencyKeys;
+    }
+
+    public void setIdempotencyKeys(List<IdempotencyStore.Completed> idempotencyKeys) {
+        this.idempotencyKeys = idempotencyKeys;
+    }
+}
@@ -22,7 +22,8 @@ public class CorsConfig implements WebMvcConfigurer {
         registry.addMapping("/api/**")
             .allowedOriginPatterns(origins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                .allowedHeaders("Authorization", "Content-Type")
+                .allowedHeaders("Authorization", "Content-Type", "Idempotency-Key", "X-Request-Id")
+                .exposedHeaders("X-Request-Id", "Server-Timing")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
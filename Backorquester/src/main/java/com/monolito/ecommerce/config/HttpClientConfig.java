@@ -1,14 +1,105 @@
 package com.monolito.ecommerce.config;
 
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Cliente HTTP compartido por CatalogClient y AuthClient
+ *
+ * - Pool de conexiones keep-alive (sin handshake TCP por petición)
+ * - Límite total y por ruta (servicio destino)
+ * - Timeouts de conexión, de espera por el pool y de lectura: nada se cuelga indefinidamente
+ * - services.http.http2-enabled=true usa el HttpClient del JDK (HTTP/2 multiplexado,
+ *   sin pool que dimensionar ni métricas de pool)
+ * - Cada llamada lleva el X-Request-Id de la petición en curso (RequestCorrelationFilter)
+ */
 @Configuration
 public class HttpClientConfig {
 
+    @Bean(destroyMethod = "close")
+    public MeteredConnectionManager httpConnectionManager(
+            @Value("${services.http.max-connections-total:200}") int maxTotal,
+            @Value("${services.http.max-connections-per-route:50}") int maxPerRoute,
+            @Value("${services.http.connect-timeout-ms:1000}") long connectTimeoutMs,
+            @Value("${services.http.read-timeout-ms:3000}") long readTimeoutMs,
+            @Value("${services.http.connection-ttl-seconds:300}") long connectionTtlSeconds,
+            @Value("${services.catalog.base-url:http://localhost:8083/api/products}") String catalogBaseUrl,
+            @Value("${services.auth.base-url:http://localhost:8082/api/users}") String authBaseUrl) {
+        MeteredConnectionManager connectionManager = new MeteredConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setTimeToLive(TimeValue.ofSeconds(connectionTtlSeconds))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build());
+        connectionManager.registerDownstream("catalog", catalogBaseUrl);
+        connectionManager.registerDownstream("auth", authBaseUrl);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pooledHttpClient(
+            MeteredConnectionManager connectionManager,
+            @Value("${services.http.connection-request-timeout-ms:1000}") long connectionRequestTimeoutMs,
+            @Value("${services.http.read-timeout-ms:3000}") long readTimeoutMs,
+            @Value("${services.http.idle-eviction-seconds:30}") long idleEvictionSeconds) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleEvictionSeconds))
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(
+            CloseableHttpClient pooledHttpClient,
+            @Value("${services.http.http2-enabled:false}") boolean http2Enabled,
+            @Value("${services.http.connect-timeout-ms:1000}") long connectTimeoutMs,
+            @Value("${services.http.read-timeout-ms:3000}") long readTimeoutMs) {
+        ClientHttpRequestFactory requestFactory;
+        if (http2Enabled) {
+            HttpClient jdkClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                    .build();
+            JdkClientHttpRequestFactory jdkFactory = new JdkClientHttpRequestFactory(jdkClient);
+            jdkFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            requestFactory = jdkFactory;
+        } else {
+            requestFactory = new HttpComponentsClientHttpRequestFactory(pooledHttpClient);
+        }
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            String requestId = MDC.get(RequestTiming.MDC_KEY);
+            if (requestId != null) {
+                request.getHeaders().set(RequestTiming.REQUEST_ID_HEADER, requestId);
+            }
+            return execution.execute(request, body);
+        });
+        return restTemplate;
     }
 }
@@ -0,0 +1,68 @@
+package com.monolito.ecommerce.config;
+
+import com.monolito.ecommerce.cluster.ClusterMembership;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.id.IdGeneratorType;
+import com.monolito.ecommerce.shared.id.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Generador de IDs de órdenes (y de los servicios de productos y usuarios del monolito)
+ *
+ * SNOWFLAKE por defecto. SEQUENTIAL se rechaza con cluster.enabled=true: cada instancia
+ * emitiría 1, 2, 3... y los IDs de órdenes se repetirían entre instancias.
+ * Los IDs superan 2^53: los modelos de la API los serializan como string (@JsonFormat).
+ *
+ * Nodo de SNOWFLAKE (ids.node-id, 0-1023):
+ * - Explícito: cada instancia el suyo
+ * - -1 con cluster.enabled=true: posición de cluster.self-url en cluster.members (única en el cluster)
+ * - -1 sin cluster: hash de host:puerto (puede coincidir entre instancias: configurarlo al escalar)
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Bean
+    public IdGenerator idGenerator(
+            @Value("${ids.generator:SNOWFLAKE}") IdGeneratorType type,
+            @Value("${ids.node-id:-1}") int nodeId,
+            @Value("${ids.snowflake.max-drift-ms:2000}") long maxDriftMs,
+            @Value("${server.port:8080}") int serverPort,
+            ClusterMembership membership) {
+        if (type == IdGeneratorType.SEQUENTIAL && membership.isEnabled()) {
+            throw new IllegalStateException("ids.generator=SEQUENTIAL no es válido con cluster.enabled=true: "
+                    + "los IDs se repetirían entre instancias, usar SNOWFLAKE");
+        }
+        if (type == IdGeneratorType.SEQUENTIAL) {
+            LOGGER.info("IDs secuenciales en memoria (una sola instancia)");
+            return type.create(0, maxDriftMs);
+        }
+
+        int node = nodeId;
+        if (node < 0 && membership.isEnabled()) {
+            node = membership.getMemberIndex();
+        } else if (node < 0) {
+            node = Math.floorMod((hostName() + ":" + serverPort).hashCode(), SnowflakeIdGenerator.MAX_NODE_ID + 1);
+            LOGGER.warn("ids.node-id no configurado: se usa {} (hash de host y puerto). "
+                    + "Con varias instancias configurar uno distinto en cada una", node);
+        }
+        LOGGER.info("IDs Snowflake con nodo {}", node);
+        return type.create(node, maxDriftMs);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "localhost";
+        }
+    }
+}
@@ -7,17 +7,29 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Autenticación por JWT (Authorization: Bearer)
+ *
+ * - El subject es el userId
+ * - El claim "roles" (lista) se convierte en ROLE_<rol>: los tokens de auth-service no lo
+ *   traen; lo llevan los de sistemas internos firmados con el mismo secreto (ver SecurityConfig)
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    public static final String ROLES_CLAIM = "roles";
+
     private final JwtTokenService jwtTokenService;
 
     public JwtAuthenticationFilter(JwtTokenService jwtTokenService) {
@@ -40,7 +52,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                             subject,
                             null,
-                            Collections.emptyList());
+                            authoritiesOf(claims));
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
@@ -51,4 +63,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    private static List<GrantedAuthority> authoritiesOf(Claims claims) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (claims.get(ROLES_CLAIM) instanceof List<?> roles) {
+            for (Object role : roles) {
+                if (role instanceof String name && !name.isBlank()) {
+                    authorities.add(new SimpleGrantedAuthority("ROLE_" + name));
+                }
+            }
+        }
+        return authorities;
+    }
 }
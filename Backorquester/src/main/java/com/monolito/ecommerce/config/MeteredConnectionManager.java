@@ -0,0 +1,98 @@
+package com.monolito.ecommerce.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.Timeout;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Pool de conexiones HTTP con métricas
+ *
+ * - http.client.pool.{leased,available,pending,max}: uso del pool (total y por servicio destino)
+ * - http.client.pool.wait: tiempo esperando una conexión libre del pool
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager implements MeterBinder {
+
+    private final Map<String, HttpRoute> downstreamRoutes = new LinkedHashMap<>();
+    private volatile Timer leaseTimer;
+
+    /**
+     * Registrar un servicio destino para publicar métricas de su ruta
+     */
+    public void registerDownstream(String name, String baseUrl) {
+        URI uri = URI.create(baseUrl);
+        int port = uri.getPort() != -1 ? uri.getPort() : ("https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80);
+        downstreamRoutes.put(name, new HttpRoute(new HttpHost(uri.getScheme(), uri.getHost(), port)));
+    }
+
+    @Override
+    public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+        LeaseRequest delegate = super.lease(id, route, requestTimeout, state);
+        long start = System.nanoTime();
+        return new LeaseRequest() {
+            @Override
+            public ConnectionEndpoint get(Timeout timeout)
+                    throws InterruptedException, ExecutionException, TimeoutException {
+                try {
+                    return delegate.get(timeout);
+                } finally {
+                    Timer timer = leaseTimer;
+                    if (timer != null) {
+                        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return delegate.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.leaseTimer = Timer.builder("http.client.pool.wait")
+                .description("Tiempo esperando una conexión del pool")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+
+        bindPoolGauges(registry, Tags.of("downstream", "all"), this::getTotalStats);
+        downstreamRoutes.forEach((name, route) ->
+                bindPoolGauges(registry, Tags.of("downstream", name), () -> getStats(route)));
+    }
+
+    private void bindPoolGauges(MeterRegistry registry, Tags tags, Supplier<PoolStats> stats) {
+        gauge(registry, "http.client.pool.leased", "Conexiones en uso", tags, stats, PoolStats::getLeased);
+        gauge(registry, "http.client.pool.available", "Conexiones libres (keep-alive)", tags, stats,
+                PoolStats::getAvailable);
+        gauge(registry, "http.client.pool.pending", "Peticiones esperando conexión", tags, stats,
+                PoolStats::getPending);
+        gauge(registry, "http.client.pool.max", "Máximo de conexiones", tags, stats, PoolStats::getMax);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, Tags tags,
+            Supplier<PoolStats> stats, ToIntFunction<PoolStats> value) {
+        Gauge.builder(name, this, manager -> value.applyAsInt(stats.get()))
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -0,0 +1,27 @@
+package com.monolito.ecommerce.config;
+
+import com.monolito.ecommerce.order.persistence.OrderStore;
+import com.monolito.ecommerce.order.persistence.OrderStoreEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Almacenamiento en memoria de OrderService
+ *
+ * - HEAP (por defecto): objetos Order en un mapa ordenado
+ * - PACKED: columnas de primitivos, para decenas de millones de órdenes en un heap acotado
+ */
+@Configuration
+public class OrderStoreConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderStoreConfig.class);
+
+    @Bean
+    public OrderStore orderStore(@Value("${orders.store.engine:HEAP}") OrderStoreEngine engine) {
+        LOGGER.info("Órdenes en memoria con el almacenamiento {}", engine);
+        return engine.create();
+    }
+}
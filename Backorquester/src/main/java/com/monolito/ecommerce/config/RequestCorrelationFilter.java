@@ -0,0 +1,63 @@
+package com.monolito.ecommerce.config;
+
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Correlación de peticiones entre servicios
+ *
+ * - Toma X-Request-Id de la petición (si es válido) o genera uno nuevo
+ * - Lo deja en el MDC (requestId, aparece en cada línea de log) y lo devuelve en la respuesta
+ * - RestTemplate lo reenvía a catalog-service y auth-service (HttpClientConfig)
+ * - Server-Timing lo agrega ServerTimingAdvice antes de escribir el cuerpo; aquí solo
+ *   para respuestas sin cuerpo que todavía no se enviaron
+ *
+ * Primer filtro de la cadena: el tiempo total incluye seguridad y JWT.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestCorrelationFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestCorrelationFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        String requestId = request.getHeader(RequestTiming.REQUEST_ID_HEADER);
+        if (!RequestTiming.isValidRequestId(requestId)) {
+            requestId = UUID.randomUUID().toString();
+        }
+
+        RequestTiming timing = RequestTiming.begin(requestId);
+        MDC.put(RequestTiming.MDC_KEY, requestId);
+        response.setHeader(RequestTiming.REQUEST_ID_HEADER, requestId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!response.isCommitted()) {
+                response.setHeader(RequestTiming.SERVER_TIMING_HEADER, timing.serverTiming());
+            }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("{} {} -> {} en {} ms (otros servicios: {} ms)",
+                        request.getMethod(), request.getRequestURI(), response.getStatus(),
+                        timing.elapsedNanos() / 1_000_000, timing.downstreamNanos() / 1_000_000);
+            }
+            RequestTiming.end();
+            MDC.remove(RequestTiming.MDC_KEY);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.monolito.ecommerce.config;
 
 import com.monolito.ecommerce.shared.dto.ErrorResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,6 +18,9 @@ import java.time.LocalDateTime;
 @Configuration
 public class SecurityConfig {
 
+    // Importación de órdenes en lote: solo back-office e integraciones (claim "roles" del JWT)
+    public static final String ORDER_IMPORT_ROLE = "ORDER_IMPORT";
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
@@ -40,9 +44,12 @@ public class SecurityConfig {
                                         "No tienes permisos para acceder a este recurso");
                             }))
                     .authorizeHttpRequests(auth -> auth
+                            // Ya autorizada en el dispatch original (SSE, export en streaming)
+                            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                             .requestMatchers("/api/products").permitAll()
                             .requestMatchers("/api/cart/**").authenticated()
+                            .requestMatchers("/api/orders/bulk").hasRole(ORDER_IMPORT_ROLE)
                             .requestMatchers("/api/orders/**").authenticated()
                             .anyRequest().permitAll())
                     .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
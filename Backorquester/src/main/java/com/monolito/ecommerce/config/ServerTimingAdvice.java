@@ -0,0 +1,37 @@
+package com.monolito.ecommerce.config;
+
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Server-Timing en respuestas con cuerpo (controladores y GlobalExceptionHandler)
+ *
+ * Los headers tienen que ir antes del cuerpo: cuando RequestCorrelationFilter vuelve de la
+ * cadena la respuesta ya se envió. Se mide justo antes de serializar, así que el tiempo
+ * de escribir el JSON no entra en "total".
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            response.getHeaders().set(RequestTiming.SERVER_TIMING_HEADER, timing.serverTiming());
+        }
+        return body;
+    }
+}
@@ -0,0 +1,103 @@
+package com.monolito.ecommerce.integration;
+
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor para llamadas HTTP en paralelo hacia otros servicios
+ *
+ * - En Java 21+ usa un hilo virtual por tarea (bloquear en I/O no cuesta un hilo del SO)
+ * - En Java 17 cae a un pool acotado de hilos de plataforma
+ * - Cada tarea corre con el MDC (X-Request-Id) y el RequestTiming de quien la lanzó:
+ *   las llamadas en paralelo llevan el mismo ID y su tiempo aparece en Server-Timing
+ *
+ * No implementa Executor a propósito: así no reemplaza el applicationTaskExecutor de Spring.
+ */
+@Component
+public class FanOutExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FanOutExecutor.class);
+
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+
+    public FanOutExecutor(@Value("${services.fan-out.max-threads:64}") int maxThreads) {
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newBoundedExecutor(maxThreads);
+        LOGGER.info("Fan-out hacia servicios externos con {}",
+                virtualThreads ? "hilos virtuales" : "pool de " + maxThreads + " hilos");
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        RequestTiming timing = RequestTiming.current();
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            RequestTiming previousTiming = RequestTiming.attach(timing);
+            setMdc(mdc);
+            try {
+                return task.get();
+            } finally {
+                setMdc(previousMdc);
+                RequestTiming.attach(previousTiming);
+            }
+        }, executor);
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context != null) {
+            MDC.setContextMap(context);
+        } else {
+            MDC.clear();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newBoundedExecutor(int maxThreads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "fan-out-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                maxThreads, maxThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -1,6 +1,8 @@
 package com.monolito.ecommerce.integration.auth;
 
+import com.monolito.ecommerce.integration.resilience.DownstreamGuards;
 import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
@@ -12,23 +14,29 @@ public class AuthClient {
 
     private final RestTemplate restTemplate;
     private final String authBaseUrl;
+    private final DownstreamGuards downstreamGuards;
 
     public AuthClient(
             RestTemplate restTemplate,
-            @Value("${services.auth.base-url:http://localhost:8082/api/users}") String authBaseUrl) {
+            @Value("${services.auth.base-url:http://localhost:8082/api/users}") String authBaseUrl,
+            DownstreamGuards downstreamGuards) {
         this.restTemplate = restTemplate;
         this.authBaseUrl = authBaseUrl;
+        this.downstreamGuards = downstreamGuards;
     }
 
     public boolean userExists(Long userId) {
         try {
-            restTemplate.getForEntity(authBaseUrl + "/{id}", String.class, userId);
+            downstreamGuards.get(DownstreamGuards.AUTH)
+                    .call("get-user", () -> restTemplate.getForEntity(authBaseUrl + "/{id}", String.class, userId));
             return true;
         } catch (HttpClientErrorException ex) {
             if (ex.getStatusCode() == HttpStatus.NOT_FOUND) {
                 return false;
             }
             throw new BusinessException("Error validando usuario contra auth-service");
+        } catch (DownstreamUnavailableException ex) {
+            throw ex;
         } catch (Exception ex) {
             throw new BusinessException("No se pudo conectar con auth-service");
         }
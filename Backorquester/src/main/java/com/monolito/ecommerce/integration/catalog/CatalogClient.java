@@ -1,8 +1,18 @@
 package com.monolito.ecommerce.integration.catalog;
 
+import com.monolito.ecommerce.integration.FanOutExecutor;
 import com.monolito.ecommerce.integration.dto.ApiResponse;
+import com.monolito.ecommerce.integration.resilience.DownstreamGuard;
+import com.monolito.ecommerce.integration.resilience.DownstreamGuards;
+import com.monolito.ecommerce.shared.concurrency.SingleFlight;
+import com.monolito.ecommerce.shared.dto.ErrorResponse;
 import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
+import com.monolito.ecommerce.shared.exception.InsufficientStockException;
 import com.monolito.ecommerce.shared.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
@@ -13,29 +23,75 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Component
-public class CatalogClient {
+public class CatalogClient implements MeterBinder {
 
     private final RestTemplate restTemplate;
     private final String catalogBaseUrl;
+    private final FanOutExecutor fanOutExecutor;
+    private final long lookupTimeoutMs;
+    private final ProductSnapshotCache productCache;
+    private final DownstreamGuards downstreamGuards;
+    private final SingleFlight<Long, ProductSnapshot> productLookups = new SingleFlight<>();
 
     public CatalogClient(
             RestTemplate restTemplate,
-            @Value("${services.catalog.base-url:http://localhost:8083/api/products}") String catalogBaseUrl) {
+            @Value("${services.catalog.base-url:http://localhost:8083/api/products}") String catalogBaseUrl,
+            FanOutExecutor fanOutExecutor,
+            @Value("${services.catalog.lookup-timeout-ms:2000}") long lookupTimeoutMs,
+            ProductSnapshotCache productCache,
+            DownstreamGuards downstreamGuards) {
         this.restTemplate = restTemplate;
         this.catalogBaseUrl = catalogBaseUrl;
+        this.fanOutExecutor = fanOutExecutor;
+        this.lookupTimeoutMs = lookupTimeoutMs;
+        this.productCache = productCache;
+        this.downstreamGuards = downstreamGuards;
     }
 
+    /**
+     * Consultar un producto, pasando primero por la caché local (datos de lectura:
+     * nombre, precio, stock aproximado). Para decisiones de stock usar los métodos de stock.
+     *
+     * Si varios hilos piden el mismo producto que no está en caché, solo uno llama a
+     * catalog-service y el resto recibe su resultado (o su error).
+     */
     public ProductSnapshot getProductById(Long productId) {
+        ProductSnapshot cached = productCache.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+
+        return productLookups.execute(productId, () -> {
+            long version = productCache.currentVersion(productId);
+            ProductSnapshot product = fetchProduct(productId);
+            productCache.put(product, version);
+            return product;
+        });
+    }
+
+    /**
+     * Consultar un producto directamente a catalog-service, sin caché
+     */
+    private ProductSnapshot fetchProduct(Long productId) {
         try {
-            ResponseEntity<ApiResponse<ProductSnapshot>> response = restTemplate.exchange(
+            ResponseEntity<ApiResponse<ProductSnapshot>> response = guard().call("get-product", () -> restTemplate.exchange(
                     catalogBaseUrl + "/{id}",
                     HttpMethod.GET,
                     null,
                     new ParameterizedTypeReference<ApiResponse<ProductSnapshot>>() {
                     },
-                    productId);
+                    productId));
 
             ApiResponse<ProductSnapshot> body = response.getBody();
             if (body == null || !body.isSuccess() || body.getData() == null) {
@@ -45,44 +101,124 @@ public class CatalogClient {
             return body.getData();
         } catch (HttpClientErrorException.NotFound ex) {
             throw new ResourceNotFoundException("Producto", productId);
-        } catch (ResourceNotFoundException ex) {
+        } catch (ResourceNotFoundException | DownstreamUnavailableException ex) {
             throw ex;
         } catch (Exception ex) {
             throw new BusinessException("No se pudo conectar con catalog-service");
         }
     }
 
-    public boolean hasStock(Long productId, Integer quantity) {
-        ProductSnapshot product = getProductById(productId);
-        return product.getStock() != null && product.getStock() >= quantity;
-    }
+    /**
+     * Consultar varios productos en paralelo (un GET por producto, todos a la vez).
+     * La latencia total es la del GET más lento, acotada por services.catalog.lookup-timeout-ms.
+     * El resultado conserva el orden de los IDs recibidos.
+     */
+    public Map<Long, ProductSnapshot> getProductsByIds(Collection<Long> productIds) {
+        LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(productIds);
+        Map<Long, ProductSnapshot> products = new LinkedHashMap<>();
+        if (distinctIds.size() <= 1) {
+            distinctIds.forEach(id -> products.put(id, getProductById(id)));
+            return products;
+        }
 
-    public void decreaseStock(Long productId, Integer quantity) {
-        ProductSnapshot product = getProductById(productId);
-        Integer newStock = product.getStock() - quantity;
+        Map<Long, CompletableFuture<ProductSnapshot>> lookups = new LinkedHashMap<>();
+        for (Long productId : distinctIds) {
+            lookups.put(productId, fanOutExecutor.supplyAsync(() -> getProductById(productId)));
+        }
 
-        if (newStock < 0) {
-            throw new BusinessException(
-                    String.format("Stock insuficiente para %s. Disponible: %d, Solicitado: %d",
-                            product.getName(), product.getStock(), quantity));
+        try {
+            CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0]))
+                    .get(lookupTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            throw new BusinessException("catalog-service no respondió a tiempo");
+        } catch (ExecutionException ex) {
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("No se pudo conectar con catalog-service");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            throw new BusinessException("Consulta a catalog-service interrumpida");
         }
 
-        updateStock(productId, newStock);
+        lookups.forEach((productId, lookup) -> products.put(productId, lookup.join()));
+        return products;
+    }
+
+    /**
+     * Valida y descuenta el stock de varios productos en una sola llamada.
+     * catalog-service aplica todo o nada: si un producto no alcanza, no se modifica ninguno
+     * (InsufficientStockException). Cualquier otro BusinessException (timeout, 5xx) deja
+     * el resultado incierto: el descuento pudo haberse aplicado.
+     */
+    public List<ProductSnapshot> decreaseStock(List<StockAdjustment> adjustments) {
+        return adjustStock("/stock/decrease", "stock-decrease", adjustments, "No se pudo descontar stock en catalog-service");
     }
 
-    public void increaseStock(Long productId, Integer quantity) {
-        ProductSnapshot product = getProductById(productId);
-        Integer newStock = product.getStock() + quantity;
-        updateStock(productId, newStock);
+    /**
+     * Repone el stock de varios productos en una sola llamada (rollback de decreaseStock).
+     */
+    public List<ProductSnapshot> increaseStock(List<StockAdjustment> adjustments) {
+        return adjustStock("/stock/increase", "stock-increase", adjustments, "No se pudo reponer stock en catalog-service");
     }
 
-    private void updateStock(Long productId, Integer stock) {
+    private List<ProductSnapshot> adjustStock(String path, String operation, List<StockAdjustment> adjustments,
+                                              String errorMessage) {
+        List<Long> productIds = adjustments.stream().map(StockAdjustment::getProductId).toList();
         try {
-            URI uri = URI.create(catalogBaseUrl + "/" + productId + "/stock?stock=" + stock);
-            RequestEntity<Void> request = new RequestEntity<>(HttpMethod.PUT, uri);
-            restTemplate.exchange(request, String.class);
+            RequestEntity<StockBatchRequest> request = RequestEntity
+                    .post(URI.create(catalogBaseUrl + path))
+                    .body(new StockBatchRequest(adjustments));
+            ResponseEntity<ApiResponse<List<ProductSnapshot>>> response = guard().call(operation, () -> restTemplate.exchange(
+                    request,
+                    new ParameterizedTypeReference<ApiResponse<List<ProductSnapshot>>>() {
+                    }));
+
+            ApiResponse<List<ProductSnapshot>> body = response.getBody();
+            if (body == null || !body.isSuccess() || body.getData() == null) {
+                throw new BusinessException("Respuesta inválida de catalog-service");
+            }
+
+            productCache.refresh(body.getData());
+            return body.getData();
+        } catch (HttpClientErrorException.NotFound ex) {
+            productCache.invalidate(productIds);
+            throw new ResourceNotFoundException(errorMessageOf(ex, "Producto no encontrado"));
+        } catch (HttpClientErrorException.BadRequest ex) {
+            productCache.invalidate(productIds);
+            throw new InsufficientStockException(errorMessageOf(ex, errorMessage));
+        } catch (BusinessException ex) {
+            productCache.invalidate(productIds);
+            throw ex;
         } catch (Exception ex) {
-            throw new BusinessException("No se pudo actualizar stock en catalog-service");
+            productCache.invalidate(productIds);
+            throw new BusinessException(errorMessage);
+        }
+    }
+
+    private String errorMessageOf(HttpClientErrorException ex, String fallback) {
+        try {
+            ErrorResponse error = ex.getResponseBodyAs(ErrorResponse.class);
+            if (error != null && error.getMessage() != null) {
+                return error.getMessage();
+            }
+        } catch (RuntimeException ignored) {
+            // Cuerpo no interpretable: se usa el mensaje por defecto
         }
+        return fallback;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("catalog.lookups.collapsed", productLookups, SingleFlight::collapsed)
+                .description("Consultas de producto que esperaron una llamada ya en curso en vez de hacer la suya")
+                .register(registry);
+    }
+
+    private DownstreamGuard guard() {
+        return downstreamGuards.get(DownstreamGuards.CATALOG);
     }
 }
@@ -0,0 +1,179 @@
+package com.monolito.ecommerce.integration.catalog;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché local (near-cache) de ProductSnapshot
+ *
+ * - Acotada por tamaño (LRU): al superar max-size se expulsa la entrada usada hace más tiempo
+ * - TTL: una entrada vencida cuenta como fallo y se vuelve a pedir a catalog-service
+ * - Versionada por producto: cada invalidación incrementa la versión de los productos
+ *   afectados; un valor cargado antes de una invalidación de ese producto no se guarda
+ *   (evita reinsertar stock viejo tras un descuento). Las versiones viven en VERSION_STRIPES
+ *   contadores repartidos por hash del ID: invalidar un producto solo descarta las cargas en
+ *   curso de los que comparten su contador, no las de todo el catálogo
+ * - Las operaciones de stock NO leen de aquí, siempre van a catalog-service
+ *
+ * CONCURRENCIA: LinkedHashMap en orden de acceso, todos los accesos synchronized
+ * (cada operación es O(1) y mucho más corta que la llamada remota que evita)
+ */
+@Component
+public class ProductSnapshotCache implements MeterBinder {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Map<Long, Entry> entries;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ProductSnapshotCache(
+            @Value("${services.catalog.cache.enabled:true}") boolean enabled,
+            @Value("${services.catalog.cache.max-size:10000}") int maxSize,
+            @Value("${services.catalog.cache.ttl-ms:10000}") long ttlMs) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > ProductSnapshotCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Snapshot vigente o null si no está, venció o la caché está deshabilitada
+     */
+    public synchronized ProductSnapshot get(Long productId) {
+        if (!enabled) {
+            return null;
+        }
+
+        Entry entry = entries.get(productId);
+        if (entry == null || System.nanoTime() - entry.loadedAt >= ttlNanos) {
+            if (entry != null) {
+                entries.remove(productId);
+            }
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.snapshot;
+    }
+
+    /**
+     * Versión actual del producto: se toma antes de consultar catalog-service y se pasa a put
+     */
+    public long currentVersion(Long productId) {
+        return versions.get(stripeOf(productId));
+    }
+
+    /**
+     * Guardar un snapshot cargado desde catalog-service, salvo que ese producto
+     * se haya invalidado mientras se cargaba
+     */
+    public synchronized void put(ProductSnapshot snapshot, long versionAtLoad) {
+        if (enabled && snapshot != null && snapshot.getId() != null
+                && versions.get(stripeOf(snapshot.getId())) == versionAtLoad) {
+            store(snapshot);
+        }
+    }
+
+    /**
+     * Reemplazar con datos recién escritos en catalog-service (respuesta de un ajuste de stock)
+     */
+    public synchronized void refresh(Collection<ProductSnapshot> snapshots) {
+        for (ProductSnapshot snapshot : snapshots) {
+            if (snapshot != null && snapshot.getId() != null) {
+                versions.incrementAndGet(stripeOf(snapshot.getId()));
+            }
+        }
+        if (enabled) {
+            snapshots.forEach(this::store);
+        }
+    }
+
+    public synchronized void invalidate(Collection<Long> productIds) {
+        for (Long productId : productIds) {
+            versions.incrementAndGet(stripeOf(productId));
+            entries.remove(productId);
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("catalog.cache.hits", hits, LongAdder::sum)
+                .description("Lecturas de producto resueltas en la caché local")
+                .register(registry);
+        FunctionCounter.builder("catalog.cache.misses", misses, LongAdder::sum)
+                .description("Lecturas de producto que fueron a catalog-service")
+                .register(registry);
+        FunctionCounter.builder("catalog.cache.evictions", evictions, LongAdder::sum)
+                .description("Entradas expulsadas por tamaño")
+                .register(registry);
+        Gauge.builder("catalog.cache.size", this, ProductSnapshotCache::size)
+                .description("Productos en la caché local")
+                .register(registry);
+    }
+
+    private static int stripeOf(Long productId) {
+        int h = Long.hashCode(productId);
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & (VERSION_STRIPES - 1);
+    }
+
+    private void store(ProductSnapshot snapshot) {
+        if (snapshot == null || snapshot.getId() == null) {
+            return;
+        }
+
+        entries.put(snapshot.getId(), new Entry(snapshot, System.nanoTime()));
+    }
+
+    private static final class Entry {
+
+        private final ProductSnapshot snapshot;
+        private final long loadedAt;
+
+        private Entry(ProductSnapshot snapshot, long loadedAt) {
+            this.snapshot = snapshot;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.monolito.ecommerce.integration.catalog;
+
+public class StockAdjustment {
+
+    private Long productId;
+    private Integer quantity;
+
+    public StockAdjustment() {
+    }
+
+    public StockAdjustment(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,23 @@
+package com.monolito.ecommerce.integration.catalog;
+
+import java.util.List;
+
+public class StockBatchRequest {
+
+    private List<StockAdjustment> items;
+
+    public StockBatchRequest() {
+    }
+
+    public StockBatchRequest(List<StockAdjustment> items) {
+        this.items = items;
+    }
+
+    public List<StockAdjustment> getItems() {
+        return items;
+    }
+
+    public void setItems(List<StockAdjustment> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,194 @@
+package com.monolito.ecommerce.integration.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por servicio destino
+ *
+ * ESTADOS:
+ * - CLOSED: las llamadas pasan; el resultado de las últimas windowSize queda en una ventana circular
+ * - OPEN: se rechazan sin llamar (falla rápido) durante openMs
+ * - HALF_OPEN: pasan hasta halfOpenCalls llamadas de prueba; si todas salen bien se cierra,
+ *   con una sola falla (o lenta) vuelve a abrirse
+ *
+ * APERTURA (con al menos minimumCalls en la ventana):
+ * - % de fallas >= failureRateThreshold, o
+ * - % de llamadas más lentas que slowCallMs >= slowCallRateThreshold
+ *
+ * Qué es una falla lo decide quien llama (ver DownstreamGuard): un 4xx no lo es.
+ * Todos los métodos son synchronized: una llamada remota dura órdenes de magnitud más.
+ */
+public class CircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Umbrales del breaker (porcentajes de 1 a 100)
+     */
+    public record Settings(int windowSize, int minimumCalls, int failureRateThreshold,
+                           int slowCallRateThreshold, long slowCallMs, long openMs, int halfOpenCalls) {
+
+        public Settings {
+            if (windowSize <= 0 || minimumCalls <= 0 || halfOpenCalls <= 0) {
+                throw new IllegalArgumentException("windowSize, minimumCalls y halfOpenCalls deben ser mayores a cero");
+            }
+        }
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final LongSupplier clock;
+
+    // Ventana circular de resultados: 0 = bien, FAILED y/o SLOW
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAtMs;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private long rejected;
+
+    public CircuitBreaker(String name, Settings settings, LongSupplier clock) {
+        this.name = name;
+        this.settings = settings;
+        this.clock = clock;
+        this.outcomes = new byte[settings.windowSize()];
+    }
+
+    /**
+     * ¿Puede pasar una llamada ahora? Si devuelve true, la llamada DEBE terminar
+     * en onSuccess, onFailure o release.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAtMs < settings.openMs()) {
+                rejected++;
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= settings.halfOpenCalls()) {
+                rejected++;
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    /**
+     * La llamada no llegó a hacerse (p. ej. la rechazó el bulkhead): devuelve el permiso sin contar
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized void onSuccess(long durationMs) {
+        record(durationMs, false);
+    }
+
+    public synchronized void onFailure(long durationMs) {
+        record(durationMs, true);
+    }
+
+    public synchronized State getState() {
+        // Un OPEN vencido ya admite pruebas aunque nadie haya llamado todavía
+        if (state == State.OPEN && clock.getAsLong() - openedAtMs >= settings.openMs()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized float getFailureRate() {
+        return recorded == 0 ? 0f : failures * 100f / recorded;
+    }
+
+    public synchronized float getSlowCallRate() {
+        return recorded == 0 ? 0f : slowCalls * 100f / recorded;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return recorded;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(long durationMs, boolean failed) {
+        boolean slow = durationMs >= settings.slowCallMs();
+
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                transitionTo(State.OPEN);
+            } else if (++halfOpenSuccesses >= settings.halfOpenCalls()) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Llamada que empezó antes de abrirse: ya no cuenta
+            return;
+        }
+
+        byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        if (recorded == outcomes.length) {
+            byte evicted = outcomes[next];
+            failures -= evicted & FAILED;
+            slowCalls -= (evicted & SLOW) >> 1;
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += outcome & FAILED;
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (recorded >= settings.minimumCalls()
+                && (failures * 100 >= settings.failureRateThreshold() * recorded
+                || slowCalls * 100 >= settings.slowCallRateThreshold() * recorded)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private void transitionTo(State target) {
+        if (target == State.OPEN) {
+            LOGGER.warn("Circuito {} ABIERTO (fallas {}%, lentas {}%)", name, getFailureRate(), getSlowCallRate());
+            openedAtMs = clock.getAsLong();
+        } else {
+            LOGGER.info("Circuito {} pasa a {}", name, target);
+        }
+        state = target;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+        if (target == State.CLOSED) {
+            // Al cerrar se empieza una ventana nueva; mientras está abierto la ventana queda
+            // congelada con las tasas que lo abrieron
+            next = 0;
+            recorded = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+}
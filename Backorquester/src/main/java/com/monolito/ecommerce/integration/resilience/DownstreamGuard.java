@@ -0,0 +1,132 @@
+package com.monolito.ecommerce.integration.resilience;
+
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker + bulkhead para UN servicio destino
+ *
+ * BULKHEAD:
+ * - Un semáforo limita las llamadas simultáneas al servicio; si está lleno se espera
+ *   como mucho maxWaitMs y después se rechaza
+ * - Así un servicio lento consume a lo sumo maxConcurrent hilos de Tomcat, no todos
+ *
+ * CLASIFICACIÓN:
+ * - 4xx (HttpClientErrorException): el servicio respondió bien a una petición inválida, no es falla
+ * - Cualquier otra excepción (conexión, timeout, 5xx): falla
+ * - Los rechazos propios (circuito abierto, bulkhead lleno) no cuentan en la ventana
+ *
+ * MÉTRICAS:
+ * - downstream.calls{downstream, operation, exception}: latencia de cada llamada, incluida
+ *   la espera en el bulkhead; los rechazos aparecen con exception=DownstreamUnavailableException
+ * - El mismo tiempo se suma a la petición en curso (RequestTiming -> header Server-Timing)
+ */
+public class DownstreamGuard {
+
+    private static final String CALL_TIMER = "downstream.calls";
+
+    private final String serviceName;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long maxWaitMs;
+    private final LongSupplier clock;
+    private final OperationMetrics metrics;
+    private final LongAdder bulkheadRejected = new LongAdder();
+
+    public DownstreamGuard(String serviceName, CircuitBreaker circuitBreaker,
+                           int maxConcurrent, long maxWaitMs, LongSupplier clock) {
+        this(serviceName, circuitBreaker, maxConcurrent, maxWaitMs, clock, OperationMetrics.disabled());
+    }
+
+    public DownstreamGuard(String serviceName, CircuitBreaker circuitBreaker,
+                           int maxConcurrent, long maxWaitMs, LongSupplier clock, OperationMetrics metrics) {
+        this.serviceName = serviceName;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaitMs = maxWaitMs;
+        this.clock = clock;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Ejecutar una llamada remota protegida. Lanza DownstreamUnavailableException sin
+     * llamar si el circuito está abierto o el bulkhead está lleno.
+     * operation solo etiqueta la métrica (get-product, stock-decrease, ...).
+     */
+    public <T> T call(String operation, Supplier<T> remoteCall) {
+        long start = System.nanoTime();
+        try {
+            return metrics.record(CALL_TIMER, Tags.of("downstream", serviceName, "operation", operation),
+                    () -> guarded(remoteCall));
+        } finally {
+            RequestTiming.recordDownstream(serviceName, System.nanoTime() - start);
+        }
+    }
+
+    private <T> T guarded(Supplier<T> remoteCall) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new DownstreamUnavailableException(
+                    serviceName + " no disponible (circuito abierto), intente más tarde");
+        }
+        if (!enterBulkhead()) {
+            circuitBreaker.release();
+            bulkheadRejected.increment();
+            throw new DownstreamUnavailableException(
+                    serviceName + " saturado (" + maxConcurrent + " llamadas en curso), intente más tarde");
+        }
+
+        long start = clock.getAsLong();
+        try {
+            T result = remoteCall.get();
+            circuitBreaker.onSuccess(clock.getAsLong() - start);
+            return result;
+        } catch (HttpClientErrorException ex) {
+            circuitBreaker.onSuccess(clock.getAsLong() - start);
+            throw ex;
+        } catch (RuntimeException ex) {
+            circuitBreaker.onFailure(clock.getAsLong() - start);
+            throw ex;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public int getAvailableConcurrentCalls() {
+        return bulkhead.availablePermits();
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrent;
+    }
+
+    public long getBulkheadRejected() {
+        return bulkheadRejected.sum();
+    }
+
+    private boolean enterBulkhead() {
+        if (maxWaitMs <= 0) {
+            return bulkhead.tryAcquire();
+        }
+        try {
+            return bulkhead.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.monolito.ecommerce.integration.resilience;
+
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Un DownstreamGuard por servicio externo (catalog, auth), con la misma configuración
+ *
+ * services.resilience.enabled=false deja pasar todo (breaker que nunca abre, bulkhead sin límite
+ * práctico) para comparar con y sin protección.
+ *
+ * Métricas por servicio (tag downstream):
+ * - downstream.circuit.state: 0 cerrado, 1 abierto, 2 semiabierto
+ * - downstream.circuit.rejected / downstream.bulkhead.rejected: llamadas rechazadas sin intentar
+ * - downstream.bulkhead.available: lugares libres en el bulkhead
+ */
+@Component
+public class DownstreamGuards implements MeterBinder {
+
+    public static final String CATALOG = "catalog";
+    public static final String AUTH = "auth";
+
+    private final Map<String, DownstreamGuard> guards = new LinkedHashMap<>();
+
+    public DownstreamGuards(
+            @Value("${services.resilience.enabled:true}") boolean enabled,
+            @Value("${services.resilience.window-size:50}") int windowSize,
+            @Value("${services.resilience.minimum-calls:20}") int minimumCalls,
+            @Value("${services.resilience.failure-rate-threshold:50}") int failureRateThreshold,
+            @Value("${services.resilience.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+            @Value("${services.resilience.slow-call-ms:2000}") long slowCallMs,
+            @Value("${services.resilience.open-ms:10000}") long openMs,
+            @Value("${services.resilience.half-open-calls:5}") int halfOpenCalls,
+            @Value("${services.resilience.bulkhead.max-concurrent:32}") int maxConcurrent,
+            @Value("${services.resilience.bulkhead.max-wait-ms:0}") long maxWaitMs,
+            OperationMetrics metrics) {
+        LongSupplier clock = () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        CircuitBreaker.Settings settings = enabled
+                ? new CircuitBreaker.Settings(windowSize, minimumCalls, failureRateThreshold,
+                        slowCallRateThreshold, slowCallMs, openMs, halfOpenCalls)
+                : new CircuitBreaker.Settings(1, Integer.MAX_VALUE, 100, 100, Long.MAX_VALUE, 0, 1);
+        int permits = enabled ? maxConcurrent : Integer.MAX_VALUE;
+
+        register(CATALOG, "catalog-service", settings, permits, maxWaitMs, clock, metrics);
+        register(AUTH, "auth-service", settings, permits, maxWaitMs, clock, metrics);
+    }
+
+    public DownstreamGuard get(String downstream) {
+        DownstreamGuard guard = guards.get(downstream);
+        if (guard == null) {
+            throw new IllegalArgumentException("Servicio externo desconocido: " + downstream);
+        }
+        return guard;
+    }
+
+    /**
+     * Estado actual de cada servicio externo
+     */
+    public List<DownstreamStatus> statuses() {
+        List<DownstreamStatus> statuses = new ArrayList<>(guards.size());
+        guards.forEach((name, guard) -> statuses.add(DownstreamStatus.of(name, guard)));
+        return statuses;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        guards.forEach((name, guard) -> {
+            Tags tags = Tags.of("downstream", name);
+            CircuitBreaker breaker = guard.getCircuitBreaker();
+            Gauge.builder("downstream.circuit.state", breaker, cb -> cb.getState().ordinal())
+                    .description("Estado del circuito: 0 cerrado, 1 abierto, 2 semiabierto")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("downstream.circuit.rejected", breaker, CircuitBreaker::getRejected)
+                    .description("Llamadas rechazadas por circuito abierto")
+                    .tags(tags)
+                    .register(registry);
+            FunctionCounter.builder("downstream.bulkhead.rejected", guard, DownstreamGuard::getBulkheadRejected)
+                    .description("Llamadas rechazadas por bulkhead lleno")
+                    .tags(tags)
+                    .register(registry);
+            Gauge.builder("downstream.bulkhead.available", guard, DownstreamGuard::getAvailableConcurrentCalls)
+                    .description("Lugares libres en el bulkhead")
+                    .tags(tags)
+                    .register(registry);
+        });
+    }
+
+    private void register(String name, String serviceName, CircuitBreaker.Settings settings,
+                          int maxConcurrent, long maxWaitMs, LongSupplier clock, OperationMetrics metrics) {
+        CircuitBreaker breaker = new CircuitBreaker(serviceName, settings, clock);
+        guards.put(name, new DownstreamGuard(serviceName, breaker, maxConcurrent, maxWaitMs, clock, metrics));
+    }
+}
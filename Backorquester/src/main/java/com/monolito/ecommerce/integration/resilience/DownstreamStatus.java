@@ -0,0 +1,72 @@
+package com.monolito.ecommerce.integration.resilience;
+
+/**
+ * Estado de un servicio externo visto desde order-service (GET /health/downstreams)
+ */
+public class DownstreamStatus {
+
+    private String name;
+    private CircuitBreaker.State state;
+    private float failureRate;
+    private float slowCallRate;
+    private int bufferedCalls;
+    private long circuitRejected;
+    private int availableConcurrentCalls;
+    private int maxConcurrentCalls;
+    private long bulkheadRejected;
+
+    public DownstreamStatus() {
+    }
+
+    static DownstreamStatus of(String name, DownstreamGuard guard) {
+        CircuitBreaker breaker = guard.getCircuitBreaker();
+        DownstreamStatus status = new DownstreamStatus();
+        status.name = name;
+        status.state = breaker.getState();
+        status.failureRate = breaker.getFailureRate();
+        status.slowCallRate = breaker.getSlowCallRate();
+        status.bufferedCalls = breaker.getBufferedCalls();
+        status.circuitRejected = breaker.getRejected();
+        status.availableConcurrentCalls = guard.getAvailableConcurrentCalls();
+        status.maxConcurrentCalls = guard.getMaxConcurrentCalls();
+        status.bulkheadRejected = guard.getBulkheadRejected();
+        return status;
+    }
+
+    // Getters
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getState() {
+        return state;
+    }
+
+    public float getFailureRate() {
+        return failureRate;
+    }
+
+    public float getSlowCallRate() {
+        return slowCallRate;
+    }
+
+    public int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    public long getCircuitRejected() {
+        return circuitRejected;
+    }
+
+    public int getAvailableConcurrentCalls() {
+        return availableConcurrentCalls;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public long getBulkheadRejected() {
+        return bulkheadRejected;
+    }
+}
@@ -1,52 +1,162 @@
 package com.monolito.ecommerce.order.controller;
 
+import com.monolito.ecommerce.cluster.BulkImportRouter;
+import com.monolito.ecommerce.order.model.BulkOrderRequest;
+import com.monolito.ecommerce.order.model.BulkOrderResult;
 import com.monolito.ecommerce.order.model.CreateOrderRequest;
 import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderPage;
+import com.monolito.ecommerce.order.service.IdempotencyStore;
 import com.monolito.ecommerce.order.service.OrderService;
+import com.monolito.ecommerce.order.service.OrderStatusBroadcaster;
+import com.monolito.ecommerce.order.service.PartitionedCheckout;
 import com.monolito.ecommerce.shared.dto.ApiResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
  * Controlador REST de Órdenes
  *
  * ENDPOINTS:
- * POST /api/orders - Crear orden desde carrito
+ * POST /api/orders - Crear orden desde carrito (header opcional Idempotency-Key)
+ * POST /api/orders/bulk - Importar órdenes en NDJSON, un resultado NDJSON por línea
  * GET /api/orders/{id} - Obtener orden por ID
  * GET /api/orders/user/{userId} - Listar órdenes de un usuario
- * GET /api/orders - Listar todas las órdenes
+ * GET /api/orders - Listar todas las órdenes (lista, como siempre)
+ * GET /api/orders?after={orderId}&limit={n} - Listar órdenes paginadas por cursor
+ * GET /api/orders/export - Exportar todas las órdenes en NDJSON (streaming)
+ * GET /api/orders/events - Cambios de estado de mis órdenes (Server-Sent Events)
+ *
+ * Con orders.checkout.partitions > 0 el checkout y las órdenes de cada usuario pasan por
+ * su partición (PartitionedCheckout).
  */
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int EXPORT_FLUSH_EVERY = 256;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderController.class);
+
     private final OrderService orderService;
+    private final PartitionedCheckout partitionedCheckout;
+    private final IdempotencyStore idempotencyStore;
+    private final BulkImportRouter bulkImportRouter;
+    private final OrderStatusBroadcaster statusBroadcaster;
+    private final JsonMapper jsonMapper;
 
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, PartitionedCheckout partitionedCheckout,
+                           IdempotencyStore idempotencyStore, BulkImportRouter bulkImportRouter,
+                           OrderStatusBroadcaster statusBroadcaster, JsonMapper jsonMapper) {
         this.orderService = orderService;
+        this.partitionedCheckout = partitionedCheckout;
+        this.idempotencyStore = idempotencyStore;
+        this.bulkImportRouter = bulkImportRouter;
+        this.statusBroadcaster = statusBroadcaster;
+        this.jsonMapper = jsonMapper;
     }
 
     /**
      * Crear orden desde el carrito
      * POST /api/orders
+     *
+     * Con Idempotency-Key, los reintentos con la misma clave devuelven la orden ya creada
+     * (o esperan la que está en curso) sin volver a descontar stock
      */
     @PostMapping
     public ResponseEntity<ApiResponse<Order>> createOrder(
             @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             Authentication authentication) {
         Long authenticatedUserId = getAuthenticatedUserId(authentication);
-        Order order = orderService.createOrder(authenticatedUserId);
+        Order order = idempotencyKey == null
+                ? checkout(authenticatedUserId)
+                : idempotencyStore.execute(authenticatedUserId, idempotencyKey,
+                        () -> checkout(authenticatedUserId));
 
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Orden creada exitosamente", order));
     }
 
+    /**
+     * Importar órdenes en lote (back-office, integraciones)
+     * POST /api/orders/bulk
+     *
+     * Requiere el rol ORDER_IMPORT (claim "roles" del JWT): crea órdenes de cualquier usuario
+     * y descuenta stock real, así que un comprador recibe 403.
+     *
+     * Cuerpo NDJSON, una orden por línea: {"userId":1,"items":[{"productId":3,"quantity":2}]}
+     * Respuesta NDJSON, un resultado por línea no vacía, en el mismo orden:
+     * {"line":1,"status":"CREATED","orderId":10,"total":...} o {"line":2,"status":"REJECTED","message":...}
+     *
+     * Se lee y responde por bloques de orders.bulk.chunk-size líneas: la memoria no depende
+     * del tamaño del archivo y los resultados llegan a medida que se procesa.
+     * Una línea rechazada no afecta a las demás (200 aunque haya rechazos).
+     * Con cluster, cada orden se crea en la instancia dueña de su usuario (BulkImportRouter).
+     */
+    @PostMapping("/bulk")
+    public void importOrders(HttpServletRequest request, HttpServletResponse response,
+                             Authentication authentication) throws IOException {
+        Long importedBy = getAuthenticatedUserId(authentication);
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(APPLICATION_NDJSON.toString());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream out = new BufferedOutputStream(response.getOutputStream());
+
+        List<Long> lineNumbers = new ArrayList<>(bulkImportRouter.getChunkSize());
+        List<BulkOrderRequest> chunk = new ArrayList<>(bulkImportRouter.getChunkSize());
+        long lineNumber = 0;
+        long[] counts = new long[2];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            lineNumbers.add(lineNumber);
+            chunk.add(parseBulkLine(line));
+            if (chunk.size() == bulkImportRouter.getChunkSize()) {
+                writeBulkResults(out, lineNumbers, bulkImportRouter.importChunk(chunk), counts);
+                lineNumbers.clear();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeBulkResults(out, lineNumbers, bulkImportRouter.importChunk(chunk), counts);
+        }
+        out.flush();
+
+        LOGGER.info("Importación de órdenes por el usuario {}: {} creadas, {} rechazadas",
+                importedBy, counts[0], counts[1]);
+    }
+
     /**
      * Obtener orden por ID
      * GET /api/orders/{id}
@@ -70,18 +180,100 @@ public class OrderController {
             throw new AccessDeniedException("No tienes permisos para ver órdenes de otro usuario");
         }
 
-        List<Order> orders = orderService.getOrdersByUser(authenticatedUserId);
+        List<Order> orders = partitionedCheckout.isEnabled()
+                ? partitionedCheckout.getOrdersByUser(authenticatedUserId)
+                : orderService.getOrdersByUser(authenticatedUserId);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
     /**
-     * Listar todas las órdenes
-     * GET /api/orders
+     * Cambios de estado de las órdenes del usuario autenticado, en lugar de consultar
+     * GET /api/orders/user/{userId} cada pocos segundos
+     * GET /api/orders/events (text/event-stream)
+     *
+     * Eventos: "order-status" con {"orderId":..,"status":..,"total":..,"at":..} y "resync"
+     * si el cliente leía más lento de lo que llegaban eventos (se perdieron algunos).
+     * Tras reconectar o recibir "resync", consultar la lista una vez.
+     * EventSource del navegador no envía Authorization: usar fetch() leyendo el stream.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatus(Authentication authentication, HttpServletResponse response) {
+        Long authenticatedUserId = getAuthenticatedUserId(authentication);
+        // Que nginx y similares no acumulen el stream
+        response.setHeader("X-Accel-Buffering", "no");
+        return statusBroadcaster.subscribe(authenticatedUserId);
+    }
+
+    /**
+     * Listar órdenes
+     * GET /api/orders - todas, en una lista (la respuesta de siempre, para los clientes existentes)
+     * GET /api/orders?after={orderId}&limit={n} - una página (OrderPage); basta con uno de los dos
+     * parámetros (limit por defecto 50). Para recorrer todo sin armar la lista usar /export.
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Order>>> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(ApiResponse.success(orders));
+    public ResponseEntity<ApiResponse<?>> getAllOrders(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(ApiResponse.success(orderService.getAllOrders()));
+        }
+
+        OrderPage page = orderService.getOrdersPage(after, limit != null ? limit : DEFAULT_PAGE_SIZE);
+        return ResponseEntity.ok(ApiResponse.success(page));
+    }
+
+    /**
+     * Exportar todas las órdenes, una por línea (NDJSON)
+     * GET /api/orders/export
+     *
+     * Se escriben a medida que se recorren: no se arma la lista completa en memoria
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            int written = 0;
+            Iterator<Order> orders = orderService.streamAllOrders().iterator();
+            while (orders.hasNext()) {
+                out.write(jsonMapper.writeValueAsBytes(orders.next()));
+                out.write('\n');
+                if (++written % EXPORT_FLUSH_EVERY == 0) {
+                    out.flush();
+                }
+            }
+            out.flush();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private Order checkout(Long userId) {
+        return partitionedCheckout.isEnabled()
+                ? partitionedCheckout.createOrder(userId)
+                : orderService.createOrder(userId);
+    }
+
+    private BulkOrderRequest parseBulkLine(String line) {
+        try {
+            return jsonMapper.readValue(line, BulkOrderRequest.class);
+        } catch (JacksonException ex) {
+            // El importador la rechaza como línea inválida
+            return null;
+        }
+    }
+
+    private void writeBulkResults(OutputStream out, List<Long> lineNumbers, List<BulkOrderResult> results,
+                                  long[] counts) throws IOException {
+        for (int i = 0; i < results.size(); i++) {
+            BulkOrderResult result = results.get(i);
+            result.setLine(lineNumbers.get(i));
+            counts[result.getStatus() == BulkOrderResult.Status.CREATED ? 0 : 1]++;
+            out.write(jsonMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
     }
 
     private Long getAuthenticatedUserId(Authentication authentication) {
@@ -0,0 +1,70 @@
+package com.monolito.ecommerce.order.model;
+
+import java.util.List;
+
+/**
+ * Una línea de POST /api/orders/bulk (NDJSON): orden de un usuario con sus productos,
+ * sin pasar por el carrito
+ *
+ * {"userId":12,"items":[{"productId":3,"quantity":2},{"productId":7,"quantity":1}]}
+ */
+public class BulkOrderRequest {
+
+    private Long userId;
+    private List<Item> items;
+
+    public BulkOrderRequest() {
+    }
+
+    public BulkOrderRequest(Long userId, List<Item> items) {
+        this.userId = userId;
+        this.items = items;
+    }
+
+    // Getters y Setters
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Item> items) {
+        this.items = items;
+    }
+
+    public static class Item {
+
+        private Long productId;
+        private Integer quantity;
+
+        public Item() {
+        }
+
+        public Item(Long productId, Integer quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() {
+            return productId;
+        }
+
+        public void setProductId(Long productId) {
+            this.productId = productId;
+        }
+
+        public Integer getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.monolito.ecommerce.order.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+
+/**
+ * Resultado de una línea de POST /api/orders/bulk (una línea NDJSON por línea recibida)
+ *
+ * CREATED trae orderId y total; REJECTED trae el motivo en message
+ */
+public class BulkOrderResult {
+
+    public enum Status {
+        CREATED, REJECTED
+    }
+
+    private long line;
+    private Status status;
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long orderId;
+    private BigDecimal total;
+    private String message;
+
+    public BulkOrderResult() {
+    }
+
+    public static BulkOrderResult created(Order order) {
+        BulkOrderResult result = new BulkOrderResult();
+        result.status = Status.CREATED;
+        result.orderId = order.getId();
+        result.total = order.getTotal();
+        return result;
+    }
+
+    public static BulkOrderResult rejected(String message) {
+        BulkOrderResult result = new BulkOrderResult();
+        result.status = Status.REJECTED;
+        result.message = message;
+        return result;
+    }
+
+    // Getters y Setters
+    public long getLine() {
+        return line;
+    }
+
+    public void setLine(long line) {
+        this.line = line;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -1,5 +1,7 @@
 package com.monolito.ecommerce.order.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -11,7 +13,9 @@ import java.util.List;
  */
 public class Order {
     
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long userId;
     private List<OrderItem> items;
     private BigDecimal total;
@@ -1,5 +1,7 @@
 package com.monolito.ecommerce.order.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 import java.math.BigDecimal;
 
 /**
@@ -8,6 +10,7 @@ import java.math.BigDecimal;
  */
 public class OrderItem {
     
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long productId;
     private String productName;
     private BigDecimal price;
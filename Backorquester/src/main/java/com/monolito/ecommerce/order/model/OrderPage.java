@@ -0,0 +1,45 @@
+package com.monolito.ecommerce.order.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.util.List;
+
+/**
+ * Página de órdenes para paginación por cursor (keyset)
+ *
+ * nextCursor es el ID de la última orden de la página; se envía como ?after=
+ * para pedir la siguiente. Es null cuando no hay más órdenes.
+ * Con checkouts en curso la página puede venir corta (o vacía) aunque tenga nextCursor:
+ * se corta antes del primer ID asignado que todavía no se guardó, para no saltearlo.
+ */
+public class OrderPage {
+
+    private List<Order> items;
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long nextCursor;
+
+    public OrderPage() {
+    }
+
+    public OrderPage(List<Order> items, Long nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters y Setters
+    public List<Order> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Order> items) {
+        this.items = items;
+    }
+
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,67 @@
+package com.monolito.ecommerce.order.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Cambio de estado de una orden, enviado por GET /api/orders/events (SSE)
+ *
+ * Solo los datos que cambian: para ver los items se consulta GET /api/orders/{id} una vez
+ */
+public class OrderStatusEvent {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    private Long orderId;
+    private OrderStatus status;
+    private BigDecimal total;
+    private LocalDateTime at;
+
+    public OrderStatusEvent() {
+    }
+
+    public OrderStatusEvent(Long orderId, OrderStatus status, BigDecimal total, LocalDateTime at) {
+        this.orderId = orderId;
+        this.status = status;
+        this.total = total;
+        this.at = at;
+    }
+
+    public static OrderStatusEvent of(Order order) {
+        return new OrderStatusEvent(order.getId(), order.getStatus(), order.getTotal(), LocalDateTime.now());
+    }
+
+    // Getters y Setters
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    public void setAt(LocalDateTime at) {
+        this.at = at;
+    }
+}
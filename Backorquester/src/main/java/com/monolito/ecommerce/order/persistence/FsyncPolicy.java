@@ -0,0 +1,10 @@
+package com.monolito.ecommerce.order.persistence;
+
+/**
+ * Cuándo forzar a disco (fsync) lo escrito en el log de órdenes
+ */
+public enum FsyncPolicy {
+    ALWAYS,    // En cada grupo de escrituras: una orden confirmada sobrevive a un corte de luz
+    INTERVAL,  // Como máximo cada fsync-interval-ms: se puede perder esa ventana
+    NEVER      // Lo decide el sistema operativo: sobrevive a la caída del proceso, no de la máquina
+}
@@ -0,0 +1,45 @@
+package com.monolito.ecommerce.order.persistence;
+
+import com.monolito.ecommerce.order.model.Order;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Órdenes como objetos en un ConcurrentSkipListMap
+ *
+ * Sin locks y sin copias: get() devuelve la misma instancia que se guardó.
+ * Por orden de 3 items son ~560 bytes de heap (nodos del mapa, Long, BigDecimal, LocalDateTime, OrderItem).
+ */
+public class HeapOrderStore implements OrderStore {
+
+    private final ConcurrentNavigableMap<Long, Order> orders = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void put(Order order) {
+        orders.put(order.getId(), order);
+    }
+
+    @Override
+    public Order get(long orderId) {
+        return orders.get(orderId);
+    }
+
+    @Override
+    public boolean remove(long orderId) {
+        return orders.remove(orderId) != null;
+    }
+
+    @Override
+    public Stream<Order> streamFrom(Long after) {
+        Map<Long, Order> remaining = after == null ? orders : orders.tailMap(after, false);
+        return remaining.values().stream();
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+}
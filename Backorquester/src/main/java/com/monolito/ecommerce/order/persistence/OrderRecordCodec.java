@@ -0,0 +1,150 @@
+package com.monolito.ecommerce.order.persistence;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Formato binario de un registro del log de órdenes
+ *
+ * REGISTRO:  [int largo del payload][int CRC32C del payload][payload]
+ * PAYLOAD:   id, userId, estado, createdAt (segundos + nanos UTC), total,
+ *            cantidad de items y por item: productId, cantidad, precio, nombre
+ *
+ * Los decimales se guardan como escala + bytes del valor sin escala;
+ * el subtotal de cada item no se guarda, se recalcula al leer.
+ */
+final class OrderRecordCodec {
+
+    static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    // Un registro más grande que esto se considera basura (cola corrupta del archivo)
+    static final int MAX_PAYLOAD_BYTES = 16 * 1024 * 1024;
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private OrderRecordCodec() {
+    }
+
+    /**
+     * Registro completo (cabecera + payload) listo para escribir
+     */
+    static byte[] encode(Order order) {
+        List<OrderItem> items = order.getItems() != null ? order.getItems() : List.of();
+        byte[] totalBytes = unscaled(order.getTotal());
+        byte[][] names = new byte[items.size()][];
+        byte[][] prices = new byte[items.size()][];
+
+        int payloadSize = Long.BYTES * 2 + 1 + Long.BYTES + Integer.BYTES
+                + decimalSize(totalBytes) + Integer.BYTES;
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            names[i] = item.getProductName() != null
+                    ? item.getProductName().getBytes(StandardCharsets.UTF_8)
+                    : null;
+            prices[i] = unscaled(item.getPrice());
+            payloadSize += Long.BYTES + Integer.BYTES + decimalSize(prices[i])
+                    + Integer.BYTES + (names[i] != null ? names[i].length : 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payloadSize);
+        buffer.position(HEADER_BYTES);
+
+        LocalDateTime createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+        buffer.putLong(order.getId());
+        buffer.putLong(order.getUserId());
+        buffer.put((byte) order.getStatus().ordinal());
+        buffer.putLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(createdAt.getNano());
+        putDecimal(buffer, order.getTotal(), totalBytes);
+        buffer.putInt(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            buffer.putLong(item.getProductId());
+            buffer.putInt(item.getQuantity());
+            putDecimal(buffer, item.getPrice(), prices[i]);
+            if (names[i] == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(names[i].length);
+                buffer.put(names[i]);
+            }
+        }
+
+        byte[] record = buffer.array();
+        CRC32C crc = new CRC32C();
+        crc.update(record, HEADER_BYTES, payloadSize);
+        buffer.putInt(0, payloadSize);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        return record;
+    }
+
+    /**
+     * Leer el payload de un registro ya validado (posición al inicio del payload)
+     */
+    static Order decode(ByteBuffer payload) {
+        Order order = new Order();
+        order.setId(payload.getLong());
+        order.setUserId(payload.getLong());
+        order.setStatus(STATUSES[payload.get()]);
+        long seconds = payload.getLong();
+        int nanos = payload.getInt();
+        order.setCreatedAt(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+        order.setTotal(getDecimal(payload));
+
+        int itemCount = payload.getInt();
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            long productId = payload.getLong();
+            int quantity = payload.getInt();
+            BigDecimal price = getDecimal(payload);
+            int nameLength = payload.getInt();
+            String name = null;
+            if (nameLength >= 0) {
+                name = new String(payload.array(), payload.arrayOffset() + payload.position(),
+                        nameLength, StandardCharsets.UTF_8);
+                payload.position(payload.position() + nameLength);
+            }
+            items.add(new OrderItem(productId, name, price, quantity));
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    static int checksum(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] unscaled(BigDecimal value) {
+        return value.unscaledValue().toByteArray();
+    }
+
+    private static int decimalSize(byte[] unscaled) {
+        return Integer.BYTES + 1 + unscaled.length;
+    }
+
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value, byte[] unscaled) {
+        buffer.putInt(value.scale());
+        buffer.put((byte) unscaled.length);
+        buffer.put(unscaled);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = buffer.getInt();
+        byte[] unscaled = new byte[buffer.get() & 0xFF];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
@@ -0,0 +1,39 @@
+package com.monolito.ecommerce.order.persistence;
+
+import com.monolito.ecommerce.order.model.Order;
+
+import java.util.stream.Stream;
+
+/**
+ * Almacenamiento en memoria de las órdenes confirmadas, ordenado por ID
+ *
+ * - HEAP: un objeto Order por orden en un ConcurrentSkipListMap (por defecto)
+ * - PACKED: columnas de primitivos; los Order se arman recién al leer (orders.store.engine=PACKED)
+ *
+ * Las órdenes que devuelve pueden ser copias: modificar una después de put() no cambia lo guardado.
+ */
+public interface OrderStore {
+
+    /**
+     * Guardar (o reemplazar) una orden con ID asignado
+     */
+    void put(Order order);
+
+    /**
+     * Orden con ese ID, o null si no existe
+     */
+    Order get(long orderId);
+
+    /**
+     * Quitar una orden; false si no existía
+     */
+    boolean remove(long orderId);
+
+    /**
+     * Órdenes con ID mayor a "after" (todas si es null) en orden de ID.
+     * Vista débilmente consistente: refleja órdenes guardadas durante el recorrido o no.
+     */
+    Stream<Order> streamFrom(Long after);
+
+    int size();
+}
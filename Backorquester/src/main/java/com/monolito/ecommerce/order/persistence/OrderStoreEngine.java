@@ -0,0 +1,13 @@
+package com.monolito.ecommerce.order.persistence;
+
+/**
+ * Implementación de OrderStore (orders.store.engine)
+ */
+public enum OrderStoreEngine {
+    HEAP,    // Un Order por orden: lecturas sin copias, ~5x más memoria
+    PACKED;  // Columnas de primitivos: pocos bytes por orden, cada lectura arma el Order
+
+    public OrderStore create() {
+        return this == PACKED ? new PackedOrderStore() : new HeapOrderStore();
+    }
+}
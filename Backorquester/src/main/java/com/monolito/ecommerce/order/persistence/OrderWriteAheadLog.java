@@ -0,0 +1,421 @@
+package com.monolito.ecommerce.order.persistence;
+
+import com.monolito.ecommerce.order.model.Order;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Log de escritura anticipada (WAL) de órdenes
+ *
+ * - Solo se agrega al final del archivo, con el formato de OrderRecordCodec
+ * - Group commit: un único hilo escritor junta las órdenes pendientes, las escribe
+ *   con una sola llamada al FileChannel y aplica la política de fsync una vez por grupo
+ * - append() vuelve cuando su grupo quedó escrito (y forzado a disco si la política es ALWAYS)
+ * - Al arrancar, replay() reconstruye las órdenes; una cola incompleta o corrupta
+ *   (caída a mitad de una escritura) se trunca
+ * - Si falla la escritura o el fsync de un grupo, el archivo se trunca al inicio del grupo
+ *   (ningún grupo posterior queda detrás de bytes rotos); si ni eso se puede, el log queda
+ *   fallado y rechaza todo append hasta reiniciar
+ * - append() se encola bajo el mismo lock que close(): lo que llega después del cierre falla
+ *   de inmediato, y la espera de la escritura está acotada a orders.persistence.append-timeout-ms
+ * - Al agotarse ese tiempo el registro se retira de la cola antes de informar el fallo: una orden
+ *   reportada como no escrita nunca aparece después en el log. Si el escritor ya lo tomó, se
+ *   espera el resultado de ese grupo (solo el escritor sabe si llegó al archivo)
+ * - Deshabilitado por defecto: sin orders.persistence.enabled=true no toca el disco
+ */
+@Component
+public class OrderWriteAheadLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderWriteAheadLog.class);
+    private static final int READ_BUFFER_BYTES = 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path path;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final int maxBatch;
+    private final long appendTimeoutNanos;
+
+    private final BlockingQueue<PendingAppend> pending = new LinkedBlockingQueue<>();
+    private FileChannel channel;
+    private Thread writer;
+    private volatile boolean open;
+    private volatile IOException failure;
+    private long lastForce;
+
+    public OrderWriteAheadLog(
+            @Value("${orders.persistence.enabled:false}") boolean enabled,
+            @Value("${orders.persistence.path:data/orders.wal}") String path,
+            @Value("${orders.persistence.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+            @Value("${orders.persistence.fsync-interval-ms:100}") long fsyncIntervalMs,
+            @Value("${orders.persistence.max-batch:512}") int maxBatch,
+            @Value("${orders.persistence.append-timeout-ms:30000}") long appendTimeoutMs) {
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMs);
+        this.maxBatch = maxBatch;
+        this.appendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(appendTimeoutMs);
+    }
+
+    /**
+     * Log que no persiste nada (pruebas y benchmarks en memoria)
+     */
+    public static OrderWriteAheadLog disabled() {
+        return new OrderWriteAheadLog(false, "orders.wal", FsyncPolicy.NEVER, 0, 1, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reproducir el log entregando cada orden en el orden en que se escribió,
+     * y dejarlo abierto para agregar. Devuelve cuántas órdenes se leyeron.
+     */
+    public synchronized long open(Consumer<Order> replayer) {
+        if (!enabled || open) {
+            return 0;
+        }
+
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            long startedAt = System.nanoTime();
+            long replayed = replay(replayer);
+            LOGGER.info("WAL de órdenes {}: {} órdenes reproducidas en {} ms",
+                    path, replayed, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+
+            lastForce = System.nanoTime();
+            open = true;
+            writer = new Thread(this::writeLoop, "order-wal-writer");
+            writer.setDaemon(true);
+            writer.start();
+            return replayed;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("No se pudo abrir el log de órdenes " + path, ex);
+        }
+    }
+
+    /**
+     * Agregar una orden al log y esperar a que su grupo quede escrito
+     */
+    public void append(Order order) {
+        appendAll(List.of(order));
+    }
+
+    /**
+     * Agregar varias órdenes (en ese orden) y esperar a que todas queden escritas.
+     * Si una falla, las siguientes que el escritor no tomó se retiran de la cola.
+     */
+    public void appendAll(List<Order> orders) {
+        if (!enabled || orders.isEmpty()) {
+            return;
+        }
+
+        List<PendingAppend> appends = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            appends.add(new PendingAppend(OrderRecordCodec.encode(order)));
+        }
+        // Mismo lock que close(): el escritor no termina su último drenaje con appends por encolar
+        synchronized (this) {
+            if (!open) {
+                throw new IllegalStateException("El log de órdenes no está abierto");
+            }
+            if (failure != null) {
+                throw new IllegalStateException("El log de órdenes quedó inconsistente y no acepta escrituras", failure);
+            }
+            pending.addAll(appends);
+        }
+
+        long deadline = System.nanoTime() + appendTimeoutNanos;
+        for (int i = 0; i < appends.size(); i++) {
+            try {
+                await(appends.get(i), deadline);
+            } catch (IllegalStateException ex) {
+                withdraw(appends.subList(i + 1, appends.size()));
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Esperar la escritura de un registro. Si se agota el tiempo (o se interrumpe la espera)
+     * y el escritor todavía no lo tomó, se retira de la cola; si ya lo tomó, decide su grupo
+     */
+    private static void await(PendingAppend append, long deadline) {
+        try {
+            append.written.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return;
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("No se pudo escribir en el log de órdenes", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            if (append.take()) {
+                throw new IllegalStateException("Interrumpido esperando la escritura en el log de órdenes", ex);
+            }
+        } catch (TimeoutException ex) {
+            if (append.take()) {
+                throw new IllegalStateException("Tiempo agotado esperando la escritura en el log de órdenes", ex);
+            }
+        }
+
+        // Ya está en un grupo del escritor: solo él sabe si llegó al archivo
+        try {
+            append.written.join();
+        } catch (CompletionException ex) {
+            throw new IllegalStateException("No se pudo escribir en el log de órdenes", ex.getCause());
+        }
+    }
+
+    /**
+     * Sacar de la cola los registros que el escritor todavía no tomó y esperar los que ya
+     * tiene en curso: al volver, ninguno de ellos puede aparecer más tarde en el archivo
+     */
+    private static void withdraw(List<PendingAppend> appends) {
+        for (PendingAppend append : appends) {
+            if (append.take()) {
+                append.written.completeExceptionally(new IllegalStateException("Escritura retirada del log de órdenes"));
+            } else {
+                append.written.exceptionally(ex -> null).join();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+        }
+
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+            channel.force(false);
+            channel.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            LOGGER.warn("Error cerrando el log de órdenes {}", path, ex);
+        }
+    }
+
+    /**
+     * Leer registros hasta el final o hasta el primero inválido, y truncar desde ahí
+     */
+    private long replay(Consumer<Order> replayer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        long validUpTo = 0;
+        long replayed = 0;
+        boolean eof = false;
+        boolean corrupt = false;
+        channel.position(0);
+
+        while (!corrupt) {
+            if (!eof && buffer.hasRemaining() && channel.read(buffer) < 0) {
+                eof = true;
+            }
+            buffer.flip();
+
+            // Consumir todos los registros completos que haya en el buffer
+            int needed = 0;
+            while (buffer.remaining() >= OrderRecordCodec.HEADER_BYTES) {
+                int payloadSize = buffer.getInt(buffer.position());
+                int checksum = buffer.getInt(buffer.position() + Integer.BYTES);
+                if (payloadSize <= 0 || payloadSize > OrderRecordCodec.MAX_PAYLOAD_BYTES) {
+                    corrupt = true;
+                    break;
+                }
+
+                int recordSize = OrderRecordCodec.HEADER_BYTES + payloadSize;
+                if (buffer.remaining() < recordSize) {
+                    needed = recordSize;
+                    break;
+                }
+
+                int payloadStart = buffer.position() + OrderRecordCodec.HEADER_BYTES;
+                if (OrderRecordCodec.checksum(buffer.array(), payloadStart, payloadSize) != checksum) {
+                    corrupt = true;
+                    break;
+                }
+
+                ByteBuffer payload = buffer.slice(payloadStart, payloadSize);
+                replayer.accept(OrderRecordCodec.decode(payload));
+                replayed++;
+                validUpTo += recordSize;
+                buffer.position(buffer.position() + recordSize);
+            }
+
+            if (eof) {
+                // Lo que queda es un registro a medio escribir
+                break;
+            }
+            buffer = needed > buffer.capacity() ? grow(buffer, needed) : buffer.compact();
+        }
+
+        if (channel.size() > validUpTo) {
+            LOGGER.warn("WAL de órdenes {}: se descartan {} bytes incompletos o corruptos al final",
+                    path, channel.size() - validUpTo);
+            channel.truncate(validUpTo);
+        }
+        channel.position(validUpTo);
+        return replayed;
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int minCapacity) {
+        ByteBuffer bigger = ByteBuffer.allocate(minCapacity);
+        bigger.put(buffer);
+        return bigger;
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatch);
+        while (open || !pending.isEmpty()) {
+            try {
+                PendingAppend first = pending.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    forceIfDue();
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, maxBatch - 1);
+                // Los que appendAll ya retiró por tiempo agotado no se escriben
+                batch.removeIf(append -> !append.take());
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failAll(batch, ex);
+                return;
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.error("Error escribiendo el log de órdenes {}", path, ex);
+                failAll(batch, ex);
+            }
+            batch.clear();
+        }
+
+        // Cerrado: lo que llegó tarde no se escribe
+        pending.drainTo(batch);
+        failAll(batch, new IllegalStateException("El log de órdenes se cerró"));
+    }
+
+    private void writeBatch(List<PendingAppend> batch) throws IOException {
+        if (failure != null) {
+            throw new IOException("El log de órdenes quedó inconsistente", failure);
+        }
+
+        int size = 0;
+        for (PendingAppend append : batch) {
+            size += append.record.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (PendingAppend append : batch) {
+            buffer.put(append.record);
+        }
+        buffer.flip();
+
+        long batchStart = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                force();
+            }
+        } catch (IOException ex) {
+            rollBack(batchStart, ex);
+            throw ex;
+        }
+        forceIfDue();
+
+        for (PendingAppend append : batch) {
+            append.written.complete(null);
+        }
+    }
+
+    /**
+     * Quitar los bytes del grupo fallido: el siguiente grupo se escribe donde empezaba este.
+     * Si no se puede, replay() se detendría en el registro roto y perdería todo lo posterior:
+     * el log queda fallado.
+     */
+    private void rollBack(long batchStart, IOException cause) {
+        try {
+            channel.truncate(batchStart);
+            channel.position(batchStart);
+        } catch (IOException ex) {
+            cause.addSuppressed(ex);
+            failure = cause;
+            LOGGER.error("No se pudo truncar el log de órdenes {} tras un error: no se aceptan más escrituras", path, ex);
+        }
+    }
+
+    private void forceIfDue() {
+        if (fsyncPolicy != FsyncPolicy.INTERVAL || System.nanoTime() - lastForce < fsyncIntervalNanos) {
+            return;
+        }
+        try {
+            force();
+        } catch (IOException ex) {
+            LOGGER.error("Error en fsync del log de órdenes {}", path, ex);
+        }
+    }
+
+    private void force() throws IOException {
+        channel.force(false);
+        lastForce = System.nanoTime();
+    }
+
+    private static void failAll(List<PendingAppend> batch, Throwable cause) {
+        for (PendingAppend append : batch) {
+            append.written.completeExceptionally(cause);
+        }
+    }
+
+    private static final class PendingAppend {
+
+        private final byte[] record;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        private final AtomicBoolean taken = new AtomicBoolean();
+
+        private PendingAppend(byte[] record) {
+            this.record = record;
+        }
+
+        /**
+         * Lo toma el escritor para escribirlo o appendAll para retirarlo: solo uno de los dos gana
+         */
+        private boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.monolito.ecommerce.order.persistence;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Órdenes en columnas de primitivos (orders.store.engine=PACKED)
+ *
+ * LAYOUT:
+ * - Índice ordenado: long[] de IDs + int[] con la posición ("slot") de cada orden.
+ *   Buscar por ID es una búsqueda binaria; paginar es recorrer el arreglo
+ * - Por orden (slot): userId, total en centavos, createdAt en epoch millis, primer item,
+ *   cantidad de items y estado. ~50 bytes contando el índice
+ * - Por item: productId, precio en centavos, cantidad y código de nombre. 24 bytes
+ * - Los nombres de producto se guardan una sola vez (diccionario) como en PackedCartItems
+ * - Columnas en segmentos de 16K valores: crecer no copia lo ya guardado
+ *
+ * EXACTITUD:
+ * - Montos con hasta 2 decimales; se devuelven con escala 2 (10 -> 10.00)
+ * - createdAt se guarda al milisegundo (como LocalDateTime en UTC, igual que OrderRecordCodec)
+ * - Una orden que no entra en el formato (más decimales, montos fuera de rango, campos
+ *   nulos) se guarda como objeto aparte: el índice la marca y get() la devuelve tal cual
+ *
+ * CONCURRENCIA:
+ * - Un ReentrantReadWriteLock: lecturas en paralelo, escrituras de a una (son pocas
+ *   instrucciones: agregar al final de las columnas y desplazar la cola del índice,
+ *   que casi siempre es corta porque los IDs llegan casi en orden)
+ * - Los recorridos toman el lock por lotes, no durante todo el stream
+ *
+ * Los slots de órdenes quitadas o reemplazadas no se reutilizan (los rollbacks son raros).
+ */
+public class PackedOrderStore implements OrderStore {
+
+    private static final int SEGMENT_BITS = 14;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int INITIAL_INDEX_CAPACITY = 1024;
+    private static final int ITERATION_BATCH = 256;
+
+    private static final int UNPACKED = -1;
+    private static final int NO_NAME = -1;
+    private static final int CENTS_SCALE = 2;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Índice ordenado por ID
+    private long[] ids = new long[INITIAL_INDEX_CAPACITY];
+    private int[] slots = new int[INITIAL_INDEX_CAPACITY];
+    private int size;
+
+    // Columnas por orden
+    private final LongColumn userIds = new LongColumn();
+    private final LongColumn totals = new LongColumn();
+    private final LongColumn createdAt = new LongColumn();
+    private final LongColumn firstItems = new LongColumn();
+    private final IntColumn itemCounts = new IntColumn();
+    private final ByteColumn statuses = new ByteColumn();
+    private int nextSlot;
+
+    // Columnas por item
+    private final LongColumn productIds = new LongColumn();
+    private final LongColumn prices = new LongColumn();
+    private final IntColumn quantities = new IntColumn();
+    private final IntColumn nameCodes = new IntColumn();
+    private long nextItem;
+
+    // Diccionario de nombres: crece con los productos distintos, no con las órdenes
+    private final Map<String, Integer> codesByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // Órdenes que no entran en el formato de columnas
+    private final Map<Long, Order> unpacked = new HashMap<>();
+
+    @Override
+    public void put(Order order) {
+        long orderId = order.getId();
+        long[] cents = centsOf(order);
+
+        lock.writeLock().lock();
+        try {
+            int slot;
+            if (cents == null) {
+                unpacked.put(orderId, order);
+                slot = UNPACKED;
+            } else {
+                unpacked.remove(orderId);
+                slot = append(order, cents);
+            }
+
+            int position = Arrays.binarySearch(ids, 0, size, orderId);
+            if (position >= 0) {
+                // Reemplazo: el slot anterior queda sin uso
+                slots[position] = slot;
+            } else {
+                insert(-position - 1, orderId, slot);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Order get(long orderId) {
+        lock.readLock().lock();
+        try {
+            int position = Arrays.binarySearch(ids, 0, size, orderId);
+            return position >= 0 ? materialize(position) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(long orderId) {
+        lock.writeLock().lock();
+        try {
+            int position = Arrays.binarySearch(ids, 0, size, orderId);
+            if (position < 0) {
+                return false;
+            }
+            if (slots[position] == UNPACKED) {
+                unpacked.remove(orderId);
+            }
+            int tail = size - position - 1;
+            System.arraycopy(ids, position + 1, ids, position, tail);
+            System.arraycopy(slots, position + 1, slots, position, tail);
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<Order> streamFrom(Long after) {
+        Iterator<Order> iterator = new BatchIterator(after);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Total y precios en centavos ([total, precio item 0, ...]); null si la orden no entra en columnas
+     */
+    private static long[] centsOf(Order order) {
+        List<OrderItem> items = order.getItems();
+        if (order.getUserId() == null || order.getTotal() == null || order.getStatus() == null
+                || order.getCreatedAt() == null || items == null) {
+            return null;
+        }
+
+        long[] cents = new long[items.size() + 1];
+        try {
+            cents[0] = toCents(order.getTotal());
+            for (int i = 0; i < items.size(); i++) {
+                OrderItem item = items.get(i);
+                if (item.getProductId() == null || item.getPrice() == null || item.getQuantity() == null) {
+                    return null;
+                }
+                cents[i + 1] = toCents(item.getPrice());
+            }
+        } catch (ArithmeticException ex) {
+            return null;
+        }
+        return cents;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        // ArithmeticException si tiene más de 2 decimales o no entra en un long
+        return amount.movePointRight(CENTS_SCALE).longValueExact();
+    }
+
+    private int append(Order order, long[] cents) {
+        int slot = nextSlot++;
+        List<OrderItem> items = order.getItems();
+        LocalDateTime created = order.getCreatedAt();
+
+        userIds.set(slot, order.getUserId());
+        totals.set(slot, cents[0]);
+        createdAt.set(slot, created.toEpochSecond(ZoneOffset.UTC) * 1000 + created.getNano() / 1_000_000);
+        firstItems.set(slot, nextItem);
+        itemCounts.set(slot, items.size());
+        statuses.set(slot, (byte) order.getStatus().ordinal());
+
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem item = items.get(i);
+            long index = nextItem++;
+            productIds.set(index, item.getProductId());
+            prices.set(index, cents[i + 1]);
+            quantities.set(index, item.getQuantity());
+            nameCodes.set(index, codeFor(item.getProductName()));
+        }
+        return slot;
+    }
+
+    private void insert(int position, long orderId, int slot) {
+        if (size == ids.length) {
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        int tail = size - position;
+        System.arraycopy(ids, position, ids, position + 1, tail);
+        System.arraycopy(slots, position, slots, position + 1, tail);
+        ids[position] = orderId;
+        slots[position] = slot;
+        size++;
+    }
+
+    private int codeFor(String name) {
+        if (name == null) {
+            return NO_NAME;
+        }
+        Integer code = codesByName.get(name);
+        if (code == null) {
+            code = names.size();
+            names.add(name);
+            codesByName.put(name, code);
+        }
+        return code;
+    }
+
+    /**
+     * Armar el Order de la posición del índice (con el lock de lectura tomado)
+     */
+    private Order materialize(int position) {
+        long orderId = ids[position];
+        int slot = slots[position];
+        if (slot == UNPACKED) {
+            return unpacked.get(orderId);
+        }
+
+        int count = itemCounts.get(slot);
+        long first = firstItems.get(slot);
+        List<OrderItem> items = new ArrayList<>(count);
+        for (long index = first; index < first + count; index++) {
+            int code = nameCodes.get(index);
+            items.add(new OrderItem(
+                    productIds.get(index),
+                    code == NO_NAME ? null : names.get(code),
+                    BigDecimal.valueOf(prices.get(index), CENTS_SCALE),
+                    quantities.get(index)));
+        }
+
+        Order order = new Order(orderId, userIds.get(slot), items, BigDecimal.valueOf(totals.get(slot), CENTS_SCALE));
+        order.setStatus(STATUSES[statuses.get(slot)]);
+        long millis = createdAt.get(slot);
+        order.setCreatedAt(LocalDateTime.ofEpochSecond(
+                Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC));
+        return order;
+    }
+
+    /**
+     * Recorre el índice de a ITERATION_BATCH órdenes, retomando por el último ID visto
+     * (el índice puede desplazarse entre lotes)
+     */
+    private final class BatchIterator implements Iterator<Order> {
+
+        private final ArrayDeque<Order> batch = new ArrayDeque<>(ITERATION_BATCH);
+        private Long lastId;
+        private boolean exhausted;
+
+        private BatchIterator(Long after) {
+            this.lastId = after;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (batch.isEmpty() && !exhausted) {
+                fill();
+            }
+            return !batch.isEmpty();
+        }
+
+        @Override
+        public Order next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.poll();
+        }
+
+        private void fill() {
+            lock.readLock().lock();
+            try {
+                int position = 0;
+                if (lastId != null) {
+                    int found = Arrays.binarySearch(ids, 0, size, lastId);
+                    position = found >= 0 ? found + 1 : -found - 1;
+                }
+                int end = Math.min(size, position + ITERATION_BATCH);
+                for (; position < end; position++) {
+                    batch.add(materialize(position));
+                }
+                if (end > 0 && !batch.isEmpty()) {
+                    lastId = ids[end - 1];
+                }
+                exhausted = end == size;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    private static final class LongColumn {
+
+        private long[][] segments = new long[1][];
+
+        long get(long index) {
+            return segments[(int) (index >>> SEGMENT_BITS)][(int) (index & SEGMENT_MASK)];
+        }
+
+        void set(long index, long value) {
+            int segment = (int) (index >>> SEGMENT_BITS);
+            if (segment >= segments.length) {
+                segments = Arrays.copyOf(segments, Math.max(segment + 1, segments.length * 2));
+            }
+            if (segments[segment] == null) {
+                segments[segment] = new long[SEGMENT_SIZE];
+            }
+            segments[segment][(int) (index & SEGMENT_MASK)] = value;
+        }
+    }
+
+    private static final class IntColumn {
+
+        private int[][] segments = new int[1][];
+
+        int get(long index) {
+            return segments[(int) (index >>> SEGMENT_BITS)][(int) (index & SEGMENT_MASK)];
+        }
+
+        void set(long index, int value) {
+            int segment = (int) (index >>> SEGMENT_BITS);
+            if (segment >= segments.length) {
+                segments = Arrays.copyOf(segments, Math.max(segment + 1, segments.length * 2));
+            }
+            if (segments[segment] == null) {
+                segments[segment] = new int[SEGMENT_SIZE];
+            }
+            segments[segment][(int) (index & SEGMENT_MASK)] = value;
+        }
+    }
+
+    private static final class ByteColumn {
+
+        private byte[][] segments = new byte[1][];
+
+        byte get(long index) {
+            return segments[(int) (index >>> SEGMENT_BITS)][(int) (index & SEGMENT_MASK)];
+        }
+
+        void set(long index, byte value) {
+            int segment = (int) (index >>> SEGMENT_BITS);
+            if (segment >= segments.length) {
+                segments = Arrays.copyOf(segments, Math.max(segment + 1, segments.length * 2));
+            }
+            if (segments[segment] == null) {
+                segments[segment] = new byte[SEGMENT_SIZE];
+            }
+            segments[segment][(int) (index & SEGMENT_MASK)] = value;
+        }
+    }
+}
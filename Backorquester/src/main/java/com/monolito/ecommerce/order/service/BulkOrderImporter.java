@@ -0,0 +1,288 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.integration.catalog.StockAdjustment;
+import com.monolito.ecommerce.order.model.BulkOrderRequest;
+import com.monolito.ecommerce.order.model.BulkOrderResult;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.model.OrderStatus;
+import com.monolito.ecommerce.shared.concurrency.StripedLocks;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
+import com.monolito.ecommerce.shared.exception.InsufficientStockException;
+import com.monolito.ecommerce.shared.exception.ResourceNotFoundException;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de órdenes (POST /api/orders/bulk)
+ *
+ * POR BLOQUE (orders.bulk.chunk-size líneas):
+ * 1. Validar cada línea; las inválidas se rechazan sin tocar el catálogo
+ * 2. Consultar los productos distintos del bloque (caché + GETs en paralelo)
+ * 3. Sumar las cantidades por producto de TODO el bloque y descontarlas en UNA llamada
+ *    a catalog-service (todo o nada)
+ * 4. Si catalog-service rechaza el descuento por stock (InsufficientStockException) o por un
+ *    producto inexistente (no aplicó nada), partir el grupo en dos mitades y reintentar cada una:
+ *    las órdenes que entran se confirman juntas, las que no se rechazan de a una.
+ *    Con k órdenes sin stock son O(k log n) llamadas; sin rechazos, una sola.
+ *    Cualquier otro error (timeout, 5xx, circuito abierto) rechaza el grupo entero sin
+ *    reintentar: el descuento pudo haberse aplicado y partir lo descontaría dos veces.
+ * 5. Confirmar cada grupo descontado con una sola escritura al WAL
+ *
+ * Las mitades se procesan en orden: ante stock escaso ganan las primeras líneas.
+ * Mientras se descuenta se toman los locks de producto de OrderService, así no se cruza
+ * con checkouts de los mismos productos.
+ */
+@Service
+public class BulkOrderImporter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkOrderImporter.class);
+
+    private static final String CHUNK_TIMER = "orders.bulk.chunk";
+    private static final String ORDERS_COUNTER = "orders.bulk.orders";
+    private static final String STOCK_CALLS_COUNTER = "orders.bulk.stock-calls";
+
+    private final OrderService orderService;
+    private final CatalogClient catalogClient;
+    private final OperationMetrics metrics;
+    private final int chunkSize;
+
+    public BulkOrderImporter(
+            OrderService orderService,
+            CatalogClient catalogClient,
+            OperationMetrics metrics,
+            @Value("${orders.bulk.chunk-size:500}") int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("orders.bulk.chunk-size debe ser mayor a cero");
+        }
+        this.orderService = orderService;
+        this.catalogClient = catalogClient;
+        this.metrics = metrics;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Procesar un bloque de órdenes. El resultado i corresponde a la petición i;
+     * una petición null (línea ilegible) se rechaza.
+     */
+    public List<BulkOrderResult> importChunk(List<BulkOrderRequest> requests) {
+        return metrics.record(CHUNK_TIMER, Tags.empty(), () -> {
+            BulkOrderResult[] results = new BulkOrderResult[requests.size()];
+            process(requests, results);
+
+            for (BulkOrderResult result : results) {
+                String status = result.getStatus().name().toLowerCase(Locale.ROOT);
+                metrics.increment(ORDERS_COUNTER, Tags.of("result", status));
+            }
+            return Arrays.asList(results);
+        });
+    }
+
+    private void process(List<BulkOrderRequest> requests, BulkOrderResult[] results) {
+        // PASO 1: Validar
+        List<Integer> valid = new ArrayList<>();
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String problem = validate(requests.get(i));
+            if (problem != null) {
+                results[i] = BulkOrderResult.rejected(problem);
+                continue;
+            }
+            valid.add(i);
+            requests.get(i).getItems().forEach(item -> productIds.add(item.getProductId()));
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // PASO 2: Nombre y precio de cada producto
+        Map<Long, ProductSnapshot> products;
+        try {
+            products = lookupProducts(productIds);
+        } catch (BusinessException ex) {
+            valid.forEach(i -> results[i] = BulkOrderResult.rejected(ex.getMessage()));
+            return;
+        }
+
+        List<Candidate> candidates = new ArrayList<>(valid.size());
+        for (int i : valid) {
+            BulkOrderRequest request = requests.get(i);
+            Long missing = request.getItems().stream()
+                    .map(BulkOrderRequest.Item::getProductId)
+                    .filter(productId -> !products.containsKey(productId))
+                    .findFirst()
+                    .orElse(null);
+            if (missing != null) {
+                results[i] = BulkOrderResult.rejected(String.format("Producto con ID %d no encontrado", missing));
+            } else {
+                candidates.add(new Candidate(i, buildOrder(request, products)));
+            }
+        }
+
+        // PASOS 3 a 5: Descontar stock agregado y confirmar
+        try (StripedLocks.Held productLock = orderService.lockProducts(productIds)) {
+            allocate(candidates, results);
+        }
+    }
+
+    private void allocate(List<Candidate> group, BulkOrderResult[] results) {
+        if (group.isEmpty()) {
+            return;
+        }
+
+        List<StockAdjustment> totals = List.of();
+        try {
+            totals = aggregate(group);
+            metrics.increment(STOCK_CALLS_COUNTER, Tags.empty());
+            catalogClient.decreaseStock(totals);
+        } catch (InsufficientStockException | ResourceNotFoundException ex) {
+            // Rechazo definitivo: catalog-service no descontó nada (o la suma no entraba en un int)
+            if (group.size() == 1) {
+                rejectAll(group, ex.getMessage(), results);
+                return;
+            }
+            int half = group.size() / 2;
+            allocate(group.subList(0, half), results);
+            allocate(group.subList(half, group.size()), results);
+            return;
+        } catch (DownstreamUnavailableException ex) {
+            // Circuito abierto o bulkhead lleno: la llamada ni se intentó
+            rejectAll(group, ex.getMessage(), results);
+            return;
+        } catch (BusinessException ex) {
+            // Resultado incierto: no se reintenta ni se revierte (podría reponer stock que no se descontó)
+            LOGGER.error("Descuento de stock incierto para {} órdenes de la importación: revisar stock de {}",
+                    group.size(), totals.stream().map(StockAdjustment::getProductId).toList(), ex);
+            rejectAll(group, ex.getMessage(), results);
+            return;
+        }
+
+        List<Order> orders = group.stream().map(Candidate::order).toList();
+        try {
+            orderService.confirmAll(orders);
+        } catch (RuntimeException ex) {
+            try {
+                catalogClient.increaseStock(totals);
+                LOGGER.info("Stock revertido para {} órdenes de la importación", orders.size());
+            } catch (RuntimeException rollbackEx) {
+                LOGGER.error("Error en rollback de stock para {} órdenes de la importación", orders.size(), rollbackEx);
+            }
+            rejectAll(group, "No se pudo crear la orden: " + ex.getMessage(), results);
+            return;
+        }
+
+        for (Candidate candidate : group) {
+            results[candidate.index()] = BulkOrderResult.created(candidate.order());
+        }
+    }
+
+    private static String validate(BulkOrderRequest request) {
+        if (request == null) {
+            return "Línea inválida: se esperaba un objeto JSON";
+        }
+        if (request.getUserId() == null || request.getUserId() <= 0) {
+            return "userId es obligatorio";
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            return "La orden debe tener al menos un producto";
+        }
+        for (BulkOrderRequest.Item item : request.getItems()) {
+            if (item == null || item.getProductId() == null) {
+                return "El producto es obligatorio";
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                return "La cantidad debe ser mayor a cero";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Productos del bloque; los que no existen quedan fuera del mapa
+     */
+    private Map<Long, ProductSnapshot> lookupProducts(Set<Long> productIds) {
+        try {
+            return catalogClient.getProductsByIds(productIds);
+        } catch (ResourceNotFoundException ex) {
+            // Alguno no existe: de a uno (los que sí existen ya quedaron en la caché)
+            Map<Long, ProductSnapshot> found = new HashMap<>();
+            for (Long productId : productIds) {
+                try {
+                    found.put(productId, catalogClient.getProductById(productId));
+                } catch (ResourceNotFoundException missing) {
+                    // Se rechazan las órdenes que lo incluyen
+                }
+            }
+            return found;
+        }
+    }
+
+    private static Order buildOrder(BulkOrderRequest request, Map<Long, ProductSnapshot> products) {
+        List<OrderItem> items = new ArrayList<>(request.getItems().size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (BulkOrderRequest.Item item : request.getItems()) {
+            ProductSnapshot product = products.get(item.getProductId());
+            OrderItem orderItem = new OrderItem(
+                    product.getId(), product.getName(), product.getPrice(), item.getQuantity());
+            items.add(orderItem);
+            total = total.add(orderItem.getSubtotal());
+        }
+
+        Order order = new Order(null, request.getUserId(), items, total);
+        order.setStatus(OrderStatus.PENDING);
+        return order;
+    }
+
+    /**
+     * Cantidades sumadas por producto en todo el grupo. Una suma que no entra en un int
+     * se trata como falta de stock: allocate parte el grupo sin llamar a catalog-service
+     * (una orden sola que no entra se rechaza).
+     */
+    private static List<StockAdjustment> aggregate(List<Candidate> group) {
+        Map<Long, Long> totals = new LinkedHashMap<>();
+        for (Candidate candidate : group) {
+            for (OrderItem item : candidate.order().getItems()) {
+                totals.merge(item.getProductId(), item.getQuantity().longValue(), Long::sum);
+            }
+        }
+        List<StockAdjustment> adjustments = new ArrayList<>(totals.size());
+        totals.forEach((productId, quantity) -> {
+            if (quantity > Integer.MAX_VALUE) {
+                throw new InsufficientStockException("Cantidad total fuera de rango para el producto " + productId);
+            }
+            adjustments.add(new StockAdjustment(productId, quantity.intValue()));
+        });
+        return adjustments;
+    }
+
+    private static void rejectAll(List<Candidate> group, String message, BulkOrderResult[] results) {
+        for (Candidate candidate : group) {
+            results[candidate.index()] = BulkOrderResult.rejected(message);
+        }
+    }
+
+    private record Candidate(int index, Order order) {
+    }
+}
@@ -0,0 +1,254 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Resultados de POST /api/orders por Idempotency-Key
+ *
+ * - La clave se guarda por usuario: dos usuarios pueden usar el mismo valor sin chocar
+ * - El primer request ejecuta el checkout; los duplicados concurrentes esperan ese
+ *   mismo resultado en vez de volver a descontar stock
+ * - Si el checkout falla, la entrada se quita: el reintento vuelve a ejecutarse
+ * - Acotado por tamaño (se expulsan primero las más antiguas ya terminadas) y por TTL
+ * - Con cluster las claves terminadas viajan con las órdenes del usuario a su nueva dueña
+ *   (detach / adopt, UserHandoff): el reintento allí devuelve la misma orden
+ */
+@Component
+public class IdempotencyStore implements MeterBinder {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long waitTimeoutMs;
+
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotencyStore(
+            @Value("${orders.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${orders.idempotency.ttl-ms:86400000}") long ttlMs,
+            @Value("${orders.idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    /**
+     * Ejecutar la acción una sola vez por (usuario, clave).
+     * Si ya hay un resultado vigente (o uno en curso) se devuelve ese.
+     */
+    public Order execute(Long userId, String idempotencyKey, Supplier<Order> action) {
+        validate(idempotencyKey);
+        Key key = new Key(userId, idempotencyKey);
+
+        while (true) {
+            Entry existing = entries.get(key);
+            if (existing != null && existing.isExpired(System.nanoTime(), ttlNanos)) {
+                entries.remove(key, existing);
+                existing = null;
+            }
+
+            if (existing != null) {
+                replays.increment();
+                return await(existing.result);
+            }
+
+            Entry created = new Entry(key);
+            if (entries.putIfAbsent(key, created) != null) {
+                // Otro request con la misma clave ganó la carrera: esperar el suyo
+                continue;
+            }
+            enqueue(created);
+            evictIfFull();
+
+            return runFirst(key, created, action);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Usuarios con claves guardadas (terminadas o en curso)
+     */
+    public Set<Long> getUserIds() {
+        return entries.keySet().stream().map(Key::userId).collect(Collectors.toSet());
+    }
+
+    /**
+     * Quitar las claves terminadas de esos usuarios para entregarlas a otra instancia, en una
+     * sola pasada. Las que siguen en curso se quedan: las lleva la próxima entrega.
+     */
+    public Map<Long, List<Completed>> detach(Set<Long> userIds) {
+        long now = System.nanoTime();
+        Map<Long, List<Completed>> detached = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            if (userIds.contains(key.userId())
+                    && entry.result.isDone()
+                    && !entry.result.isCompletedExceptionally()
+                    && entries.remove(key, entry)) {
+                Order order = entry.result.join();
+                long ageMs = (now - entry.completedAt) / 1_000_000L;
+                detached.computeIfAbsent(key.userId(), id -> new ArrayList<>())
+                        .add(new Completed(key.idempotencyKey(), order.getId(), ageMs));
+            }
+        });
+        return detached;
+    }
+
+    /**
+     * Incorporar una clave terminada recibida de otra instancia (o devuelta si la entrega
+     * falló). Conserva su antigüedad para el TTL; si la clave ya existe aquí gana la local.
+     */
+    public void adopt(Long userId, Completed completed, Order order) {
+        long ageNanos = completed.ageMs() * 1_000_000L;
+        if (ageNanos >= ttlNanos) {
+            return;
+        }
+        Entry entry = new Entry(new Key(userId, completed.idempotencyKey()));
+        entry.completedAt = System.nanoTime() - ageNanos;
+        entry.result.complete(order);
+        if (entries.putIfAbsent(entry.key, entry) == null) {
+            enqueue(entry);
+            evictIfFull();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("orders.idempotency.replays", replays, LongAdder::sum)
+                .description("Requests con Idempotency-Key repetida resueltos sin re-ejecutar el checkout")
+                .register(registry);
+        FunctionCounter.builder("orders.idempotency.evictions", evictions, LongAdder::sum)
+                .description("Claves expulsadas por tamaño")
+                .register(registry);
+        Gauge.builder("orders.idempotency.size", entries, Map::size)
+                .description("Claves de idempotencia guardadas")
+                .register(registry);
+    }
+
+    private Order runFirst(Key key, Entry entry, Supplier<Order> action) {
+        try {
+            Order order = action.get();
+            entry.completedAt = System.nanoTime();
+            entry.result.complete(order);
+            return order;
+        } catch (RuntimeException ex) {
+            // No se guarda el fallo: el cliente puede reintentar con la misma clave
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    private Order await(CompletableFuture<Order> result) {
+        try {
+            return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new BusinessException("Hay una orden en proceso con la misma Idempotency-Key, reintente más tarde");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("Interrumpido esperando la orden en proceso");
+        } catch (ExecutionException ex) {
+            // Los duplicados ven el mismo error que el request original
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new BusinessException("No se pudo crear la orden: " + ex.getCause().getMessage(), ex.getCause());
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+    }
+
+    /**
+     * Expulsar las entradas más antiguas ya terminadas; las que están en curso se conservan.
+     * La cola también guarda entradas ya quitadas (fallos, vencidas): se descartan al pasar.
+     */
+    private void evictIfFull() {
+        int attempts = queued.get();
+        while (queued.get() > maxEntries && attempts-- > 0) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+
+            if (entries.get(oldest.key) != oldest) {
+                continue;
+            }
+            if (!oldest.result.isDone()) {
+                enqueue(oldest);
+                continue;
+            }
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static void validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank()) {
+            throw new BusinessException("Idempotency-Key no puede estar vacía");
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency-Key no puede superar " + MAX_KEY_LENGTH + " caracteres");
+        }
+    }
+
+    /**
+     * Clave terminada en tránsito entre instancias: la orden viaja aparte, con las del usuario
+     */
+    public record Completed(String idempotencyKey, Long orderId, long ageMs) {
+    }
+
+    private record Key(Long userId, String idempotencyKey) {
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+        private volatile long completedAt;
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return result.isDone() && !result.isCompletedExceptionally() && now - completedAt >= ttlNanos;
+        }
+    }
+}
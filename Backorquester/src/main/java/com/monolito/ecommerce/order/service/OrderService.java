@@ -1,24 +1,47 @@
 package com.monolito.ecommerce.order.service;
 
 import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.model.CartSnapshot;
 import com.monolito.ecommerce.cart.service.CartService;
 import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.StockAdjustment;
 import com.monolito.ecommerce.order.model.Order;
 import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.model.OrderPage;
 import com.monolito.ecommerce.order.model.OrderStatus;
+import com.monolito.ecommerce.order.persistence.OrderStore;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import com.monolito.ecommerce.shared.concurrency.StripedLocks;
 import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
+import com.monolito.ecommerce.shared.exception.InsufficientStockException;
 import com.monolito.ecommerce.shared.exception.ResourceNotFoundException;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio de Órdenes
@@ -26,7 +49,8 @@ import java.util.concurrent.atomic.AtomicLong;
  * TRANSACCIONES SIMULADAS:
  * - En un monolito con DB, usarías @Transactional para ACID
  * - Aquí simulamos rollback manual si algo falla
- * - Thread-safe con synchronized
+ * - Concurrencia con locks por usuario y por producto (StripedLocks):
+ *   dos checkouts solo se esperan si son del mismo usuario o comparten productos
  *
  * VENTAJAS DEL MONOLITO:
  * - Flujo en un solo proceso
@@ -35,25 +59,95 @@ import java.util.concurrent.atomic.AtomicLong;
  * - NO hay serialización/deserialización
  * - FÁCIL mantener consistencia (en este caso, manual)
  *
+ * ALMACENAMIENTO (OrderStore, orders.store.engine):
+ * - HEAP: un objeto Order por orden; PACKED: columnas de primitivos, el Order se arma al leer
+ *
+ * IDS (IdGenerator, ids.generator):
+ * - SNOWFLAKE por defecto: dos instancias nunca asignan el mismo ID de orden
+ *
+ * PERSISTENCIA (opcional, orders.persistence.enabled=true):
+ * - Cada orden confirmada se agrega a un WAL (OrderWriteAheadLog) antes de responder
+ * - Al arrancar se reproducen el log, el índice por usuario y el generador de IDs
+ *
+ * CLUSTER (cluster.enabled=true, UserHandoff):
+ * - detachOrders / adoptOrders / forgetOrders mueven las órdenes de un usuario a su nueva dueña
+ *
+ * PARTICIONES (orders.checkout.partitions > 0, PartitionedCheckout):
+ * - Carritos, checkout e índice por usuario los lleva la partición dueña de cada usuario;
+ *   aquí quedan los pasos compartidos (newOrder, reserve) y las órdenes por ID
+ *
+ * EVENTOS (OrderStatusBroadcaster):
+ * - Cada orden confirmada se anuncia por SSE a las conexiones de su usuario (sin bloquear el checkout)
+ * - Las órdenes revertidas no se anuncian: el evento sale recién después del rollback posible
+ *
+ * MÉTRICAS (OperationMetrics):
+ * - orders.checkout: latencia total de createOrder, errores por tipo de excepción
+ * - orders.checkout.phase{phase}: lock-user, cart, lock-products, stock, log, cart-cleanup, rollback
+ * - orders.checkout.rollbacks{exception}: órdenes revertidas después de descontar stock
+ * - orders.checkout.stock-uncertain: descuentos sin respuesta clara de catalog-service (revisar stock)
+ *
  * DESVENTAJAS:
- * - Si falla la app, se pierden los datos (no hay persistencia)
+ * - Sin el WAL, si falla la app se pierden los datos
  * - Escalabilidad limitada a recursos de una máquina
  */
 @Service
 public class OrderService {
 
-    // Almacenamiento en memoria
-    private final Map<Long, Order> orderDatabase = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    // Tamaño máximo de página en GET /api/orders
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String CHECKOUT_TIMER = "orders.checkout";
+    private static final String PHASE_TIMER = "orders.checkout.phase";
+    private static final String ROLLBACK_COUNTER = "orders.checkout.rollbacks";
+    private static final String UNCERTAIN_STOCK_COUNTER = "orders.checkout.stock-uncertain";
+
+    // Almacenamiento en memoria, ordenado por ID (permite paginar por cursor)
+    private final OrderStore orderStore;
+    private final IdGenerator idGenerator;
+
+    // IDs asignados cuya orden todavía no está en orderStore (ver settledUpTo)
+    private final NavigableSet<Long> unsettledIds = new ConcurrentSkipListSet<>();
+    private long lastAssignedId;
+
+    // Índice secundario: userId -> IDs de sus órdenes en orden de confirmación
+    private final Map<Long, Queue<Long>> ordersByUser = new ConcurrentHashMap<>();
+
+    // Con PartitionedCheckout el índice lo guardan las particiones (ver handOverUserIndex)
+    private volatile Consumer<Order> partitionIndex;
+
+    // Locks de checkout: por usuario (un carrito no se compra dos veces) y por producto
+    private final StripedLocks userLocks;
+    private final StripedLocks productLocks;
 
     // Dependencias externas
     private final CartService cartService;
     private final CatalogClient catalogClient;
+    private final OrderWriteAheadLog orderLog;
+    private final OperationMetrics metrics;
+    private final OrderStatusBroadcaster statusBroadcaster;
     private static final Logger LOGGER = LoggerFactory.getLogger(OrderService.class);
 
-    public OrderService(CartService cartService, CatalogClient catalogClient) {
+    public OrderService(
+            CartService cartService,
+            CatalogClient catalogClient,
+            OrderStore orderStore,
+            IdGenerator idGenerator,
+            OrderWriteAheadLog orderLog,
+            OperationMetrics metrics,
+            OrderStatusBroadcaster statusBroadcaster,
+            @Value("${orders.checkout.lock-stripes:256}") int lockStripes) {
         this.cartService = cartService;
         this.catalogClient = catalogClient;
+        this.orderStore = orderStore;
+        this.idGenerator = idGenerator;
+        this.orderLog = orderLog;
+        this.metrics = metrics;
+        this.statusBroadcaster = statusBroadcaster;
+        this.userLocks = new StripedLocks(lockStripes);
+        this.productLocks = new StripedLocks(lockStripes);
+
+        // Reconstruir el estado desde el log (no hace nada si la persistencia está deshabilitada)
+        orderLog.open(this::restore);
     }
 
     /**
@@ -61,38 +155,72 @@ public class OrderService {
      *
      * SIMULACIÓN DE TRANSACCIÓN:
      * 1. Validar usuario y carrito
-     * 2. Validar stock de todos los productos
-     * 3. Descontar inventario
-     * 4. Si algo falla, hacer ROLLBACK manual
-     * 5. Crear orden
-     * 6. Limpiar carrito
+     * 2. Crear orden PENDING
+     * 3. Validar y descontar inventario en una sola llamada atómica a catalog-service
+     * 4. Confirmar orden y limpiar carrito
+     * 5. Si algo falla después de descontar, hacer ROLLBACK manual
      *
      * En un monolito real con BD:
      *
      * @Transactional haría esto automáticamente
      *                Si algo falla, la operación se revierte
+     *
+     * CONCURRENCIA:
+     * - Primero el lock del usuario, después los de sus productos (en orden de stripe)
+     * - Checkouts con carritos disjuntos avanzan en paralelo
      */
-    public synchronized Order createOrder(Long userId) {
-        // PASO 2: Obtener carrito
-        List<CartItem> cartItems = cartService.getCart(userId);
+    public Order createOrder(Long userId) {
+        return metrics.record(CHECKOUT_TIMER, Tags.empty(), () -> checkout(userId));
+    }
 
-        if (cartItems.isEmpty()) {
-            throw new BusinessException("El carrito está vacío");
-        }
+    private Order checkout(Long userId) {
+        try (StripedLocks.Held userLock = phase("lock-user", () -> userLocks.lock(userId))) {
+            // PASO 2: Obtener carrito (items y total del mismo instante)
+            CartSnapshot cart = phase("cart", () -> cartService.getCartSnapshot(userId));
 
-        // PASO 3: Validar stock de TODOS los productos antes de procesar
-        // Esto simula una validación pre-transaccional
-        for (CartItem item : cartItems) {
-            if (!catalogClient.hasStock(item.getProductId(), item.getQuantity())) {
-                throw new BusinessException(
-                        String.format("Stock insuficiente para %s", item.getProductName()));
+            if (cart.isEmpty()) {
+                throw new BusinessException("El carrito está vacío");
             }
+
+            List<Long> productIds = cart.getItems().stream()
+                    .map(CartItem::getProductId)
+                    .toList();
+
+            try (StripedLocks.Held productLock = phase("lock-products", () -> productLocks.lockAll(productIds))) {
+                return placeOrder(userId, cart);
+            }
+        }
+    }
+
+    private Order placeOrder(Long userId, CartSnapshot cart) {
+        Order order = newOrder(userId, cart);
+        List<StockAdjustment> stockChanges = stockChanges(order);
+
+        assignIds(List.of(order));
+        try {
+            decreaseStock(order, stockChanges);
+
+            commit(order, stockChanges, () -> {
+                orderStore.put(order);
+                indexByUser(order);
+
+                // PASO 5: Quitar del carrito lo comprado (lo agregado durante el checkout se conserva)
+                phase("cart-cleanup", () -> cartService.removeOrderedItems(userId, cart.getItems()));
+            });
+        } finally {
+            settleIds(List.of(order));
         }
 
-        // PASO 4: Crear orden (todavía PENDING)
-        Long orderId = idGenerator.getAndIncrement();
+        statusBroadcaster.publish(order);
+        return order;
+    }
 
-        List<OrderItem> orderItems = cartItems.stream()
+    /**
+     * PASO 3: Crear orden (todavía PENDING, sin ID) desde la foto del carrito.
+     * El ID se asigna justo antes de descontar stock (assignIds).
+     */
+    Order newOrder(Long userId, CartSnapshot cart) {
+        List<OrderItem> orderItems = cart.getItems().stream()
                 .map(cartItem -> new OrderItem(
                         cartItem.getProductId(),
                         cartItem.getProductName(),
@@ -100,44 +228,97 @@ public class OrderService {
                         cartItem.getQuantity()))
                 .toList();
 
-        BigDecimal total = cartService.calculateTotal(userId);
-
-        Order order = new Order(orderId, userId, orderItems, total);
+        Order order = new Order(null, userId, orderItems, cart.getTotal());
         order.setStatus(OrderStatus.PENDING);
+        return order;
+    }
 
-        // PASO 5: TRANSACCIÓN SIMULADA - Descontar inventario
-        // Guardamos los cambios por si hay que hacer rollback
-        Map<Long, Integer> stockChanges = new HashMap<>();
-
+    /**
+     * PASO 4 y log para PartitionedCheckout (fuera del hilo de la partición): descontar stock,
+     * confirmar en el log y guardar la orden por ID. El carrito y el índice por usuario los
+     * actualiza después la partición dueña del usuario.
+     */
+    void reserve(Order order) {
+        List<StockAdjustment> stockChanges = stockChanges(order);
+        assignIds(List.of(order));
         try {
-            for (OrderItem item : orderItems) {
-                // Guardar cambio para posible rollback
-                stockChanges.put(item.getProductId(), item.getQuantity());
+            decreaseStock(order, stockChanges);
+            commit(order, stockChanges, () -> orderStore.put(order));
+        } finally {
+            settleIds(List.of(order));
+        }
+    }
 
-                // Descontar stock (puede lanzar excepción)
-                catalogClient.decreaseStock(item.getProductId(), item.getQuantity());
-            }
+    /**
+     * Anunciar una orden confirmada por PartitionedCheckout, ya visible en el índice de su partición
+     */
+    void publishConfirmed(Order order) {
+        statusBroadcaster.publish(order);
+    }
 
-            // Si llegamos aquí, la operación salió bien
-            order.setStatus(OrderStatus.CONFIRMED);
-            orderDatabase.put(orderId, order);
+    private static List<StockAdjustment> stockChanges(Order order) {
+        return order.getItems().stream()
+                .map(item -> new StockAdjustment(item.getProductId(), item.getQuantity()))
+                .toList();
+    }
 
-            // PASO 6: Limpiar carrito
-            cartService.clearCart(userId);
+    /**
+     * PASO 4: Validar y descontar stock de TODOS los productos en una sola llamada.
+     * Si catalog-service lo rechaza (stock insuficiente, producto inexistente) o la llamada
+     * ni se intentó (circuito abierto) no se descontó nada. Cualquier otro fallo (timeout,
+     * 5xx, conexión cortada) deja el resultado incierto: el descuento pudo haberse aplicado.
+     * No se repone a ciegas (podría crear stock que nunca se descontó): se registra para revisar.
+     */
+    private void decreaseStock(Order order, List<StockAdjustment> stockChanges) {
+        try {
+            phase("stock", () -> catalogClient.decreaseStock(stockChanges));
+        } catch (InsufficientStockException | ResourceNotFoundException | DownstreamUnavailableException ex) {
+            throw ex;
+        } catch (BusinessException ex) {
+            metrics.increment(UNCERTAIN_STOCK_COUNTER, Tags.empty());
+            LOGGER.error("Descuento de stock incierto para la orden {} del usuario {}: revisar stock de {}",
+                    order.getId(), order.getUserId(),
+                    stockChanges.stream().map(StockAdjustment::getProductId).toList(), ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Con el inventario ya reservado: confirmar la orden en el log y aplicarla.
+     * Si algo falla se revierte todo y sale BusinessException.
+     */
+    private void commit(Order order, List<StockAdjustment> stockChanges, Runnable apply) {
+        Long orderId = order.getId();
+        boolean logged = false;
+        try {
+            order.setStatus(OrderStatus.CONFIRMED);
+            // Si append falla (incluido el tiempo agotado) el registro no está ni estará en el log
+            phase("log", () -> orderLog.append(order));
+            logged = true;
+            apply.run();
 
         } catch (RuntimeException e) {
-            // ROLLBACK MANUAL: Revertir todos los cambios de stock
+            // ROLLBACK MANUAL: Revertir todos los cambios de stock en una sola llamada
+            metrics.increment(ROLLBACK_COUNTER, Tags.of("exception", e.getClass().getSimpleName()));
+            orderStore.remove(orderId);
+            unindexByUser(order.getUserId(), orderId);
 
-            for (Map.Entry<Long, Integer> entry : stockChanges.entrySet()) {
-                try {
-                    catalogClient.increaseStock(entry.getKey(), entry.getValue());
-                    LOGGER.info("Stock revertido para producto {}", entry.getKey());
-                } catch (RuntimeException rollbackEx) {
-                    LOGGER.error("Error en rollback para producto {}", entry.getKey(), rollbackEx);
-                }
+            try {
+                phase("rollback", () -> catalogClient.increaseStock(stockChanges));
+                LOGGER.info("Stock revertido para la orden {}", orderId);
+            } catch (RuntimeException rollbackEx) {
+                LOGGER.error("Error en rollback de stock para la orden {}", orderId, rollbackEx);
             }
 
             order.setStatus(OrderStatus.CANCELLED);
+            if (logged) {
+                // La orden ya estaba en el log: registrar la cancelación para que el replay no la reviva
+                try {
+                    orderLog.append(order);
+                } catch (RuntimeException logEx) {
+                    LOGGER.error("No se pudo registrar la cancelación de la orden {} en el log", orderId, logEx);
+                }
+            }
 
             // Nota académica: En un monolito con BD y @Transactional,
             // este rollback sería AUTOMÁTICO. Aquí lo hacemos manual
@@ -145,15 +326,110 @@ public class OrderService {
 
             throw new BusinessException("No se pudo crear la orden: " + e.getMessage(), e);
         }
+    }
 
-        return order;
+    /**
+     * Locks de producto para BulkOrderImporter: sus descuentos de stock no se cruzan
+     * con los checkouts de los mismos productos
+     */
+    StripedLocks.Held lockProducts(Collection<Long> productIds) {
+        return productLocks.lockAll(productIds);
+    }
+
+    /**
+     * Confirmar órdenes cuyo stock ya se descontó (BulkOrderImporter): asigna IDs, las
+     * escribe juntas en el log y recién entonces las publica.
+     * Si el log falla no queda ninguna publicada y la excepción sigue (el llamador repone el stock).
+     */
+    void confirmAll(List<Order> orders) {
+        assignIds(orders);
+        try {
+            for (Order order : orders) {
+                order.setStatus(OrderStatus.CONFIRMED);
+            }
+
+            try {
+                orderLog.appendAll(orders);
+            } catch (RuntimeException e) {
+                for (Order order : orders) {
+                    order.setStatus(OrderStatus.CANCELLED);
+                }
+                // Parte del grupo pudo llegar al log: registrar la cancelación para que el replay no las reviva
+                try {
+                    orderLog.appendAll(orders);
+                } catch (RuntimeException logEx) {
+                    LOGGER.error("No se pudo registrar la cancelación de {} órdenes en el log", orders.size(), logEx);
+                }
+                throw e;
+            }
+
+            for (Order order : orders) {
+                orderStore.put(order);
+                indexByUser(order);
+            }
+        } finally {
+            settleIds(orders);
+        }
+        orders.forEach(statusBroadcaster::publish);
+    }
+
+    /**
+     * Asignar IDs a órdenes que se van a guardar. Quedan sin asentar hasta settleIds:
+     * getOrdersPage no entrega nada por encima del menor ID sin asentar.
+     */
+    private void assignIds(List<Order> orders) {
+        synchronized (unsettledIds) {
+            for (Order order : orders) {
+                long id = idGenerator.nextId();
+                order.setId(id);
+                unsettledIds.add(id);
+                lastAssignedId = Math.max(lastAssignedId, id);
+            }
+        }
+    }
+
+    /**
+     * Las órdenes ya están en orderStore o no van a estar nunca (checkout revertido)
+     */
+    private void settleIds(List<Order> orders) {
+        for (Order order : orders) {
+            unsettledIds.remove(order.getId());
+        }
+    }
+
+    /**
+     * Órdenes con ID ya asignado (del log o de otra instancia): el generador sigue por encima
+     */
+    private void advanceIdsPast(long id) {
+        synchronized (unsettledIds) {
+            idGenerator.advancePast(id);
+            lastAssignedId = Math.max(lastAssignedId, id);
+        }
+    }
+
+    /**
+     * Mayor ID hasta el que toda orden ya está en orderStore o no va a estar nunca.
+     * Los IDs que se asignen después son mayores: no pueden aparecer por debajo.
+     */
+    private long settledUpTo() {
+        synchronized (unsettledIds) {
+            return unsettledIds.isEmpty() ? lastAssignedId : unsettledIds.first() - 1;
+        }
+    }
+
+    private <T> T phase(String phase, Supplier<T> step) {
+        return metrics.record(PHASE_TIMER, Tags.of("phase", phase), step);
+    }
+
+    private void phase(String phase, Runnable step) {
+        metrics.record(PHASE_TIMER, Tags.of("phase", phase), step);
     }
 
     /**
      * Obtener orden por ID
      */
     public Order getOrderById(Long orderId) {
-        Order order = orderDatabase.get(orderId);
+        Order order = orderStore.get(orderId);
         if (order == null) {
             throw new ResourceNotFoundException("Orden", orderId);
         }
@@ -161,18 +437,205 @@ public class OrderService {
     }
 
     /**
-     * Listar órdenes de un usuario
+     * Listar órdenes de un usuario (en orden de creación)
+     * Usa el índice por usuario: el costo depende de las órdenes del usuario, no del total
      */
     public List<Order> getOrdersByUser(Long userId) {
-        return orderDatabase.values().stream()
-                .filter(order -> order.getUserId().equals(userId))
-                .toList();
+        Queue<Long> orderIds = ordersByUser.get(userId);
+        if (orderIds == null) {
+            return List.of();
+        }
+
+        return resolve(orderIds);
+    }
+
+    /**
+     * Órdenes de esos IDs en el mismo orden (las que ya no existen se omiten)
+     */
+    List<Order> resolve(Collection<Long> orderIds) {
+        List<Order> orders = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            Order order = orderStore.get(orderId);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
     }
 
     /**
      * Listar todas las órdenes
      */
     public List<Order> getAllOrders() {
-        return new ArrayList<>(orderDatabase.values());
+        return orderStore.streamFrom(null).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Página de órdenes con ID mayor a "after" (paginación por cursor)
+     * Costo O(log n + limit): no depende de cuántas páginas se hayan leído antes
+     */
+    public OrderPage getOrdersPage(Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BusinessException("limit debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+
+        // Un ID asignado pero todavía sin guardar (stock, log) quedaría detrás del cursor:
+        // la página se corta antes del primero y esa orden sale en la siguiente
+        long settled = settledUpTo();
+        Iterator<Order> remaining = orderStore.streamFrom(after).iterator();
+
+        List<Order> items = new ArrayList<>(limit);
+        boolean hasMore = false;
+        while (remaining.hasNext()) {
+            if (items.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            Order order = remaining.next();
+            if (order.getId() > settled) {
+                hasMore = true;
+                break;
+            }
+            items.add(order);
+        }
+
+        Long nextCursor = !hasMore ? null
+                : !items.isEmpty() ? items.get(items.size() - 1).getId()
+                : after != null ? after : 0L;
+        return new OrderPage(items, nextCursor);
+    }
+
+    /**
+     * Recorrer todas las órdenes en orden de ID sin copiarlas a una lista
+     * (vista débilmente consistente: refleja órdenes creadas durante el recorrido o no)
+     */
+    public Stream<Order> streamAllOrders() {
+        return orderStore.streamFrom(null);
+    }
+
+    /**
+     * Usuarios con órdenes en esta instancia (UserHandoff busca los que cambiaron de dueño)
+     */
+    public Set<Long> getIndexedUserIds() {
+        return Collections.unmodifiableSet(ordersByUser.keySet());
+    }
+
+    /**
+     * Quitar las órdenes del usuario para entregarlas a otra instancia, en orden de creación.
+     * Bajo el lock del usuario: no queda ningún checkout suyo a medias.
+     * Siguen en el log hasta forgetOrders (si la entrega falla vuelven con adoptOrders).
+     */
+    public List<Order> detachOrders(Long userId) {
+        try (StripedLocks.Held userLock = userLocks.lock(userId)) {
+            Queue<Long> orderIds = ordersByUser.remove(userId);
+            if (orderIds == null) {
+                return List.of();
+            }
+            List<Order> orders = resolve(orderIds);
+            orders.forEach(order -> orderStore.remove(order.getId()));
+            return orders;
+        }
+    }
+
+    /**
+     * Incorporar órdenes de un usuario recibidas de otra instancia (logged=true: se escriben
+     * en el log de esta) o devueltas porque la entrega falló (logged=false: nunca salieron del log).
+     * Las que ya están aquí se ignoran: un lote entregado dos veces no duplica órdenes.
+     * El índice del usuario se rearma por ID, que sigue el orden de creación entre instancias.
+     */
+    public void adoptOrders(Long userId, List<Order> orders, boolean logged) {
+        try (StripedLocks.Held userLock = userLocks.lock(userId)) {
+            List<Order> adopted = orders.stream()
+                    .filter(order -> orderStore.get(order.getId()) == null)
+                    .toList();
+            if (adopted.isEmpty()) {
+                return;
+            }
+            if (logged) {
+                orderLog.appendAll(adopted);
+            }
+
+            for (Order order : adopted) {
+                advanceIdsPast(order.getId());
+                orderStore.put(order);
+            }
+            ordersByUser.compute(userId, (id, current) -> {
+                TreeSet<Long> orderIds = current != null ? new TreeSet<>(current) : new TreeSet<>();
+                adopted.forEach(order -> orderIds.add(order.getId()));
+                return new ConcurrentLinkedQueue<>(orderIds);
+            });
+        }
+    }
+
+    /**
+     * Órdenes ya entregadas a su nueva dueña: registrarlas como canceladas en el log de esta
+     * instancia para que su replay no las reviva (la dueña las tiene en el suyo)
+     */
+    public void forgetOrders(List<Order> orders) {
+        if (orders.isEmpty() || !orderLog.isEnabled()) {
+            return;
+        }
+        orders.forEach(order -> order.setStatus(OrderStatus.CANCELLED));
+        try {
+            orderLog.appendAll(orders);
+        } catch (RuntimeException ex) {
+            LOGGER.error("No se registró en el log la entrega de {} órdenes: al reiniciar reaparecerán aquí",
+                    orders.size(), ex);
+        }
+    }
+
+    /**
+     * Cargar una orden leída del log al arrancar (una cancelación deshace la confirmación previa)
+     */
+    private void restore(Order order) {
+        advanceIdsPast(order.getId());
+
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            orderStore.remove(order.getId());
+            unindexByUser(order.getUserId(), order.getId());
+            return;
+        }
+
+        orderStore.put(order);
+        indexByUser(order);
+    }
+
+    /**
+     * Ceder el índice por usuario a PartitionedCheckout: devuelve lo restaurado del log y
+     * desde entonces las órdenes confirmadas fuera de las particiones (importación en lote)
+     * se entregan a partitionIndex en lugar de este mapa
+     */
+    Map<Long, Queue<Long>> handOverUserIndex(Consumer<Order> partitionIndex) {
+        this.partitionIndex = partitionIndex;
+        Map<Long, Queue<Long>> restored = new HashMap<>(ordersByUser);
+        ordersByUser.clear();
+        return restored;
+    }
+
+    /**
+     * Registrar la orden en el índice por usuario (la cola queda en orden de confirmación).
+     * Los checkouts de un usuario se registran bajo su lock; las órdenes de la importación
+     * en lote (confirmAll) no lo toman: ya tienen los locks de producto y tomar después los de
+     * usuario invertiría el orden del checkout. Por eso el alta va dentro de compute, igual
+     * que el rearmado de adoptOrders: una no pisa a la otra.
+     */
+    private void indexByUser(Order order) {
+        Consumer<Order> partitioned = partitionIndex;
+        if (partitioned != null) {
+            partitioned.accept(order);
+            return;
+        }
+        ordersByUser.compute(order.getUserId(), (userId, orderIds) -> {
+            Queue<Long> queue = orderIds != null ? orderIds : new ConcurrentLinkedQueue<>();
+            queue.add(order.getId());
+            return queue;
+        });
+    }
+
+    private void unindexByUser(Long userId, Long orderId) {
+        Queue<Long> userOrders = ordersByUser.get(userId);
+        if (userOrders != null) {
+            userOrders.remove(orderId);
+        }
     }
 }
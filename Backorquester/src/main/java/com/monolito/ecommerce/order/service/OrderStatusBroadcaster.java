@@ -0,0 +1,445 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderStatusEvent;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cambios de estado de órdenes por Server-Sent Events (GET /api/orders/events)
+ *
+ * SUSCRIPTORES:
+ * - Cada conexión recibe los eventos de las órdenes de SU usuario
+ * - Cola propia acotada (orders.events.buffer-size): si el cliente no lee, se descartan
+ *   los eventos más viejos y antes del siguiente se le envía "resync" para que vuelva
+ *   a consultar GET /api/orders/user/{userId} una vez
+ * - Límite de conexiones por usuario y en total
+ *
+ * HILOS:
+ * - publish() solo encola y agenda: el checkout nunca espera a un cliente lento
+ * - Cada suscriptor se vacía en un solo hilo a la vez (hilos virtuales en Java 21+,
+ *   si no un pool de orders.events.dispatch-threads)
+ * - emitter.send bloquea mientras el socket del cliente no acepta datos. Si un envío
+ *   tarda más de orders.events.send-timeout-ms el suscriptor se quita (no recibe más
+ *   eventos) y el pool suma un hilo mientras ese envío siga trabado: los clientes
+ *   colgados no frenan a los demás. El emitter no se puede cerrar desde afuera
+ *   (el envío tiene su lock); se cierra cuando el envío termina o falla
+ * - Un hilo agenda un comentario de heartbeat: mantiene viva la conexión a través de
+ *   proxies y detecta clientes caídos (el envío falla y el suscriptor se quita)
+ *
+ * No hay historial: al reconectar (Last-Event-ID) no se reenvía lo perdido, el cliente
+ * debe reconsultar. Las órdenes revertidas durante el checkout nunca se anuncian.
+ */
+@Component
+public class OrderStatusBroadcaster implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderStatusBroadcaster.class);
+
+    private static final String STATUS_EVENT = "order-status";
+    private static final String RESYNC_EVENT = "resync";
+    private static final Object HELLO = new Object();
+    private static final Object HEARTBEAT = new Object();
+
+    private final boolean enabled;
+    private final int bufferSize;
+    private final int maxPerUser;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final long retryMs;
+    private final long sendTimeoutNanos;
+
+    private final Map<Long, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder stalled = new LongAdder();
+
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService heartbeat;
+
+    @Autowired
+    public OrderStatusBroadcaster(
+            @Value("${orders.events.enabled:true}") boolean enabled,
+            @Value("${orders.events.buffer-size:64}") int bufferSize,
+            @Value("${orders.events.max-subscribers-per-user:5}") int maxPerUser,
+            @Value("${orders.events.max-subscribers:10000}") int maxSubscribers,
+            @Value("${orders.events.timeout-ms:1800000}") long timeoutMs,
+            @Value("${orders.events.retry-ms:3000}") long retryMs,
+            @Value("${orders.events.heartbeat-ms:15000}") long heartbeatMs,
+            @Value("${orders.events.send-timeout-ms:10000}") long sendTimeoutMs,
+            @Value("${orders.events.dispatch-threads:2}") int dispatchThreads) {
+        this(enabled, bufferSize, maxPerUser, maxSubscribers, timeoutMs, retryMs, heartbeatMs, sendTimeoutMs,
+                enabled ? newDispatcher(dispatchThreads) : null);
+    }
+
+    /**
+     * Con el ejecutor de envíos dado (pruebas: uno manual)
+     */
+    OrderStatusBroadcaster(boolean enabled, int bufferSize, int maxPerUser, int maxSubscribers,
+                           long timeoutMs, long retryMs, long heartbeatMs, long sendTimeoutMs,
+                           ExecutorService dispatcher) {
+        this.enabled = enabled;
+        this.bufferSize = bufferSize;
+        this.maxPerUser = maxPerUser;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+        this.retryMs = retryMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+
+        this.dispatcher = dispatcher;
+        if (!enabled) {
+            this.heartbeat = null;
+            return;
+        }
+
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        if (sendTimeoutMs > 0) {
+            heartbeat.scheduleAtFixedRate(this::dropStalledSubscribers, sendTimeoutMs, sendTimeoutMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sin suscriptores ni hilos (pruebas y benchmarks): publish no hace nada
+     */
+    public static OrderStatusBroadcaster disabled() {
+        return new OrderStatusBroadcaster(false, 1, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Abrir un stream para un usuario
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (!enabled) {
+            throw new BusinessException("Los eventos de órdenes están deshabilitados");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new BusinessException("Demasiadas conexiones de eventos abiertas, intente más tarde");
+        }
+
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        boolean[] accepted = new boolean[1];
+        subscribersByUser.compute(userId, (id, current) -> {
+            Set<Subscriber> subscribers = current != null ? current : ConcurrentHashMap.newKeySet();
+            if (subscribers.size() < maxPerUser) {
+                subscribers.add(subscriber);
+                accepted[0] = true;
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (!accepted[0]) {
+            subscriberCount.decrementAndGet();
+            throw new BusinessException("Máximo " + maxPerUser + " conexiones de eventos por usuario");
+        }
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            // Cierre normal: el cliente reconecta (sin esto responde AsyncRequestTimeoutException)
+            remove(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(ex -> remove(subscriber));
+
+        // Primer envío: fija el intervalo de reconexión y confirma los headers al cliente
+        subscriber.enqueue(HELLO);
+        return emitter;
+    }
+
+    /**
+     * Anunciar el estado actual de una orden a las conexiones de su usuario
+     */
+    public void publish(Order order) {
+        Set<Subscriber> subscribers = subscribersByUser.get(order.getUserId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        OrderStatusEvent event = OrderStatusEvent.of(order);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(event);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("orders.events.subscribers", this, OrderStatusBroadcaster::getSubscriberCount)
+                .description("Conexiones SSE abiertas")
+                .register(registry);
+        FunctionCounter.builder("orders.events.sent", sent, LongAdder::sum)
+                .description("Eventos de estado enviados")
+                .register(registry);
+        FunctionCounter.builder("orders.events.dropped", dropped, LongAdder::sum)
+                .description("Eventos descartados por cola llena (cliente lento)")
+                .register(registry);
+        FunctionCounter.builder("orders.events.stalled", stalled, LongAdder::sum)
+                .description("Suscriptores quitados por un envío trabado más de send-timeout-ms")
+                .register(registry);
+    }
+
+    /**
+     * Cerrar los streams antes de que el servidor web se detenga: con apagado ordenado
+     * Tomcat esperaría a que terminen (hasta timeout-ms)
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeSubscribers() {
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(s -> {
+            try {
+                s.emitter.complete();
+            } catch (IllegalStateException ex) {
+                // Respuesta ya liberada por el contenedor
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        heartbeat.shutdownNow();
+        closeSubscribers();
+        dispatcher.shutdownNow();
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    void sendHeartbeats() {
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(s -> s.enqueue(HEARTBEAT)));
+    }
+
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(s -> {
+            if (s.markStalled(now)) {
+                LOGGER.warn("Conexión de eventos del usuario {} sin leer hace más de {} ms, se quita",
+                        s.userId, TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+                stalled.increment();
+            }
+        }));
+    }
+
+    /**
+     * Un hilo más en el pool mientras un envío trabado ocupa uno (con hilos virtuales no hace falta)
+     */
+    private void lendThread() {
+        if (dispatcher instanceof ThreadPoolExecutor pool) {
+            synchronized (pool) {
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() + 1);
+                pool.setCorePoolSize(pool.getCorePoolSize() + 1);
+            }
+        }
+    }
+
+    private void returnThread() {
+        if (dispatcher instanceof ThreadPoolExecutor pool) {
+            synchronized (pool) {
+                pool.setCorePoolSize(pool.getCorePoolSize() - 1);
+                pool.setMaximumPoolSize(pool.getMaximumPoolSize() - 1);
+            }
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return;
+            }
+            subscriber.closed = true;
+        }
+        subscriberCount.decrementAndGet();
+        subscribersByUser.computeIfPresent(subscriber.userId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static ExecutorService newDispatcher(int dispatchThreads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            LOGGER.info("Eventos de órdenes por SSE con hilos virtuales");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            LOGGER.info("Eventos de órdenes por SSE con pool de {} hilos", dispatchThreads);
+            return Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+                Thread thread = new Thread(runnable, "order-events");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Una conexión: cola acotada + a lo sumo una tarea de envío agendada
+     */
+    private final class Subscriber {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<Object> queue;
+        private boolean scheduled;
+        private long droppedSinceLastSend;
+        private volatile boolean closed;
+        // Envío en curso (para dropStalledSubscribers); se leen y cambian bajo el lock del suscriptor
+        private boolean sending;
+        private long sendStartedNanos;
+        private boolean stalled;
+
+        private Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayDeque<>(bufferSize);
+        }
+
+        void enqueue(Object event) {
+            if (closed) {
+                return;
+            }
+            synchronized (this) {
+                if (event == HEARTBEAT && queue.contains(HEARTBEAT)) {
+                    return;
+                }
+                if (queue.size() == bufferSize) {
+                    queue.poll();
+                    droppedSinceLastSend++;
+                    dropped.increment();
+                }
+                queue.add(event);
+                if (scheduled) {
+                    return;
+                }
+                scheduled = true;
+            }
+            try {
+                dispatcher.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                // Apagando la aplicación
+                synchronized (this) {
+                    scheduled = false;
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Object event;
+                long lost;
+                synchronized (this) {
+                    event = queue.poll();
+                    if (event == null || closed) {
+                        scheduled = false;
+                        return;
+                    }
+                    lost = droppedSinceLastSend;
+                    droppedSinceLastSend = 0;
+                    sending = true;
+                    sendStartedNanos = System.nanoTime();
+                }
+
+                try {
+                    if (lost > 0) {
+                        emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(Map.of("dropped", lost)));
+                    }
+                    if (event == HELLO) {
+                        emitter.send(SseEmitter.event().reconnectTime(retryMs).comment("conectado"));
+                    } else if (event == HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(eventIds.incrementAndGet()))
+                                .name(STATUS_EVENT)
+                                .data(event, MediaType.APPLICATION_JSON));
+                        sent.increment();
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    // Cliente desconectado o emitter ya cerrado
+                    sendFinished();
+                    remove(this);
+                    emitter.completeWithError(ex);
+                    synchronized (this) {
+                        queue.clear();
+                        scheduled = false;
+                    }
+                    return;
+                }
+                if (sendFinished()) {
+                    // Ya quitado por dropStalledSubscribers: recién ahora se puede cerrar
+                    emitter.completeWithError(new IOException("Envío de eventos trabado más de "
+                            + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " ms"));
+                    synchronized (this) {
+                        queue.clear();
+                        scheduled = false;
+                    }
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Si el envío en curso lleva más de send-timeout-ms: quitar el suscriptor y prestar
+         * un hilo hasta que el envío termine (una sola vez)
+         */
+        synchronized boolean markStalled(long now) {
+            if (!sending || stalled || now - sendStartedNanos < sendTimeoutNanos) {
+                return false;
+            }
+            stalled = true;
+            remove(this);
+            lendThread();
+            return true;
+        }
+
+        /**
+         * Fin del envío en curso. Devuelve true si se había marcado trabado (y devuelve el hilo prestado)
+         */
+        private synchronized boolean sendFinished() {
+            sending = false;
+            if (!stalled) {
+                return false;
+            }
+            returnThread();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,588 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.cart.model.Cart;
+import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.model.CartSnapshot;
+import com.monolito.ecommerce.integration.FanOutExecutor;
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Carritos y checkout en particiones de un solo hilo (orders.checkout.partitions > 0)
+ *
+ * Cada usuario pertenece a una partición (hash del userId) y la partición es DUEÑA de su tramo:
+ * - Los carritos de sus usuarios y su índice de órdenes por usuario son HashMap que solo toca
+ *   el hilo de la partición: el camino caliente no toma locks de usuario ni de producto
+ * - Toda operación de carrito y todo checkout de un usuario se ejecuta en ese hilo, en orden
+ *
+ * LLAMADAS ASÍNCRONAS (pipelining):
+ * - Agregar al carrito: la consulta del producto corre en FanOutExecutor y el cambio vuelve
+ *   a la cola de la partición con la respuesta
+ * - Checkout: la partición toma la foto del carrito y crea la orden; el descuento de stock y
+ *   la escritura en el log (OrderService.reserve) corren en FanOutExecutor y la confirmación
+ *   vuelve a la cola. Mientras tanto la partición atiende a OTROS usuarios
+ * - Un segundo checkout del mismo usuario espera su turno en la partición; lo agregado al
+ *   carrito durante un checkout se conserva (solo se descuenta lo comprado)
+ *
+ * LÍMITES:
+ * - Como mucho orders.checkout.partition-max-pending operaciones aceptadas por partición:
+ *   el resto se rechaza con 503 en lugar de acumular memoria y latencia
+ * - La petición espera el resultado como mucho orders.checkout.partition-timeout-ms
+ * - Al apagar, lo que sigue en cola o esperando turno falla; un checkout con el stock ya
+ *   descontado devuelve su orden
+ *
+ * Compartido entre particiones: las órdenes por ID (OrderStore), el catálogo y el log.
+ * Sin locks de producto dos particiones pueden competir por el mismo stock: catalog-service
+ * lo descuenta todo o nada, así que no hay sobreventa.
+ *
+ * Los carritos inactivos más de carts.expiry.idle-ttl-ms se eliminan en un barrido periódico
+ * de cada partición; no hay tope de carritos ni forma compacta. No admite cluster.enabled=true
+ * (UserHandoff entrega los carritos de CartService) ni carts.persistence.enabled=true
+ * (el journal es de CartService).
+ *
+ * Con orders.checkout.partitions=0 (por defecto) se usan CartService y OrderService con locks.
+ */
+@Component
+public class PartitionedCheckout implements MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedCheckout.class);
+    private static final String CHECKOUT_TIMER = "orders.checkout";
+    private static final String CART_TIMER = "carts.operations";
+    private static final Tags ADD = Tags.of("operation", "add");
+    private static final Tags SNAPSHOT = Tags.of("operation", "snapshot");
+    private static final Tags CLEAR = Tags.of("operation", "clear");
+    private static final Tags REMOVE = Tags.of("operation", "remove");
+    private static final long MAX_SWEEP_MS = 60_000;
+
+    private final OrderService orderService;
+    private final CatalogClient catalogClient;
+    private final FanOutExecutor fanOutExecutor;
+    private final OperationMetrics metrics;
+    private final long timeoutMs;
+    private final long idleTtlMs;
+    private final Partition[] partitions;
+    private final ScheduledExecutorService sweeper;
+
+    @Autowired
+    public PartitionedCheckout(
+            OrderService orderService,
+            CatalogClient catalogClient,
+            FanOutExecutor fanOutExecutor,
+            OperationMetrics metrics,
+            @Value("${orders.checkout.partitions:0}") int partitionCount,
+            @Value("${orders.checkout.partition-max-pending:10000}") int maxPending,
+            @Value("${orders.checkout.partition-timeout-ms:30000}") long timeoutMs,
+            @Value("${carts.expiry.idle-ttl-ms:604800000}") long idleTtlMs,
+            @Value("${cluster.enabled:false}") boolean clusterEnabled,
+            @Value("${carts.persistence.enabled:false}") boolean cartPersistence) {
+        this(orderService, catalogClient, fanOutExecutor, metrics,
+                checkCompatible(partitionCount, clusterEnabled, cartPersistence), maxPending, timeoutMs, idleTtlMs);
+    }
+
+    public PartitionedCheckout(OrderService orderService, CatalogClient catalogClient, FanOutExecutor fanOutExecutor,
+                               OperationMetrics metrics, int partitionCount, int maxPending, long timeoutMs,
+                               long idleTtlMs) {
+        if (partitionCount < 0) {
+            throw new IllegalArgumentException("orders.checkout.partitions no puede ser negativo");
+        }
+        this.orderService = orderService;
+        this.catalogClient = catalogClient;
+        this.fanOutExecutor = fanOutExecutor;
+        this.metrics = metrics;
+        this.timeoutMs = timeoutMs;
+        this.idleTtlMs = idleTtlMs;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i, maxPending);
+        }
+
+        if (partitionCount == 0) {
+            this.sweeper = null;
+            return;
+        }
+
+        // El índice por usuario restaurado del log pasa a sus particiones antes de arrancarlas
+        Map<Long, Queue<Long>> restored = orderService.handOverUserIndex(this::indexOrder);
+        restored.forEach((userId, orderIds) -> partitionFor(userId).ordersByUser.put(userId, new ArrayList<>(orderIds)));
+        for (Partition partition : partitions) {
+            partition.thread.start();
+        }
+
+        if (idleTtlMs > 0) {
+            long sweepMs = Math.min(idleTtlMs, MAX_SWEEP_MS);
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "checkout-partition-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweepIdleCarts, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+        LOGGER.info("Carritos y checkout en {} particiones de un solo hilo", partitionCount);
+    }
+
+    private static int checkCompatible(int partitionCount, boolean clusterEnabled, boolean cartPersistence) {
+        if (partitionCount > 0 && clusterEnabled) {
+            throw new IllegalStateException("orders.checkout.partitions > 0 no es válido con cluster.enabled=true: "
+                    + "los carritos de las particiones no se entregan a otras instancias");
+        }
+        if (partitionCount > 0 && cartPersistence) {
+            throw new IllegalStateException("orders.checkout.partitions > 0 no es válido con "
+                    + "carts.persistence.enabled=true: los carritos de las particiones no se guardan en disco");
+        }
+        return partitionCount;
+    }
+
+    public boolean isEnabled() {
+        return partitions.length > 0;
+    }
+
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Agregar producto al carrito (la consulta al catálogo no ocupa la partición)
+     */
+    public CartItem addToCart(Long userId, Long productId, Integer quantity) {
+        return metrics.record(CART_TIMER, ADD, () -> await(submitAdd(userId, productId, quantity)));
+    }
+
+    CompletableFuture<CartItem> submitAdd(Long userId, Long productId, Integer quantity) {
+        Partition partition = partitionFor(userId);
+        if (!partition.reserve()) {
+            return CompletableFuture.failedFuture(tooManyPending());
+        }
+        CompletableFuture<CartItem> result = new CompletableFuture<>();
+        String requestId = MDC.get(RequestTiming.MDC_KEY);
+        fanOutExecutor.supplyAsync(() -> catalogClient.getProductById(productId))
+                .whenComplete((product, failure) -> partition.execute(new Task(requestId, result, () -> {
+                    if (failure != null) {
+                        result.completeExceptionally(unwrap(failure));
+                    } else {
+                        result.complete(partition.add(userId, productId, product, quantity));
+                    }
+                })));
+        return partition.released(result);
+    }
+
+    /**
+     * Items, total y unidades del carrito tomados en el mismo instante
+     */
+    public CartSnapshot getCartSnapshot(Long userId) {
+        return metrics.record(CART_TIMER, SNAPSHOT, () -> await(call(userId, partition -> {
+            Cart cart = partition.carts.get(userId);
+            if (cart == null) {
+                return CartSnapshot.EMPTY;
+            }
+            cart.touch(nowMs());
+            return cart.snapshot();
+        })));
+    }
+
+    public void clearCart(Long userId) {
+        metrics.record(CART_TIMER, CLEAR, () -> {
+            await(call(userId, partition -> partition.carts.remove(userId)));
+        });
+    }
+
+    public void removeFromCart(Long userId, Long productId) {
+        metrics.record(CART_TIMER, REMOVE, () -> {
+            await(call(userId, partition -> {
+                Cart cart = partition.carts.get(userId);
+                if (cart != null) {
+                    cart.remove(productId);
+                    partition.keepIfNotEmpty(userId, cart);
+                }
+                return null;
+            }));
+        });
+    }
+
+    /**
+     * Crear orden desde el carrito en la partición del usuario
+     */
+    public Order createOrder(Long userId) {
+        return metrics.record(CHECKOUT_TIMER, Tags.empty(), () -> await(submit(userId)));
+    }
+
+    /**
+     * Encolar el checkout en la partición del usuario sin esperar el resultado
+     */
+    public CompletableFuture<Order> submit(Long userId) {
+        Partition partition = partitionFor(userId);
+        if (!partition.reserve()) {
+            return CompletableFuture.failedFuture(tooManyPending());
+        }
+        CompletableFuture<Order> result = new CompletableFuture<>();
+        Checkout checkout = new Checkout(userId, MDC.get(RequestTiming.MDC_KEY), result);
+        partition.execute(new Task(checkout.requestId(), result, () -> partition.start(checkout)));
+        return partition.released(result);
+    }
+
+    /**
+     * Órdenes del usuario en orden de creación (el índice está en su partición)
+     */
+    public List<Order> getOrdersByUser(Long userId) {
+        List<Long> orderIds = await(call(userId, partition -> {
+            List<Long> ids = partition.ordersByUser.get(userId);
+            return ids != null ? List.copyOf(ids) : List.<Long>of();
+        }));
+        return orderService.resolve(orderIds);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Partition partition : partitions) {
+            Gauge.builder("orders.checkout.partition.pending", partition.pending, AtomicInteger::get)
+                    .description("Operaciones aceptadas y sin terminar en la partición")
+                    .tag("partition", String.valueOf(partition.index))
+                    .register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        for (Partition partition : partitions) {
+            partition.close();
+        }
+    }
+
+    /**
+     * Orden confirmada fuera de las particiones (importación en lote): al índice de su partición
+     */
+    private void indexOrder(Order order) {
+        Partition partition = partitionFor(order.getUserId());
+        partition.execute(new Task(null, new CompletableFuture<Void>(),
+                () -> partition.indexOrder(order.getUserId(), order.getId())));
+    }
+
+    private void sweepIdleCarts() {
+        long idleSince = nowMs() - idleTtlMs;
+        for (Partition partition : partitions) {
+            partition.execute(new Task(null, new CompletableFuture<Void>(), () -> partition.sweep(idleSince)));
+        }
+    }
+
+    private <T> CompletableFuture<T> call(Long userId, Function<Partition, T> operation) {
+        Partition partition = partitionFor(userId);
+        if (!partition.reserve()) {
+            return CompletableFuture.failedFuture(tooManyPending());
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        partition.execute(new Task(MDC.get(RequestTiming.MDC_KEY), result,
+                () -> result.complete(operation.apply(partition))));
+        return partition.released(result);
+    }
+
+    private <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new DownstreamUnavailableException(
+                    "La operación no terminó a tiempo y puede completarse igual: consultar antes de reintentar");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando la partición del usuario", ex);
+        }
+    }
+
+    private Partition partitionFor(Long userId) {
+        // Mezclar los bits: IDs consecutivos se reparten parejo aunque la cantidad sea potencia de 2
+        long mixed = userId * 0x9E3779B97F4A7C15L;
+        return partitions[Math.floorMod((int) (mixed >>> 32), partitions.length)];
+    }
+
+    private static long nowMs() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private static RuntimeException unwrap(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    private static DownstreamUnavailableException tooManyPending() {
+        return new DownstreamUnavailableException("Demasiadas operaciones en espera, intente más tarde");
+    }
+
+    private static DownstreamUnavailableException shuttingDown() {
+        return new DownstreamUnavailableException("La instancia se está apagando, intente más tarde");
+    }
+
+    private record Checkout(Long userId, String requestId, CompletableFuture<Order> result) {
+    }
+
+    /**
+     * Trabajo para el hilo de una partición. Si la partición ya cerró se ejecuta onShutdown
+     * (por defecto, fallar result).
+     */
+    private record Task(String requestId, CompletableFuture<?> result, Runnable work, Runnable onShutdown) {
+
+        Task(String requestId, CompletableFuture<?> result, Runnable work) {
+            this(requestId, result, work, () -> result.completeExceptionally(shuttingDown()));
+        }
+    }
+
+    /**
+     * Un hilo, una cola y el estado de sus usuarios. Los mapas los toca solo su hilo
+     * (y el constructor antes de arrancarlo, y close() después de que terminó).
+     */
+    private final class Partition implements Runnable {
+
+        private final int index;
+        private final int maxPending;
+        private final AtomicInteger pending = new AtomicInteger();
+        // Sin límite: lo nuevo se limita con "pending", las confirmaciones nunca se rechazan
+        private final BlockingQueue<Task> queue = new LinkedBlockingQueue<>();
+        private final Thread thread;
+        private boolean closed;
+
+        // Estado propio de la partición
+        private final Map<Long, Cart> carts = new HashMap<>();
+        private final Map<Long, List<Long>> ordersByUser = new HashMap<>();
+        // Usuarios con un checkout en curso -> checkouts suyos que esperan turno
+        private final Map<Long, ArrayDeque<Checkout>> busyUsers = new HashMap<>();
+
+        private Partition(int index, int maxPending) {
+            this.index = index;
+            this.maxPending = maxPending;
+            this.thread = new Thread(this, "checkout-partition-" + index);
+            thread.setDaemon(true);
+        }
+
+        /**
+         * Lugar para una operación nueva (false si ya hay demasiadas en curso)
+         */
+        boolean reserve() {
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Lo que ve quien espera: se completa recién después de liberar el lugar de la operación
+         */
+        <T> CompletableFuture<T> released(CompletableFuture<T> result) {
+            return result.whenComplete((value, failure) -> pending.decrementAndGet());
+        }
+
+        void execute(Task task) {
+            synchronized (this) {
+                if (!closed) {
+                    queue.add(task);
+                    return;
+                }
+            }
+            task.onShutdown().run();
+        }
+
+        @Override
+        public void run() {
+            while (!Thread.currentThread().isInterrupted()) {
+                Task task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                if (task.requestId() != null) {
+                    MDC.put(RequestTiming.MDC_KEY, task.requestId());
+                }
+                try {
+                    task.work().run();
+                } catch (RuntimeException ex) {
+                    task.result().completeExceptionally(ex);
+                } finally {
+                    MDC.remove(RequestTiming.MDC_KEY);
+                }
+            }
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            List<Task> left = new ArrayList<>();
+            queue.drainTo(left);
+            left.forEach(task -> task.onShutdown().run());
+            if (!thread.isAlive()) {
+                busyUsers.values().forEach(waiting -> waiting.forEach(
+                        checkout -> checkout.result().completeExceptionally(shuttingDown())));
+            }
+        }
+
+        CartItem add(Long userId, Long productId, ProductSnapshot product, int quantity) {
+            int available = product.getStock() != null ? product.getStock() : 0;
+            if (available < quantity) {
+                throw new BusinessException(
+                        String.format("Stock insuficiente para %s. Disponible: %d", product.getName(), available));
+            }
+            Cart cart = carts.get(userId);
+            int current = cart != null ? cart.quantityOf(productId) : 0;
+            if (available < current + quantity) {
+                throw new BusinessException("Stock insuficiente para la cantidad solicitada");
+            }
+            if (cart == null) {
+                cart = new Cart();
+                carts.put(userId, cart);
+            }
+            cart.touch(nowMs());
+            return cart.add(productId, product.getName(), product.getPrice(), quantity);
+        }
+
+        void keepIfNotEmpty(Long userId, Cart cart) {
+            if (cart.isEmpty()) {
+                carts.remove(userId);
+            } else {
+                cart.touch(nowMs());
+            }
+        }
+
+        void indexOrder(Long userId, Long orderId) {
+            ordersByUser.computeIfAbsent(userId, key -> new ArrayList<>()).add(orderId);
+        }
+
+        void sweep(long idleSince) {
+            Iterator<Cart> it = carts.values().iterator();
+            while (it.hasNext()) {
+                if (it.next().getLastAccessMs() < idleSince) {
+                    it.remove();
+                }
+            }
+        }
+
+        void start(Checkout checkout) {
+            ArrayDeque<Checkout> waiting = busyUsers.get(checkout.userId());
+            if (waiting != null) {
+                waiting.add(checkout);
+                return;
+            }
+            busyUsers.put(checkout.userId(), new ArrayDeque<>());
+            prepare(checkout);
+        }
+
+        private void prepare(Checkout checkout) {
+            Cart cart = carts.get(checkout.userId());
+            CartSnapshot snapshot = cart != null ? cart.snapshot() : CartSnapshot.EMPTY;
+            if (snapshot.isEmpty()) {
+                finish(checkout, null, new BusinessException("El carrito está vacío"));
+                return;
+            }
+
+            // Puede venir de finish() de otro checkout: el MDC es el de esta petición
+            if (checkout.requestId() != null) {
+                MDC.put(RequestTiming.MDC_KEY, checkout.requestId());
+            } else {
+                MDC.remove(RequestTiming.MDC_KEY);
+            }
+            try {
+                Order order = orderService.newOrder(checkout.userId(), snapshot);
+
+                // Stock y log fuera de la partición; la confirmación vuelve a esta cola
+                fanOutExecutor.supplyAsync(() -> {
+                    orderService.reserve(order);
+                    return order;
+                }).whenComplete((reserved, failure) -> execute(new Task(checkout.requestId(), checkout.result(),
+                        () -> confirm(checkout, order, snapshot, failure),
+                        () -> abandon(checkout, order, failure))));
+            } catch (RuntimeException ex) {
+                finish(checkout, null, ex);
+            }
+        }
+
+        private void confirm(Checkout checkout, Order order, CartSnapshot purchased, Throwable failure) {
+            if (failure != null) {
+                finish(checkout, null, unwrap(failure));
+                return;
+            }
+            // PASO 5: Quitar del carrito lo comprado (lo agregado durante el checkout se conserva)
+            Cart cart = carts.get(checkout.userId());
+            if (cart != null) {
+                for (CartItem item : purchased.getItems()) {
+                    cart.subtract(item.getProductId(), item.getQuantity());
+                }
+                keepIfNotEmpty(checkout.userId(), cart);
+            }
+            indexOrder(checkout.userId(), order.getId());
+            orderService.publishConfirmed(order);
+            finish(checkout, order, null);
+        }
+
+        /**
+         * La partición cerró con el stock ya resuelto: la orden existe (está en el log y por ID)
+         */
+        private void abandon(Checkout checkout, Order order, Throwable failure) {
+            if (failure != null) {
+                checkout.result().completeExceptionally(unwrap(failure));
+            } else {
+                checkout.result().complete(order);
+            }
+        }
+
+        private void finish(Checkout checkout, Order order, RuntimeException failure) {
+            if (failure != null) {
+                checkout.result().completeExceptionally(failure);
+            } else {
+                checkout.result().complete(order);
+            }
+
+            ArrayDeque<Checkout> waiting = busyUsers.get(checkout.userId());
+            Checkout next = waiting.poll();
+            if (next == null) {
+                busyUsers.remove(checkout.userId());
+            } else {
+                prepare(next);
+            }
+        }
+    }
+}
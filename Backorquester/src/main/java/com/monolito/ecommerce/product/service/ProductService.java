@@ -3,6 +3,7 @@ package com.monolito.ecommerce.product.service;
 import com.monolito.ecommerce.product.model.Product;
 import com.monolito.ecommerce.shared.exception.BusinessException;
 import com.monolito.ecommerce.shared.exception.ResourceNotFoundException;
+import com.monolito.ecommerce.shared.id.IdGenerator;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -10,7 +11,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -31,8 +31,12 @@ public class ProductService {
     // Almacenamiento en memoria: Map<productId, Product>
     private final Map<Long, Product> productDatabase = new ConcurrentHashMap<>();
     
-    // Generador de IDs
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    // Generador de IDs (ids.generator)
+    private final IdGenerator idGenerator;
+
+    public ProductService(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
 
     /**
      * Crear un nuevo producto
@@ -46,7 +50,7 @@ public class ProductService {
             throw new BusinessException("El stock no puede ser negativo");
         }
 
-        Long productId = idGenerator.getAndIncrement();
+        Long productId = idGenerator.nextId();
         Product product = new Product(productId, name, description, price, stock, category);
         
         productDatabase.put(productId, product);
@@ -0,0 +1,97 @@
+package com.monolito.ecommerce.shared.concurrency;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks repartidos por clave (lock striping)
+ *
+ * - Un número fijo de ReentrantLock indexados por hash de la clave
+ * - Dos operaciones solo compiten si alguna de sus claves cae en el mismo stripe
+ * - lockAll adquiere los stripes en orden ascendente: sin deadlocks entre operaciones
+ *   que bloquean varias claves a la vez
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    public StripedLocks(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("El número de stripes debe ser mayor a cero");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Bloquear el stripe de una sola clave
+     */
+    public Held lock(long key) {
+        ReentrantLock lock = stripes[indexFor(key)];
+        lock.lock();
+        return lock::unlock;
+    }
+
+    /**
+     * Bloquear los stripes de todas las claves, siempre en orden ascendente de stripe
+     */
+    public Held lockAll(Collection<Long> keys) {
+        boolean[] selected = new boolean[stripes.length];
+        for (Long key : keys) {
+            selected[indexFor(key)] = true;
+        }
+
+        int[] acquired = new int[stripes.length];
+        int count = 0;
+        try {
+            for (int i = 0; i < selected.length; i++) {
+                if (selected[i]) {
+                    stripes[i].lock();
+                    acquired[count++] = i;
+                }
+            }
+        } catch (RuntimeException | Error ex) {
+            unlock(acquired, count);
+            throw ex;
+        }
+
+        int held = count;
+        return () -> unlock(acquired, held);
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private void unlock(int[] acquired, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[acquired[i]].unlock();
+        }
+    }
+
+    private int indexFor(long key) {
+        int h = Long.hashCode(key);
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & mask;
+    }
+
+    /**
+     * Locks adquiridos; se liberan con try-with-resources
+     */
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
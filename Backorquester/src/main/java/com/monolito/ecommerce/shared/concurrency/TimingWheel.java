@@ -0,0 +1,157 @@
+package com.monolito.ecommerce.shared.concurrency;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Rueda de tiempo jerárquica (hierarchical timing wheel) para vencimientos masivos
+ *
+ * NIVELES:
+ * - Cada nivel tiene N casilleros (N potencia de 2); un casillero del nivel 0 dura un tick,
+ *   uno del nivel k dura N^k ticks (con N=512 y tick de 1 s: 8,5 min, 3 días, 4 años...)
+ * - Un vencimiento va al nivel más bajo que lo alcanza y al casillero de su deadline
+ * - Cuando el tiempo entra en un casillero de nivel k > 0, sus elementos bajan (cascada)
+ *   a los niveles inferiores; el casillero del nivel 0 vence todos sus elementos
+ * - Los niveles se agregan a medida que hacen falta
+ *
+ * COSTO:
+ * - schedule es O(1) y se puede llamar desde cualquier hilo (queda en una cola hasta el próximo tick)
+ * - advance la llama un único hilo: en cada tick solo toca los casilleros que empiezan
+ *   en ese tick; un elemento se toca una vez por nivel que atraviesa, nunca en cada vuelta
+ * - Precisión de un tick: un elemento vence entre su deadline y deadline + tickMs
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final long startMs;
+    private final int bits;
+    private final int mask;
+    private final List<ArrayDeque<Timeout<T>>[]> levels = new ArrayList<>();
+    private final Queue<Timeout<T>> pending = new ConcurrentLinkedQueue<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("tickMs y wheelSize deben ser mayores a cero");
+        }
+        int size = Math.max(2, Integer.highestOneBit(wheelSize));
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.bits = Integer.numberOfTrailingZeros(size);
+        this.mask = size - 1;
+        addLevel();
+    }
+
+    /**
+     * Programar un elemento para que venza en deadlineMs (misma base de tiempo que advance)
+     */
+    public void schedule(T item, long deadlineMs) {
+        pending.add(new Timeout<>(item, deadlineMs));
+    }
+
+    /**
+     * Avanzar la rueda hasta nowMs entregando los elementos vencidos.
+     * Un solo hilo a la vez. Devuelve cuántos vencieron.
+     */
+    public int advance(long nowMs, Consumer<T> expired) {
+        long targetTick = (nowMs - startMs) / tickMs;
+        int fired = 0;
+        while (currentTick <= targetTick) {
+            transferPending();
+
+            // De arriba hacia abajo: lo que baja de un nivel puede caer en el casillero actual del siguiente
+            for (int level = levels.size() - 1; level > 0; level--) {
+                int shift = bits * level;
+                if ((currentTick & ((1L << shift) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> shift) & mask));
+                }
+            }
+
+            ArrayDeque<Timeout<T>> bucket = levels.get(0)[(int) (currentTick & mask)];
+            Timeout<T> timeout;
+            while ((timeout = bucket.poll()) != null) {
+                expired.accept(timeout.item);
+                fired++;
+            }
+            currentTick++;
+        }
+        return fired;
+    }
+
+    /**
+     * Elementos programados que todavía no vencieron (recorre la rueda: solo para métricas y pruebas)
+     */
+    public int size() {
+        int size = pending.size();
+        for (ArrayDeque<Timeout<T>>[] level : levels) {
+            for (ArrayDeque<Timeout<T>> bucket : level) {
+                size += bucket.size();
+            }
+        }
+        return size;
+    }
+
+    private void transferPending() {
+        Timeout<T> timeout;
+        while ((timeout = pending.poll()) != null) {
+            // Un deadline ya pasado va al tick actual: vence en esta misma pasada
+            timeout.deadlineTick = Math.max((timeout.deadlineMs - startMs + tickMs - 1) / tickMs, currentTick);
+            place(timeout);
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        ArrayDeque<Timeout<T>>[] buckets = levels.get(level);
+        ArrayDeque<Timeout<T>> bucket = buckets[slot];
+        if (bucket.isEmpty()) {
+            return;
+        }
+        // Se reemplaza antes de recolocar: un elemento que vuelve a este casillero espera su próxima vuelta
+        buckets[slot] = new ArrayDeque<>();
+        for (Timeout<T> timeout : bucket) {
+            place(timeout);
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        // Nivel más bajo cuyo alcance (N^(nivel+1) ticks) cubre el deadline; el último nivel posible absorbe el resto
+        while (bits * (level + 1) < Long.SIZE - 1 && delta >= 1L << (bits * (level + 1))) {
+            level++;
+        }
+        while (levels.size() <= level) {
+            addLevel();
+        }
+        int slot = (int) ((timeout.deadlineTick >>> (bits * level)) & mask);
+        levels.get(level)[slot].add(timeout);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addLevel() {
+        ArrayDeque<Timeout<T>>[] buckets = new ArrayDeque[mask + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        levels.add(buckets);
+    }
+
+    private static final class Timeout<T> {
+
+        private final T item;
+        private final long deadlineMs;
+        private long deadlineTick;
+
+        private Timeout(T item, long deadlineMs) {
+            this.item = item;
+            this.deadlineMs = deadlineMs;
+        }
+    }
+}
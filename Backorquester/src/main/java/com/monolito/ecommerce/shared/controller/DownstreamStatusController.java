@@ -0,0 +1,29 @@
+package com.monolito.ecommerce.shared.controller;
+
+import com.monolito.ecommerce.integration.resilience.DownstreamGuards;
+import com.monolito.ecommerce.integration.resilience.DownstreamStatus;
+import com.monolito.ecommerce.shared.dto.ApiResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Estado de los circuit breakers y bulkheads hacia catalog-service y auth-service.
+ * No llama a ningún servicio: responde aunque todos estén caídos.
+ */
+@RestController
+public class DownstreamStatusController {
+
+    private final DownstreamGuards downstreamGuards;
+
+    public DownstreamStatusController(DownstreamGuards downstreamGuards) {
+        this.downstreamGuards = downstreamGuards;
+    }
+
+    @GetMapping("/health/downstreams")
+    public ResponseEntity<ApiResponse<List<DownstreamStatus>>> downstreams() {
+        return ResponseEntity.ok(ApiResponse.success(downstreamGuards.statuses()));
+    }
+}
@@ -0,0 +1,12 @@
+package com.monolito.ecommerce.shared.exception;
+
+/**
+ * Un servicio externo no está disponible y la llamada ni se intentó
+ * Ejemplo: circuito abierto hacia catalog-service, bulkhead de auth-service lleno
+ */
+public class DownstreamUnavailableException extends BusinessException {
+
+    public DownstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.monolito.ecommerce.shared.exception;
+
+/**
+ * catalog-service rechazó un ajuste de stock (400) y no aplicó nada
+ * Ejemplo: no alcanza el stock de algún producto del lote
+ *
+ * A diferencia de un BusinessException genérico de CatalogClient (timeout, 5xx, conexión
+ * cortada), aquí se sabe que el stock no cambió: se puede reintentar con menos unidades.
+ */
+public class InsufficientStockException extends BusinessException {
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
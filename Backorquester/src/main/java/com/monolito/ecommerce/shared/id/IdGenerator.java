@@ -0,0 +1,24 @@
+package com.monolito.ecommerce.shared.id;
+
+/**
+ * Generador de IDs de órdenes, productos y usuarios (ids.generator)
+ *
+ * - SNOWFLAKE: únicos entre instancias sin coordinación (milisegundo + nodo + secuencia)
+ * - SEQUENTIAL: 1, 2, 3... en memoria; solo sirve con una única instancia
+ */
+public interface IdGenerator {
+
+    long nextId();
+
+    /**
+     * No volver a emitir un ID menor o igual a uno ya usado (por ejemplo, leído de un log al arrancar)
+     */
+    void advancePast(long id);
+
+    /**
+     * Contador en memoria desde 1 (pruebas y benchmarks)
+     */
+    static IdGenerator sequential() {
+        return new SequentialIdGenerator();
+    }
+}
@@ -0,0 +1,13 @@
+package com.monolito.ecommerce.shared.id;
+
+/**
+ * Implementación de IdGenerator (ids.generator)
+ */
+public enum IdGeneratorType {
+    SNOWFLAKE,   // Milisegundo + nodo + secuencia: únicos entre instancias, ~4 millones por segundo por nodo
+    SEQUENTIAL;  // 1, 2, 3...: una sola instancia, se reinicia con la aplicación
+
+    public IdGenerator create(int nodeId, long maxDriftMs) {
+        return this == SNOWFLAKE ? new SnowflakeIdGenerator(nodeId, maxDriftMs) : new SequentialIdGenerator();
+    }
+}
@@ -0,0 +1,22 @@
+package com.monolito.ecommerce.shared.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IDs consecutivos desde 1: se repiten entre instancias y vuelven a empezar al reiniciar
+ * (salvo lo que se recupere con advancePast)
+ */
+public class SequentialIdGenerator implements IdGenerator {
+
+    private final AtomicLong next = new AtomicLong(1);
+
+    @Override
+    public long nextId() {
+        return next.getAndIncrement();
+    }
+
+    @Override
+    public void advancePast(long id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+}
@@ -0,0 +1,100 @@
+package com.monolito.ecommerce.shared.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * IDs de 64 bits únicos entre instancias sin coordinación (estilo Snowflake)
+ *
+ * FORMATO (bit de signo siempre 0):
+ *   milisegundos desde 2026-01-01 UTC (41 bits, hasta ~2095) | nodo (10 bits) | secuencia (12 bits)
+ * - Dos instancias con distinto ids.node-id nunca generan el mismo ID
+ * - Hasta 4096 IDs por milisegundo por nodo; los IDs de un nodo son siempre crecientes
+ *
+ * CONCURRENCIA:
+ * - Sin locks: el último (milisegundo, secuencia) emitido vive en un AtomicLong y cada ID es
+ *   max(último + 1, ahora << 12) con compareAndSet
+ * - Si la secuencia se agota dentro del milisegundo, el siguiente ID toma prestado el milisegundo
+ *   siguiente en lugar de esperar
+ *
+ * RELOJ:
+ * - Si el reloj del sistema retrocede (ajuste NTP), se sigue desde el último milisegundo emitido:
+ *   nunca se repite un ID
+ * - Si los IDs emitidos quedan más de maxDriftMs por delante del reloj (retroceso grande o
+ *   ráfaga sostenida de más de 4 millones por segundo), nextId falla con IllegalStateException
+ *   hasta que el reloj alcance
+ *
+ * Los IDs superan 2^53 (el mayor entero exacto en JavaScript): los modelos de la API los
+ * serializan como string con @JsonFormat(shape = STRING).
+ */
+public final class SnowflakeIdGenerator implements IdGenerator {
+
+    // 2026-01-01T00:00:00Z
+    public static final long EPOCH_MS = 1_767_225_600_000L;
+    public static final int NODE_BITS = 10;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final long maxDriftMs;
+    private final LongSupplier clock;
+
+    // (milisegundo desde EPOCH_MS << SEQUENCE_BITS) | secuencia, del último ID emitido
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId, long maxDriftMs) {
+        this(nodeId, maxDriftMs, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int nodeId, long maxDriftMs, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("ids.node-id debe estar entre 0 y " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.maxDriftMs = maxDriftMs;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = clock.getAsLong() - EPOCH_MS;
+            long next = Math.max(previous + 1, now << SEQUENCE_BITS);
+            long drift = (next >>> SEQUENCE_BITS) - now;
+            if (drift > maxDriftMs) {
+                throw new IllegalStateException(String.format(
+                        "Reloj del sistema %d ms detrás del último ID emitido por el nodo %d", drift, nodeId));
+            }
+            if (last.compareAndSet(previous, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | nodeId << SEQUENCE_BITS
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Solo importan los IDs de este nodo: los de otros nodos no pueden coincidir con los propios
+     */
+    @Override
+    public void advancePast(long id) {
+        if (nodeOf(id) == nodeId) {
+            long state = (id >>> (NODE_BITS + SEQUENCE_BITS)) << SEQUENCE_BITS | (id & SEQUENCE_MASK);
+            last.accumulateAndGet(state, Math::max);
+        }
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    /**
+     * Momento de creación (epoch ms) de un ID
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MS;
+    }
+}
@@ -0,0 +1,95 @@
+package com.monolito.ecommerce.shared.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latencias y errores de las operaciones de negocio (checkout, carrito, llamadas a otros servicios)
+ *
+ * Por cada operación medida con record(name, tags, ...):
+ * - Timer name{tags, exception}: histograma de latencia (buckets para Prometheus);
+ *   exception = "none" si salió bien o el nombre simple de la excepción
+ * - Counter name.errors{tags, exception}: errores por tipo de excepción
+ *
+ * Los servicios se construyen antes que el MeterRegistry de Spring: los medidores se crean
+ * sobre un CompositeMeterRegistry propio (no hace nada mientras está vacío) y bindTo
+ * le agrega el registro real.
+ */
+@Component
+public class OperationMetrics implements MeterBinder {
+
+    private static final String NO_EXCEPTION = "none";
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1).dividedBy(20);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+
+    /**
+     * Sin registro asociado (pruebas y benchmarks): mide sin publicar nada
+     */
+    public static OperationMetrics disabled() {
+        return new OperationMetrics();
+    }
+
+    public <T> T record(String name, Tags tags, Supplier<T> operation) {
+        long start = System.nanoTime();
+        String exception = NO_EXCEPTION;
+        try {
+            return operation.get();
+        } catch (RuntimeException | Error ex) {
+            exception = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            finish(name, tags, exception, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String name, Tags tags, Runnable operation) {
+        record(name, tags, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Registrar una operación asíncrona que ya terminó (failure null si salió bien)
+     */
+    public void record(String name, Tags tags, long elapsedNanos, Throwable failure) {
+        finish(name, tags, failure == null ? NO_EXCEPTION : failure.getClass().getSimpleName(), elapsedNanos);
+    }
+
+    public void increment(String name, Tags tags) {
+        registry.counter(name, tags).increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry target) {
+        registry.add(target);
+    }
+
+    private void finish(String name, Tags tags, String exception, long elapsedNanos) {
+        Tags tagged = tags.and("exception", exception);
+        Timer.builder(name)
+                .tags(tagged)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED)
+                .register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (!NO_EXCEPTION.equals(exception)) {
+            Counter.builder(name + ".errors")
+                    .tags(tagged)
+                    .register(registry)
+                    .increment();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.monolito.ecommerce.shared.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Identificador y tiempos de la petición HTTP en curso (uno por hilo de Tomcat)
+ *
+ * - RequestCorrelationFilter la abre al entrar y la cierra al salir
+ * - DownstreamGuard suma el tiempo de cada llamada a otro servicio
+ * - serverTiming() arma el header Server-Timing: total, app (tiempo propio = total - otros
+ *   servicios) y una entrada por servicio con su número de llamadas
+ *
+ * Cuenta las llamadas del hilo de la petición y de las tareas que lanzó con FanOutExecutor
+ * (attach la lleva a ese hilo). Las llamadas en paralelo se suman: la entrada de un servicio
+ * es tiempo de servicio, no de reloj, y "app" no baja de cero. Si una consulta espera el
+ * resultado de otra ya en curso (SingleFlight), esa espera queda dentro de "app".
+ */
+public final class RequestTiming {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    public static final String MDC_KEY = "requestId";
+
+    // IDs recibidos de afuera: sin espacios ni caracteres de control (van a logs y headers)
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final String requestId;
+    private final long startNanos;
+    // servicio -> {nanos acumulados, llamadas}
+    private final Map<String, long[]> downstream = new LinkedHashMap<>();
+
+    private RequestTiming(String requestId, long startNanos) {
+        this.requestId = requestId;
+        this.startNanos = startNanos;
+    }
+
+    public static RequestTiming begin(String requestId) {
+        RequestTiming timing = new RequestTiming(requestId, System.nanoTime());
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * Petición en curso en este hilo, o null fuera de una petición HTTP
+     */
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Continuar la petición en otro hilo (tareas de FanOutExecutor).
+     * Devuelve la que tenía ese hilo, para volver a ponerla con attach al terminar.
+     */
+    public static RequestTiming attach(RequestTiming timing) {
+        RequestTiming previous = CURRENT.get();
+        if (timing != null) {
+            CURRENT.set(timing);
+        } else {
+            CURRENT.remove();
+        }
+        return previous;
+    }
+
+    /**
+     * Sumar una llamada a otro servicio a la petición en curso (no hace nada fuera de una)
+     */
+    public static void recordDownstream(String service, long elapsedNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            // Varias tareas en paralelo pueden sumar a la misma petición
+            synchronized (timing) {
+                long[] totals = timing.downstream.computeIfAbsent(service, k -> new long[2]);
+                totals[0] += elapsedNanos;
+                totals[1]++;
+            }
+        }
+    }
+
+    public static boolean isValidRequestId(String requestId) {
+        return requestId != null && VALID_REQUEST_ID.matcher(requestId).matches();
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    public synchronized long downstreamNanos() {
+        long total = 0;
+        for (long[] totals : downstream.values()) {
+            total += totals[0];
+        }
+        return total;
+    }
+
+    /**
+     * Valor del header Server-Timing hasta este momento, por ejemplo:
+     * total;dur=12.40, app;dur=3.10, catalog-service;dur=9.30;desc="2 llamadas"
+     */
+    public synchronized String serverTiming() {
+        long total = elapsedNanos();
+        StringBuilder header = new StringBuilder(96);
+        appendMetric(header, "total", total);
+        header.append(", ");
+        appendMetric(header, "app", Math.max(0, total - downstreamNanos()));
+        downstream.forEach((service, totals) -> {
+            header.append(", ");
+            appendMetric(header, service, totals[0]);
+            header.append(";desc=\"").append(totals[1]).append(totals[1] == 1 ? " llamada\"" : " llamadas\"");
+        });
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0));
+    }
+}
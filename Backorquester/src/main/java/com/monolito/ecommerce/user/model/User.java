@@ -1,5 +1,7 @@
 package com.monolito.ecommerce.user.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 import java.time.LocalDateTime;
 
 /**
@@ -10,6 +12,7 @@ import java.time.LocalDateTime;
  */
 public class User {
     
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
     private String username;
     private String email;
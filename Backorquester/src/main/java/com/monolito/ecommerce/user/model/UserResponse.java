@@ -1,10 +1,13 @@
 package com.monolito.ecommerce.user.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 /**
  * DTO de respuesta de usuario (sin password)
  */
 public class UserResponse {
     
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
     private String username;
     private String email;
@@ -2,6 +2,7 @@ package com.monolito.ecommerce.user.service;
 
 import com.monolito.ecommerce.shared.exception.BusinessException;
 import com.monolito.ecommerce.shared.exception.ResourceNotFoundException;
+import com.monolito.ecommerce.shared.id.IdGenerator;
 import com.monolito.ecommerce.user.model.User;
 import org.springframework.stereotype.Service;
 
@@ -9,14 +10,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Servicio de Usuarios
  * 
  * ALMACENAMIENTO EN MEMORIA:
  * - Usa ConcurrentHashMap para thread-safety
- * - AtomicLong para generación de IDs auto-incrementales
+ * - IdGenerator para los IDs (Snowflake por defecto, ids.generator)
  * - Los datos se pierden al reiniciar (característica del monolito sin DB)
  * 
  * VENTAJAS DEL MONOLITO:
@@ -30,8 +30,12 @@ public class UserService {
     // Almacenamiento en memoria: Map<userId, User>
     private final Map<Long, User> userDatabase = new ConcurrentHashMap<>();
     
-    // Generador de IDs auto-incrementales
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    // Generador de IDs
+    private final IdGenerator idGenerator;
+
+    public UserService(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
 
     /**
      * Registrar un nuevo usuario
@@ -54,7 +58,7 @@ public class UserService {
         }
 
         // Crear usuario
-        Long userId = idGenerator.getAndIncrement();
+        Long userId = idGenerator.nextId();
         User user = new User(userId, username, email, password, fullName);
         
         // Guardar en memoria
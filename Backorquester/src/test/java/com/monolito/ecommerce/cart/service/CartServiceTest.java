@@ -0,0 +1,229 @@
+package com.monolito.ecommerce.cart.service;
+
+import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.model.CartSnapshot;
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class CartServiceTest {
+
+    private static final long USER = 7L;
+
+    @Test
+    void concurrentAddsFromSameUserKeepTotalsConsistent() throws Exception {
+        CartService cartService = inMemoryCartService(CartExpiry.disabled());
+
+        int threads = 16;
+        int addsPerThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long productId = 1 + (t % 4);
+            results.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < addsPerThread; i++) {
+                    cartService.addToCart(USER, productId, 1);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        CartSnapshot cart = cartService.getCartSnapshot(USER);
+        int units = threads * addsPerThread;
+        assertThat(cart.getItems()).hasSize(4);
+        assertThat(cart.getTotalItems()).isEqualTo(units);
+        assertThat(cart.getTotal()).isEqualByComparingTo(BigDecimal.valueOf(2.5).multiply(BigDecimal.valueOf(units)));
+        assertThat(cartService.getCartItemCount(USER)).isEqualTo(units);
+    }
+
+    @Test
+    void removeOrderedItemsKeepsUnitsAddedDuringCheckout() {
+        CartService cartService = inMemoryCartService(CartExpiry.disabled());
+        cartService.addToCart(USER, 1L, 2);
+        cartService.addToCart(USER, 2L, 1);
+        List<CartItem> ordered = cartService.getCart(USER);
+
+        cartService.addToCart(USER, 1L, 3);
+        cartService.removeOrderedItems(USER, ordered);
+
+        CartSnapshot cart = cartService.getCartSnapshot(USER);
+        assertThat(cart.getItems()).extracting(CartItem::getProductId).containsExactly(1L);
+        assertThat(cart.getTotalItems()).isEqualTo(3);
+        assertThat(cart.getTotal()).isEqualByComparingTo("7.5");
+
+        cartService.removeFromCart(USER, 1L);
+        assertThat(cartService.getCartSnapshot(USER).isEmpty()).isTrue();
+        assertThat(cartService.calculateTotal(USER)).isEqualByComparingTo(BigDecimal.ZERO);
+    }
+
+    @Test
+    void cartsSurviveRestartFromSnapshotPlusJournal(@TempDir Path dir) throws Exception {
+        CartStore store = new CartStore(true, dir.toString(), 3600, 3600_000);
+        CartService before = new CartService(new FixedPriceCatalogClient(), store, CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        before.addToCart(1L, 10L, 2);
+        before.addToCart(2L, 20L, 1);
+        before.addToCart(3L, 30L, 4);
+        store.snapshot();
+
+        // Cambios posteriores al snapshot: solo quedan en el journal
+        before.addToCart(1L, 10L, 1);
+        before.addToCart(1L, 11L, 5);
+        before.removeFromCart(2L, 20L);
+        before.clearCart(3L);
+        before.addToCart(4L, 40L, 1);
+        store.flush();
+
+        // Reinicio abrupto: no se llama a close(), no hay snapshot final
+        CartService after = new CartService(new FixedPriceCatalogClient(),
+                new CartStore(true, dir.toString(), 3600, 3600_000), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+
+        assertThat(after.getCart(1L)).extracting(CartItem::getProductId, CartItem::getQuantity)
+                .containsExactly(tuple(10L, 3), tuple(11L, 5));
+        assertThat(after.calculateTotal(1L)).isEqualByComparingTo("20.00");
+        assertThat(after.getCart(2L)).isEmpty();
+        assertThat(after.getCart(3L)).isEmpty();
+        assertThat(after.getCartItemCount(4L)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentChangesOfOneCartAreJournaledInTheOrderTheyWereApplied(@TempDir Path dir) throws Exception {
+        CartStore store = new CartStore(true, dir.toString(), 3600, 3600_000);
+        CartService before = new CartService(new FixedPriceCatalogClient(), store, CartExpiry.disabled(),
+                OperationMetrics.disabled());
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    before.addToCart(1L, 10L, 1);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        store.flush();
+
+        // Sin snapshot: el último registro del item en el journal tiene que ser el último estado
+        CartService after = new CartService(new FixedPriceCatalogClient(),
+                new CartStore(true, dir.toString(), 3600, 3600_000), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        assertThat(after.getCartItemCount(1L)).isEqualTo(4_000);
+    }
+
+    @Test
+    void idleCartsExpireAndActiveOnesSurvive() {
+        AtomicLong now = new AtomicLong();
+        CartExpiry expiry = new CartExpiry(1_000, 0, 0, 100, now::get, false);
+        CartService cartService = inMemoryCartService(expiry);
+        cartService.addToCart(1L, 10L, 1);
+        cartService.addToCart(2L, 20L, 1);
+
+        now.set(600);
+        cartService.getCartSnapshot(2L);
+        now.set(1_050);
+        assertThat(expiry.tick()).isEqualTo(1);
+        assertThat(cartService.getCart(1L)).isEmpty();
+        assertThat(cartService.getCartItemCount(2L)).isEqualTo(1);
+
+        // El carrito 2 se usó a los 600 ms: vence recién a los 1600 ms (contar items no cuenta como uso)
+        now.set(1_550);
+        assertThat(expiry.tick()).isZero();
+        now.set(1_650);
+        assertThat(expiry.tick()).isEqualTo(1);
+        assertThat(cartService.getCartItemCount(2L)).isZero();
+    }
+
+    @Test
+    void leastRecentlyUsedCartIsEvictedOverTheCap() {
+        AtomicLong now = new AtomicLong();
+        CartService cartService = inMemoryCartService(new CartExpiry(0, 0, 2, 100, now::get, false));
+        cartService.addToCart(1L, 10L, 1);
+        cartService.addToCart(2L, 20L, 1);
+        cartService.getCart(1L);
+        cartService.addToCart(3L, 30L, 1);
+
+        assertThat(cartService.getCart(1L)).hasSize(1);
+        assertThat(cartService.getCart(2L)).isEmpty();
+        assertThat(cartService.getCart(3L)).hasSize(1);
+    }
+
+    @Test
+    void idleCartsAreCompactedAndReadTransparently() {
+        AtomicLong now = new AtomicLong();
+        CartExpiry expiry = new CartExpiry(0, 500, 0, 100, now::get, false);
+        CartService cartService = inMemoryCartService(expiry);
+        cartService.addToCart(1L, 10L, 2);
+        cartService.addToCart(1L, 11L, 1);
+        CartSnapshot hot = cartService.getCartSnapshot(1L);
+
+        now.set(1_000);
+        expiry.tick();
+
+        CartSnapshot cold = cartService.getCartSnapshot(1L);
+        assertThat(cold.getItems()).usingRecursiveFieldByFieldElementComparator().isEqualTo(hot.getItems());
+        assertThat(cold.getTotal()).isEqualTo(hot.getTotal());
+        assertThat(cartService.getCartItemCount(1L)).isEqualTo(3);
+
+        // Modificar un carrito frío lo expande; al volver a quedar inactivo se compacta otra vez
+        cartService.addToCart(1L, 10L, 1);
+        assertThat(cartService.calculateTotal(1L)).isEqualByComparingTo("10.00");
+        now.set(2_000);
+        expiry.tick();
+        assertThat(cartService.getCart(1L)).extracting(CartItem::getQuantity).containsExactly(3, 1);
+    }
+
+    private static CartService inMemoryCartService(CartExpiry expiry) {
+        return new CartService(new FixedPriceCatalogClient(), CartStore.disabled(), expiry,
+                OperationMetrics.disabled());
+    }
+
+    /**
+     * Catálogo falso: todo cuesta 2.50 y hay stock de sobra
+     */
+    private static class FixedPriceCatalogClient extends CatalogClient {
+
+        FixedPriceCatalogClient() {
+            super(null, "http://catalog.test", null, 0, null, null);
+        }
+
+        @Override
+        public ProductSnapshot getProductById(Long productId) {
+            ProductSnapshot snapshot = new ProductSnapshot();
+            snapshot.setId(productId);
+            snapshot.setName("Producto " + productId);
+            snapshot.setPrice(new BigDecimal("2.50"));
+            snapshot.setStock(Integer.MAX_VALUE);
+            return snapshot;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.monolito.ecommerce.cluster;
+
+import com.monolito.ecommerce.order.model.BulkOrderRequest;
+import com.monolito.ecommerce.order.model.BulkOrderResult;
+import com.monolito.ecommerce.order.service.BulkOrderImporter;
+import com.monolito.ecommerce.shared.dto.ApiResponse;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkImportRouterTest {
+
+    private static final String SELF = "http://localhost:1";
+    private static final String SECRET = "bulk-test-secret";
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final List<Long> importedHere = new CopyOnWriteArrayList<>();
+    private final List<Long> importedByPeer = new CopyOnWriteArrayList<>();
+    private volatile int peerStatus = 200;
+
+    private HttpServer peer;
+    private String peerUrl;
+    private ClusterMembership membership;
+    private BulkImportRouter router;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        peer.createContext("/internal/cluster/ping", exchange -> respond(exchange, 200, new byte[0]));
+        peer.createContext("/internal/cluster/orders", this::importOnPeer);
+        peer.start();
+        peerUrl = "http://localhost:" + peer.getAddress().getPort();
+
+        membership = new ClusterMembership(true, SELF, List.of(SELF, peerUrl), 128, SECRET, 1_000, 3, 1_000);
+        membership.start();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (membership.getRing().getMembers().size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(membership.getRing().getMembers()).containsExactlyInAnyOrder(SELF, peerUrl);
+
+        BulkOrderImporter local = new BulkOrderImporter(null, null, OperationMetrics.disabled(), 500) {
+            @Override
+            public List<BulkOrderResult> importChunk(List<BulkOrderRequest> requests) {
+                List<BulkOrderResult> results = new ArrayList<>();
+                for (BulkOrderRequest request : requests) {
+                    if (request == null) {
+                        results.add(BulkOrderResult.rejected("Línea ilegible"));
+                    } else {
+                        importedHere.add(request.getUserId());
+                        results.add(created(request.getUserId()));
+                    }
+                }
+                return results;
+            }
+        };
+        router = new BulkImportRouter(local, membership, jsonMapper, 5_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        membership.shutdown();
+        peer.stop(0);
+    }
+
+    @Test
+    void eachOrderIsImportedByItsOwnerAndResultsKeepTheLineOrder() {
+        List<BulkOrderRequest> requests = new ArrayList<>();
+        for (long userId = 1; userId <= 200; userId++) {
+            requests.add(new BulkOrderRequest(userId, List.of(new BulkOrderRequest.Item(1L, 1))));
+        }
+        requests.add(null);
+
+        List<BulkOrderResult> results = router.importChunk(requests);
+
+        assertThat(importedHere).isNotEmpty().allMatch(userId -> membership.ownerOf(userId).equals(SELF));
+        assertThat(importedByPeer).isNotEmpty().allMatch(userId -> membership.ownerOf(userId).equals(peerUrl));
+        assertThat(importedHere.size() + importedByPeer.size()).isEqualTo(200);
+        for (int i = 0; i < 200; i++) {
+            assertThat(results.get(i).getStatus()).isEqualTo(BulkOrderResult.Status.CREATED);
+            assertThat(results.get(i).getOrderId()).isEqualTo(i + 1L);
+        }
+        assertThat(results.get(200).getStatus()).isEqualTo(BulkOrderResult.Status.REJECTED);
+    }
+
+    @Test
+    void linesOfAnOwnerThatFailsAreRejectedSayingWhetherTheyMayExist() {
+        List<BulkOrderRequest> requests = new ArrayList<>();
+        for (long userId = 1; userId <= 50; userId++) {
+            requests.add(new BulkOrderRequest(userId, List.of(new BulkOrderRequest.Item(1L, 1))));
+        }
+
+        // Se está apagando: no importó nada
+        peerStatus = 503;
+        List<BulkOrderResult> results = router.importChunk(requests);
+        for (int i = 0; i < 50; i++) {
+            boolean remote = membership.ownerOf(i + 1L).equals(peerUrl);
+            assertThat(results.get(i).getStatus())
+                    .isEqualTo(remote ? BulkOrderResult.Status.REJECTED : BulkOrderResult.Status.CREATED);
+            if (remote) {
+                assertThat(results.get(i).getMessage()).contains("no está disponible");
+            }
+        }
+
+        // Falló a mitad de camino: pudo haber creado órdenes
+        peerStatus = 500;
+        results = router.importChunk(requests);
+        for (int i = 0; i < 50; i++) {
+            if (membership.ownerOf(i + 1L).equals(peerUrl)) {
+                assertThat(results.get(i).getMessage()).contains("pudo haberse creado");
+            }
+        }
+    }
+
+    private void importOnPeer(HttpExchange exchange) throws IOException {
+        if (!SECRET.equals(exchange.getRequestHeaders().getFirst(ClusterMembership.TOKEN_HEADER))) {
+            respond(exchange, 403, new byte[0]);
+            return;
+        }
+        List<BulkOrderRequest> requests = jsonMapper.readValue(exchange.getRequestBody().readAllBytes(),
+                new TypeReference<List<BulkOrderRequest>>() {
+                });
+        if (peerStatus != 200) {
+            respond(exchange, peerStatus, new byte[0]);
+            return;
+        }
+        List<BulkOrderResult> results = new ArrayList<>();
+        for (BulkOrderRequest request : requests) {
+            importedByPeer.add(request.getUserId());
+            results.add(created(request.getUserId()));
+        }
+        respond(exchange, 200, jsonMapper.writeValueAsBytes(ApiResponse.success(results)));
+    }
+
+    private static BulkOrderResult created(Long orderId) {
+        BulkOrderResult result = new BulkOrderResult();
+        result.setStatus(BulkOrderResult.Status.CREATED);
+        result.setOrderId(orderId);
+        return result;
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
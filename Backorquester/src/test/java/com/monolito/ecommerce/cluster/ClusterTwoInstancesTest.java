@@ -0,0 +1,267 @@
+package com.monolito.ecommerce.cluster;
+
+import com.monolito.ecommerce.EcommerceMonolitoApplication;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.config.JwtAuthenticationFilter;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.service.OrderService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dos instancias en puertos aleatorios con un catalog-service simulado: reenvío a la dueña
+ * (incluido el stream SSE) y entrega de carrito, órdenes e Idempotency-Key al apagarse
+ */
+class ClusterTwoInstancesTest {
+
+    private static final String SECRET = "two-instances-cluster-secret";
+    private static final String JWT_SECRET = "two-instances-jwt-secret-of-at-least-32-bytes";
+    private static final long PRODUCT_ID = 1L;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final AtomicInteger stock = new AtomicInteger(100);
+
+    private HttpServer catalog;
+    private String urlA;
+    private String urlB;
+    private ConfigurableApplicationContext instanceA;
+    private ConfigurableApplicationContext instanceB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        catalog = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        catalog.createContext("/api/products/stock/decrease", exchange -> adjustStock(exchange, -1));
+        catalog.createContext("/api/products/stock/increase", exchange -> adjustStock(exchange, 1));
+        catalog.createContext("/api/products/", exchange ->
+                respond(exchange, Map.of("success", true, "data", product())));
+        catalog.start();
+
+        int portA = freePort();
+        int portB = freePort();
+        urlA = "http://localhost:" + portA;
+        urlB = "http://localhost:" + portB;
+        instanceA = start(portA);
+        instanceB = start(portB);
+        awaitTrue(() -> membership(instanceA).getRing().getMembers().size() == 2
+                && membership(instanceB).getRing().getMembers().size() == 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        instanceA.close();
+        instanceB.close();
+        catalog.stop(0);
+    }
+
+    @Test
+    void ownerServesForwardedRequestsAndHandsEverythingOverWhenItLeaves() throws Exception {
+        long userId = Stream.iterate(1L, id -> id + 1)
+                .filter(id -> membership(instanceA).ownerOf(id).equals(urlB))
+                .findFirst()
+                .orElseThrow();
+        String token = token(userId);
+
+        // Pedido a A, el carrito queda en B
+        assertThat(call(urlA, "POST", "/api/cart/add", token, null,
+                "{\"productId\":1,\"quantity\":2}").statusCode()).isEqualTo(200);
+        assertThat(instanceB.getBean(CartService.class).getUserIds()).contains(userId);
+        assertThat(instanceA.getBean(CartService.class).getUserIds()).doesNotContain(userId);
+
+        // El stream SSE a través de A recibe el evento de la orden creada en B
+        BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        CompletableFuture<HttpResponse<Stream<String>>> stream = client.sendAsync(
+                HttpRequest.newBuilder(URI.create(urlA + "/api/orders/events"))
+                        .header("Authorization", "Bearer " + token)
+                        .build(),
+                HttpResponse.BodyHandlers.ofLines());
+        stream.thenAccept(response -> response.body().forEach(events::add));
+        assertThat(awaitLine(events, "conectado")).isNotNull();
+
+        HttpResponse<String> created = call(urlA, "POST", "/api/orders", token, "checkout-1", "{}");
+        assertThat(created.statusCode()).isEqualTo(201);
+        String orderId = dataOf(created).path("id").asString();
+        assertThat(awaitLine(events, orderId)).isNotNull();
+        assertThat(instanceB.getBean(OrderService.class).getOrdersByUser(userId))
+                .extracting(order -> String.valueOf(order.getId()))
+                .containsExactly(orderId);
+        assertThat(stock.get()).isEqualTo(98);
+
+        assertThat(call(urlA, "POST", "/api/cart/add", token, null,
+                "{\"productId\":1,\"quantity\":1}").statusCode()).isEqualTo(200);
+
+        // B se apaga: entrega el usuario a A antes de cerrar
+        instanceB.close();
+        stream.cancel(true);
+        awaitTrue(() -> membership(instanceA).getRing().getMembers().equals(List.of(urlA)));
+
+        List<Order> history = instanceA.getBean(OrderService.class).getOrdersByUser(userId);
+        assertThat(history).extracting(order -> String.valueOf(order.getId())).containsExactly(orderId);
+        JsonNode orders = dataOf(call(urlA, "GET", "/api/orders/user/" + userId, token, null, null));
+        assertThat(orders.get(0).path("id").asString()).isEqualTo(orderId);
+
+        JsonNode cart = dataOf(call(urlA, "GET", "/api/cart/" + userId, token, null, null));
+        assertThat(cart.toString()).contains("\"quantity\":1");
+
+        // El reintento con la misma clave devuelve la misma orden sin volver a descontar stock
+        HttpResponse<String> retried = call(urlA, "POST", "/api/orders", token, "checkout-1", "{}");
+        assertThat(retried.statusCode()).isEqualTo(201);
+        assertThat(dataOf(retried).path("id").asString()).isEqualTo(orderId);
+        assertThat(stock.get()).isEqualTo(98);
+        assertThat(instanceA.getBean(OrderService.class).getOrdersByUser(userId)).hasSize(1);
+    }
+
+    @Test
+    void ownerThatDoesNotAnswerGetsServiceUnavailable() throws Exception {
+        long userId = Stream.iterate(1L, id -> id + 1)
+                .filter(id -> membership(instanceA).ownerOf(id).equals(urlB))
+                .findFirst()
+                .orElseThrow();
+
+        // B deja de responder sin avisar: A la tiene en el anillo hasta failure-threshold pings fallidos
+        ((WebServerApplicationContext) instanceB).getWebServer().stop();
+
+        HttpResponse<String> response = call(urlA, "GET", "/api/cart/" + userId, token(userId), null, null);
+        assertThat(response.statusCode()).isEqualTo(503);
+        assertThat(response.body()).contains("no está disponible");
+    }
+
+    private ConfigurableApplicationContext start(int port) {
+        // Argumentos de línea de comandos: pisan a application.properties
+        return new SpringApplicationBuilder(EcommerceMonolitoApplication.class).run(
+                "--server.port=" + port,
+                "--cluster.enabled=true",
+                "--cluster.self-url=http://localhost:" + port,
+                "--cluster.members=" + urlA + "," + urlB,
+                "--cluster.secret=" + SECRET,
+                "--cluster.heartbeat-ms=100",
+                // Una caída sin aviso tarda 5 s en sacar a la instancia del anillo; un apagado (503) es inmediato
+                "--cluster.failure-threshold=50",
+                "--auth.jwt.secret=" + JWT_SECRET,
+                "--services.catalog.base-url=http://localhost:" + catalog.getAddress().getPort() + "/api/products");
+    }
+
+    private static ClusterMembership membership(ConfigurableApplicationContext context) {
+        return context.getBean(ClusterMembership.class);
+    }
+
+    private HttpResponse<String> call(String baseUrl, String method, String path, String token,
+                                      String idempotencyKey, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .method(method, body != null
+                        ? HttpRequest.BodyPublishers.ofString(body)
+                        : HttpRequest.BodyPublishers.noBody());
+        if (idempotencyKey != null) {
+            request.header("Idempotency-Key", idempotencyKey);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode dataOf(HttpResponse<String> response) {
+        return jsonMapper.readTree(response.body()).path("data");
+    }
+
+    private static String token(long userId) {
+        return Jwts.builder()
+                .subject(String.valueOf(userId))
+                .claim(JwtAuthenticationFilter.ROLES_CLAIM, List.of())
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private Map<String, Object> product() {
+        return Map.of("id", PRODUCT_ID, "name", "Teclado", "price", 10, "stock", stock.get());
+    }
+
+    /**
+     * Descuento / reposición todo o nada, como catalog-service
+     */
+    private void adjustStock(HttpExchange exchange, int sign) throws IOException {
+        JsonNode items = jsonMapper.readTree(exchange.getRequestBody().readAllBytes()).path("items");
+        int quantity = 0;
+        for (JsonNode item : items) {
+            quantity += item.path("quantity").asInt();
+        }
+        synchronized (stock) {
+            if (stock.get() + sign * quantity < 0) {
+                respond(exchange, 400, Map.of("status", 400, "message", "Stock insuficiente"));
+                return;
+            }
+            stock.addAndGet(sign * quantity);
+        }
+        respond(exchange, Map.of("success", true, "data", List.of(product())));
+    }
+
+    private void respond(HttpExchange exchange, Object body) throws IOException {
+        respond(exchange, 200, body);
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = jsonMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String awaitLine(BlockingQueue<String> lines, String fragment) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            String line = lines.poll(100, TimeUnit.MILLISECONDS);
+            if (line != null && line.contains(fragment)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
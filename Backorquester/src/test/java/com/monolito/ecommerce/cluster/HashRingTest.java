@@ -0,0 +1,61 @@
+package com.monolito.ecommerce.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashRingTest {
+
+    private static final int USERS = 100_000;
+    private static final String A = "http://localhost:8091";
+    private static final String B = "http://localhost:8092";
+    private static final String C = "http://localhost:8093";
+    private static final String D = "http://localhost:8094";
+
+    @Test
+    void consecutiveUserIdsAreSpreadEvenlyAcrossMembers() {
+        HashRing ring = new HashRing(List.of(A, B, C), 128);
+
+        Map<String, Integer> owned = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            owned.merge(ring.ownerOf(userId), 1, Integer::sum);
+        }
+
+        assertThat(owned).containsOnlyKeys(A, B, C);
+        // Ideal 1/3 cada una; con 128 nodos virtuales el desvío queda bajo ~15%
+        assertThat(owned.values()).allSatisfy(count ->
+                assertThat(count).isBetween(USERS / 3 * 85 / 100, USERS / 3 * 115 / 100));
+    }
+
+    @Test
+    void addingAMemberOnlyMovesUsersToTheNewMember() {
+        HashRing before = new HashRing(List.of(A, B, C), 128);
+        HashRing after = new HashRing(List.of(A, B, C, D), 128);
+
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            String oldOwner = before.ownerOf(userId);
+            String newOwner = after.ownerOf(userId);
+            if (!oldOwner.equals(newOwner)) {
+                assertThat(newOwner).isEqualTo(D);
+                moved++;
+            }
+        }
+
+        assertThat(moved).isBetween(USERS / 4 * 80 / 100, USERS / 4 * 120 / 100);
+    }
+
+    @Test
+    void ringDoesNotDependOnMemberOrder() {
+        HashRing ring = new HashRing(List.of(C, A, B), 64);
+        HashRing sameMembers = new HashRing(List.of(B, C, A), 64);
+
+        for (long userId = 1; userId <= 10_000; userId++) {
+            assertThat(ring.ownerOf(userId)).isEqualTo(sameMembers.ownerOf(userId));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.monolito.ecommerce.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class BulkImportSecurityTest {
+
+    @LocalServerPort
+    int port;
+
+    @Value("${auth.jwt.secret}")
+    String jwtSecret;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void shopperCannotImportOrders() throws Exception {
+        assertThat(postBulk(token(List.of())).statusCode()).isEqualTo(403);
+    }
+
+    @Test
+    void importRoleReachesTheImporter() throws Exception {
+        HttpResponse<String> response = postBulk(token(List.of(SecurityConfig.ORDER_IMPORT_ROLE)));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEmpty();
+    }
+
+    private HttpResponse<String> postBulk(String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/orders/bulk"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString("\n"))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String token(List<String> roles) {
+        return Jwts.builder()
+                .subject("7")
+                .claim(JwtAuthenticationFilter.ROLES_CLAIM, roles)
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,56 @@
+package com.monolito.ecommerce.config;
+
+import com.monolito.ecommerce.cluster.ClusterMembership;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.id.IdGeneratorType;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdGeneratorConfigTest {
+
+    private final IdGeneratorConfig config = new IdGeneratorConfig();
+
+    @Test
+    void sequentialIdsAreRejectedInClusterMode() {
+        ClusterMembership membership = new ClusterMembership(true, "http://localhost:8091",
+                List.of("http://localhost:8091", "http://localhost:8092"), 16, "secret", 1_000, 3, 1_000);
+        try {
+            assertThatThrownBy(() -> config.idGenerator(IdGeneratorType.SEQUENTIAL, -1, 2_000, 8091, membership))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("SNOWFLAKE");
+        } finally {
+            membership.shutdown();
+        }
+    }
+
+    @Test
+    void snowflakeIdsTravelAsExactStringsInJson() {
+        ClusterMembership standalone = new ClusterMembership(false, "http://localhost:8081", List.of(), 16, "",
+                1_000, 3, 1_000);
+        IdGenerator ids = config.idGenerator(IdGeneratorType.SNOWFLAKE, 7, 2_000, 8081, standalone);
+        long orderId = ids.nextId();
+        long productId = ids.nextId();
+        // Mayores a 2^53: como número JSON.parse los redondearía
+        assertThat(orderId).isGreaterThan(1L << 53);
+
+        Order order = new Order(orderId, 42L, List.of(new OrderItem(productId, "Mouse", BigDecimal.TEN, 1)),
+                BigDecimal.TEN);
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        JsonNode json = jsonMapper.readTree(jsonMapper.writeValueAsString(order));
+
+        assertThat(json.get("id").isString()).isTrue();
+        assertThat(json.get("id").asString()).isEqualTo(Long.toString(orderId));
+        assertThat(json.get("userId").asString()).isEqualTo("42");
+        assertThat(json.get("items").get(0).get("productId").asString()).isEqualTo(Long.toString(productId));
+        assertThat(jsonMapper.readValue(jsonMapper.writeValueAsString(order), Order.class).getId()).isEqualTo(orderId);
+    }
+}
@@ -0,0 +1,42 @@
+package com.monolito.ecommerce.integration;
+
+import com.monolito.ecommerce.shared.tracing.RequestTiming;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FanOutExecutorTest {
+
+    private final FanOutExecutor executor = new FanOutExecutor(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        RequestTiming.end();
+        MDC.clear();
+    }
+
+    @Test
+    void tasksRunWithTheCallersRequestIdAndTiming() throws Exception {
+        RequestTiming timing = RequestTiming.begin("req-7");
+        MDC.put(RequestTiming.MDC_KEY, "req-7");
+
+        String seenId = executor.supplyAsync(() -> {
+            RequestTiming.recordDownstream("catalog-service", TimeUnit.MILLISECONDS.toNanos(3));
+            return MDC.get(RequestTiming.MDC_KEY);
+        }).get(5, TimeUnit.SECONDS);
+
+        assertThat(seenId).isEqualTo("req-7");
+        assertThat(timing.downstreamNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(3));
+
+        // El hilo del pool no se queda con la petición
+        RequestTiming.end();
+        MDC.clear();
+        assertThat(executor.supplyAsync(() -> MDC.get(RequestTiming.MDC_KEY) == null
+                && RequestTiming.current() == null).get(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
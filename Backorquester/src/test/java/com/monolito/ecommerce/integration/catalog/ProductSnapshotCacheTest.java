@@ -0,0 +1,96 @@
+package com.monolito.ecommerce.integration.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSnapshotCacheTest {
+
+    @Test
+    void valueLoadedBeforeAnInvalidationIsNotStored() {
+        ProductSnapshotCache cache = new ProductSnapshotCache(true, 100, 60_000);
+
+        long versionAtLoad = cache.currentVersion(1L);
+        cache.invalidate(List.of(1L));
+        cache.put(snapshot(1L, 5), versionAtLoad);
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void invalidatingOneProductDoesNotDiscardLoadsOfOthers() {
+        ProductSnapshotCache cache = new ProductSnapshotCache(true, 100, 60_000);
+
+        long versionOfOne = cache.currentVersion(1L);
+        long versionOfTwo = cache.currentVersion(2L);
+        cache.invalidate(List.of(1L));
+        cache.refresh(List.of(snapshot(3L, 7)));
+        cache.put(snapshot(1L, 5), versionOfOne);
+        cache.put(snapshot(2L, 5), versionOfTwo);
+
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L).getStock()).isEqualTo(5);
+        assertThat(cache.get(3L).getStock()).isEqualTo(7);
+    }
+
+    @Test
+    void invalidateAllDiscardsEveryLoadInFlight() {
+        ProductSnapshotCache cache = new ProductSnapshotCache(true, 100, 60_000);
+
+        long versionAtLoad = cache.currentVersion(2L);
+        cache.invalidateAll();
+        cache.put(snapshot(2L, 5), versionAtLoad);
+
+        assertThat(cache.get(2L)).isNull();
+    }
+
+    @Test
+    void evictsOldestEntriesBeyondMaxSize() {
+        ProductSnapshotCache cache = new ProductSnapshotCache(true, 2, 60_000);
+
+        for (long id = 1; id <= 3; id++) {
+            cache.put(snapshot(id, 1), cache.currentVersion(id));
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(3L)).isNotNull();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndReloadsDoNotGrowTheCache() {
+        ProductSnapshotCache cache = new ProductSnapshotCache(true, 2, 60_000);
+
+        cache.put(snapshot(1L, 1), cache.currentVersion(1L));
+        cache.put(snapshot(2L, 1), cache.currentVersion(2L));
+        for (int i = 0; i < 1000; i++) {
+            cache.invalidate(List.of(1L));
+            cache.put(snapshot(1L, i), cache.currentVersion(1L));
+        }
+        cache.get(2L);
+        cache.put(snapshot(3L, 1), cache.currentVersion(3L));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(2L)).isNotNull();
+        assertThat(cache.get(3L)).isNotNull();
+    }
+
+    @Test
+    void expiredEntriesAreMisses() {
+        ProductSnapshotCache cache = new ProductSnapshotCache(true, 10, 0);
+
+        cache.put(snapshot(1L, 1), cache.currentVersion(1L));
+
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    private static ProductSnapshot snapshot(long id, int stock) {
+        ProductSnapshot snapshot = new ProductSnapshot();
+        snapshot.setId(id);
+        snapshot.setStock(stock);
+        return snapshot;
+    }
+}
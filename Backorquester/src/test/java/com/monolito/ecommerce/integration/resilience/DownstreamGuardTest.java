@@ -0,0 +1,114 @@
+package com.monolito.ecommerce.integration.resilience;
+
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamGuardTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void opensOnFailureRateFailsFastAndClosesAfterHalfOpenProbes() {
+        DownstreamGuard guard = guard(4);
+        AtomicInteger remoteCalls = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            guard.call("test", () -> remoteCalls.incrementAndGet());
+        }
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> guard.call("test", () -> {
+                remoteCalls.incrementAndGet();
+                throw new ResourceAccessException("Connection refused");
+            })).isInstanceOf(ResourceAccessException.class);
+        }
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Abierto: falla sin llamar
+        assertThatThrownBy(() -> guard.call("test", remoteCalls::incrementAndGet))
+                .isInstanceOf(DownstreamUnavailableException.class)
+                .hasMessageContaining("circuito abierto");
+        assertThat(remoteCalls).hasValue(10);
+
+        // Pasado open-ms deja pasar las pruebas; todas bien -> cerrado
+        now.addAndGet(1_000);
+        for (int i = 0; i < 2; i++) {
+            guard.call("test", remoteCalls::incrementAndGet);
+        }
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuitButSlowCallsDo() {
+        DownstreamGuard guard = guard(4);
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> guard.call("test", () -> {
+                throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+            })).isInstanceOf(HttpClientErrorException.class);
+        }
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // 5 lentas en una ventana de 10 llegan al 50%
+        for (int i = 0; i < 5; i++) {
+            guard.call("test", () -> now.addAndGet(600));
+        }
+        assertThat(guard.getCircuitBreaker().getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void bulkheadRejectsCallsOverTheLimit() throws Exception {
+        DownstreamGuard guard = guard(1);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> slow = pool.submit(() -> guard.call("test", () -> {
+                inside.countDown();
+                return await(release);
+            }));
+            assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> guard.call("test", () -> true))
+                    .isInstanceOf(DownstreamUnavailableException.class)
+                    .hasMessageContaining("saturado");
+            assertThat(guard.getBulkheadRejected()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(guard.call("test", () -> true)).isTrue();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private DownstreamGuard guard(int maxConcurrent) {
+        // Ventana de 10, abre con 50% de fallas o de llamadas de 500 ms o más
+        CircuitBreaker.Settings settings = new CircuitBreaker.Settings(10, 10, 50, 50, 500, 1_000, 2);
+        CircuitBreaker breaker = new CircuitBreaker("catalog-service", settings, now::get);
+        return new DownstreamGuard("catalog-service", breaker, maxConcurrent, 0, now::get);
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.monolito.ecommerce.order.controller;
+
+import com.monolito.ecommerce.config.JwtAuthenticationFilter;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.service.OrderService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OrderControllerTest {
+
+    private static final long USER = 41L;
+    private static final long FIRST_ID = 7_000_001L;
+    private static final int SEEDED = 5;
+
+    @LocalServerPort
+    int port;
+
+    @Value("${auth.jwt.secret}")
+    String jwtSecret;
+
+    @Autowired
+    OrderService orderService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    @BeforeEach
+    void seedOrders() {
+        List<Order> orders = new ArrayList<>();
+        for (long id = FIRST_ID; id < FIRST_ID + SEEDED; id++) {
+            orders.add(new Order(id, USER, List.of(new OrderItem(3L, "Mouse", new BigDecimal("10.50"), 2)),
+                    new BigDecimal("21.00")));
+        }
+        // Ya existentes se ignoran: cada prueba ve las mismas cinco
+        orderService.adoptOrders(USER, orders, false);
+    }
+
+    @Test
+    void withoutPagingParametersTheResponseIsStillTheFullList() throws Exception {
+        HttpResponse<String> response = get("/api/orders");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode data = jsonMapper.readTree(response.body()).path("data");
+        assertThat(data.isArray()).isTrue();
+        assertThat(ids(data)).containsSubsequence(seededIds());
+    }
+
+    @Test
+    void cursorPagesCoverTheOrdersOnceInIdOrder() throws Exception {
+        JsonNode first = dataOf(get("/api/orders?after=" + (FIRST_ID - 1) + "&limit=2"));
+        assertThat(ids(first.path("items"))).containsExactly(String.valueOf(FIRST_ID), String.valueOf(FIRST_ID + 1));
+        assertThat(first.path("nextCursor").asString()).isEqualTo(String.valueOf(FIRST_ID + 1));
+
+        JsonNode second = dataOf(get("/api/orders?after=" + first.path("nextCursor").asString() + "&limit=2"));
+        assertThat(ids(second.path("items")))
+                .containsExactly(String.valueOf(FIRST_ID + 2), String.valueOf(FIRST_ID + 3));
+
+        // Solo limit: desde la primera orden, con el tamaño por defecto si falta
+        JsonNode fromStart = dataOf(get("/api/orders?limit=500"));
+        assertThat(ids(fromStart.path("items"))).containsSubsequence(seededIds());
+
+        assertThat(get("/api/orders?limit=0").statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    void exportStreamsOneJsonOrderPerLine() throws Exception {
+        HttpResponse<String> response = get("/api/orders/export");
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+                type -> assertThat(type).startsWith("application/x-ndjson"));
+        List<String> exported = new ArrayList<>();
+        for (String line : response.body().split("\n")) {
+            JsonNode order = jsonMapper.readTree(line);
+            exported.add(order.path("id").asString());
+            if (order.path("userId").asString().equals(String.valueOf(USER))) {
+                assertThat(order.path("items").get(0).path("productName").asString()).isEqualTo("Mouse");
+            }
+        }
+        assertThat(exported).containsSubsequence(seededIds()).doesNotHaveDuplicates();
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode dataOf(HttpResponse<String> response) {
+        assertThat(response.statusCode()).isEqualTo(200);
+        return jsonMapper.readTree(response.body()).path("data");
+    }
+
+    private static List<String> ids(JsonNode orders) {
+        List<String> ids = new ArrayList<>();
+        orders.forEach(order -> ids.add(order.path("id").asString()));
+        return ids;
+    }
+
+    private static List<String> seededIds() {
+        List<String> ids = new ArrayList<>();
+        for (long id = FIRST_ID; id < FIRST_ID + SEEDED; id++) {
+            ids.add(String.valueOf(id));
+        }
+        return ids;
+    }
+
+    private String token() {
+        return Jwts.builder()
+                .subject(String.valueOf(USER))
+                .claim(JwtAuthenticationFilter.ROLES_CLAIM, List.of())
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
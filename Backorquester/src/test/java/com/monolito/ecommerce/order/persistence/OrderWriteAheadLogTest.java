@@ -0,0 +1,173 @@
+package com.monolito.ecommerce.order.persistence;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderWriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayRestoresEveryAppendedOrder() throws Exception {
+        Path file = dir.resolve("orders.wal");
+        OrderWriteAheadLog log = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.INTERVAL, 10, 64, 30_000);
+        assertThat(log.open(order -> { })).isZero();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> writes = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            long orderId = id;
+            writes.add(pool.submit(() -> log.append(order(orderId))));
+        }
+        for (Future<?> write : writes) {
+            write.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        log.close();
+
+        List<Order> replayed = new ArrayList<>();
+        OrderWriteAheadLog reopened = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.NEVER, 0, 64, 30_000);
+        assertThat(reopened.open(replayed::add)).isEqualTo(2_000);
+        reopened.close();
+
+        assertThat(replayed).extracting(Order::getId).doesNotHaveDuplicates().hasSize(2_000);
+        Order sample = replayed.stream().filter(o -> o.getId() == 42L).findFirst().orElseThrow();
+        Order expected = order(42L);
+        assertThat(sample.getUserId()).isEqualTo(expected.getUserId());
+        assertThat(sample.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(sample.getTotal()).isEqualTo(expected.getTotal());
+        assertThat(sample.getCreatedAt()).isEqualTo(expected.getCreatedAt());
+        assertThat(sample.getItems()).hasSize(2);
+        assertThat(sample.getItems().get(1).getProductName()).isEqualTo("Teclado ñandú");
+        assertThat(sample.getItems().get(1).getSubtotal()).isEqualTo(new BigDecimal("59.98"));
+    }
+
+    @Test
+    void tornTailIsTruncatedAndLogKeepsAppending() throws Exception {
+        Path file = dir.resolve("orders.wal");
+        OrderWriteAheadLog log = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.ALWAYS, 0, 64, 30_000);
+        log.open(order -> { });
+        log.append(order(1L));
+        log.append(order(2L));
+        log.close();
+
+        // Simular una caída a mitad de escribir el tercer registro
+        long goodSize = Files.size(file);
+        Files.write(file, new byte[] {0, 0, 0, 90, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        List<Order> replayed = new ArrayList<>();
+        OrderWriteAheadLog reopened = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.ALWAYS, 0, 64, 30_000);
+        assertThat(reopened.open(replayed::add)).isEqualTo(2);
+        assertThat(Files.size(file)).isEqualTo(goodSize);
+
+        reopened.append(order(3L));
+        reopened.close();
+
+        replayed.clear();
+        OrderWriteAheadLog again = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.ALWAYS, 0, 64, 30_000);
+        again.open(replayed::add);
+        again.close();
+        assertThat(replayed).extracting(Order::getId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void appendsRacingCloseEitherLandOrFailWithoutHanging() throws Exception {
+        Path file = dir.resolve("orders.wal");
+        OrderWriteAheadLog log = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.NEVER, 0, 64, 30_000);
+        log.open(order -> { });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> writes = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            long orderId = id;
+            writes.add(pool.submit(() -> {
+                try {
+                    log.append(order(orderId));
+                    return true;
+                } catch (IllegalStateException ex) {
+                    return false;
+                }
+            }));
+        }
+        log.close();
+
+        long written = 0;
+        for (Future<Boolean> write : writes) {
+            if (write.get(10, TimeUnit.SECONDS)) {
+                written++;
+            }
+        }
+        pool.shutdown();
+
+        List<Order> replayed = new ArrayList<>();
+        OrderWriteAheadLog reopened = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.NEVER, 0, 64, 30_000);
+        assertThat(reopened.open(replayed::add)).isEqualTo(written);
+        reopened.close();
+    }
+
+    @Test
+    void appendsThatTimeOutNeverShowUpInTheLog() throws Exception {
+        Path file = dir.resolve("orders.wal");
+        // Sin espera: casi todos los appends agotan el tiempo con el escritor a medio camino
+        OrderWriteAheadLog log = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.NEVER, 0, 8, 0);
+        log.open(order -> { });
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> writes = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            long orderId = id;
+            writes.add(pool.submit(() -> {
+                try {
+                    log.append(order(orderId));
+                    return true;
+                } catch (IllegalStateException ex) {
+                    return false;
+                }
+            }));
+        }
+
+        Set<Long> written = new HashSet<>();
+        for (int i = 0; i < writes.size(); i++) {
+            if (writes.get(i).get(10, TimeUnit.SECONDS)) {
+                written.add(i + 1L);
+            }
+        }
+        pool.shutdown();
+        log.close();
+
+        List<Order> replayed = new ArrayList<>();
+        OrderWriteAheadLog reopened = new OrderWriteAheadLog(true, file.toString(), FsyncPolicy.NEVER, 0, 64, 30_000);
+        reopened.open(replayed::add);
+        reopened.close();
+        assertThat(replayed).extracting(Order::getId).containsExactlyInAnyOrderElementsOf(written);
+    }
+
+    private static Order order(long id) {
+        List<OrderItem> items = List.of(
+                new OrderItem(100L, "Mouse", new BigDecimal("10.50"), 1),
+                new OrderItem(200L, "Teclado ñandú", new BigDecimal("29.99"), 2));
+        Order order = new Order(id, id % 17, items, new BigDecimal("70.48"));
+        order.setCreatedAt(LocalDateTime.of(2026, 1, 2, 3, 4, 5, 6_000));
+        return order;
+    }
+}
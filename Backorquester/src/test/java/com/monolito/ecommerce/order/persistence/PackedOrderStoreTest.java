@@ -0,0 +1,86 @@
+package com.monolito.ecommerce.order.persistence;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PackedOrderStoreTest {
+
+    @Test
+    void ordersComeBackWithTheSameValuesInCents() {
+        PackedOrderStore store = new PackedOrderStore();
+        Order original = order(7L, 3L, "29.99", "19.5");
+        original.setCreatedAt(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_789));
+
+        store.put(original);
+        Order restored = store.get(7L);
+
+        assertThat(restored).isNotSameAs(original);
+        assertThat(restored.getUserId()).isEqualTo(3L);
+        assertThat(restored.getStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(restored.getTotal()).isEqualTo(new BigDecimal("79.48"));
+        assertThat(restored.getCreatedAt()).isEqualTo(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000));
+        assertThat(restored.getItems()).hasSize(2);
+        assertThat(restored.getItems().get(0).getProductName()).isEqualTo("Teclado ñandú");
+        assertThat(restored.getItems().get(0).getSubtotal()).isEqualTo(new BigDecimal("59.98"));
+        assertThat(restored.getItems().get(1).getPrice()).isEqualTo(new BigDecimal("19.50"));
+        assertThat(store.get(8L)).isNull();
+    }
+
+    @Test
+    void amountsThatDoNotFitInCentsAreKeptAsObjects() {
+        PackedOrderStore store = new PackedOrderStore();
+        Order fractional = order(1L, 1L, "0.125", "1");
+        store.put(fractional);
+        store.put(order(2L, 1L, "1", "2"));
+
+        assertThat(store.get(1L)).isSameAs(fractional);
+        assertThat(store.streamFrom(null)).extracting(Order::getId).containsExactly(1L, 2L);
+
+        assertThat(store.remove(1L)).isTrue();
+        assertThat(store.get(1L)).isNull();
+        assertThat(store.size()).isEqualTo(1);
+    }
+
+    @Test
+    void iterationIsInIdOrderAcrossBatchesAndConcurrentChanges() {
+        PackedOrderStore store = new PackedOrderStore();
+        // IDs fuera de orden, como checkouts concurrentes que terminan en distinto orden
+        LongStream.rangeClosed(1, 2_000).map(i -> i % 2 == 0 ? i - 1 : i + 1)
+                .forEach(id -> store.put(order(id, id % 10, "1", "1")));
+        assertThat(store.remove(500L)).isTrue();
+        assertThat(store.remove(500L)).isFalse();
+
+        List<Long> after1000 = store.streamFrom(1_000L).map(Order::getId).toList();
+        assertThat(after1000).hasSize(1_000).isSorted().startsWith(1_001L).endsWith(2_000L);
+
+        // Cambios entre lotes (de 256): el recorrido sigue desde el último ID entregado
+        Iterator<Order> iterator = store.streamFrom(null).iterator();
+        for (long expected = 1; expected <= 256; expected++) {
+            assertThat(iterator.next().getId()).isEqualTo(expected);
+        }
+        store.remove(257L);
+        store.put(order(5_000L, 1L, "1", "1"));
+        List<Long> rest = new ArrayList<>();
+        iterator.forEachRemaining(order -> rest.add(order.getId()));
+        assertThat(rest).startsWith(258L).doesNotContain(257L, 500L).endsWith(2_000L, 5_000L);
+    }
+
+    private static Order order(long id, long userId, String firstPrice, String secondPrice) {
+        List<OrderItem> items = List.of(
+                new OrderItem(10L, "Teclado ñandú", new BigDecimal(firstPrice), 2),
+                new OrderItem(11L, "Mouse", new BigDecimal(secondPrice), 1));
+        BigDecimal total = items.stream().map(OrderItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new Order(id, userId, items, total);
+    }
+}
@@ -0,0 +1,229 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.cart.service.CartExpiry;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.integration.catalog.StockAdjustment;
+import com.monolito.ecommerce.order.model.BulkOrderRequest;
+import com.monolito.ecommerce.order.model.BulkOrderResult;
+import com.monolito.ecommerce.order.persistence.HeapOrderStore;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.InsufficientStockException;
+import com.monolito.ecommerce.shared.exception.ResourceNotFoundException;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkOrderImporterTest {
+
+    private static final long SCARCE_PRODUCT = 1L;
+    private static final long PLENTIFUL_PRODUCT = 2L;
+
+    @Test
+    void wholeChunkIsAppliedWithOneAggregatedStockCall() {
+        AtomicCatalogClient catalog = new AtomicCatalogClient();
+        catalog.addProduct(SCARCE_PRODUCT, 1_000);
+        catalog.addProduct(PLENTIFUL_PRODUCT, 1_000);
+        BulkOrderImporter importer = importer(catalog);
+
+        List<BulkOrderRequest> requests = new ArrayList<>();
+        for (long userId = 1; userId <= 100; userId++) {
+            requests.add(order(userId, SCARCE_PRODUCT, 2, PLENTIFUL_PRODUCT, 1));
+        }
+
+        List<BulkOrderResult> results = importer.importChunk(requests);
+
+        assertThat(results).allMatch(result -> result.getStatus() == BulkOrderResult.Status.CREATED);
+        assertThat(results).extracting(BulkOrderResult::getTotal).containsOnly(new BigDecimal("30"));
+        assertThat(catalog.decreaseCalls).isEqualTo(1);
+        assertThat(catalog.stockOf(SCARCE_PRODUCT)).isEqualTo(800);
+        assertThat(catalog.stockOf(PLENTIFUL_PRODUCT)).isEqualTo(900);
+    }
+
+    @Test
+    void ordersThatDoNotFitAreRejectedIndividuallyWithoutOverselling() {
+        AtomicCatalogClient catalog = new AtomicCatalogClient();
+        catalog.addProduct(SCARCE_PRODUCT, 10);
+        catalog.addProduct(PLENTIFUL_PRODUCT, 1_000);
+        BulkOrderImporter importer = importer(catalog);
+
+        List<BulkOrderRequest> requests = new ArrayList<>();
+        for (long userId = 1; userId <= 64; userId++) {
+            requests.add(userId % 4 == 0
+                    ? order(userId, SCARCE_PRODUCT, 1, PLENTIFUL_PRODUCT, 1)
+                    : order(userId, PLENTIFUL_PRODUCT, 1, PLENTIFUL_PRODUCT, 1));
+        }
+        requests.add(order(65L, 99L, 1, PLENTIFUL_PRODUCT, 1));
+        requests.add(new BulkOrderRequest(66L, List.of()));
+        requests.add(null);
+
+        List<BulkOrderResult> results = importer.importChunk(requests);
+
+        // 16 órdenes piden el producto escaso: entran las 10 primeras
+        List<Integer> rejectedScarce = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            if (results.get(i).getStatus() == BulkOrderResult.Status.REJECTED) {
+                rejectedScarce.add(i + 1);
+            }
+        }
+        assertThat(rejectedScarce).containsExactly(44, 48, 52, 56, 60, 64);
+        assertThat(catalog.stockOf(SCARCE_PRODUCT)).isZero();
+        assertThat(catalog.stockOf(PLENTIFUL_PRODUCT)).isEqualTo(1_000 - 2 * 48 - 10);
+
+        assertThat(results.get(64).getMessage()).isEqualTo("Producto con ID 99 no encontrado");
+        assertThat(results.get(65).getMessage()).isEqualTo("La orden debe tener al menos un producto");
+        assertThat(results.get(66).getStatus()).isEqualTo(BulkOrderResult.Status.REJECTED);
+
+        // Bisección: muchas menos llamadas que una por orden
+        assertThat(catalog.decreaseCalls).isLessThan(64);
+    }
+
+    @Test
+    void uncertainStockFailureRejectsTheGroupWithoutSplitting() {
+        AtomicCatalogClient catalog = new AtomicCatalogClient();
+        catalog.addProduct(SCARCE_PRODUCT, 1_000);
+        catalog.addProduct(PLENTIFUL_PRODUCT, 1_000);
+        catalog.loseNextResponse = true;
+        BulkOrderImporter importer = importer(catalog);
+
+        List<BulkOrderRequest> requests = new ArrayList<>();
+        for (long userId = 1; userId <= 32; userId++) {
+            requests.add(order(userId, SCARCE_PRODUCT, 1, PLENTIFUL_PRODUCT, 1));
+        }
+
+        List<BulkOrderResult> results = importer.importChunk(requests);
+
+        // catalog-service aplicó el descuento pero la respuesta se perdió: nada de reintentos por mitades
+        assertThat(results).allMatch(result -> result.getStatus() == BulkOrderResult.Status.REJECTED);
+        assertThat(catalog.decreaseCalls).isEqualTo(1);
+        assertThat(catalog.stockOf(SCARCE_PRODUCT)).isEqualTo(1_000 - 32);
+    }
+
+    @Test
+    void quantitiesWhoseSumOverflowsAnIntSplitTheGroupInsteadOfFailingTheChunk() {
+        AtomicCatalogClient catalog = new AtomicCatalogClient();
+        catalog.addProduct(SCARCE_PRODUCT, Integer.MAX_VALUE);
+        catalog.addProduct(PLENTIFUL_PRODUCT, 1_000);
+        BulkOrderImporter importer = importer(catalog);
+
+        List<BulkOrderRequest> requests = List.of(
+                order(1L, SCARCE_PRODUCT, 2_000_000_000, PLENTIFUL_PRODUCT, 1),
+                order(2L, SCARCE_PRODUCT, 2_000_000_000, PLENTIFUL_PRODUCT, 1),
+                order(3L, SCARCE_PRODUCT, 2_000_000_000, SCARCE_PRODUCT, 2_000_000_000));
+
+        List<BulkOrderResult> results = importer.importChunk(requests);
+
+        // La suma del bloque no entra en un int: se parte y la primera orden entra sola
+        assertThat(results.get(0).getStatus()).isEqualTo(BulkOrderResult.Status.CREATED);
+        assertThat(results.get(1).getMessage()).contains("Stock insuficiente");
+        // Una sola orden que no entra se rechaza sin llamar a catalog-service
+        assertThat(results.get(2).getMessage()).contains("fuera de rango");
+        assertThat(catalog.decreaseCalls).isEqualTo(2);
+        assertThat(catalog.stockOf(SCARCE_PRODUCT)).isEqualTo(Integer.MAX_VALUE - 2_000_000_000);
+        assertThat(catalog.stockOf(PLENTIFUL_PRODUCT)).isEqualTo(999);
+    }
+
+    private static BulkOrderImporter importer(CatalogClient catalog) {
+        CartService cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        OrderService orderService = new OrderService(cartService, catalog, new HeapOrderStore(),
+                IdGenerator.sequential(), OrderWriteAheadLog.disabled(), OperationMetrics.disabled(),
+                OrderStatusBroadcaster.disabled(), 64);
+        return new BulkOrderImporter(orderService, catalog, OperationMetrics.disabled(), 500);
+    }
+
+    private static BulkOrderRequest order(long userId, long firstProduct, int firstQuantity,
+                                          long secondProduct, int secondQuantity) {
+        return new BulkOrderRequest(userId, List.of(
+                new BulkOrderRequest.Item(firstProduct, firstQuantity),
+                new BulkOrderRequest.Item(secondProduct, secondQuantity)));
+    }
+
+    /**
+     * Catálogo en memoria con la misma semántica que catalog-service: el descuento por
+     * lote suma por producto y se aplica todo o nada
+     */
+    private static class AtomicCatalogClient extends CatalogClient {
+
+        private final Map<Long, Integer> stock = new LinkedHashMap<>();
+        private int decreaseCalls;
+        private boolean loseNextResponse;
+
+        AtomicCatalogClient() {
+            super(null, "http://catalog.test", null, 0, null, null);
+        }
+
+        void addProduct(long productId, int units) {
+            stock.put(productId, units);
+        }
+
+        int stockOf(long productId) {
+            return stock.get(productId);
+        }
+
+        @Override
+        public ProductSnapshot getProductById(Long productId) {
+            if (!stock.containsKey(productId)) {
+                throw new ResourceNotFoundException("Producto", productId);
+            }
+            ProductSnapshot snapshot = new ProductSnapshot();
+            snapshot.setId(productId);
+            snapshot.setName("Producto " + productId);
+            snapshot.setPrice(BigDecimal.TEN);
+            snapshot.setStock(stock.get(productId));
+            return snapshot;
+        }
+
+        @Override
+        public Map<Long, ProductSnapshot> getProductsByIds(Collection<Long> productIds) {
+            Map<Long, ProductSnapshot> products = new LinkedHashMap<>();
+            productIds.forEach(id -> products.put(id, getProductById(id)));
+            return products;
+        }
+
+        @Override
+        public synchronized List<ProductSnapshot> decreaseStock(List<StockAdjustment> adjustments) {
+            decreaseCalls++;
+            Map<Long, Integer> requested = new LinkedHashMap<>();
+            adjustments.forEach(a -> requested.merge(a.getProductId(), a.getQuantity(), Integer::sum));
+            requested.forEach((productId, quantity) -> {
+                if (stock.get(productId) < quantity) {
+                    throw new InsufficientStockException("Stock insuficiente para Producto " + productId);
+                }
+            });
+
+            List<ProductSnapshot> updated = new ArrayList<>();
+            requested.forEach((productId, quantity) -> {
+                stock.merge(productId, -quantity, Integer::sum);
+                updated.add(getProductById(productId));
+            });
+            if (loseNextResponse) {
+                loseNextResponse = false;
+                throw new BusinessException("No se pudo descontar stock en catalog-service");
+            }
+            return updated;
+        }
+
+        @Override
+        public synchronized List<ProductSnapshot> increaseStock(List<StockAdjustment> adjustments) {
+            List<ProductSnapshot> updated = new ArrayList<>();
+            for (StockAdjustment adjustment : adjustments) {
+                stock.merge(adjustment.getProductId(), adjustment.getQuantity(), Integer::sum);
+                updated.add(getProductById(adjustment.getProductId()));
+            }
+            return updated;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    @Test
+    void concurrentDuplicatesWaitForTheInFlightCheckout() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(100, 60_000, 5_000);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Future<Order> first = pool.submit(() -> store.execute(1L, "k-1", () -> {
+            executions.incrementAndGet();
+            running.countDown();
+            await(release);
+            return order(10L);
+        }));
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Future<Order> duplicate = pool.submit(() -> store.execute(1L, "k-1", () -> {
+            executions.incrementAndGet();
+            return order(11L);
+        }));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo(10L);
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).getId()).isEqualTo(10L);
+        assertThat(executions).hasValue(1);
+        pool.shutdown();
+    }
+
+    @Test
+    void failedCheckoutIsNotRemembered() {
+        IdempotencyStore store = new IdempotencyStore(100, 60_000, 5_000);
+
+        assertThatThrownBy(() -> store.execute(1L, "k-1", () -> {
+            throw new BusinessException("Stock insuficiente");
+        })).isInstanceOf(BusinessException.class);
+
+        assertThat(store.execute(1L, "k-1", () -> order(20L)).getId()).isEqualTo(20L);
+        assertThat(store.execute(2L, "k-1", () -> order(21L)).getId()).isEqualTo(21L);
+    }
+
+    @Test
+    void oldestCompletedKeysAreEvictedWhenFull() {
+        IdempotencyStore store = new IdempotencyStore(2, 60_000, 5_000);
+        store.execute(1L, "a", () -> order(1L));
+        store.execute(1L, "b", () -> order(2L));
+        store.execute(1L, "c", () -> order(3L));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.execute(1L, "a", () -> order(4L)).getId()).isEqualTo(4L);
+        assertThat(store.execute(1L, "c", () -> order(5L)).getId()).isEqualTo(3L);
+    }
+
+    private static Order order(long id) {
+        return new Order(id, 1L, List.of(), BigDecimal.ONE);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
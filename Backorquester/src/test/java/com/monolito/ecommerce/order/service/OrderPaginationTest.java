@@ -0,0 +1,162 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.cart.service.CartExpiry;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.integration.catalog.StockAdjustment;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.model.OrderPage;
+import com.monolito.ecommerce.order.persistence.HeapOrderStore;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.InsufficientStockException;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderPaginationTest {
+
+    private static final long SLOW_PRODUCT = 1L;
+    private static final long FAST_PRODUCT = 2L;
+
+    private final BlockingCatalogClient catalog = new BlockingCatalogClient();
+    private final CartService cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+            OperationMetrics.disabled());
+    private final OrderService orderService = new OrderService(cartService, catalog, new HeapOrderStore(),
+            IdGenerator.sequential(), OrderWriteAheadLog.disabled(), OperationMetrics.disabled(),
+            OrderStatusBroadcaster.disabled(), 64);
+
+    @Test
+    void cursorWalksEveryOrderOnceAndEndsWithoutCursor() {
+        List<Order> orders = new ArrayList<>();
+        for (long userId = 1; userId <= 7; userId++) {
+            orders.add(new Order(null, userId, List.of(new OrderItem(FAST_PRODUCT, "Producto", BigDecimal.TEN, 1)),
+                    BigDecimal.TEN));
+        }
+        orderService.confirmAll(orders);
+
+        OrderPage first = orderService.getOrdersPage(null, 3);
+        assertThat(first.getItems()).extracting(Order::getId).containsExactly(1L, 2L, 3L);
+        assertThat(first.getNextCursor()).isEqualTo(3L);
+
+        OrderPage second = orderService.getOrdersPage(first.getNextCursor(), 3);
+        assertThat(second.getItems()).extracting(Order::getId).containsExactly(4L, 5L, 6L);
+
+        OrderPage last = orderService.getOrdersPage(second.getNextCursor(), 3);
+        assertThat(last.getItems()).extracting(Order::getId).containsExactly(7L);
+        assertThat(last.getNextCursor()).isNull();
+
+        assertThatThrownBy(() -> orderService.getOrdersPage(null, 0)).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> orderService.getOrdersPage(null, OrderService.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void pageStopsBeforeAnOrderWhoseCheckoutIsStillRunning() throws Exception {
+        cartService.addToCart(1L, SLOW_PRODUCT, 1);
+        cartService.addToCart(2L, FAST_PRODUCT, 1);
+        catalog.blocked = new CountDownLatch(1);
+        catalog.release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Order> slow = pool.submit(() -> orderService.createOrder(1L));
+        assertThat(catalog.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        Order fast = orderService.createOrder(2L);
+
+        // La orden 2 ya está guardada, la 1 (ID menor) todavía descuenta stock: un cursor en 2 la saltearía
+        OrderPage whileRunning = orderService.getOrdersPage(null, 10);
+        assertThat(whileRunning.getItems()).isEmpty();
+        assertThat(whileRunning.getNextCursor()).isNotNull();
+
+        catalog.release.countDown();
+        Order slowOrder = slow.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        OrderPage afterwards = orderService.getOrdersPage(whileRunning.getNextCursor(), 10);
+        assertThat(afterwards.getItems()).extracting(Order::getId).containsExactly(slowOrder.getId(), fast.getId());
+        assertThat(afterwards.getNextCursor()).isNull();
+    }
+
+    @Test
+    void revertedCheckoutDoesNotHoldPagesBack() {
+        cartService.addToCart(1L, SLOW_PRODUCT, 1);
+        cartService.addToCart(2L, FAST_PRODUCT, 1);
+        catalog.rejectSlow = true;
+
+        assertThatThrownBy(() -> orderService.createOrder(1L)).isInstanceOf(BusinessException.class);
+        Order fast = orderService.createOrder(2L);
+
+        OrderPage page = orderService.getOrdersPage(null, 10);
+        assertThat(page.getItems()).extracting(Order::getId).containsExactly(fast.getId());
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    /**
+     * Catálogo cuyo descuento del producto lento puede quedar esperando o rechazarse
+     */
+    private static class BlockingCatalogClient extends CatalogClient {
+
+        private volatile CountDownLatch blocked;
+        private volatile CountDownLatch release;
+        private volatile boolean rejectSlow;
+
+        BlockingCatalogClient() {
+            super(null, "http://catalog.test", null, 0, null, null);
+        }
+
+        @Override
+        public ProductSnapshot getProductById(Long productId) {
+            ProductSnapshot snapshot = new ProductSnapshot();
+            snapshot.setId(productId);
+            snapshot.setName("Producto " + productId);
+            snapshot.setPrice(BigDecimal.TEN);
+            snapshot.setStock(100);
+            return snapshot;
+        }
+
+        @Override
+        public List<ProductSnapshot> decreaseStock(List<StockAdjustment> adjustments) {
+            for (StockAdjustment adjustment : adjustments) {
+                if (adjustment.getProductId() != SLOW_PRODUCT) {
+                    continue;
+                }
+                if (rejectSlow) {
+                    throw new InsufficientStockException("Stock insuficiente para Producto " + SLOW_PRODUCT);
+                }
+                if (blocked != null) {
+                    blocked.countDown();
+                    awaitRelease();
+                }
+            }
+            return adjustments.stream().map(adjustment -> getProductById(adjustment.getProductId())).toList();
+        }
+
+        @Override
+        public List<ProductSnapshot> increaseStock(List<StockAdjustment> adjustments) {
+            return adjustments.stream().map(adjustment -> getProductById(adjustment.getProductId())).toList();
+        }
+
+        private void awaitRelease() {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.cart.service.CartExpiry;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.integration.catalog.StockAdjustment;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.persistence.HeapOrderStore;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Prueba de estrés del checkout concurrente
+ *
+ * El catálogo falso NO es atómico (lee, espera, escribe), así que solo los locks
+ * de OrderService evitan vender más stock del disponible.
+ */
+class OrderServiceConcurrencyTest {
+
+    private static final long LIMITED_PRODUCT = 1L;
+    private static final long SHARED_PRODUCT = 2L;
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        InMemoryCatalogClient catalog = new InMemoryCatalogClient();
+        catalog.addProduct(LIMITED_PRODUCT, 50);
+        catalog.addProduct(SHARED_PRODUCT, 1_000);
+
+        CartService cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        OrderService orderService = new OrderService(cartService, catalog, new HeapOrderStore(),
+                IdGenerator.sequential(), OrderWriteAheadLog.disabled(), OperationMetrics.disabled(),
+                OrderStatusBroadcaster.disabled(), 64);
+
+        int users = 200;
+        for (long userId = 1; userId <= users; userId++) {
+            cartService.addToCart(userId, LIMITED_PRODUCT, 1);
+            cartService.addToCart(userId, SHARED_PRODUCT, 2);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            long buyer = userId;
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    orderService.createOrder(buyer);
+                    return true;
+                } catch (BusinessException ex) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int confirmed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                confirmed++;
+            }
+        }
+        pool.shutdown();
+
+        assertThat(confirmed).isEqualTo(50);
+        assertThat(catalog.stockOf(LIMITED_PRODUCT)).isZero();
+        assertThat(catalog.stockOf(SHARED_PRODUCT)).isEqualTo(1_000 - 2 * confirmed);
+        assertThat(orderService.getAllOrders()).hasSize(confirmed);
+    }
+
+    @Test
+    void checkoutsWithDisjointCartsDoNotWaitForEachOther() throws Exception {
+        InMemoryCatalogClient catalog = new InMemoryCatalogClient();
+        catalog.addProduct(LIMITED_PRODUCT, 10);
+        catalog.addProduct(SHARED_PRODUCT, 10);
+
+        CartService cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        OrderService orderService = new OrderService(cartService, catalog, new HeapOrderStore(),
+                IdGenerator.sequential(), OrderWriteAheadLog.disabled(), OperationMetrics.disabled(),
+                OrderStatusBroadcaster.disabled(), 64);
+        cartService.addToCart(1L, LIMITED_PRODUCT, 1);
+        cartService.addToCart(2L, SHARED_PRODUCT, 1);
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        catalog.blockOn(LIMITED_PRODUCT, blocked, release);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<Order> slowCheckout = pool.submit(() -> orderService.createOrder(1L));
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        Order fastOrder = orderService.createOrder(2L);
+        assertThat(fastOrder.getUserId()).isEqualTo(2L);
+        assertThat(slowCheckout.isDone()).isFalse();
+
+        release.countDown();
+        assertThat(slowCheckout.get(5, TimeUnit.SECONDS).getUserId()).isEqualTo(1L);
+        pool.shutdown();
+    }
+
+    @Test
+    void uncertainStockDecreaseIsReportedAndNotRestored() {
+        InMemoryCatalogClient catalog = new InMemoryCatalogClient();
+        catalog.addProduct(LIMITED_PRODUCT, 10);
+        catalog.loseNextResponse = true;
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        OperationMetrics metrics = OperationMetrics.disabled();
+        metrics.bindTo(registry);
+        CartService cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        OrderService orderService = new OrderService(cartService, catalog, new HeapOrderStore(),
+                IdGenerator.sequential(), OrderWriteAheadLog.disabled(), metrics,
+                OrderStatusBroadcaster.disabled(), 64);
+        cartService.addToCart(1L, LIMITED_PRODUCT, 3);
+
+        assertThatThrownBy(() -> orderService.createOrder(1L))
+                .hasMessage("catalog-service no respondió a tiempo");
+
+        // El descuento se aplicó pero no se sabe: no se repone a ciegas, queda contado para revisar
+        assertThat(catalog.stockOf(LIMITED_PRODUCT)).isEqualTo(7);
+        assertThat(catalog.increaseCalls).isZero();
+        assertThat(registry.counter("orders.checkout.stock-uncertain").count()).isEqualTo(1);
+        assertThat(orderService.getAllOrders()).isEmpty();
+        assertThat(cartService.getCart(1L)).hasSize(1);
+    }
+
+    /**
+     * Catálogo en memoria con descuento de stock deliberadamente NO atómico
+     */
+    private static class InMemoryCatalogClient extends CatalogClient {
+
+        private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+        private volatile Long blockedProduct;
+        private volatile CountDownLatch blocked;
+        private volatile CountDownLatch release;
+        private volatile boolean loseNextResponse;
+        private volatile int increaseCalls;
+
+        InMemoryCatalogClient() {
+            super(null, "http://catalog.test", null, 0, null, null);
+        }
+
+        void addProduct(long productId, int units) {
+            stock.put(productId, units);
+        }
+
+        int stockOf(long productId) {
+            return stock.get(productId);
+        }
+
+        void blockOn(long productId, CountDownLatch blocked, CountDownLatch release) {
+            this.blocked = blocked;
+            this.release = release;
+            this.blockedProduct = productId;
+        }
+
+        @Override
+        public ProductSnapshot getProductById(Long productId) {
+            ProductSnapshot snapshot = new ProductSnapshot();
+            snapshot.setId(productId);
+            snapshot.setName("Producto " + productId);
+            snapshot.setPrice(BigDecimal.TEN);
+            snapshot.setStock(stock.get(productId));
+            return snapshot;
+        }
+
+        @Override
+        public List<ProductSnapshot> decreaseStock(List<StockAdjustment> adjustments) {
+            for (StockAdjustment adjustment : adjustments) {
+                if (adjustment.getProductId().equals(blockedProduct)) {
+                    blocked.countDown();
+                    awaitRelease();
+                }
+                if (stock.get(adjustment.getProductId()) < adjustment.getQuantity()) {
+                    throw new BusinessException("Stock insuficiente para producto " + adjustment.getProductId());
+                }
+            }
+
+            // Ventana de carrera: lectura y escritura separadas
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+
+            List<ProductSnapshot> updated = new ArrayList<>();
+            for (StockAdjustment adjustment : adjustments) {
+                int current = stock.get(adjustment.getProductId());
+                stock.put(adjustment.getProductId(), current - adjustment.getQuantity());
+                updated.add(getProductById(adjustment.getProductId()));
+            }
+            if (loseNextResponse) {
+                loseNextResponse = false;
+                throw new BusinessException("catalog-service no respondió a tiempo");
+            }
+            return updated;
+        }
+
+        @Override
+        public List<ProductSnapshot> increaseStock(List<StockAdjustment> adjustments) {
+            increaseCalls++;
+            List<ProductSnapshot> updated = new ArrayList<>();
+            for (StockAdjustment adjustment : adjustments) {
+                stock.merge(adjustment.getProductId(), adjustment.getQuantity(), Integer::sum);
+                updated.add(getProductById(adjustment.getProductId()));
+            }
+            return updated;
+        }
+
+        private void awaitRelease() {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
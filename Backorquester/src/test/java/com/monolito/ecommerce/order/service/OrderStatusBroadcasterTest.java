@@ -0,0 +1,302 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderStatusEvent;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderStatusBroadcasterTest {
+
+    private final ManualExecutor dispatcher = new ManualExecutor();
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+    private OrderStatusBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void slowClientLosesOldestEventsAndGetsOneResync() {
+        broadcaster = broadcaster(3, 5, 100);
+        broadcaster.subscribe(1L);
+
+        // Sin vaciar: HELLO + 5 eventos en una cola de 3
+        for (long orderId = 1; orderId <= 5; orderId++) {
+            broadcaster.publish(order(orderId, 1L));
+        }
+        dispatcher.runAll();
+
+        RecordingEmitter emitter = emitters.get(0);
+        assertThat(emitter.sent).containsExactly(
+                "resync {dropped=3}", "order-status 3", "order-status 4", "order-status 5");
+
+        // Después del resync el contador vuelve a cero
+        broadcaster.publish(order(6L, 1L));
+        dispatcher.runAll();
+        assertThat(emitter.sent).last().isEqualTo("order-status 6");
+    }
+
+    @Test
+    void pendingHeartbeatsAreCoalesced() {
+        broadcaster = broadcaster(8, 5, 100);
+        broadcaster.subscribe(1L);
+
+        broadcaster.sendHeartbeats();
+        broadcaster.sendHeartbeats();
+        broadcaster.sendHeartbeats();
+        dispatcher.runAll();
+
+        assertThat(emitters.get(0).sent).containsExactly("conectado", "heartbeat");
+    }
+
+    @Test
+    void perUserAndGlobalCapsRejectWithoutLeakingSlots() {
+        broadcaster = broadcaster(8, 2, 3);
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(1L);
+
+        assertThatThrownBy(() -> broadcaster.subscribe(1L)).isInstanceOf(BusinessException.class);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(2);
+
+        broadcaster.subscribe(2L);
+        assertThatThrownBy(() -> broadcaster.subscribe(3L)).isInstanceOf(BusinessException.class);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(3);
+    }
+
+    @Test
+    void failingEmitterIsRemovedAndCountedOnce() {
+        broadcaster = broadcaster(8, 2, 100);
+        broadcaster.subscribe(1L);
+        broadcaster.subscribe(1L);
+        RecordingEmitter broken = emitters.get(0);
+        broken.failing = true;
+
+        dispatcher.runAll();
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+
+        // El contenedor también avisa el error y el cierre: no se descuenta de nuevo
+        broken.fireError(new IOException("Broken pipe"));
+        broken.fireCompletion();
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+
+        broadcaster.publish(order(7L, 1L));
+        dispatcher.runAll();
+        assertThat(broken.sent).isEmpty();
+        assertThat(emitters.get(1).sent).containsExactly("conectado", "order-status 7");
+
+        // El lugar liberado se puede volver a usar
+        broadcaster.subscribe(1L);
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(2);
+    }
+
+    @Test
+    void stalledClientIsDroppedWithoutHoldingUpOthers() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(1);
+        broadcaster = broadcaster(8, 5, 100, 50, pool);
+        broadcaster.subscribe(1L);
+        RecordingEmitter stuck = emitters.get(0);
+        awaitSent(stuck, 1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        stuck.block = unblock;
+        broadcaster.publish(order(1L, 1L));
+        assertThat(stuck.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // El único hilo del pool está trabado en el envío: el otro cliente igual recibe sus eventos
+        broadcaster.subscribe(2L);
+        RecordingEmitter healthy = emitters.get(1);
+        broadcaster.publish(order(2L, 2L));
+        awaitSent(healthy, 2);
+        assertThat(healthy.sent).containsExactly("conectado", "order-status 2");
+        assertThat(broadcaster.getSubscriberCount()).isEqualTo(1);
+
+        // El cliente trabado ya no recibe más y se cierra cuando su envío termina
+        broadcaster.publish(order(3L, 1L));
+        unblock.countDown();
+        assertThat(stuck.completedWithError.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stuck.sent).containsExactly("conectado", "order-status 1");
+
+        // Se devolvió el hilo prestado
+        assertThat(((ThreadPoolExecutor) pool).getCorePoolSize()).isEqualTo(1);
+        pool.shutdownNow();
+    }
+
+    private OrderStatusBroadcaster broadcaster(int bufferSize, int maxPerUser, int maxSubscribers) {
+        return broadcaster(bufferSize, maxPerUser, maxSubscribers, 60_000, dispatcher);
+    }
+
+    private OrderStatusBroadcaster broadcaster(int bufferSize, int maxPerUser, int maxSubscribers,
+                                               long sendTimeoutMs, ExecutorService dispatcher) {
+        return new OrderStatusBroadcaster(true, bufferSize, maxPerUser, maxSubscribers,
+                60_000, 3_000, TimeUnit.HOURS.toMillis(1), sendTimeoutMs, dispatcher) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private static void awaitSent(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (emitter.sent.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static Order order(Long id, Long userId) {
+        return new Order(id, userId, List.of(), BigDecimal.TEN);
+    }
+
+    /**
+     * Ejecuta las tareas solo cuando la prueba lo pide
+     */
+    private static final class ManualExecutor extends AbstractExecutorService {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private boolean shutdown;
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            return pending;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && tasks.isEmpty();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return isTerminated();
+        }
+    }
+
+    /**
+     * Guarda cada envío como "evento datos" (o el comentario) y deja disparar los callbacks del contenedor
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private final List<Runnable> completionCallbacks = new ArrayList<>();
+        private final List<Consumer<Throwable>> errorCallbacks = new ArrayList<>();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch completedWithError = new CountDownLatch(1);
+        private boolean failing;
+        // Si no es null, el próximo envío queda esperando (socket de un cliente que no lee)
+        private volatile CountDownLatch block;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            CountDownLatch latch = block;
+            if (latch != null) {
+                block = null;
+                blocked.countDown();
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            String raw = builder.build().stream()
+                    .map(part -> part.getData() instanceof OrderStatusEvent event
+                            ? String.valueOf(event.getOrderId())
+                            : String.valueOf(part.getData()))
+                    .collect(Collectors.joining());
+            sent.add(describe(raw));
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completedWithError.countDown();
+        }
+
+        @Override
+        public void onCompletion(Runnable callback) {
+            completionCallbacks.add(callback);
+        }
+
+        @Override
+        public void onError(Consumer<Throwable> callback) {
+            errorCallbacks.add(callback);
+        }
+
+        void fireCompletion() {
+            completionCallbacks.forEach(Runnable::run);
+        }
+
+        void fireError(Throwable error) {
+            errorCallbacks.forEach(callback -> callback.accept(error));
+        }
+
+        private static String describe(String raw) {
+            String name = null;
+            StringBuilder data = new StringBuilder();
+            String comment = null;
+            for (String line : raw.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring("data:".length()));
+                } else if (line.startsWith(":")) {
+                    comment = line.substring(1);
+                } else if (!line.startsWith("id:") && !line.startsWith("retry:")) {
+                    data.append(line);
+                }
+            }
+            return name != null ? name + " " + data : comment;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.monolito.ecommerce.order.service;
+
+import com.monolito.ecommerce.cart.model.CartItem;
+import com.monolito.ecommerce.cart.persistence.CartStore;
+import com.monolito.ecommerce.cart.service.CartExpiry;
+import com.monolito.ecommerce.cart.service.CartService;
+import com.monolito.ecommerce.integration.FanOutExecutor;
+import com.monolito.ecommerce.integration.catalog.CatalogClient;
+import com.monolito.ecommerce.integration.catalog.ProductSnapshot;
+import com.monolito.ecommerce.integration.catalog.StockAdjustment;
+import com.monolito.ecommerce.order.model.Order;
+import com.monolito.ecommerce.order.model.OrderItem;
+import com.monolito.ecommerce.order.persistence.HeapOrderStore;
+import com.monolito.ecommerce.order.persistence.OrderWriteAheadLog;
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import com.monolito.ecommerce.shared.exception.DownstreamUnavailableException;
+import com.monolito.ecommerce.shared.id.IdGenerator;
+import com.monolito.ecommerce.shared.metrics.OperationMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PartitionedCheckoutTest {
+
+    private static final long SLOW_PRODUCT = 1L;
+    private static final long FAST_PRODUCT = 2L;
+
+    private final FanOutExecutor fanOutExecutor = new FanOutExecutor(16);
+    private final AtomicCatalogClient catalog = new AtomicCatalogClient();
+    private OrderService orderService;
+    private PartitionedCheckout checkout;
+
+    @AfterEach
+    void tearDown() {
+        checkout.shutdown();
+        fanOutExecutor.shutdown();
+    }
+
+    @Test
+    void partitionKeepsServingOtherUsersWhileAStockCallIsInFlight() throws Exception {
+        catalog.addProduct(SLOW_PRODUCT, 10);
+        catalog.addProduct(FAST_PRODUCT, 10);
+        checkout = partitioned(1, 1_000);
+
+        checkout.addToCart(1L, SLOW_PRODUCT, 1);
+        checkout.addToCart(2L, FAST_PRODUCT, 1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        catalog.blockOn(SLOW_PRODUCT, blocked, release);
+
+        CompletableFuture<Order> slow = checkout.submit(1L);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        // Mismo usuario: espera su turno en la partición (no ve el carrito a medio comprar)
+        CompletableFuture<Order> sameUser = checkout.submit(1L);
+        // Lo que agrega durante el checkout no se compra ni se pierde
+        checkout.addToCart(1L, FAST_PRODUCT, 2);
+
+        // Otro usuario en la misma (única) partición no espera al catálogo lento
+        assertThat(checkout.createOrder(2L).getUserId()).isEqualTo(2L);
+        assertThat(slow).isNotDone();
+        assertThat(sameUser).isNotDone();
+
+        release.countDown();
+        Order order = slow.get(5, TimeUnit.SECONDS);
+        assertThat(order.getItems()).extracting(OrderItem::getProductId).containsExactly(SLOW_PRODUCT);
+        // El segundo checkout compra lo agregado mientras tanto
+        assertThat(sameUser.get(5, TimeUnit.SECONDS).getItems())
+                .extracting(OrderItem::getProductId).containsExactly(FAST_PRODUCT);
+
+        assertThat(checkout.getCartSnapshot(1L).isEmpty()).isTrue();
+        assertThat(checkout.getOrdersByUser(1L)).extracting(Order::getId)
+                .containsExactly(order.getId(), sameUser.join().getId());
+        assertThat(catalog.stockOf(SLOW_PRODUCT)).isEqualTo(9);
+        assertThat(catalog.stockOf(FAST_PRODUCT)).isEqualTo(7);
+    }
+
+    @Test
+    void concurrentCheckoutsAcrossPartitionsNeverOversell() {
+        catalog.addProduct(SLOW_PRODUCT, 50);
+        catalog.addProduct(FAST_PRODUCT, 1_000);
+        checkout = partitioned(4, 1_000);
+
+        int users = 200;
+        for (long userId = 1; userId <= users; userId++) {
+            checkout.addToCart(userId, SLOW_PRODUCT, 1);
+            checkout.addToCart(userId, FAST_PRODUCT, 2);
+        }
+
+        List<CompletableFuture<Order>> results = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            results.add(checkout.submit(userId));
+        }
+        int confirmed = 0;
+        for (int i = 0; i < users; i++) {
+            long userId = i + 1L;
+            try {
+                Order order = results.get(i).join();
+                confirmed++;
+                assertThat(checkout.getCartSnapshot(userId).isEmpty()).isTrue();
+                assertThat(checkout.getOrdersByUser(userId)).containsExactly(order);
+            } catch (CompletionException ex) {
+                assertThat(ex.getCause()).isInstanceOf(BusinessException.class);
+                // Rechazado: el carrito queda como estaba y no hay orden
+                assertThat(checkout.getCartSnapshot(userId).getTotalItems()).isEqualTo(3);
+                assertThat(checkout.getOrdersByUser(userId)).isEmpty();
+            }
+        }
+
+        assertThat(confirmed).isEqualTo(50);
+        assertThat(catalog.stockOf(SLOW_PRODUCT)).isZero();
+        assertThat(catalog.stockOf(FAST_PRODUCT)).isEqualTo(1_000 - 2 * confirmed);
+    }
+
+    @Test
+    void cartChecksAccumulatedStockAndRemovalsEmptyTheCart() {
+        catalog.addProduct(FAST_PRODUCT, 3);
+        checkout = partitioned(2, 1_000);
+
+        CartItem item = checkout.addToCart(7L, FAST_PRODUCT, 2);
+        assertThat(item.getQuantity()).isEqualTo(2);
+        assertThatThrownBy(() -> checkout.addToCart(7L, FAST_PRODUCT, 2))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("cantidad solicitada");
+
+        checkout.removeFromCart(7L, FAST_PRODUCT);
+        assertThat(checkout.getCartSnapshot(7L).isEmpty()).isTrue();
+        assertThatThrownBy(() -> checkout.createOrder(7L)).hasMessageContaining("El carrito está vacío");
+    }
+
+    @Test
+    void ordersConfirmedOutsideThePartitionsReachTheUserIndex() {
+        catalog.addProduct(FAST_PRODUCT, 10);
+        checkout = partitioned(2, 1_000);
+
+        // Importación en lote: OrderService confirma y entrega la orden al índice de la partición
+        Order imported = new Order(null, 9L, List.of(new OrderItem(FAST_PRODUCT, "Producto", BigDecimal.TEN, 1)),
+                BigDecimal.TEN);
+        orderService.confirmAll(List.of(imported));
+
+        assertThat(checkout.getOrdersByUser(9L)).extracting(Order::getId).containsExactly(imported.getId());
+        assertThat(orderService.getOrdersByUser(9L)).isEmpty();
+    }
+
+    @Test
+    void tooManyPendingOperationsAreRejectedAndShutdownFailsWaiters() throws Exception {
+        catalog.addProduct(SLOW_PRODUCT, 10);
+        checkout = partitioned(1, 2);
+
+        checkout.addToCart(1L, SLOW_PRODUCT, 1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        catalog.blockOn(SLOW_PRODUCT, blocked, release);
+
+        CompletableFuture<Order> inFlight = checkout.submit(1L);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Order> waiting = checkout.submit(1L);
+        assertThatThrownBy(() -> checkout.submit(1L).join())
+                .hasCauseInstanceOf(DownstreamUnavailableException.class);
+
+        checkout.shutdown();
+        assertThatThrownBy(() -> waiting.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(DownstreamUnavailableException.class);
+        assertThatThrownBy(() -> checkout.getCartSnapshot(1L)).isInstanceOf(DownstreamUnavailableException.class);
+
+        // El stock ya estaba en camino: la orden existe y se devuelve aunque la partición cerró
+        release.countDown();
+        Order order = inFlight.get(5, TimeUnit.SECONDS);
+        assertThat(orderService.getOrderById(order.getId())).isEqualTo(order);
+    }
+
+    private PartitionedCheckout partitioned(int partitions, int maxPending) {
+        CartService cartService = new CartService(catalog, CartStore.disabled(), CartExpiry.disabled(),
+                OperationMetrics.disabled());
+        orderService = new OrderService(cartService, catalog, new HeapOrderStore(), IdGenerator.sequential(),
+                OrderWriteAheadLog.disabled(), OperationMetrics.disabled(), OrderStatusBroadcaster.disabled(), 64);
+        return new PartitionedCheckout(orderService, catalog, fanOutExecutor, OperationMetrics.disabled(),
+                partitions, maxPending, 10_000, 0);
+    }
+
+    /**
+     * Catálogo en memoria con la semántica de catalog-service: descuento todo o nada
+     */
+    private static class AtomicCatalogClient extends CatalogClient {
+
+        private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+        private volatile Long blockedProduct;
+        private volatile CountDownLatch blocked;
+        private volatile CountDownLatch release;
+
+        AtomicCatalogClient() {
+            super(null, "http://catalog.test", null, 0, null, null);
+        }
+
+        void addProduct(long productId, int units) {
+            stock.put(productId, units);
+        }
+
+        int stockOf(long productId) {
+            return stock.get(productId);
+        }
+
+        void blockOn(long productId, CountDownLatch blocked, CountDownLatch release) {
+            this.blocked = blocked;
+            this.release = release;
+            this.blockedProduct = productId;
+        }
+
+        @Override
+        public ProductSnapshot getProductById(Long productId) {
+            ProductSnapshot snapshot = new ProductSnapshot();
+            snapshot.setId(productId);
+            snapshot.setName("Producto " + productId);
+            snapshot.setPrice(BigDecimal.TEN);
+            snapshot.setStock(stock.get(productId));
+            return snapshot;
+        }
+
+        @Override
+        public List<ProductSnapshot> decreaseStock(List<StockAdjustment> adjustments) {
+            if (adjustments.stream().anyMatch(a -> a.getProductId().equals(blockedProduct))) {
+                blockedProduct = null;
+                blocked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            synchronized (this) {
+                for (StockAdjustment adjustment : adjustments) {
+                    if (stock.get(adjustment.getProductId()) < adjustment.getQuantity()) {
+                        throw new BusinessException("Stock insuficiente para producto " + adjustment.getProductId());
+                    }
+                }
+                List<ProductSnapshot> updated = new ArrayList<>();
+                for (StockAdjustment adjustment : adjustments) {
+                    stock.merge(adjustment.getProductId(), -adjustment.getQuantity(), Integer::sum);
+                    updated.add(getProductById(adjustment.getProductId()));
+                }
+                return updated;
+            }
+        }
+
+        @Override
+        public List<ProductSnapshot> increaseStock(List<StockAdjustment> adjustments) {
+            List<ProductSnapshot> updated = new ArrayList<>();
+            for (StockAdjustment adjustment : adjustments) {
+                stock.merge(adjustment.getProductId(), adjustment.getQuantity(), Integer::sum);
+                updated.add(getProductById(adjustment.getProductId()));
+            }
+            return updated;
+        }
+    }
+}
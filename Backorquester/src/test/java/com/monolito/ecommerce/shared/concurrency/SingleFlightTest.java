@@ -0,0 +1,98 @@
+package com.monolito.ecommerce.shared.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void concurrentCallersShareOneCallAndItsResult() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.execute(7L, () -> {
+                    calls.incrementAndGet();
+                    await(release);
+                    return "producto-7";
+                })));
+            }
+            waitUntilCollapsed(flight, CALLERS - 1);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("producto-7");
+            }
+            assertThat(calls).hasValue(1);
+            assertThat(flight.inFlight()).isZero();
+
+            // Terminada la llamada, la clave se libera
+            assertThat(flight.execute(7L, () -> "otra")).isEqualTo("otra");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitersReceiveTheSameError() throws Exception {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = pool.submit(() -> flight.execute(1L, () -> {
+                await(release);
+                throw new IllegalStateException("catalog caído");
+            }));
+            waitUntilInFlight(flight);
+            Future<String> follower = pool.submit(() -> flight.execute(1L, () -> "no debería llamarse"));
+            waitUntilCollapsed(flight, 1);
+            release.countDown();
+
+            assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("catalog caído");
+            assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasRootCauseMessage("catalog caído");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void waitUntilInFlight(SingleFlight<?, ?> flight) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.inFlight() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void waitUntilCollapsed(SingleFlight<?, ?> flight, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.collapsed() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(flight.collapsed()).isEqualTo(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.monolito.ecommerce.shared.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void timersAcrossSeveralLevelsFireOnTheirTick() {
+        // 4 casilleros de 10 ms: niveles de 40 ms, 160 ms, 640 ms, 2560 ms...
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 4, 0);
+        Map<Long, Long> firedAt = new HashMap<>();
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            deadlines.add(ThreadLocalRandom.current().nextLong(0, 50_000));
+        }
+        deadlines.add(40L);
+        deadlines.add(160L);
+        deadlines.add(2_560L);
+        for (Long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        for (long now = 0; now <= 50_000; now += 10) {
+            long tickNow = now;
+            wheel.advance(now, deadline -> firedAt.merge(deadline, tickNow, Math::max));
+        }
+
+        assertThat(wheel.size()).isZero();
+        for (Long deadline : deadlines) {
+            // Vence en el primer tick que alcanza su deadline
+            assertThat(firedAt.get(deadline)).isEqualTo((deadline + 9) / 10 * 10);
+        }
+    }
+
+    @Test
+    void timersScheduledLaterAndInThePastStillFireOnTime() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(1_000, fired::add);
+        wheel.schedule("pasado", 500);
+        wheel.schedule("lejano", 1_000 + 7_777);
+        wheel.advance(1_010, fired::add);
+        assertThat(fired).containsExactly("pasado");
+
+        wheel.advance(8_770, fired::add);
+        assertThat(fired).containsExactly("pasado");
+        wheel.advance(8_780, fired::add);
+        assertThat(fired).containsExactly("pasado", "lejano");
+    }
+}
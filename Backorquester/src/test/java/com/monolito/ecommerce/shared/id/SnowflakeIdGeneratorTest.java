@@ -0,0 +1,124 @@
+package com.monolito.ecommerce.shared.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH_MS + 1_000_000;
+
+    @Test
+    void idsCarryTimestampAndNodeAndDifferAcrossNodes() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator nodeA = new SnowflakeIdGenerator(1, 1000, clock::get);
+        SnowflakeIdGenerator nodeB = new SnowflakeIdGenerator(2, 1000, clock::get);
+
+        long a = nodeA.nextId();
+        long b = nodeB.nextId();
+
+        assertThat(a).isPositive().isNotEqualTo(b);
+        assertThat(SnowflakeIdGenerator.nodeOf(a)).isEqualTo(1);
+        assertThat(SnowflakeIdGenerator.nodeOf(b)).isEqualTo(2);
+        assertThat(SnowflakeIdGenerator.timestampOf(a)).isEqualTo(NOW);
+    }
+
+    @Test
+    void exhaustedSequenceAndBackwardClockKeepIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 1000, clock::get);
+
+        long previous = 0;
+        // 3 milisegundos de secuencia en el mismo milisegundo de reloj: toma prestados los siguientes
+        for (int i = 0; i < 3 * 4096; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        assertThat(SnowflakeIdGenerator.timestampOf(previous)).isEqualTo(NOW + 2);
+
+        // El reloj retrocede (ajuste NTP): se sigue desde el último emitido
+        clock.set(NOW - 500);
+        assertThat(generator.nextId()).isGreaterThan(previous);
+    }
+
+    @Test
+    void refusesIdsWhenTheClockFallsFarBehind() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, 1000, clock::get);
+        generator.nextId();
+
+        clock.set(NOW - 5_000);
+        assertThatThrownBy(generator::nextId)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Reloj del sistema");
+
+        clock.set(NOW + 1);
+        assertThat(SnowflakeIdGenerator.timestampOf(generator.nextId())).isEqualTo(NOW + 1);
+    }
+
+    @Test
+    void advancePastSkipsIdsAlreadyIssuedByThisNode() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator before = new SnowflakeIdGenerator(3, 1000, clock::get);
+        long issued = 0;
+        for (int i = 0; i < 100; i++) {
+            issued = before.nextId();
+        }
+
+        // Reinicio con el reloj atrasado: lo leído del log manda
+        clock.set(NOW - 200);
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(3, 1000, clock::get);
+        restarted.advancePast(issued);
+        restarted.advancePast(new SnowflakeIdGenerator(4, 1000, () -> NOW + 900).nextId());
+
+        long next = restarted.nextId();
+        assertThat(next).isGreaterThan(issued);
+        assertThat(SnowflakeIdGenerator.timestampOf(next)).isEqualTo(NOW);
+    }
+
+    @Test
+    void concurrentCallersNeverGetTheSameId() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, 1000);
+        int threads = 8;
+        int perThread = 50_000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(pool.submit(() -> {
+                    long[] ids = new long[perThread];
+                    for (int i = 0; i < perThread; i++) {
+                        ids[i] = generator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+
+            Set<Long> unique = new HashSet<>();
+            for (Future<long[]> result : results) {
+                long[] ids = result.get();
+                for (int i = 0; i < ids.length; i++) {
+                    unique.add(ids[i]);
+                    if (i > 0) {
+                        assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                    }
+                }
+            }
+            assertThat(unique).hasSize(threads * perThread);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
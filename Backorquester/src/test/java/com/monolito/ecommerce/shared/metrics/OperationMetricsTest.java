@@ -0,0 +1,47 @@
+package com.monolito.ecommerce.shared.metrics;
+
+import com.monolito.ecommerce.shared.exception.BusinessException;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OperationMetricsTest {
+
+    @Test
+    void recordsLatencyHistogramAndErrorsByExceptionType() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        OperationMetrics metrics = OperationMetrics.disabled();
+        metrics.bindTo(registry);
+        Tags tags = Tags.of("operation", "add");
+
+        assertThat(metrics.record("carts.operations", tags, () -> 42)).isEqualTo(42);
+        assertThatThrownBy(() -> metrics.record("carts.operations", tags, () -> {
+            throw new BusinessException("Stock insuficiente");
+        })).isInstanceOf(BusinessException.class);
+
+        assertThat(registry.get("carts.operations").tags("operation", "add", "exception", "none").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get("carts.operations.errors").tags("exception", "BusinessException").counter().count())
+                .isEqualTo(1);
+
+        String scrape = registry.scrape();
+        assertThat(scrape).contains("carts_operations_seconds_bucket{exception=\"none\",operation=\"add\",le=");
+        assertThat(scrape).contains("carts_operations_errors_total{exception=\"BusinessException\",operation=\"add\"} 1.0");
+    }
+
+    @Test
+    void measuresNothingUntilBound() {
+        OperationMetrics metrics = OperationMetrics.disabled();
+        metrics.record("orders.checkout", Tags.empty(), () -> { });
+
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        metrics.bindTo(registry);
+        metrics.record("orders.checkout", Tags.empty(), () -> { });
+
+        assertThat(registry.get("orders.checkout").timer().count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,45 @@
+package com.monolito.ecommerce.shared.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestTimingTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestTiming.end();
+    }
+
+    @Test
+    void serverTimingSplitsOwnTimeFromDownstreamCalls() {
+        RequestTiming timing = RequestTiming.begin("req-1");
+        RequestTiming.recordDownstream("catalog-service", TimeUnit.MILLISECONDS.toNanos(4));
+        RequestTiming.recordDownstream("catalog-service", TimeUnit.MILLISECONDS.toNanos(6));
+        RequestTiming.recordDownstream("auth-service", TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertThat(timing.downstreamNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(11));
+        assertThat(timing.serverTiming())
+                .matches("total;dur=\\d+\\.\\d{2}, app;dur=\\d+\\.\\d{2}, "
+                        + "catalog-service;dur=10\\.00;desc=\"2 llamadas\", auth-service;dur=1\\.00;desc=\"1 llamada\"");
+    }
+
+    @Test
+    void downstreamCallsOutsideARequestAreIgnored() {
+        RequestTiming.recordDownstream("catalog-service", 1_000);
+
+        assertThat(RequestTiming.current()).isNull();
+    }
+
+    @Test
+    void rejectsRequestIdsThatCouldBreakLogsOrHeaders() {
+        assertThat(RequestTiming.isValidRequestId("3f2c9a1e-7b4d-4e8a-9c1f-0a2b3c4d5e6f")).isTrue();
+        assertThat(RequestTiming.isValidRequestId("abc\r\nSet-Cookie: x")).isFalse();
+        assertThat(RequestTiming.isValidRequestId("x".repeat(65))).isFalse();
+        assertThat(RequestTiming.isValidRequestId("")).isFalse();
+        assertThat(RequestTiming.isValidRequestId(null)).isFalse();
+    }
+}
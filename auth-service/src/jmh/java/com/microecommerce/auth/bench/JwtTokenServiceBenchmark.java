@@ -0,0 +1,52 @@
+package com.microecommerce.auth.bench;
+
+import com.microecommerce.auth.auth.service.JwtTokenService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emisión (exchange de token federado) y validación (cada petición autenticada) del JWT propio
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenServiceBenchmark {
+
+    private JwtTokenService jwtTokenService;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtTokenService = new JwtTokenService("benchmark-secret-key-with-at-least-32-bytes");
+        // Se inyecta por campo con @Value
+        ReflectionTestUtils.setField(jwtTokenService, "expirationSeconds", 3600L);
+        jwtTokenService.init();
+        token = generateAccessToken();
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtTokenService.generateAccessToken(42L, "user42@mail.test", "google", "google-sub-42");
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtTokenService.parseToken(token);
+    }
+}
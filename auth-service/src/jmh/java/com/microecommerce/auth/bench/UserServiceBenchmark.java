@@ -0,0 +1,67 @@
+package com.microecommerce.auth.bench;
+
+import com.microecommerce.auth.shared.id.IdGenerator;
+import com.microecommerce.auth.user.model.User;
+import com.microecommerce.auth.user.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UserService de auth-service: registro y login con N usuarios ya registrados
+ *
+ * El registro agrega usuarios, así que cada iteración parte de un servicio nuevo con N
+ * usuarios y mide un lote fijo de registros (SingleShotTime): el tamaño no se desvía con el tiempo.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private static final int REGISTRATIONS_PER_BATCH = 1_000;
+
+    @Param({"1000", "10000"})
+    public int users;
+
+    private UserService userService;
+    private int next;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        userService = new UserService(IdGenerator.sequential());
+        for (int i = 0; i < users; i++) {
+            userService.registerUser("user" + i, "user" + i + "@mail.test", "secret" + i, "Usuario " + i);
+        }
+        next = users;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = REGISTRATIONS_PER_BATCH)
+    @Measurement(iterations = 10, batchSize = REGISTRATIONS_PER_BATCH)
+    public User register() {
+        int i = next++;
+        return userService.registerUser("user" + i, "user" + i + "@mail.test", "secret" + i, "Usuario " + i);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public User login() {
+        int i = ThreadLocalRandom.current().nextInt(users);
+        return userService.login("user" + i, "secret" + i);
+    }
+}
@@ -0,0 +1,46 @@
+package com.microecommerce.auth.config;
+
+import com.microecommerce.auth.shared.id.IdGenerator;
+import com.microecommerce.auth.shared.id.IdGeneratorType;
+import com.microecommerce.auth.shared.id.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdGeneratorConfig.class);
+
+    @Bean
+    public IdGenerator idGenerator(
+            @Value("${ids.generator:SNOWFLAKE}") IdGeneratorType type,
+            @Value("${ids.node-id:-1}") int nodeId,
+            @Value("${ids.snowflake.max-drift-ms:2000}") long maxDriftMs,
+            @Value("${server.port:8080}") int serverPort) {
+        if (type == IdGeneratorType.SEQUENTIAL) {
+            return type.create(0, maxDriftMs);
+        }
+
+        int node = nodeId;
+        if (node < 0) {
+            node = Math.floorMod((hostName() + ":" + serverPort).hashCode(), SnowflakeIdGenerator.MAX_NODE_ID + 1);
+            LOGGER.warn("ids.node-id no configurado: se usa {} (hash de host y puerto). "
+                    + "Con varias instancias configurar uno distinto en cada una", node);
+        }
+        return type.create(node, maxDriftMs);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return "localhost";
+        }
+    }
+}
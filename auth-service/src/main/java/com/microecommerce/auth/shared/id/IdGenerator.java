@@ -0,0 +1,10 @@
+package com.microecommerce.auth.shared.id;
+
+public interface IdGenerator {
+
+    long nextId();
+
+    static IdGenerator sequential() {
+        return new SequentialIdGenerator();
+    }
+}
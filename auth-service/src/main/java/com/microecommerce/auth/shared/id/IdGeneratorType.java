@@ -0,0 +1,10 @@
+package com.microecommerce.auth.shared.id;
+
+public enum IdGeneratorType {
+    SNOWFLAKE,
+    SEQUENTIAL;
+
+    public IdGenerator create(int nodeId, long maxDriftMs) {
+        return this == SNOWFLAKE ? new SnowflakeIdGenerator(nodeId, maxDriftMs) : new SequentialIdGenerator();
+    }
+}
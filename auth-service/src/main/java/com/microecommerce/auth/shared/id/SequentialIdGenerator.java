@@ -0,0 +1,13 @@
+package com.microecommerce.auth.shared.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SequentialIdGenerator implements IdGenerator {
+
+    private final AtomicLong next = new AtomicLong(1);
+
+    @Override
+    public long nextId() {
+        return next.getAndIncrement();
+    }
+}
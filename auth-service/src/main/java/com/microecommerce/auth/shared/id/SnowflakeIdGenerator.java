@@ -0,0 +1,45 @@
+package com.microecommerce.auth.shared.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class SnowflakeIdGenerator implements IdGenerator {
+
+    private static final long EPOCH_MS = 1_767_225_600_000L;
+    private static final int NODE_BITS = 10;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final long maxDriftMs;
+
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId, long maxDriftMs) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("ids.node-id debe estar entre 0 y " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.maxDriftMs = maxDriftMs;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long now = System.currentTimeMillis() - EPOCH_MS;
+            long next = Math.max(previous + 1, now << SEQUENCE_BITS);
+            long drift = (next >>> SEQUENCE_BITS) - now;
+            if (drift > maxDriftMs) {
+                throw new IllegalStateException(String.format(
+                        "Reloj del sistema %d ms detrás del último ID emitido por el nodo %d", drift, nodeId));
+            }
+            if (last.compareAndSet(previous, next)) {
+                return (next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | nodeId << SEQUENCE_BITS
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.microecommerce.auth.user.model;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 public class UserResponse {
 
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
     private Long id;
     private String username;
     private String email;
@@ -2,6 +2,7 @@ package com.microecommerce.auth.user.service;
 
 import com.microecommerce.auth.shared.exception.BusinessException;
 import com.microecommerce.auth.shared.exception.ResourceNotFoundException;
+import com.microecommerce.auth.shared.id.IdGenerator;
 import com.microecommerce.auth.user.model.User;
 import org.springframework.stereotype.Service;
 
@@ -9,14 +10,17 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class UserService {
 
     private final Map<Long, User> userDatabase = new ConcurrentHashMap<>();
     private final Map<String, Long> federatedIdentityIndex = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final IdGenerator idGenerator;
+
+    public UserService(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
 
     public User registerUser(String username, String email, String password, String fullName) {
         boolean usernameExists = userDatabase.values().stream()
@@ -33,7 +37,7 @@ public class UserService {
             throw new BusinessException("El email ya está registrado: " + email);
         }
 
-        Long userId = idGenerator.getAndIncrement();
+        Long userId = idGenerator.nextId();
         User user = new User(userId, username, email, password, fullName);
         userDatabase.put(userId, user);
         return user;
@@ -80,7 +84,7 @@ public class UserService {
             return byEmail;
         }
 
-        Long userId = idGenerator.getAndIncrement();
+        Long userId = idGenerator.nextId();
         String username = generateUniqueUsernameFromEmail(email);
         User user = new User(userId, username, email, "", fullName);
         userDatabase.put(userId, user);
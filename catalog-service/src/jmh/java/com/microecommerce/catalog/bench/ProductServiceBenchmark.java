@@ -0,0 +1,82 @@
+package com.microecommerce.catalog.bench;
+
+import com.microecommerce.catalog.product.model.Product;
+import com.microecommerce.catalog.product.model.StockAdjustment;
+import com.microecommerce.catalog.product.service.ProductService;
+import com.microecommerce.catalog.shared.id.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductService de catalog-service
+ *
+ * - byCategory: filtro por categoría sobre todos los productos (10 categorías)
+ * - decreaseStock: descuento por lote (3 productos) como lo pide el checkout, con 1 y 4 hilos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int CATEGORIES = 10;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Param({"1000", "100000"})
+    public int products;
+
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        productService = new ProductService(IdGenerator.sequential());
+        for (int i = 0; i < products; i++) {
+            productService.createProduct("Producto " + i, "Descripción " + i,
+                    BigDecimal.valueOf(1_000 + i, 2), Integer.MAX_VALUE, "Categoria" + (i % CATEGORIES));
+        }
+    }
+
+    @Benchmark
+    public List<Product> byCategory() {
+        return productService.getProductsByCategory("categoria" + ThreadLocalRandom.current().nextInt(CATEGORIES));
+    }
+
+    @Benchmark
+    public List<Product> decreaseStock() {
+        return productService.decreaseStock(randomOrder());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<Product> decreaseStockContended() {
+        return productService.decreaseStock(randomOrder());
+    }
+
+    private List<StockAdjustment> randomOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<StockAdjustment> adjustments = new ArrayList<>(ITEMS_PER_ORDER);
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            adjustments.add(new StockAdjustment(1L + random.nextInt(products), 1));
+        }
+        return adjustments;
+    }
+}
@@ -23,6 +23,7 @@ public class CorsConfig implements WebMvcConfigurer {
             .allowedOriginPatterns(origins)
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("X-Request-Id")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -2,6 +2,7 @@ package com.microecommerce.catalog.product.controller;
 
 import com.microecommerce.catalog.product.model.Product;
 import com.microecommerce.catalog.product.model.ProductRequest;
+import com.microecommerce.catalog.product.model.StockBatchRequest;
 import com.microecommerce.catalog.product.service.ProductService;
 import com.microecommerce.catalog.shared.dto.ApiResponse;
 import org.springframework.http.HttpStatus;
@@ -63,6 +64,18 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success("Stock actualizado", product));
     }
 
+    @PostMapping("/stock/decrease")
+    public ResponseEntity<ApiResponse<List<Product>>> decreaseStock(@RequestBody StockBatchRequest request) {
+        List<Product> products = productService.decreaseStock(request.getItems());
+        return ResponseEntity.ok(ApiResponse.success("Stock descontado", products));
+    }
+
+    @PostMapping("/stock/increase")
+    public ResponseEntity<ApiResponse<List<Product>>> increaseStock(@RequestBody StockBatchRequest request) {
+        List<Product> products = productService.increaseStock(request.getItems());
+        return ResponseEntity.ok(ApiResponse.success("Stock repuesto", products));
+    }
+
     @PutMapping("/{id}/price")
     public ResponseEntity<ApiResponse<Product>> updatePrice(
             @PathVariable Long id,
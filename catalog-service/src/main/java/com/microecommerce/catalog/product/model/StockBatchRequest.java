@@ -0,0 +1,23 @@
+package com.microecommerce.catalog.product.model;
+
+import java.util.List;
+
+public class StockBatchRequest {
+
+    private List<StockAdjustment> items;
+
+    public StockBatchRequest() {
+    }
+
+    public StockBatchRequest(List<StockAdjustment> items) {
+        this.items = items;
+    }
+
+    public List<StockAdjustment> getItems() {
+        return items;
+    }
+
+    public void setItems(List<StockAdjustment> items) {
+        this.items = items;
+    }
+}
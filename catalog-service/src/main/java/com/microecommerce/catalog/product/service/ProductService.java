@@ -1,23 +1,29 @@
 package com.microecommerce.catalog.product.service;
 
 import com.microecommerce.catalog.product.model.Product;
+import com.microecommerce.catalog.product.model.StockAdjustment;
 import com.microecommerce.catalog.shared.exception.BusinessException;
 import com.microecommerce.catalog.shared.exception.ResourceNotFoundException;
+import com.microecommerce.catalog.shared.id.IdGenerator;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
 
     private final Map<Long, Product> productDatabase = new ConcurrentHashMap<>();
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final IdGenerator idGenerator;
+
+    public ProductService(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
 
     public Product createProduct(String name, String description, BigDecimal price, Integer stock, String category) {
         if (price.compareTo(BigDecimal.ZERO) <= 0) {
@@ -28,7 +34,7 @@ public class ProductService {
             throw new BusinessException("El stock no puede ser negativo");
         }
 
-        Long productId = idGenerator.getAndIncrement();
+        Long productId = idGenerator.nextId();
         Product product = new Product(productId, name, description, price, stock, category);
         productDatabase.put(productId, product);
         return product;
@@ -62,6 +68,44 @@ public class ProductService {
         product.setStock(newStock);
     }
 
+    public synchronized List<Product> decreaseStock(List<StockAdjustment> adjustments) {
+        Map<Long, Integer> requested = aggregate(adjustments);
+
+        List<Product> products = new ArrayList<>(requested.size());
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            Product product = getProductById(entry.getKey());
+            if (product.getStock() < entry.getValue()) {
+                throw new BusinessException(
+                        String.format("Stock insuficiente para %s. Disponible: %d, Solicitado: %d",
+                                product.getName(), product.getStock(), entry.getValue()));
+            }
+            products.add(product);
+        }
+
+        for (Product product : products) {
+            product.setStock(product.getStock() - requested.get(product.getId()));
+        }
+        return products;
+    }
+
+    public synchronized List<Product> increaseStock(List<StockAdjustment> adjustments) {
+        Map<Long, Integer> requested = aggregate(adjustments);
+
+        List<Product> products = new ArrayList<>(requested.size());
+        for (Map.Entry<Long, Integer> entry : requested.entrySet()) {
+            Product product = getProductById(entry.getKey());
+            if (product.getStock() > Integer.MAX_VALUE - entry.getValue()) {
+                throw new BusinessException("Stock fuera de rango para " + product.getName());
+            }
+            products.add(product);
+        }
+
+        for (Product product : products) {
+            product.setStock(product.getStock() + requested.get(product.getId()));
+        }
+        return products;
+    }
+
     public Product updatePrice(Long productId, BigDecimal newPrice) {
         Product product = getProductById(productId);
 
@@ -72,4 +116,26 @@ public class ProductService {
         product.setPrice(newPrice);
         return product;
     }
+
+    private Map<Long, Integer> aggregate(List<StockAdjustment> adjustments) {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new BusinessException("Debe indicar al menos un producto");
+        }
+
+        Map<Long, Integer> requested = new LinkedHashMap<>();
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getProductId() == null) {
+                throw new BusinessException("El producto es obligatorio");
+            }
+            if (adjustment.getQuantity() == null || adjustment.getQuantity() <= 0) {
+                throw new BusinessException("La cantidad debe ser mayor a cero");
+            }
+            int total = requested.getOrDefault(adjustment.getProductId(), 0);
+            if (total > Integer.MAX_VALUE - adjustment.getQuantity()) {
+                throw new BusinessException("Cantidad total fuera de rango para el producto " + adjustment.getProductId());
+            }
+            requested.put(adjustment.getProductId(), total + adjustment.getQuantity());
+        }
+        return requested;
+    }
 }
@@ -0,0 +1,148 @@
+package com.microecommerce.catalog.product.controller;
+
+import com.microecommerce.catalog.product.model.Product;
+import com.microecommerce.catalog.product.service.ProductService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProductStockControllerTest {
+
+    @LocalServerPort
+    int port;
+
+    @Value("${auth.jwt.secret}")
+    String jwtSecret;
+
+    @Autowired
+    ProductService productService;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Product keyboard;
+    private Product mouse;
+
+    @BeforeEach
+    void setUp() {
+        keyboard = productService.createProduct("Teclado", "Mecánico", BigDecimal.TEN, 10, "perifericos");
+        mouse = productService.createProduct("Mouse", "Óptico", BigDecimal.ONE, 3, "perifericos");
+    }
+
+    @Test
+    void decreaseAppliesEveryLineAddingUpRepeatedProducts() throws Exception {
+        HttpResponse<String> response = post("/stock/decrease",
+                items(line(keyboard, 2), line(mouse, 1), line(keyboard, 3)));
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("\"stock\":5").contains("\"stock\":2");
+        assertThat(stockOf(keyboard)).isEqualTo(5);
+        assertThat(stockOf(mouse)).isEqualTo(2);
+    }
+
+    @Test
+    void decreaseChangesNothingWhenOneProductFallsShort() throws Exception {
+        HttpResponse<String> response = post("/stock/decrease", items(line(keyboard, 2), line(mouse, 4)));
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("Stock insuficiente para Mouse");
+        assertThat(stockOf(keyboard)).isEqualTo(10);
+        assertThat(stockOf(mouse)).isEqualTo(3);
+    }
+
+    @Test
+    void decreaseChangesNothingWhenAProductDoesNotExist() throws Exception {
+        HttpResponse<String> response = post("/stock/decrease",
+                "{\"items\":[" + line(keyboard, 2) + ",{\"productId\":-1,\"quantity\":1}]}");
+
+        assertThat(response.statusCode()).isEqualTo(404);
+        assertThat(stockOf(keyboard)).isEqualTo(10);
+    }
+
+    @Test
+    void repeatedLinesWhoseSumOverflowsAreRejected() throws Exception {
+        HttpResponse<String> response = post("/stock/decrease",
+                items(line(keyboard, Integer.MAX_VALUE), line(keyboard, 2)));
+
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("fuera de rango");
+        assertThat(stockOf(keyboard)).isEqualTo(10);
+    }
+
+    @Test
+    void increaseRestoresEveryLineOrNoneWhenAStockWouldOverflow() throws Exception {
+        HttpResponse<String> restored = post("/stock/increase", items(line(keyboard, 2), line(mouse, 1)));
+        assertThat(restored.statusCode()).isEqualTo(200);
+        assertThat(stockOf(keyboard)).isEqualTo(12);
+        assertThat(stockOf(mouse)).isEqualTo(4);
+
+        HttpResponse<String> overflow = post("/stock/increase",
+                items(line(keyboard, 1), line(mouse, Integer.MAX_VALUE - 1)));
+        assertThat(overflow.statusCode()).isEqualTo(400);
+        assertThat(stockOf(keyboard)).isEqualTo(12);
+        assertThat(stockOf(mouse)).isEqualTo(4);
+    }
+
+    @Test
+    void invalidLinesAreRejected() throws Exception {
+        assertThat(post("/stock/decrease", "{\"items\":[]}").statusCode()).isEqualTo(400);
+        assertThat(post("/stock/decrease", items(line(keyboard, 0))).statusCode()).isEqualTo(400);
+        assertThat(stockOf(keyboard)).isEqualTo(10);
+    }
+
+    @Test
+    void stockEndpointsRequireAToken() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/stock/decrease"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(items(line(keyboard, 1))))
+                .build();
+
+        assertThat(client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode()).isIn(401, 403);
+        assertThat(stockOf(keyboard)).isEqualTo(10);
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .header("Authorization", "Bearer " + token())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/products" + path);
+    }
+
+    private int stockOf(Product product) {
+        return productService.getProductById(product.getId()).getStock();
+    }
+
+    private static String items(String... lines) {
+        return "{\"items\":[" + String.join(",", lines) + "]}";
+    }
+
+    private static String line(Product product, int quantity) {
+        return "{\"productId\":" + product.getId() + ",\"quantity\":" + quantity + "}";
+    }
+
+    private String token() {
+        return Jwts.builder()
+                .subject("7")
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}